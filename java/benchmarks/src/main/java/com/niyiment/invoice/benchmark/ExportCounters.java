@@ -0,0 +1,68 @@
+package com.niyiment.invoice.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * Rows and bytes written by the export benchmarks, reported by JMH per second next to the score. The peak
+ * heap of each trial is printed when it ends; it is the sum of the peaks of the heap pools, so an upper bound.
+ */
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+@State(Scope.Thread)
+public class ExportCounters {
+    public long rows;
+    public long bytes;
+
+    private long peakHeap;
+
+    /**
+     * A stream that discards what is written to it and counts the bytes.
+     */
+    OutputStream nullStream() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+                bytes++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                bytes += len;
+            }
+        };
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        rows = 0;
+        bytes = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void recordPeakHeap() {
+        long heap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heap += pool.getPeakUsage().getUsed();
+            }
+        }
+        peakHeap = Math.max(peakHeap, heap);
+    }
+
+    @TearDown(Level.Trial)
+    public void printPeakHeap() {
+        System.out.printf("%nPeak heap: %d MB%n", peakHeap / (1024 * 1024));
+    }
+}
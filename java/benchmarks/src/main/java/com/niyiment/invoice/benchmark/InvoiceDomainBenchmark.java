@@ -0,0 +1,91 @@
+package com.niyiment.invoice.benchmark;
+
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.entity.InvoiceItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The entity operations behind every invoice write, from single-line invoices up to 10,000 items:
+ * recalculating the amounts, adding and removing a line, and comparing and hashing the items.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvoiceDomainBenchmark {
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    private int itemCount;
+
+    private Invoice invoice;
+    private List<InvoiceItem> copies;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        invoice = new Invoice("INV-BENCH-001");
+        invoice.setTaxRate(7.5);
+        copies = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            InvoiceItem item = new InvoiceItem("Consulting line " + i, random.nextInt(1, 20), random.nextLong(1, 100_000));
+            invoice.addItem(item);
+            copies.add(new InvoiceItem(item.getDescription(), item.getQuantity(), item.getUnitPrice()));
+        }
+    }
+
+    @Benchmark
+    public long reCalculateAmount() {
+        invoice.reCalculateAmount();
+        return invoice.getTotalAmount();
+    }
+
+    /**
+     * Appends a line and removes it again by line number, so the invoice size stays constant.
+     */
+    @Benchmark
+    public long addAndRemoveItem() {
+        InvoiceItem item = new InvoiceItem("Added line", 2, 1_999);
+        invoice.addItem(item);
+        invoice.removeItem(item.getLineNumber());
+        return invoice.getTotalAmount();
+    }
+
+    /**
+     * Removes the middle line by value, which compares it with the lines before it, and appends it again.
+     */
+    @Benchmark
+    public long removeItemByValue() {
+        InvoiceItem item = invoice.getItems().get(itemCount / 2);
+        invoice.removeItem(item);
+        invoice.addItem(item);
+        return invoice.getTotalAmount();
+    }
+
+    @Benchmark
+    public boolean itemsEqual() {
+        return invoice.getItems().equals(copies);
+    }
+
+    @Benchmark
+    public int itemsHashCode() {
+        return invoice.getItems().hashCode();
+    }
+}
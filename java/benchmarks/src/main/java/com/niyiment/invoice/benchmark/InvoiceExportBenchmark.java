@@ -0,0 +1,120 @@
+package com.niyiment.invoice.benchmark;
+
+import com.niyiment.invoice.config.ReportRenderingProperties;
+import com.niyiment.invoice.domain.dto.InvoiceDto;
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.entity.InvoiceItem;
+import com.niyiment.invoice.domain.enums.ExportFormat;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.mapper.InvoiceMapper;
+import com.niyiment.invoice.service.InvoiceService;
+import com.niyiment.invoice.service.ReportService;
+import com.niyiment.invoice.service.impl.ReportRenderer;
+import com.niyiment.invoice.service.impl.ReportServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders invoice exports of 1,000 to 1,000,000 line items in each format to a null stream, so that only
+ * rendering is measured. With one item per invoice every line is an invoice; the item-heavy variant packs
+ * the same lines into invoices of 1,000 items, which CSV and Excel write as one row each and PDF writes
+ * as one item table each. The {@code rows} and {@code bytes} counters give the rows and bytes written per
+ * second; run with {@code -prof gc} for the allocation rate.
+ * <p>
+ * The invoices are served by a stub {@link InvoiceService} and repeat a set of 1,000 distinct ones, so the
+ * data set itself stays small. Excel builds the whole workbook in memory; the 1,000,000 row trial needs a
+ * larger heap than the default, e.g. {@code -jvmArgsAppend -Xmx4g}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class InvoiceExportBenchmark {
+    private static final int DISTINCT_INVOICES = 1_000;
+
+    @Param({"CSV", "EXCEL", "PDF"})
+    private ExportFormat format;
+
+    @Param({"1000", "100000", "1000000"})
+    private int lines;
+
+    @Param({"1", "1000"})
+    private int itemsPerInvoice;
+
+    private ReportService reportService;
+    private List<String> invoiceIds;
+    private long rowsPerExport;
+
+    @Setup
+    public void setup() {
+        int invoiceCount = Math.max(lines / itemsPerInvoice, 1);
+        SplittableRandom random = new SplittableRandom(42);
+        InvoiceMapper invoiceMapper = new InvoiceMapper();
+        Map<String, InvoiceDto> invoices = new HashMap<>();
+        for (int i = 0; i < Math.min(invoiceCount, DISTINCT_INVOICES); i++) {
+            Invoice invoice = new Invoice("INV-BENCH-" + i);
+            invoice.setId(Integer.toHexString(0x1000000 + i));
+            invoice.setCustomerName("Customer " + random.nextInt(100));
+            invoice.setCustomerEmail("customer" + i + "@example.com");
+            invoice.setCustomerAddress(i + " Benchmark Street");
+            invoice.setInvoiceDate(LocalDateTime.of(2025, 3, 1, 9, 30).plusHours(i));
+            invoice.setDueDate(LocalDateTime.of(2025, 3, 31, 0, 0).plusHours(i));
+            invoice.setTaxRate(7.5);
+            for (int line = 0; line < itemsPerInvoice; line++) {
+                invoice.addItem(new InvoiceItem("Service line " + line, random.nextInt(1, 20), random.nextLong(1, 100_000)));
+            }
+            invoice.setStatus(InvoiceStatus.SENT);
+            invoices.put(invoice.getId(), invoiceMapper.toDto(invoice));
+        }
+
+        List<String> distinctIds = new ArrayList<>(invoices.keySet());
+        invoiceIds = new ArrayList<>(invoiceCount);
+        for (int i = 0; i < invoiceCount; i++) {
+            invoiceIds.add(distinctIds.get(i % distinctIds.size()));
+        }
+        rowsPerExport = format == ExportFormat.PDF ? (long) invoiceCount * itemsPerInvoice : invoiceCount;
+
+        InvoiceService invoiceService = (InvoiceService) Proxy.newProxyInstance(InvoiceService.class.getClassLoader(),
+                new Class<?>[] {InvoiceService.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getInvoiceById")) {
+                        return invoices.get((String) args[0]);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        reportService = new ReportServiceImpl(invoiceService, new ReportRenderer(new ReportRenderingProperties()),
+                null, new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%n%s export of %d invoices with %d items each%n", format, invoiceIds.size(), itemsPerInvoice);
+    }
+
+    @Benchmark
+    public void export(ExportCounters counters) {
+        reportService.exportInvoices(invoiceIds, format, counters.nullStream());
+        counters.rows += rowsPerExport;
+    }
+}
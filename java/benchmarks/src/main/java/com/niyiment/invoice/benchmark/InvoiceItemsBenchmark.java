@@ -0,0 +1,89 @@
+package com.niyiment.invoice.benchmark;
+
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.entity.InvoiceItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Item maintenance on very large invoices: building line by line, removing and
+ * updating single lines, and the full recompute used for verification.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvoiceItemsBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int itemCount;
+
+    private InvoiceItem[] items;
+    private Invoice invoice;
+    private long middleLine;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        items = new InvoiceItem[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            items[i] = new InvoiceItem("Usage line " + i, random.nextInt(1, 50), random.nextLong(1, 10_000));
+        }
+
+        invoice = new Invoice("INV-BENCH-001");
+        invoice.setTaxRate(7.5);
+        for (InvoiceItem item : items) {
+            invoice.addItem(item);
+        }
+        middleLine = itemCount / 2;
+    }
+
+    @Benchmark
+    public long buildLineByLine() {
+        Invoice built = new Invoice("INV-BENCH-002");
+        built.setTaxRate(7.5);
+        for (InvoiceItem item : items) {
+            built.addItem(new InvoiceItem(item.getDescription(), item.getQuantity(), item.getUnitPrice()));
+        }
+        return built.getTotalAmount();
+    }
+
+    /**
+     * Removes a line from the middle and appends it again so the invoice size stays constant.
+     */
+    @Benchmark
+    public long removeAndAppend() {
+        InvoiceItem removed = invoice.removeItem(middleLine);
+        invoice.addItem(removed);
+        middleLine = invoice.getItems().get(itemCount / 2).getLineNumber();
+        return invoice.getTotalAmount();
+    }
+
+    @Benchmark
+    public long updateLine() {
+        InvoiceItem item = invoice.updateItem(middleLine, 3, 1_999);
+        invoice.updateItem(middleLine, 2, item.getUnitPrice() + 1);
+        return invoice.getTotalAmount();
+    }
+
+    @Benchmark
+    public long fullRecompute() {
+        invoice.reCalculateAmount();
+        return invoice.getTotalAmount();
+    }
+}
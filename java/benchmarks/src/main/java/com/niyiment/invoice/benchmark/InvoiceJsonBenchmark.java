@@ -0,0 +1,121 @@
+package com.niyiment.invoice.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.niyiment.invoice.domain.dto.InvoiceJson;
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.entity.InvoiceItem;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.mapper.InvoiceMapper;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders a stored invoice as response JSON, starting from the bytes MongoDB returns: through the
+ * entity and the DTO, and straight from the raw document. Run with {@code -prof gc} to compare the
+ * allocation per response.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvoiceJsonBenchmark {
+
+    @Param({"100"})
+    private int itemCount;
+
+    private RawBsonDocument stored;
+    private MappingMongoConverter converter;
+    private InvoiceMapper invoiceMapper;
+    private ObjectMapper objectMapper;
+    private DocumentCodec documentCodec;
+    private ByteArrayOutputStream output;
+
+    @Setup
+    public void setup() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        // Same settings as spring.jackson in application.yml
+        objectMapper = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .build();
+        invoiceMapper = new InvoiceMapper();
+        documentCodec = new DocumentCodec();
+        output = new ByteArrayOutputStream(64 * 1024);
+
+        SplittableRandom random = new SplittableRandom(42);
+        Invoice invoice = new Invoice("INV-BENCH-001");
+        invoice.setId(new ObjectId().toHexString());
+        invoice.setCustomerName("Benchmark Customer");
+        invoice.setCustomerEmail("benchmark@example.com");
+        invoice.setCustomerAddress("1 Benchmark Street");
+        invoice.setInvoiceDate(LocalDateTime.of(2025, 3, 1, 9, 30));
+        invoice.setDueDate(LocalDateTime.of(2025, 3, 31, 0, 0));
+        invoice.setTaxRate(7.5);
+        for (int i = 0; i < itemCount; i++) {
+            invoice.addItem(new InvoiceItem("Consulting line " + i, random.nextInt(1, 20), random.nextLong(1, 100_000)));
+        }
+        invoice.setStatus(InvoiceStatus.SENT);
+        invoice.setVersion(1L);
+
+        Document document = new Document();
+        converter.write(invoice, document);
+        stored = new RawBsonDocument(document, documentCodec);
+    }
+
+    /**
+     * The previous read path: the driver decodes a {@link Document}, Spring Data maps the entity,
+     * the mapper builds the DTO and Jackson serializes it.
+     */
+    @Benchmark
+    public int throughDto() throws IOException {
+        output.reset();
+        Invoice invoice = converter.read(Invoice.class, stored.decode(documentCodec));
+        objectMapper.writeValue(output, invoiceMapper.toDto(invoice));
+        return output.size();
+    }
+
+    @Benchmark
+    public int fromRawBson() throws IOException {
+        output.reset();
+        objectMapper.writeValue(output, new InvoiceJson(stored));
+        return output.size();
+    }
+}
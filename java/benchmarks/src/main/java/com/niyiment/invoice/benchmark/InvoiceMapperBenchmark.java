@@ -0,0 +1,116 @@
+package com.niyiment.invoice.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.niyiment.invoice.domain.dto.InvoiceDto;
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.entity.InvoiceItem;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.mapper.InvoiceMapper;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts invoices of 1 to 10,000 items between entity, DTO and request or response JSON, as the
+ * CRUD endpoints do on every call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvoiceMapperBenchmark {
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    private int itemCount;
+
+    private InvoiceMapper invoiceMapper;
+    private ObjectMapper objectMapper;
+    private Invoice invoice;
+    private InvoiceDto dto;
+    private byte[] json;
+    private ByteArrayOutputStream output;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        invoiceMapper = new InvoiceMapper();
+        // Same settings as spring.jackson in application.yml
+        objectMapper = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .build();
+
+        SplittableRandom random = new SplittableRandom(42);
+        invoice = new Invoice("INV-BENCH-001");
+        invoice.setId(new ObjectId().toHexString());
+        invoice.setCustomerName("Benchmark Customer");
+        invoice.setCustomerEmail("benchmark@example.com");
+        invoice.setCustomerAddress("1 Benchmark Street");
+        invoice.setInvoiceDate(LocalDateTime.of(2025, 3, 1, 9, 30));
+        invoice.setDueDate(LocalDateTime.of(2025, 3, 31, 0, 0));
+        invoice.setTaxRate(7.5);
+        for (int i = 0; i < itemCount; i++) {
+            invoice.addItem(new InvoiceItem("Consulting line " + i, random.nextInt(1, 20), random.nextLong(1, 100_000)));
+        }
+        invoice.setStatus(InvoiceStatus.SENT);
+        invoice.setVersion(1L);
+
+        dto = invoiceMapper.toDto(invoice);
+        json = objectMapper.writeValueAsBytes(dto);
+        output = new ByteArrayOutputStream(json.length);
+    }
+
+    @Benchmark
+    public InvoiceDto toDto() {
+        return invoiceMapper.toDto(invoice);
+    }
+
+    @Benchmark
+    public Invoice toEntity() {
+        return invoiceMapper.toEntity(dto);
+    }
+
+    /**
+     * Applies the DTO to the same invoice each time; the result does not change after the first call.
+     */
+    @Benchmark
+    public Invoice updateEntityFromDto() {
+        return invoiceMapper.updateEntityFromDto(invoice, dto);
+    }
+
+    @Benchmark
+    public int serializeDto() throws IOException {
+        output.reset();
+        objectMapper.writeValue(output, dto);
+        return output.size();
+    }
+
+    @Benchmark
+    public InvoiceDto deserializeDto() throws IOException {
+        return objectMapper.readValue(json, InvoiceDto.class);
+    }
+}
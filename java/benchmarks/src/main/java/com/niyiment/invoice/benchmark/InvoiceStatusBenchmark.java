@@ -0,0 +1,37 @@
+package com.niyiment.invoice.benchmark;
+
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks every status transition, as done on each status update and full invoice update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvoiceStatusBenchmark {
+    private final InvoiceStatus[] statuses = InvoiceStatus.values();
+
+    @Benchmark
+    public void canTransitionTo(Blackhole blackhole) {
+        for (InvoiceStatus from : statuses) {
+            for (InvoiceStatus to : statuses) {
+                blackhole.consume(from.canTransitionTo(to));
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.niyiment.invoice.benchmark;
+
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.entity.InvoiceItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares invoice total calculation on minor-unit longs with the previous double
+ * implementation and with a naive BigDecimal implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+    private static final double TAX_RATE = 7.5;
+
+    @Param({"10", "100", "1000"})
+    private int itemCount;
+
+    private Invoice invoice;
+    private double[] doubleAmounts;
+    private BigDecimal[] decimalAmounts;
+    private BigDecimal decimalTaxRate;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<InvoiceItem> items = new ArrayList<>(itemCount);
+        doubleAmounts = new double[itemCount];
+        decimalAmounts = new BigDecimal[itemCount];
+
+        for (int i = 0; i < itemCount; i++) {
+            int quantity = random.nextInt(1, 20);
+            long unitPrice = random.nextLong(1, 100_000);
+            items.add(new InvoiceItem("Item " + i, quantity, unitPrice));
+            doubleAmounts[i] = quantity * (unitPrice / 100.0);
+            decimalAmounts[i] = BigDecimal.valueOf(unitPrice, 2).multiply(BigDecimal.valueOf(quantity));
+        }
+
+        invoice = new Invoice("INV-BENCH-001");
+        invoice.setItems(items);
+        invoice.setTaxRate(TAX_RATE);
+        decimalTaxRate = BigDecimal.valueOf(TAX_RATE);
+    }
+
+    @Benchmark
+    public long minorUnits() {
+        invoice.reCalculateAmount();
+        return invoice.getTotalAmount();
+    }
+
+    /**
+     * The calculation as it was implemented before amounts moved to minor units.
+     */
+    @Benchmark
+    public double legacyDouble() {
+        double subtotal = java.util.Arrays.stream(doubleAmounts).sum();
+        double taxAmount = subtotal * (TAX_RATE / 100);
+        return subtotal + taxAmount;
+    }
+
+    @Benchmark
+    public BigDecimal naiveBigDecimal() {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (BigDecimal amount : decimalAmounts) {
+            subtotal = subtotal.add(amount);
+        }
+        BigDecimal taxAmount = subtotal.multiply(decimalTaxRate)
+                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_EVEN);
+        return subtotal.add(taxAmount);
+    }
+}
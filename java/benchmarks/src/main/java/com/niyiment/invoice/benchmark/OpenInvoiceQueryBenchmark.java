@@ -0,0 +1,181 @@
+package com.niyiment.invoice.benchmark;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.niyiment.invoice.benchmark.dataset.InvoiceDataGenerator;
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.repository.InvoiceSearchCriteria;
+import com.niyiment.invoice.migration.IndexMigration;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the overdue and aging queries against MongoDB with a fixed number of open invoices and a growing
+ * history of settled ones. With the partial index on open invoices their cost follows the open count and
+ * stays flat as the history grows. The previous queries are measured next to them: the {@code $nin} overdue
+ * filter, which cannot use the partial index, and the aging report's read of every invoice.
+ * <p>
+ * Each trial drops and reloads the database named in {@code -Dbenchmark.mongodb.uri}
+ * (default {@code mongodb://localhost:27017/invoice_benchmark}), builds the application's indexes, and prints
+ * the winning index with the keys and documents each query examines. Loading a million settled invoices takes
+ * about a minute; narrow the trials with e.g. {@code -p settledInvoices=10000,100000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class OpenInvoiceQueryBenchmark {
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param({"1000", "10000"})
+    private int openInvoices;
+
+    @Param({"10000", "100000", "1000000"})
+    private int settledInvoices;
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private LocalDateTime now;
+
+    @Setup
+    public void setup() {
+        ConnectionString uri = new ConnectionString(
+                System.getProperty("benchmark.mongodb.uri", "mongodb://localhost:27017/invoice_benchmark"));
+        client = MongoClients.create(uri);
+        mongoTemplate = new MongoTemplate(client, uri.getDatabase() != null ? uri.getDatabase() : "invoice_benchmark");
+        mongoTemplate.getDb().drop();
+        now = LocalDateTime.now();
+
+        load();
+        new IndexMigration(mongoTemplate).migrate();
+        explain("overdue", overdueQuery());
+        explain("aging", agingQuery());
+        explain("overdue with $nin", legacyOverdueQuery());
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+    }
+
+    /**
+     * The filter of {@code findOverdueInvoices} and of overdue searches.
+     */
+    @Benchmark
+    public List<Invoice> overdueInvoices() {
+        return mongoTemplate.find(overdueQuery(), Invoice.class);
+    }
+
+    /**
+     * The query of the aging report.
+     */
+    @Benchmark
+    public List<Invoice> agingInvoices() {
+        return mongoTemplate.find(agingQuery(), Invoice.class);
+    }
+
+    @Benchmark
+    public List<Invoice> legacyOverdueInvoices() {
+        return mongoTemplate.find(legacyOverdueQuery(), Invoice.class);
+    }
+
+    /**
+     * The aging report read every invoice and dropped the settled ones in memory.
+     */
+    @Benchmark
+    public long legacyAgingInvoices() {
+        return mongoTemplate.find(new Query(), Invoice.class).stream()
+                .filter(invoice -> !invoice.getStatus().isFinalState())
+                .count();
+    }
+
+    private Query overdueQuery() {
+        return new Query(new InvoiceSearchCriteria(null, null, null, null, null, null, null, null, now).toCriteria());
+    }
+
+    private Query agingQuery() {
+        return new Query(InvoiceSearchCriteria.open()).with(Sort.by("dueDate"));
+    }
+
+    private Query legacyOverdueQuery() {
+        return new Query(Criteria.where("dueDate").lt(now)
+                .and("status").nin(InvoiceStatus.PAID, InvoiceStatus.CANCELLED));
+    }
+
+    /**
+     * Loads the settled history from the data set generator, then the open invoices, due within 60 days either
+     * side of now.
+     */
+    private void load() {
+        int total = openInvoices + settledInvoices;
+        InvoiceDataGenerator generator = new InvoiceDataGenerator(42, total, now.toLocalDate().minusMonths(3));
+        SplittableRandom random = new SplittableRandom(42);
+        List<Invoice> batch = new ArrayList<>(BATCH_SIZE);
+        for (int index = 0; index < total; index++) {
+            Invoice invoice = generator.generate(index);
+            if (index < settledInvoices) {
+                invoice.setStatus(random.nextInt(10) == 0 ? InvoiceStatus.CANCELLED : InvoiceStatus.PAID);
+            } else {
+                invoice.setDueDate(now.plusDays(random.nextInt(-60, 61)));
+                invoice.setStatus(invoice.getDueDate().isBefore(now) ? InvoiceStatus.OVERDUE : InvoiceStatus.SENT);
+            }
+            batch.add(invoice);
+            if (batch.size() == BATCH_SIZE || index == total - 1) {
+                mongoTemplate.insert(batch, Invoice.class);
+                batch.clear();
+            }
+        }
+    }
+
+    private void explain(String name, Query query) {
+        Document explain = mongoTemplate.getDb().runCommand(new Document("explain",
+                        new Document("find", mongoTemplate.getCollectionName(Invoice.class))
+                                .append("filter", mongoTemplate.getConverter().convertToMongoType(query.getQueryObject()))
+                                .append("sort", query.getSortObject()))
+                .append("verbosity", "executionStats"));
+        Document stats = explain.get("executionStats", Document.class);
+        System.out.printf("%n%s (%,d open, %,d settled): index %s, %,d keys and %,d documents examined for %,d results%n",
+                name, openInvoices, settledInvoices, indexName(explain.get("queryPlanner", Document.class)
+                        .get("winningPlan", Document.class)),
+                stats.get("totalKeysExamined", Number.class).longValue(),
+                stats.get("totalDocsExamined", Number.class).longValue(),
+                stats.get("nReturned", Number.class).longValue());
+    }
+
+    private static String indexName(Document plan) {
+        if (plan.containsKey("indexName")) {
+            return plan.getString("indexName");
+        }
+        Document input = plan.get("inputStage", Document.class);
+        if (input != null) {
+            return indexName(input);
+        }
+        List<Document> inputs = plan.getList("inputStages", Document.class);
+        return inputs != null && !inputs.isEmpty() ? indexName(inputs.get(0)) : plan.getString("stage");
+    }
+}
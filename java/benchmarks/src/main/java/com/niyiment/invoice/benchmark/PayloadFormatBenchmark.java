@@ -0,0 +1,139 @@
+package com.niyiment.invoice.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.MapperBuilder;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.niyiment.invoice.domain.dto.InvoiceDto;
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.entity.InvoiceItem;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.mapper.InvoiceMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes and decodes a page of invoices in each representation the API negotiates: JSON as sent
+ * below the compression threshold, gzip-compressed JSON as sent above it, CBOR and Smile. The encoded
+ * size of each format is printed once per trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadFormatBenchmark {
+    private static final int ITEMS_PER_INVOICE = 5;
+
+    @Param({"json", "json-gzip", "cbor", "smile"})
+    private String format;
+
+    @Param({"500"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private boolean gzip;
+    private PageImpl<InvoiceDto> page;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = switch (format) {
+            case "json", "json-gzip" -> configure(JsonMapper.builder());
+            case "cbor" -> configure(CBORMapper.builder());
+            case "smile" -> configure(SmileMapper.builder());
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+        gzip = format.endsWith("-gzip");
+
+        SplittableRandom random = new SplittableRandom(42);
+        InvoiceMapper invoiceMapper = new InvoiceMapper();
+        List<InvoiceDto> invoices = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Invoice invoice = new Invoice("INV-BENCH-" + i);
+            invoice.setId(Integer.toHexString(0x1000000 + i));
+            invoice.setCustomerName("Customer " + random.nextInt(100));
+            invoice.setCustomerEmail("customer" + i + "@example.com");
+            invoice.setInvoiceDate(LocalDateTime.of(2025, 3, 1, 9, 30).plusHours(i));
+            invoice.setDueDate(LocalDateTime.of(2025, 3, 31, 0, 0).plusHours(i));
+            invoice.setTaxRate(7.5);
+            for (int line = 0; line < ITEMS_PER_INVOICE; line++) {
+                invoice.addItem(new InvoiceItem("Service line " + line, random.nextInt(1, 20), random.nextLong(1, 100_000)));
+            }
+            invoice.setStatus(InvoiceStatus.SENT);
+            invoice.setVersion((long) random.nextInt(10));
+            invoices.add(invoiceMapper.toDto(invoice));
+        }
+        page = new PageImpl<>(invoices, PageRequest.of(0, pageSize), 10_000);
+
+        encoded = encode();
+        System.out.printf("%n%s page of %d invoices: %d bytes%n", format, pageSize, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 * 1024);
+        try (OutputStream output = gzip ? new GZIPOutputStream(bytes) : bytes) {
+            objectMapper.writeValue(output, page);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public PageBody decode() throws IOException {
+        try (InputStream input = gzip
+                ? new GZIPInputStream(new ByteArrayInputStream(encoded))
+                : new ByteArrayInputStream(encoded)) {
+            return objectMapper.readValue(input, PageBody.class);
+        }
+    }
+
+    /**
+     * Same settings as spring.jackson in application.yml.
+     */
+    private static ObjectMapper configure(MapperBuilder<?, ?> builder) {
+        return builder.addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .build();
+    }
+
+    /**
+     * What a client binds a page response to.
+     */
+    public static class PageBody {
+        public List<InvoiceDto> content;
+        public long totalElements;
+    }
+}
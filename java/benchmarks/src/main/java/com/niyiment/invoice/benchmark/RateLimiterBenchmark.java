@@ -0,0 +1,63 @@
+package com.niyiment.invoice.benchmark;
+
+import com.niyiment.invoice.config.RateLimitProperties;
+import com.niyiment.invoice.controller.RateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the rate-limit check each API request pays: looking up the client's bucket and taking tokens
+ * from it, for a single busy client and spread over many clients. The bucket is large enough that requests
+ * are not rejected. Run with {@code -t 4} or more to measure contention on the buckets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "10000"})
+    private int clients;
+
+    private RateLimiter rateLimiter;
+    private String[] keys;
+
+    @Setup
+    public void setup() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setCapacity(Integer.MAX_VALUE / 2);
+        properties.setRefillPerSecond(1_000_000_000);
+        rateLimiter = new RateLimiter(properties);
+
+        SplittableRandom random = new SplittableRandom(42);
+        keys = new String[4096];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "ip:10.0." + (random.nextInt(clients) >> 8) + "." + (random.nextInt(clients) & 0xFF);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Benchmark
+    public boolean tryAcquire(Cursor cursor) {
+        String key = keys[cursor.next++ & (keys.length - 1)];
+        return rateLimiter.tryAcquire(key, 5).allowed();
+    }
+}
@@ -0,0 +1,65 @@
+package com.niyiment.invoice.benchmark;
+
+import com.niyiment.invoice.config.ReportRenderingProperties;
+import com.niyiment.invoice.domain.enums.ExportFormat;
+import com.niyiment.invoice.service.ReportService;
+import com.niyiment.invoice.service.impl.ReportRenderer;
+import com.niyiment.invoice.service.impl.ReportServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders report exports of 1,000 to 1,000,000 category rows in each format to a null stream, the way the
+ * revenue reports are exported. The {@code rows} and {@code bytes} counters give the rows and bytes written
+ * per second; run with {@code -prof gc} for the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ReportExportBenchmark {
+
+    @Param({"CSV", "EXCEL", "PDF"})
+    private ExportFormat format;
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private ReportService reportService;
+    private Map<String, BigDecimal> reportData;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        reportData = new LinkedHashMap<>();
+        for (int i = 0; i < rows; i++) {
+            reportData.put("Customer " + i, BigDecimal.valueOf(random.nextLong(1, 10_000_000), 2));
+        }
+        reportService = new ReportServiceImpl(null, new ReportRenderer(new ReportRenderingProperties()),
+                null, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public void export(ExportCounters counters) {
+        reportService.exportReport(reportData, "Revenue by Customer", format, counters.nullStream());
+        counters.rows += rows;
+    }
+}
@@ -0,0 +1,228 @@
+package com.niyiment.invoice.benchmark.dataset;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.InsertManyOptions;
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.entity.InvoiceItem;
+import com.niyiment.invoice.domain.entity.InvoiceLineItem;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads a data set of {@link InvoiceDataGenerator} invoices into MongoDB.
+ * <p>
+ * Batches of invoices are generated and inserted by parallel workers with unordered {@code insertMany}
+ * calls. Invoices with more items than the external threshold are stored like the service stores them:
+ * the header in the invoice collection and the items in the invoice items collection. Documents are mapped
+ * with the application's entities, so they look exactly like documents written through the API. Indexes
+ * are left to the application, which creates them when it starts. Progress and the final throughput are
+ * printed to standard output.
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.niyiment.invoice.benchmark.dataset.DatasetLoader \
+ *     --size medium --drop
+ * </pre>
+ */
+public final class DatasetLoader {
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(5);
+    private static final String USAGE = """
+            Usage: DatasetLoader [options]
+              --uri <uri>                  MongoDB connection string (mongodb://localhost:27017/invoice_db)
+              --size <size>                smoke, small, medium or large (small)
+              --invoices <count>           number of invoices, instead of a size
+              --seed <seed>                seed of the data set (42)
+              --until <yyyy-MM-dd>         latest invoice date (today)
+              --threads <count>            parallel insert workers (4)
+              --batch-size <count>         documents per insert (1000)
+              --external-threshold <count> items above which they are stored externally (1000)
+              --drop                       drop the invoice collections first""";
+
+    /**
+     * Data set sizes, matching the row counts of the export benchmarks and the load tests.
+     */
+    enum Size {
+        SMOKE(1_000), SMALL(100_000), MEDIUM(1_000_000), LARGE(5_000_000);
+
+        private final long invoices;
+
+        Size(long invoices) {
+            this.invoices = invoices;
+        }
+    }
+
+    private final MongoCollection<Document> invoiceCollection;
+    private final MongoCollection<Document> itemCollection;
+    private final MappingMongoConverter converter;
+    private final InvoiceDataGenerator generator;
+    private final int batchSize;
+    private final int externalThreshold;
+    private final AtomicLong invoicesLoaded = new AtomicLong();
+    private final AtomicLong itemsLoaded = new AtomicLong();
+    private final AtomicLong documentsInserted = new AtomicLong();
+
+    private DatasetLoader(MongoDatabase database, MappingMongoConverter converter, InvoiceDataGenerator generator,
+                          int batchSize, int externalThreshold) {
+        MongoMappingContext mappingContext = (MongoMappingContext) converter.getMappingContext();
+        this.invoiceCollection = database.getCollection(
+                mappingContext.getRequiredPersistentEntity(Invoice.class).getCollection());
+        this.itemCollection = database.getCollection(
+                mappingContext.getRequiredPersistentEntity(InvoiceLineItem.class).getCollection());
+        this.converter = converter;
+        this.generator = generator;
+        this.batchSize = batchSize;
+        this.externalThreshold = externalThreshold;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = parse(args);
+        ConnectionString uri = new ConnectionString(options.getOrDefault("uri", "mongodb://localhost:27017/invoice_db"));
+        long invoices = options.containsKey("invoices")
+                ? Long.parseLong(options.get("invoices"))
+                : Size.valueOf(options.getOrDefault("size", "small").toUpperCase()).invoices;
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        LocalDate until = options.containsKey("until") ? LocalDate.parse(options.get("until")) : LocalDate.now();
+        int threads = Integer.parseInt(options.getOrDefault("threads", "4"));
+        int batchSize = Integer.parseInt(options.getOrDefault("batch-size", "1000"));
+        int externalThreshold = Integer.parseInt(options.getOrDefault("external-threshold", "1000"));
+
+        try (MongoClient client = MongoClients.create(uri)) {
+            MongoDatabase database = client.getDatabase(uri.getDatabase() != null ? uri.getDatabase() : "invoice_db");
+            DatasetLoader loader = new DatasetLoader(database, converter(),
+                    new InvoiceDataGenerator(seed, invoices, until), batchSize, externalThreshold);
+            if (options.containsKey("drop")) {
+                loader.invoiceCollection.drop();
+                loader.itemCollection.drop();
+            }
+            System.out.printf("Loading %,d invoices with seed %d until %s into %s using %d threads%n",
+                    invoices, seed, until, database.getName(), threads);
+            loader.load(invoices, threads);
+        }
+    }
+
+    private void load(long invoices, int threads) throws InterruptedException {
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        long start = System.nanoTime();
+        progress.scheduleAtFixedRate(() -> report("Loaded", start), PROGRESS_INTERVAL.toSeconds(),
+                PROGRESS_INTERVAL.toSeconds(), TimeUnit.SECONDS);
+
+        for (long from = 0; from < invoices && failure.get() == null; from += batchSize) {
+            long batchStart = from;
+            long batchEnd = Math.min(from + batchSize, invoices);
+            workers.execute(() -> {
+                try {
+                    loadBatch(batchStart, batchEnd);
+                } catch (RuntimeException exception) {
+                    failure.compareAndSet(null, exception);
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        progress.shutdownNow();
+
+        if (failure.get() != null) {
+            report("Failed after", start);
+            throw failure.get();
+        }
+        report("Done:", start);
+    }
+
+    private void loadBatch(long from, long to) {
+        List<Document> headers = new ArrayList<>((int) (to - from));
+        List<Document> externalItems = new ArrayList<>();
+        long items = 0;
+        for (long index = from; index < to; index++) {
+            Invoice invoice = generator.generate(index);
+            items += invoice.getItemCount();
+            if (invoice.getItems().size() > externalThreshold) {
+                for (InvoiceItem item : invoice.detachItems()) {
+                    externalItems.add(toDocument(InvoiceLineItem.of(invoice.getId(), item)));
+                    if (externalItems.size() == batchSize) {
+                        insert(itemCollection, externalItems);
+                        externalItems.clear();
+                    }
+                }
+            }
+            headers.add(toDocument(invoice));
+        }
+        insert(itemCollection, externalItems);
+        insert(invoiceCollection, headers);
+        invoicesLoaded.addAndGet(to - from);
+        itemsLoaded.addAndGet(items);
+    }
+
+    private void insert(MongoCollection<Document> collection, List<Document> documents) {
+        if (!documents.isEmpty()) {
+            collection.insertMany(documents, new InsertManyOptions().ordered(false));
+            documentsInserted.addAndGet(documents.size());
+        }
+    }
+
+    private Document toDocument(Object entity) {
+        Document document = new Document();
+        converter.write(entity, document);
+        return document;
+    }
+
+    private void report(String label, long start) {
+        double seconds = Math.max((System.nanoTime() - start) / 1e9, 1e-3);
+        System.out.printf("%s %,d invoices with %,d items in %.1f s: %,.0f invoices/s, %,.0f items/s, %,.0f documents/s%n",
+                label, invoicesLoaded.get(), itemsLoaded.get(), seconds, invoicesLoaded.get() / seconds,
+                itemsLoaded.get() / seconds, documentsInserted.get() / seconds);
+    }
+
+    /**
+     * Maps entities as the application does, without custom conversions.
+     */
+    private static MappingMongoConverter converter() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument " + args[i] + "\n" + USAGE);
+            }
+            String name = args[i].substring(2);
+            if (name.equals("drop")) {
+                options.put(name, "true");
+            } else if (name.equals("help") || i + 1 == args.length) {
+                throw new IllegalArgumentException(USAGE);
+            } else {
+                options.put(name, args[++i]);
+            }
+        }
+        return options;
+    }
+}
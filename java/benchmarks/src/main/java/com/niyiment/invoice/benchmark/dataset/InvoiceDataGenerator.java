@@ -0,0 +1,166 @@
+package com.niyiment.invoice.benchmark.dataset;
+
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.entity.InvoiceItem;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import org.bson.types.ObjectId;
+
+import java.nio.ByteBuffer;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Generates realistic invoices for performance tests.
+ * <p>
+ * Invoice {@code n} depends only on the seed, the index and the end date, so a data set can be generated by
+ * any number of threads in any order and is the same on every run. The distributions are skewed like
+ * production data:
+ * <ul>
+ *   <li>customers are drawn from a Zipf distribution, so a few customers have a large share of invoices;</li>
+ *   <li>invoice dates cover the three years before the end date, weighted towards quarter ends and
+ *       December, and fall on weekdays;</li>
+ *   <li>the item count follows a Pareto distribution between 1 and 5,000: most invoices have a handful of
+ *       items and about one in 4,000 has more than 1,000;</li>
+ *   <li>the status follows from the due date: invoices past due are mostly paid, some overdue or cancelled,
+ *       and the others are sent or still drafts.</li>
+ * </ul>
+ */
+public class InvoiceDataGenerator {
+    public static final int MAX_ITEMS = 5_000;
+
+    private static final double CUSTOMER_SKEW = 1.1;
+    private static final double ITEM_COUNT_SHAPE = 1.2;
+    /** Relative invoice volume per month, January first. */
+    private static final double[] MONTH_WEIGHTS = {0.8, 0.8, 1.2, 0.9, 0.9, 1.2, 0.7, 0.7, 1.2, 1.0, 1.1, 1.5};
+    private static final int[] PAYMENT_TERMS_DAYS = {15, 30, 30, 30, 45, 60};
+    private static final double[] TAX_RATES = {0, 5, 7.5, 7.5, 10, 20};
+    private static final String[] PRODUCTS = {
+            "Consulting", "Support plan", "Software licence", "Hosting", "Storage", "Training", "Installation",
+            "Maintenance", "Hardware", "Data transfer", "Design", "Audit", "Translation", "Delivery", "Insurance"};
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final long seed;
+    private final LocalDate endDate;
+    private final double[] customerWeights;
+    private final double[] monthWeights;
+
+    /**
+     * @param seed the seed of the data set
+     * @param invoiceCount the size of the data set, which determines the number of customers
+     * @param endDate the latest invoice date
+     */
+    public InvoiceDataGenerator(long seed, long invoiceCount, LocalDate endDate) {
+        this.seed = seed;
+        this.endDate = endDate;
+        int customerCount = Math.clamp(invoiceCount / 50, 10, 200_000);
+        this.customerWeights = cumulative(customerCount, rank -> 1 / Math.pow(rank + 1, CUSTOMER_SKEW));
+        this.monthWeights = cumulative(MONTH_WEIGHTS.length, month -> MONTH_WEIGHTS[month]);
+    }
+
+    /**
+     * Generates invoice {@code index} with its items embedded.
+     */
+    public Invoice generate(long index) {
+        SplittableRandom random = new SplittableRandom(mix(seed, index));
+
+        int customer = pick(customerWeights, random);
+        LocalDate invoiceDay = invoiceDay(random);
+        LocalDateTime invoiceDate = invoiceDay.atTime(random.nextInt(8, 18), random.nextInt(60));
+        LocalDateTime dueDate = invoiceDay.plusDays(PAYMENT_TERMS_DAYS[random.nextInt(PAYMENT_TERMS_DAYS.length)])
+                .atStartOfDay();
+
+        Invoice invoice = new Invoice(String.format("INV-%s-%08d", invoiceDay.format(MONTH), index));
+        invoice.setId(objectId(invoiceDate, index).toHexString());
+        invoice.setCustomerName("Customer " + customer);
+        invoice.setCustomerEmail("customer" + customer + "@example.com");
+        invoice.setCustomerAddress((customer % 900 + 1) + " Market Street, Suite " + (customer / 900 + 1));
+        invoice.setInvoiceDate(invoiceDate);
+        invoice.setDueDate(dueDate);
+        invoice.setTaxRate(TAX_RATES[random.nextInt(TAX_RATES.length)]);
+
+        int itemCount = itemCount(random);
+        for (int line = 0; line < itemCount; line++) {
+            int product = random.nextInt(PRODUCTS.length);
+            long unitPrice = (product + 1) * 1_000L + random.nextLong(0, 50_000);
+            int quantity = random.nextDouble() < 0.7 ? 1 : random.nextInt(2, 50);
+            invoice.addItem(new InvoiceItem(PRODUCTS[product] + " " + (line + 1), quantity, unitPrice));
+        }
+
+        invoice.setStatus(status(random, dueDate));
+        if (random.nextInt(10) == 0) {
+            invoice.setNotes("Purchase order PO-" + random.nextInt(100_000, 1_000_000));
+        }
+        invoice.setCreatedAt(invoiceDate);
+        invoice.setUpdatedAt(invoice.getStatus() == InvoiceStatus.DRAFT ? invoiceDate : dueDate.minusDays(1));
+        invoice.setVersion(0L);
+        return invoice;
+    }
+
+    private LocalDate invoiceDay(SplittableRandom random) {
+        int year = endDate.getYear() - random.nextInt(3);
+        int month = pick(monthWeights, random) + 1;
+        LocalDate first = LocalDate.of(year, month, 1);
+        LocalDate day = first.plusDays(random.nextInt(first.lengthOfMonth()));
+        if (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            day = day.minusDays(2);
+        }
+        // Dates after the end of the data set move back a year, keeping the season
+        return day.isAfter(endDate) ? day.minusYears(1) : day;
+    }
+
+    private static int itemCount(SplittableRandom random) {
+        double pareto = Math.pow(1 - random.nextDouble(), -1 / ITEM_COUNT_SHAPE);
+        return (int) Math.min(pareto, MAX_ITEMS);
+    }
+
+    private InvoiceStatus status(SplittableRandom random, LocalDateTime dueDate) {
+        double draw = random.nextDouble();
+        if (dueDate.toLocalDate().isAfter(endDate)) {
+            return draw < 0.1 ? InvoiceStatus.DRAFT : draw < 0.97 ? InvoiceStatus.SENT : InvoiceStatus.CANCELLED;
+        }
+        return draw < 0.8 ? InvoiceStatus.PAID : draw < 0.95 ? InvoiceStatus.OVERDUE : InvoiceStatus.CANCELLED;
+    }
+
+    /**
+     * Builds the id from the invoice date and index instead of the clock and process, so it is the same on
+     * every run and sorts by invoice date like the ids of invoices created through the API.
+     */
+    private static ObjectId objectId(LocalDateTime invoiceDate, long index) {
+        return new ObjectId(ByteBuffer.allocate(12)
+                .putInt((int) invoiceDate.toEpochSecond(ZoneOffset.UTC))
+                .putLong(index)
+                .array());
+    }
+
+    private static int pick(double[] cumulativeWeights, SplittableRandom random) {
+        double draw = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int index = Arrays.binarySearch(cumulativeWeights, draw);
+        return Math.min(index >= 0 ? index + 1 : -index - 1, cumulativeWeights.length - 1);
+    }
+
+    private static double[] cumulative(int size, IntToDoubleFunction weight) {
+        double[] cumulative = new double[size];
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += weight.applyAsDouble(i);
+            cumulative[i] = total;
+        }
+        return cumulative;
+    }
+
+    /**
+     * Derives an independent random seed per invoice (SplitMix64 finaliser).
+     */
+    private static long mix(long seed, long index) {
+        long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,38 @@
+package com.niyiment.invoice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for moving settled invoices to the archive collection.
+ */
+@Data
+@ConfigurationProperties(prefix = "invoice.archive")
+public class ArchiveProperties {
+    /**
+     * Whether this instance runs the archive job; archived invoices are read either way.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Paid and cancelled invoices due longer ago than this are archived.
+     */
+    private Duration minAge = Duration.ofDays(730);
+
+    /**
+     * Number of invoices copied, verified and deleted at a time.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Delay after startup before the first run.
+     */
+    private Duration initialDelay = Duration.ofMinutes(5);
+
+    /**
+     * Time from the end of one run to the start of the next.
+     */
+    private Duration interval = Duration.ofHours(6);
+}
@@ -0,0 +1,71 @@
+package com.niyiment.invoice.config;
+
+import com.niyiment.invoice.domain.enums.ExportFormat;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Capacity of the request bulkheads. Each bulkhead admits a fixed number of concurrent requests and
+ * lets a bounded number wait for a slot; everything beyond that is rejected with {@code 429}.
+ */
+@Data
+@ConfigurationProperties(prefix = "invoice.bulkheads")
+public class BulkheadProperties {
+    /**
+     * Invoice CRUD and search endpoints.
+     */
+    private Limit crud = new Limit(200, 400, Duration.ofSeconds(1));
+
+    /**
+     * Report endpoints that return JSON.
+     */
+    private Limit reports = new Limit(8, 32, Duration.ofSeconds(5));
+
+    private final Exports exports = new Exports();
+
+    /**
+     * Exports, limited per format since PDF and Excel rendering cost far more than CSV.
+     */
+    @Data
+    public static class Exports {
+        private Limit pdf = new Limit(4, 16, Duration.ofSeconds(10));
+        private Limit excel = new Limit(4, 16, Duration.ofSeconds(10));
+        private Limit csv = new Limit(16, 64, Duration.ofSeconds(10));
+
+        public Limit forFormat(ExportFormat format) {
+            return switch (format) {
+                case PDF -> pdf;
+                case EXCEL -> excel;
+                case CSV -> csv;
+            };
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Limit {
+        /**
+         * Requests processed at the same time.
+         */
+        private int maxConcurrent;
+
+        /**
+         * Requests allowed to wait for a slot; further requests are rejected straight away.
+         */
+        private int maxQueued;
+
+        /**
+         * Longest time a queued request waits for a slot before it is rejected.
+         */
+        private Duration maxWait;
+
+        public Limit(int maxConcurrent, int maxQueued, Duration maxWait) {
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueued = maxQueued;
+            this.maxWait = maxWait;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.niyiment.invoice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Time limits for the MongoDB work of a request. Operations still running at the deadline are stopped
+ * by the server and fail with {@code 504 Gateway Timeout}.
+ */
+@Data
+@ConfigurationProperties(prefix = "invoice.deadlines")
+public class DeadlineProperties {
+    /**
+     * Deadline of API requests, counted from when the request is handled.
+     */
+    private Duration request = Duration.ofSeconds(10);
+
+    /**
+     * Deadline of an export, counted from when it starts writing the document.
+     */
+    private Duration export = Duration.ofMinutes(2);
+}
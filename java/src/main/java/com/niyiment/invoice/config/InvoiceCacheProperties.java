@@ -0,0 +1,58 @@
+package com.niyiment.invoice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-process cache of mapped invoices.
+ */
+@Data
+@ConfigurationProperties(prefix = "invoice.cache")
+public class InvoiceCacheProperties {
+    /**
+     * Maximum number of invoices held; the number-to-id index is bounded by the same size.
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Time a mutable (draft, sent or overdue) invoice stays cached after it was loaded.
+     */
+    private Duration mutableTtl = Duration.ofMinutes(5);
+
+    /**
+     * Time a paid or cancelled invoice stays cached after it was loaded.
+     */
+    private Duration finalStateTtl = Duration.ofHours(1);
+
+    private final ChangeStream changeStream = new ChangeStream();
+
+    /**
+     * Cross-node invalidation from a change stream on the invoice collection.
+     */
+    @Data
+    public static class ChangeStream {
+        private boolean enabled = true;
+
+        /**
+         * Key of the resume token persisted for this instance; defaults to the host name.
+         */
+        private String nodeId;
+
+        /**
+         * Maximum time a poll of the change stream waits for events.
+         */
+        private Duration maxAwaitTime = Duration.ofSeconds(1);
+
+        /**
+         * Delay before the change stream is reopened after an error.
+         */
+        private Duration retryDelay = Duration.ofSeconds(5);
+
+        /**
+         * Minimum interval between writes of the resume token.
+         */
+        private Duration tokenPersistInterval = Duration.ofSeconds(10);
+    }
+}
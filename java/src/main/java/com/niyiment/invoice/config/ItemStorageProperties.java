@@ -0,0 +1,21 @@
+package com.niyiment.invoice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for storing line items outside the invoice document.
+ */
+@Data
+@ConfigurationProperties(prefix = "invoice.items")
+public class ItemStorageProperties {
+    /**
+     * Invoices with more items than this keep them in the invoice items collection.
+     */
+    private int externalThreshold = 1000;
+
+    /**
+     * Number of items written per insert when storing items externally.
+     */
+    private int writeBatchSize = 1000;
+}
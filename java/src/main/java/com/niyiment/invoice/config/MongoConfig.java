@@ -0,0 +1,41 @@
+package com.niyiment.invoice.config;
+
+import com.niyiment.invoice.domain.repository.DeadlineExceptionTranslator;
+import com.niyiment.invoice.domain.repository.DeadlineMongoTemplate;
+import com.niyiment.invoice.domain.repository.SlowQueryProfiler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoDatabaseFactorySupport;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+
+/**
+ * Replaces Boot's template so that every MongoDB operation honours the request deadline, see
+ * {@link DeadlineMongoTemplate}. Boot's database factory is kept; it is given the
+ * {@link DeadlineExceptionTranslator}, which the template takes its exception translation from.
+ * <p>
+ * Boot's client reports its commands to the {@link SlowQueryProfiler}.
+ */
+@Configuration
+public class MongoConfig {
+
+    @Bean
+    public DeadlineExceptionTranslator deadlineExceptionTranslator(MeterRegistry meterRegistry) {
+        return new DeadlineExceptionTranslator(meterRegistry);
+    }
+
+    @Bean
+    public MongoTemplate mongoTemplate(MongoDatabaseFactorySupport<?> mongoDatabaseFactory, MongoConverter mongoConverter,
+                                       DeadlineExceptionTranslator exceptionTranslator) {
+        mongoDatabaseFactory.setExceptionTranslator(exceptionTranslator);
+        return new DeadlineMongoTemplate(mongoDatabaseFactory, mongoConverter);
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer slowQueryProfilerCustomizer(SlowQueryProfiler slowQueryProfiler) {
+        return settings -> settings.addCommandListener(slowQueryProfiler);
+    }
+}
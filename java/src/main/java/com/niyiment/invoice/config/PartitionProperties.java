@@ -0,0 +1,26 @@
+package com.niyiment.invoice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for storing invoices in one collection per invoice date year.
+ */
+@Data
+@ConfigurationProperties(prefix = "invoice.partitioning")
+public class PartitionProperties {
+    /**
+     * Whether invoices are stored per year; otherwise they all stay in the invoice collection.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Maximum number of partitions queried at the same time, across all requests.
+     */
+    private int parallelism = 8;
+
+    /**
+     * Number of invoices moved at a time from the invoice collection into the partitions.
+     */
+    private int migrationBatchSize = 1000;
+}
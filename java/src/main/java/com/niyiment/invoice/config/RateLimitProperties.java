@@ -0,0 +1,73 @@
+package com.niyiment.invoice.config;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-client rate limits for the API. Each client, identified by its API key or else its IP address,
+ * has a token bucket; every request takes the weight of the first matching endpoint rule from it.
+ */
+@Data
+@ConfigurationProperties(prefix = "invoice.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+
+    /**
+     * Tokens a bucket holds when full, which is the largest burst a client can send.
+     */
+    private int capacity = 100;
+
+    /**
+     * Tokens added to a bucket per second, which is the sustained request weight a client can send.
+     */
+    private int refillPerSecond = 50;
+
+    /**
+     * Request header carrying the API key; clients without one are limited by IP address.
+     */
+    private String apiKeyHeader = "X-API-Key";
+
+    /**
+     * Time after its last request that a client's bucket is dropped. A dropped bucket comes back full.
+     */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * Maximum number of buckets kept; the least recently used are dropped beyond it.
+     */
+    private long maxClients = 100_000;
+
+    /**
+     * Weight of requests that match no endpoint rule.
+     */
+    private int defaultWeight = 1;
+
+    /**
+     * Endpoint weights, checked in order.
+     */
+    private List<EndpointWeight> endpoints = new ArrayList<>(List.of(
+            new EndpointWeight("/api/invoices/search", 5),
+            new EndpointWeight("/api/reports/**/export*", 10),
+            new EndpointWeight("/api/reports/**", 3)));
+
+    @Data
+    @NoArgsConstructor
+    public static class EndpointWeight {
+        /**
+         * Ant-style path pattern.
+         */
+        private String path;
+
+        private int weight;
+
+        public EndpointWeight(String path, int weight) {
+            this.path = path;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.niyiment.invoice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for Flight Recorder recordings started through {@code /api/admin/recordings}, see
+ * {@link com.niyiment.invoice.service.impl.FlightRecordings}.
+ */
+@Data
+@ConfigurationProperties(prefix = "invoice.recordings")
+public class RecordingProperties {
+    /**
+     * Directory recordings are written to when they end.
+     */
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "invoice-recordings");
+
+    /**
+     * JDK event settings, {@code default} or {@code profile}.
+     */
+    private String settings = "default";
+
+    private Duration defaultDuration = Duration.ofMinutes(1);
+
+    /**
+     * Longest recording that can be requested.
+     */
+    private Duration maxDuration = Duration.ofMinutes(10);
+
+    /**
+     * Recordings listed; older ones are forgotten, their files are kept.
+     */
+    private int history = 20;
+}
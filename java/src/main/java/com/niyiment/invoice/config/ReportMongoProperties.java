@@ -0,0 +1,47 @@
+package com.niyiment.invoice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Connection used by report and export queries. It is a separate client with its own pool, so report
+ * reads neither compete with invoice writes for connections nor, with a secondary read preference, for
+ * the primary.
+ */
+@Data
+@ConfigurationProperties(prefix = "invoice.reports.mongo")
+public class ReportMongoProperties {
+    /**
+     * Connection string for report reads; defaults to the application's MongoDB connection.
+     */
+    private String uri;
+
+    /**
+     * Read preference mode, such as {@code secondaryPreferred}, {@code secondary} or {@code nearest}.
+     */
+    private String readPreference = "secondaryPreferred";
+
+    /**
+     * Largest replication lag of a secondary that may serve report reads; MongoDB requires at least 90
+     * seconds. Not applied to the {@code primary} mode.
+     */
+    private Duration maxStaleness = Duration.ofSeconds(90);
+
+    private final Pool pool = new Pool();
+
+    @Data
+    public static class Pool {
+        private int maxSize = 20;
+
+        private int minSize = 0;
+
+        /**
+         * Longest time a report query waits for a free connection.
+         */
+        private Duration maxWaitTime = Duration.ofSeconds(5);
+
+        private Duration maxConnectionIdleTime = Duration.ofMinutes(5);
+    }
+}
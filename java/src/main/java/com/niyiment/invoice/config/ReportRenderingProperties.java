@@ -0,0 +1,27 @@
+package com.niyiment.invoice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings for the platform threads that render PDF and Excel exports.
+ */
+@Data
+@ConfigurationProperties(prefix = "invoice.reports.rendering")
+public class ReportRenderingProperties {
+    /**
+     * Number of exports rendered at the same time; further exports wait for a thread.
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Size of the chunks handed from a rendering thread to the request thread.
+     */
+    private DataSize chunkSize = DataSize.ofKilobytes(64);
+
+    /**
+     * Chunks buffered per export before rendering waits for the client to read.
+     */
+    private int bufferedChunks = 16;
+}
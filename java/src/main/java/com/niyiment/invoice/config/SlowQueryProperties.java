@@ -0,0 +1,37 @@
+package com.niyiment.invoice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for recording slow MongoDB queries, see {@link com.niyiment.invoice.domain.repository.SlowQueryProfiler}.
+ */
+@Data
+@ConfigurationProperties(prefix = "invoice.slow-queries")
+public class SlowQueryProperties {
+    private boolean enabled = true;
+
+    /**
+     * Queries taking at least this long are recorded.
+     */
+    private Duration threshold = Duration.ofMillis(100);
+
+    /**
+     * Share of slow queries whose plan is explained, between 0 and 1.
+     */
+    private double explainSampleRate = 0.1;
+
+    /**
+     * Slow queries kept; the oldest is dropped when a new one is recorded.
+     */
+    private int capacity = 100;
+
+    /**
+     * Largest command kept while it runs; a slow query above this size is recorded by its name and
+     * collection only, without its shape or plan.
+     */
+    private DataSize maxCommandSize = DataSize.ofKilobytes(16);
+}
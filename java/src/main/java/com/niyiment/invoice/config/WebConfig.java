@@ -0,0 +1,64 @@
+package com.niyiment.invoice.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.niyiment.invoice.controller.BulkheadInterceptor;
+import com.niyiment.invoice.controller.Bulkheads;
+import com.niyiment.invoice.controller.DeadlineInterceptor;
+import com.niyiment.invoice.controller.RateLimitInterceptor;
+import com.niyiment.invoice.controller.RateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+
+/**
+ * Binary JSON encodings for service-to-service clients, selected with {@code Accept: application/cbor}
+ * or {@code Accept: application/x-jackson-smile}.
+ * <p>
+ * Both converters are built from Boot's {@link Jackson2ObjectMapperBuilder}, so the {@code spring.jackson}
+ * settings apply and the representation has the same fields as the JSON one. They replace the converters
+ * Spring MVC would register on its own, which ignore those settings. JSON stays the default when no binary
+ * type is requested.
+ * <p>
+ * API requests are rate limited per client first; invoice CRUD requests then pass through their own
+ * bulkhead, so they keep capacity while report and export bulkheads are saturated. Their MongoDB work is
+ * bounded by the request deadline.
+ */
+@Configuration
+@EnableConfigurationProperties({BulkheadProperties.class, RateLimitProperties.class, DeadlineProperties.class})
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+    private final Bulkheads bulkheads;
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties rateLimitProperties;
+    private final DeadlineProperties deadlineProperties;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (rateLimitProperties.isEnabled()) {
+            registry.addInterceptor(new RateLimitInterceptor(rateLimiter, rateLimitProperties))
+                    .addPathPatterns("/api/**");
+        }
+        registry.addInterceptor(new BulkheadInterceptor(bulkheads.crud()))
+                .addPathPatterns("/api/invoices", "/api/invoices/**");
+        registry.addInterceptor(new DeadlineInterceptor(deadlineProperties.getRequest()))
+                .addPathPatterns("/api/**");
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.createXmlMapper(false).factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.createXmlMapper(false).factory(new SmileFactory()).build());
+    }
+}
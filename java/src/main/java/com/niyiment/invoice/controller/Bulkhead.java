@@ -0,0 +1,134 @@
+package com.niyiment.invoice.controller;
+
+import com.niyiment.invoice.config.BulkheadProperties;
+import com.niyiment.invoice.exception.TooManyRequestsException;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A bounded number of slots with a bounded wait queue in front of them.
+ * <p>
+ * A request that finds no free slot waits, in arrival order, for up to the configured time; when the queue
+ * is already full it is rejected at once. Rejections carry a retry delay estimated from the queue drain rate:
+ * the queue ahead of the caller divided by the slot count, times the moving average of how long a slot is held.
+ */
+public class Bulkhead {
+    private static final Duration MIN_RETRY_AFTER = Duration.ofSeconds(1);
+    private static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(5);
+    private static final double HOLD_TIME_WEIGHT = 0.2;
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Duration maxWait;
+    private final Semaphore slots;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong averageHoldNanos = new AtomicLong();
+
+    public Bulkhead(String name, BulkheadProperties.Limit limit) {
+        this.name = name;
+        this.maxConcurrent = limit.getMaxConcurrent();
+        this.maxQueued = limit.getMaxQueued();
+        this.maxWait = limit.getMaxWait();
+        this.slots = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * Takes a slot, waiting for one if the queue has room.
+     *
+     * @return the slot, to be closed once the request is done
+     * @throws TooManyRequestsException if the queue is full or no slot frees up in time
+     */
+    public Permit acquire() {
+        try {
+            // A timed try honours the fair ordering, so a free slot is not taken from a request already waiting
+            if (slots.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+                return new Permit();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject();
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            throw reject();
+        }
+        try {
+            if (!slots.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw reject();
+            }
+            return new Permit();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject();
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    /**
+     * Estimated time until a request arriving now would get a slot.
+     */
+    public Duration retryAfter() {
+        long holdNanos = averageHoldNanos.get();
+        if (holdNanos == 0 || maxConcurrent == 0) {
+            return maxConcurrent == 0 ? MAX_RETRY_AFTER : MIN_RETRY_AFTER;
+        }
+        double drainNanos = (double) (queued.get() + 1) * holdNanos / maxConcurrent;
+        long seconds = (long) Math.ceil(drainNanos / TimeUnit.SECONDS.toNanos(1));
+        return Duration.ofSeconds(Math.min(Math.max(seconds, MIN_RETRY_AFTER.toSeconds()), MAX_RETRY_AFTER.toSeconds()));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getActive() {
+        return maxConcurrent - slots.availablePermits();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    private TooManyRequestsException reject() {
+        rejected.incrementAndGet();
+        return new TooManyRequestsException("Too many concurrent " + name + " requests, please retry later", retryAfter());
+    }
+
+    private void recordHoldTime(long nanos) {
+        averageHoldNanos.accumulateAndGet(nanos, (average, sample) ->
+                average == 0 ? sample : (long) (average + HOLD_TIME_WEIGHT * (sample - average)));
+    }
+
+    /**
+     * A slot held by one request. Closing it more than once has no further effect.
+     */
+    public final class Permit implements AutoCloseable {
+        private final long acquiredAt = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                recordHoldTime(System.nanoTime() - acquiredAt);
+                slots.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.niyiment.invoice.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+
+/**
+ * Runs each request through a bulkhead, holding the slot until the request completes.
+ */
+public class BulkheadInterceptor implements HandlerInterceptor {
+    private static final String PERMIT_ATTRIBUTE = BulkheadInterceptor.class.getName() + ".permit";
+
+    private final Bulkhead bulkhead;
+
+    public BulkheadInterceptor(Bulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(PERMIT_ATTRIBUTE, bulkhead.acquire());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof Bulkhead.Permit permit) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permit.close();
+        }
+    }
+}
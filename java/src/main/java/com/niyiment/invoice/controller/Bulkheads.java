@@ -0,0 +1,73 @@
+package com.niyiment.invoice.controller;
+
+import com.niyiment.invoice.config.BulkheadProperties;
+import com.niyiment.invoice.domain.enums.ExportFormat;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+
+/**
+ * The bulkheads that keep heavy report traffic from starving invoice CRUD: one for CRUD, one for JSON
+ * reports and one per export format. Each publishes its active, queued and maximum slot counts and its
+ * rejections, tagged with the bulkhead name.
+ */
+@Component
+public class Bulkheads implements MeterBinder {
+    private final Bulkhead crud;
+    private final Bulkhead reports;
+    private final Map<ExportFormat, Bulkhead> exports = new EnumMap<>(ExportFormat.class);
+
+    public Bulkheads(BulkheadProperties properties) {
+        this.crud = new Bulkhead("crud", properties.getCrud());
+        this.reports = new Bulkhead("reports", properties.getReports());
+        for (ExportFormat format : ExportFormat.values()) {
+            exports.put(format, new Bulkhead("export-" + format.name().toLowerCase(Locale.ROOT),
+                    properties.getExports().forFormat(format)));
+        }
+    }
+
+    public Bulkhead crud() {
+        return crud;
+    }
+
+    public Bulkhead reports() {
+        return reports;
+    }
+
+    public Bulkhead export(ExportFormat format) {
+        return exports.get(format);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        List<Bulkhead> all = new ArrayList<>(List.of(crud, reports));
+        all.addAll(exports.values());
+        for (Bulkhead bulkhead : all) {
+            Gauge.builder("invoice.bulkhead.active", bulkhead, Bulkhead::getActive)
+                    .tag("bulkhead", bulkhead.getName())
+                    .description("Requests holding a slot")
+                    .register(registry);
+            Gauge.builder("invoice.bulkhead.queued", bulkhead, Bulkhead::getQueued)
+                    .tag("bulkhead", bulkhead.getName())
+                    .description("Requests waiting for a slot")
+                    .register(registry);
+            Gauge.builder("invoice.bulkhead.limit", bulkhead, Bulkhead::getMaxConcurrent)
+                    .tag("bulkhead", bulkhead.getName())
+                    .description("Configured number of slots")
+                    .register(registry);
+            FunctionCounter.builder("invoice.bulkhead.rejected", bulkhead, Bulkhead::getRejected)
+                    .tag("bulkhead", bulkhead.getName())
+                    .description("Requests rejected with 429")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.niyiment.invoice.controller;
+
+import com.niyiment.invoice.domain.repository.QueryDeadline;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+
+
+/**
+ * Sets the request deadline for the MongoDB work of each request handled on the request thread.
+ */
+public class DeadlineInterceptor implements AsyncHandlerInterceptor {
+    private static final String SCOPE_ATTRIBUTE = DeadlineInterceptor.class.getName() + ".scope";
+
+    private final Duration timeout;
+
+    public DeadlineInterceptor(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(SCOPE_ATTRIBUTE, QueryDeadline.start(timeout));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        close(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        close(request);
+    }
+
+    private static void close(HttpServletRequest request) {
+        if (request.getAttribute(SCOPE_ATTRIBUTE) instanceof QueryDeadline.Scope scope) {
+            scope.close();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.niyiment.invoice.controller;
+
+import com.niyiment.invoice.domain.dto.InvoiceJson;
+import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+
+/**
+ * Strong entity tags for invoice representations, derived from document versions.
+ * <p>
+ * A single invoice is tagged with its id and version, so an invoice deleted and recreated under the same
+ * number does not match the tag of the old one. A list is tagged with a digest of the id and version of
+ * every invoice it contains, plus the paging metadata, so any write to a listed invoice changes the tag.
+ * Responses carry {@code Cache-Control: no-cache}, making clients revalidate with {@code If-None-Match};
+ * Spring answers a matching request with {@code 304 Not Modified} and no body. JSON, CBOR and Smile are
+ * negotiated on the same URL with the same tag, so responses also carry {@code Vary: Accept} to keep
+ * caches from serving one format for another.
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    static String of(String id, Long version) {
+        return "\"" + id + "-v" + (version != null ? version : 0L) + "\"";
+    }
+
+    static String of(Page<InvoiceJson> page) {
+        StringBuilder content = new StringBuilder()
+                .append(page.getNumber()).append('/')
+                .append(page.getSize()).append('/')
+                .append(page.getTotalElements()).append(';');
+        return digest(content, page.getContent());
+    }
+
+    static String of(List<InvoiceJson> invoices) {
+        return digest(new StringBuilder().append(invoices.size()).append(';'), invoices);
+    }
+
+    static <T> ResponseEntity<T> ok(T body, String entityTag) {
+        return ResponseEntity.ok().eTag(entityTag).cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    static <T> ResponseEntity<T> notModified(String entityTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag).cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .build();
+    }
+
+    private static String digest(StringBuilder content, List<InvoiceJson> invoices) {
+        for (InvoiceJson invoice : invoices) {
+            content.append(invoice.getId()).append(':').append(invoice.getVersion()).append(';');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
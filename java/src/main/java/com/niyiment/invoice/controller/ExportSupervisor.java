@@ -0,0 +1,149 @@
+package com.niyiment.invoice.controller;
+
+import com.mongodb.MongoInterruptedException;
+import com.niyiment.invoice.config.DeadlineProperties;
+import com.niyiment.invoice.domain.enums.ExportFormat;
+import com.niyiment.invoice.domain.repository.QueryDeadline;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Runs export bodies under the export deadline, holding their bulkhead slot until they end.
+ * <p>
+ * An export stops as soon as the client disconnects: the failed write, or Spring interrupting the export
+ * thread when the async request errors or times out, aborts rendering and closes the open cursors. Exports
+ * that end this way are counted as {@code invoice.exports.cancelled}. Exports stopped by their deadline are
+ * counted as {@code invoice.exports.timed-out}.
+ * <p>
+ * Every export is timed per format and outcome as {@code invoice.exports.duration}; the size of completed
+ * exports is recorded as {@code invoice.exports.bytes}.
+ */
+@Slf4j
+@Component
+public class ExportSupervisor {
+    private final DeadlineProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    public ExportSupervisor(DeadlineProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        FunctionCounter.builder("invoice.exports.cancelled", cancelled, AtomicLong::get)
+                .description("Exports stopped because the client disconnected")
+                .register(meterRegistry);
+        FunctionCounter.builder("invoice.exports.timed-out", timedOut, AtomicLong::get)
+                .description("Exports stopped at their deadline")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Wraps an export body.
+     *
+     * @param format the format written, for the export metrics
+     * @param permit the export's bulkhead slot, released when the body ends
+     * @param body writes the export
+     */
+    public StreamingResponseBody supervise(ExportFormat format, Bulkhead.Permit permit, StreamingResponseBody body) {
+        return outputStream -> {
+            long start = System.nanoTime();
+            String outcome = "failed";
+            try (permit; QueryDeadline.Scope deadline = QueryDeadline.start(properties.getExport());
+                 CountingOutputStream counted = new CountingOutputStream(outputStream)) {
+                body.writeTo(counted);
+                outcome = "success";
+                DistributionSummary.builder("invoice.exports.bytes")
+                        .description("Size of completed exports")
+                        .baseUnit("bytes")
+                        .tag("format", format.name())
+                        .register(meterRegistry)
+                        .record(counted.count);
+            } catch (IOException | RuntimeException exception) {
+                if (hasCause(exception, QueryTimeoutException.class)) {
+                    outcome = "timed-out";
+                    timedOut.incrementAndGet();
+                    log.warn("Export stopped at its deadline of {}", properties.getExport());
+                } else if (isCancellation(exception)) {
+                    outcome = "cancelled";
+                    cancelled.incrementAndGet();
+                    log.debug("Export cancelled, the client went away");
+                }
+                throw exception;
+            } finally {
+                Timer.builder("invoice.exports.duration")
+                        .description("Time from the start of an export until it ends")
+                        .tag("format", format.name())
+                        .tag("outcome", outcome)
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    private static boolean isCancellation(Throwable exception) {
+        return Thread.currentThread().isInterrupted()
+                || hasCause(exception, IOException.class)
+                || hasCause(exception, InterruptedException.class)
+                || hasCause(exception, MongoInterruptedException.class)
+                || hasCause(exception, CancellationException.class);
+    }
+
+    private static boolean hasCause(Throwable exception, Class<? extends Throwable> type) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    long getCancelled() {
+        return cancelled.get();
+    }
+
+    long getTimedOut() {
+        return timedOut.get();
+    }
+
+    /**
+     * Counts the bytes passed to the response. Closing it only flushes; Spring completes the response.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
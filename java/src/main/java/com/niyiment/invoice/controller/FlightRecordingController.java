@@ -0,0 +1,49 @@
+package com.niyiment.invoice.controller;
+
+import com.niyiment.invoice.service.impl.FlightRecording;
+import com.niyiment.invoice.service.impl.FlightRecordings;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+
+
+/**
+ * REST controller starting Flight Recorder recordings, see {@link FlightRecordings}.
+ */
+@RestController
+@RequestMapping("/api/admin/recordings")
+@Tag(name = "Admin", description = "Operational API")
+@RequiredArgsConstructor
+public class FlightRecordingController {
+    private final FlightRecordings flightRecordings;
+
+    @PostMapping
+    @Operation(summary = "Start a recording, written to local disk when its duration has passed")
+    @ApiResponse(responseCode = "202", description = "Recording started")
+    @ApiResponse(responseCode = "400", description = "Duration out of range")
+    @ApiResponse(responseCode = "429", description = "A recording is already running")
+    public ResponseEntity<FlightRecording> startRecording(
+            @Parameter(description = "ISO-8601 duration, such as PT60S")
+            @RequestParam(required = false) Duration duration) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(flightRecordings.start(duration));
+    }
+
+    @GetMapping
+    @Operation(summary = "List recordings, most recent first")
+    @ApiResponse(responseCode = "200", description = "Recordings returned")
+    public ResponseEntity<List<FlightRecording>> getRecordings() {
+        return ResponseEntity.ok(flightRecordings.getRecordings());
+    }
+}
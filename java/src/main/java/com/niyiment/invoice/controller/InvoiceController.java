@@ -1,9 +1,15 @@
 package com.niyiment.invoice.controller;
 
 
+import com.niyiment.invoice.domain.dto.BulkRecalculationRequest;
+import com.niyiment.invoice.domain.dto.BulkRecalculationResult;
 import com.niyiment.invoice.domain.dto.InvoiceDto;
+import com.niyiment.invoice.domain.dto.InvoiceFilter;
+import com.niyiment.invoice.domain.dto.InvoiceItemDto;
+import com.niyiment.invoice.domain.dto.InvoiceJson;
 import com.niyiment.invoice.domain.dto.StatusUpdateDto;
 import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.repository.InvoiceVersion;
 import com.niyiment.invoice.service.InvoiceService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,22 +18,26 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
 
 /**
  * REST controller for invoice management.
+ * <p>
+ * Single invoices are served from the mapped, cached DTO. List endpoints render the raw documents
+ * returned by MongoDB straight to JSON through {@link InvoiceJson}, with the same representation.
  */
-@Slf4j
 @RestController
 @RequestMapping("/api/invoices")
 @Tag(name = "Invoice", description = "Invoice Management API")
@@ -43,7 +53,6 @@ public class InvoiceController {
             @ApiResponse(responseCode = "409", description = "Invoice number already exists")
     })
     public ResponseEntity<InvoiceDto> createInvoice(@RequestBody InvoiceDto invoiceDto) {
-        log.info("Invoice object: {}", invoiceDto);
         InvoiceDto createdInvoice = invoiceService.createInvoice(invoiceDto);
         return new ResponseEntity<>(createdInvoice, HttpStatus.CREATED);
     }
@@ -56,9 +65,16 @@ public class InvoiceController {
     })
     public ResponseEntity<InvoiceDto> getInvoiceById(
             @Parameter(description = "Invoice ID", required = true)
-            @PathVariable String id) {
+            @PathVariable String id,
+            WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String entityTag = EntityTags.of(id, invoiceService.getInvoiceVersion(id));
+            if (request.checkNotModified(entityTag)) {
+                return EntityTags.notModified(entityTag);
+            }
+        }
         InvoiceDto invoice = invoiceService.getInvoiceById(id);
-        return ResponseEntity.ok(invoice);
+        return EntityTags.ok(invoice, EntityTags.of(invoice.getId(), invoice.getVersion()));
     }
 
     @GetMapping("/number/{invoiceNumber}")
@@ -69,17 +85,39 @@ public class InvoiceController {
     })
     public ResponseEntity<InvoiceDto> getInvoiceByNumber(
             @Parameter(description = "Invoice number", required = true)
-            @PathVariable String invoiceNumber) {
+            @PathVariable String invoiceNumber,
+            WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            InvoiceVersion version = invoiceService.getInvoiceVersionByNumber(invoiceNumber);
+            String entityTag = EntityTags.of(version.getId(), version.getVersion());
+            if (request.checkNotModified(entityTag)) {
+                return EntityTags.notModified(entityTag);
+            }
+        }
         InvoiceDto invoice = invoiceService.getInvoiceByNumber(invoiceNumber);
-        return ResponseEntity.ok(invoice);
+        return EntityTags.ok(invoice, EntityTags.of(invoice.getId(), invoice.getVersion()));
     }
 
     @GetMapping
     @Operation(summary = "Get all invoices with pagination")
     @ApiResponse(responseCode = "200", description = "List of invoices")
-    public ResponseEntity<Page<InvoiceDto>> getAllInvoices(Pageable pageable) {
-        Page<InvoiceDto> invoices = invoiceService.getAllInvoices(pageable);
-        return ResponseEntity.ok(invoices);
+    public ResponseEntity<Page<InvoiceJson>> getAllInvoices(Pageable pageable) {
+        Page<InvoiceJson> invoices = invoiceService.findInvoiceJson(new InvoiceFilter(), pageable);
+        return EntityTags.ok(invoices, EntityTags.of(invoices));
+    }
+
+    @GetMapping("/{id}/items")
+    @Operation(summary = "Get the items of an invoice with pagination, in line order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of invoice items"),
+            @ApiResponse(responseCode = "404", description = "Invoice not found")
+    })
+    public ResponseEntity<Page<InvoiceItemDto>> getInvoiceItems(
+            @Parameter(description = "Invoice ID", required = true)
+            @PathVariable String id,
+            Pageable pageable) {
+        Page<InvoiceItemDto> items = invoiceService.getInvoiceItems(id, pageable);
+        return ResponseEntity.ok(items);
     }
 
     @PutMapping("/{id}")
@@ -130,72 +168,91 @@ public class InvoiceController {
     @GetMapping("/status/{status}")
     @Operation(summary = "Get invoices by status")
     @ApiResponse(responseCode = "200", description = "List of invoices")
-    public ResponseEntity<Page<InvoiceDto>> getInvoicesByStatus(
+    public ResponseEntity<Page<InvoiceJson>> getInvoicesByStatus(
             @Parameter(description = "Invoice status", required = true)
             @PathVariable InvoiceStatus status,
             Pageable pageable) {
-        Page<InvoiceDto> invoices = invoiceService.getInvoicesByStatus(status, pageable);
-        return ResponseEntity.ok(invoices);
+        InvoiceFilter filter = new InvoiceFilter();
+        filter.setStatus(status);
+        Page<InvoiceJson> invoices = invoiceService.findInvoiceJson(filter, pageable);
+        return EntityTags.ok(invoices, EntityTags.of(invoices));
     }
 
     @GetMapping("/amount-greater/{amount}")
     @Operation(summary = "Get invoices greater than or equal to the given amount ")
     @ApiResponse(responseCode = "200", description = "List of invoices")
-    public ResponseEntity<Page<InvoiceDto>> getInvoicesByTotalAmountGreaterThanEquals(
+    public ResponseEntity<Page<InvoiceJson>> getInvoicesByTotalAmountGreaterThanEquals(
             @Parameter(description = "Invoice status", required = true)
-            @PathVariable Double amount, Pageable pageable) {
-        Page<InvoiceDto> invoices = invoiceService.getInvoicesByTotalAmountGreaterThanEquals(amount, pageable);
-
-        return ResponseEntity.ok(invoices);
+            @PathVariable BigDecimal amount,
+            @Parameter(description = "ISO 4217 currency of the amount, the default currency if absent")
+            @RequestParam(required = false) String currency,
+            Pageable pageable) {
+        InvoiceFilter filter = new InvoiceFilter();
+        filter.setCurrency(currency);
+        filter.setMinAmount(amount);
+        Page<InvoiceJson> invoices = invoiceService.findInvoiceJson(filter, pageable);
+        return EntityTags.ok(invoices, EntityTags.of(invoices));
     }
 
     @GetMapping("/amount-less/{amount}")
     @Operation(summary = "Get invoices less than or equal to the given amount ")
     @ApiResponse(responseCode = "200", description = "List of invoices")
-    public ResponseEntity<Page<InvoiceDto>> getInvoicesByTotalAmountLessThanEquals(
+    public ResponseEntity<Page<InvoiceJson>> getInvoicesByTotalAmountLessThanEquals(
             @Parameter(description = "Invoice status", required = true)
-            @PathVariable Double amount, Pageable pageable) {
-        Page<InvoiceDto> invoices = invoiceService.getInvoicesByTotalAmountLessThanEquals(amount, pageable);
-
-        return ResponseEntity.ok(invoices);
+            @PathVariable BigDecimal amount,
+            @Parameter(description = "ISO 4217 currency of the amount, the default currency if absent")
+            @RequestParam(required = false) String currency,
+            Pageable pageable) {
+        InvoiceFilter filter = new InvoiceFilter();
+        filter.setCurrency(currency);
+        filter.setMaxAmount(amount);
+        Page<InvoiceJson> invoices = invoiceService.findInvoiceJson(filter, pageable);
+        return EntityTags.ok(invoices, EntityTags.of(invoices));
     }
 
     @GetMapping("/customer/{customerEmail}")
     @Operation(summary = "Get invoices by customer email")
     @ApiResponse(responseCode = "200", description = "List of invoices")
-    public ResponseEntity<Page<InvoiceDto>> getInvoiceByCustomerEmail(
+    public ResponseEntity<Page<InvoiceJson>> getInvoiceByCustomerEmail(
             @Parameter(description = "Customer email", required = true)
             @PathVariable String customerEmail,
             Pageable pageable) {
-        Page<InvoiceDto> invoices = invoiceService.getInvoiceByCustomerEmail(customerEmail, pageable);
-        return ResponseEntity.ok(invoices);
+        InvoiceFilter filter = new InvoiceFilter();
+        filter.setCustomerEmail(customerEmail);
+        Page<InvoiceJson> invoices = invoiceService.findInvoiceJson(filter, pageable);
+        return EntityTags.ok(invoices, EntityTags.of(invoices));
     }
 
     @GetMapping("/due-date")
     @Operation(summary = "Get invoices by due date range")
     @ApiResponse(responseCode = "200", description = "List of invoices")
-    public ResponseEntity<Page<InvoiceDto>> getInvoicesByDueDateRange(
+    public ResponseEntity<Page<InvoiceJson>> getInvoicesByDueDateRange(
             @Parameter(description = "Start date (yyyy-MM-dd'T'HH:mm:ss)", required = true)
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @Parameter(description = "End date (yyyy-MM-dd'T'HH:mm:ss)", required = true)
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
             Pageable pageable) {
-        Page<InvoiceDto> invoices = invoiceService.getInvoicesByDueDateRange(startDate, endDate, pageable);
-        return ResponseEntity.ok(invoices);
+        InvoiceFilter filter = new InvoiceFilter();
+        filter.setStartDate(startDate);
+        filter.setEndDate(endDate);
+        Page<InvoiceJson> invoices = invoiceService.findInvoiceJson(filter, pageable);
+        return EntityTags.ok(invoices, EntityTags.of(invoices));
     }
 
     @GetMapping("/overdue")
     @Operation(summary = "Get overdue invoices")
     @ApiResponse(responseCode = "200", description = "List of overdue invoices")
-    public ResponseEntity<Page<InvoiceDto>> getOverdueInvoices(Pageable pageable) {
-        Page<InvoiceDto> invoices = invoiceService.getOverdueInvoices(pageable);
-        return ResponseEntity.ok(invoices);
+    public ResponseEntity<Page<InvoiceJson>> getOverdueInvoices(Pageable pageable) {
+        InvoiceFilter filter = new InvoiceFilter();
+        filter.setOverdue(true);
+        Page<InvoiceJson> invoices = invoiceService.findInvoiceJson(filter, pageable);
+        return EntityTags.ok(invoices, EntityTags.of(invoices));
     }
 
     @GetMapping("/search")
     @Operation(summary = "Advanced search with multiple filters")
     @ApiResponse(responseCode = "200", description = "List of matching invoices")
-    public ResponseEntity<List<InvoiceDto>> advancedSearch(
+    public ResponseEntity<List<InvoiceJson>> advancedSearch(
             @Parameter(description = "Client name (partial match)")
             @RequestParam(required = false) String clientName,
             @Parameter(description = "Invoice status")
@@ -205,11 +262,33 @@ public class InvoiceController {
             @Parameter(description = "End date (yyyy-MM-dd'T'HH:mm:ss)")
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
             @Parameter(description = "Minimum total amount")
-            @RequestParam(required = false) Double minAmount,
+            @RequestParam(required = false) BigDecimal minAmount,
             @Parameter(description = "Maximum total amount")
-            @RequestParam(required = false) Double maxAmount) {
-        List<InvoiceDto> invoices = invoiceService.advancedSearch(clientName, status, startDate, endDate, minAmount, maxAmount);
-        return ResponseEntity.ok(invoices);
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @Parameter(description = "ISO 4217 currency; amounts are in it, the default currency if absent")
+            @RequestParam(required = false) String currency) {
+        InvoiceFilter filter = new InvoiceFilter();
+        filter.setClientName(clientName);
+        filter.setStatus(status);
+        filter.setStartDate(startDate);
+        filter.setEndDate(endDate);
+        filter.setCurrency(currency);
+        filter.setMinAmount(minAmount);
+        filter.setMaxAmount(maxAmount);
+        List<InvoiceJson> invoices = invoiceService.findInvoiceJson(filter);
+        return EntityTags.ok(invoices, EntityTags.of(invoices));
+    }
+
+    @PostMapping("/bulk-recalculation")
+    @Operation(summary = "Apply a tax rate or unit price adjustment to matching open invoices")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Recalculation applied, or previewed for a dry run"),
+            @ApiResponse(responseCode = "400", description = "Invalid adjustment or final-state filter")
+    })
+    public ResponseEntity<BulkRecalculationResult> bulkRecalculate(
+            @Valid @RequestBody BulkRecalculationRequest request) {
+        BulkRecalculationResult result = invoiceService.bulkRecalculate(request);
+        return ResponseEntity.ok(result);
     }
 
     @GetMapping("/generate-number")
@@ -0,0 +1,74 @@
+package com.niyiment.invoice.controller;
+
+import com.niyiment.invoice.config.RateLimitProperties;
+import com.niyiment.invoice.exception.TooManyRequestsException;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Applies the {@link RateLimiter} to each request and reports the client's bucket in the
+ * {@code RateLimit-Limit}, {@code RateLimit-Remaining} and {@code RateLimit-Reset} headers. Requests over
+ * the limit are rejected with {@code 429} and a {@code Retry-After} header. Streamed exports are dispatched a
+ * second time when their body completes; only the initial dispatch is charged. Clients without an API key are
+ * keyed by their address, which behind the load balancer is the one it forwards in {@code X-Forwarded-For}.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final RateLimiter rateLimiter;
+    private final String apiKeyHeader;
+    private final int defaultWeight;
+    private final List<RateLimitProperties.EndpointWeight> endpoints;
+
+    public RateLimitInterceptor(RateLimiter rateLimiter, RateLimitProperties properties) {
+        this.rateLimiter = rateLimiter;
+        this.apiKeyHeader = properties.getApiKeyHeader();
+        this.defaultWeight = properties.getDefaultWeight();
+        this.endpoints = List.copyOf(properties.getEndpoints());
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        RateLimiter.Decision decision = rateLimiter.tryAcquire(clientKey(request), weight(request.getRequestURI()));
+
+        response.setHeader("RateLimit-Limit", Integer.toString(decision.limit()));
+        response.setHeader("RateLimit-Remaining", Long.toString(decision.remaining()));
+        response.setHeader("RateLimit-Reset", Long.toString(seconds(decision.resetNanos())));
+        if (!decision.allowed()) {
+            throw new TooManyRequestsException("Rate limit exceeded, please retry later",
+                    Duration.ofSeconds(Math.max(seconds(decision.retryAfterNanos()), 1)));
+        }
+        return true;
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        String apiKey = request.getHeader(apiKeyHeader);
+        return StringUtils.hasText(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+
+    private int weight(String path) {
+        for (RateLimitProperties.EndpointWeight endpoint : endpoints) {
+            if (PATH_MATCHER.match(endpoint.getPath(), path)) {
+                return endpoint.getWeight();
+            }
+        }
+        return defaultWeight;
+    }
+
+    private static long seconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
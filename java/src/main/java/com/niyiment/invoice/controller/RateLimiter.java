@@ -0,0 +1,118 @@
+package com.niyiment.invoice.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.niyiment.invoice.config.RateLimitProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Token buckets keyed by client.
+ * <p>
+ * A bucket is a single {@link AtomicLong} holding the time at which it will be full again; taking tokens
+ * moves that time forward by their refill time with a compare-and-set, so there is no lock and nothing to
+ * refill in the background. The request is allowed when the bucket would not run below empty, that is when
+ * the new full time lies no more than a full bucket's refill time ahead. Buckets live in a Caffeine cache
+ * that drops them after the idle timeout and beyond the configured number of clients.
+ */
+@Component
+public class RateLimiter implements MeterBinder {
+    private final Cache<String, TokenBucket> buckets;
+    private final LongSupplier nanoTime;
+    private final int capacity;
+    private final long refillNanos;
+    private final long fullRefillNanos;
+    private final LongAdder rejected = new LongAdder();
+
+    @Autowired
+    public RateLimiter(RateLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    RateLimiter(RateLimitProperties properties, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        this.capacity = properties.getCapacity();
+        this.refillNanos = TimeUnit.SECONDS.toNanos(1) / properties.getRefillPerSecond();
+        this.fullRefillNanos = refillNanos * capacity;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .build();
+    }
+
+    /**
+     * Takes tokens from a client's bucket.
+     *
+     * @param client the client key
+     * @param weight tokens the request costs; capped at the bucket capacity
+     * @return whether the request is allowed, with the bucket state for the rate-limit headers
+     */
+    public Decision tryAcquire(String client, int weight) {
+        long now = nanoTime.getAsLong();
+        TokenBucket bucket = buckets.get(client, key -> new TokenBucket(now));
+        long cost = Math.min(Math.max(weight, 0), capacity) * refillNanos;
+
+        AtomicLong fullAt = bucket.fullAt;
+        while (true) {
+            long current = fullAt.get();
+            long start = current - now > 0 ? current : now;
+            long next = start + cost;
+            long ahead = next - now;
+            if (ahead > fullRefillNanos) {
+                rejected.increment();
+                return new Decision(false, capacity, remaining(start - now), start - now, ahead - fullRefillNanos);
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return new Decision(true, capacity, remaining(ahead), ahead, 0);
+            }
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private long remaining(long aheadNanos) {
+        return (fullRefillNanos - aheadNanos) / refillNanos;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("invoice.ratelimit.clients", buckets, Cache::estimatedSize)
+                .description("Clients with a token bucket")
+                .register(registry);
+        FunctionCounter.builder("invoice.ratelimit.rejected", rejected, LongAdder::sum)
+                .description("Requests rejected with 429 by the rate limiter")
+                .register(registry);
+    }
+
+    /**
+     * Outcome of {@link #tryAcquire}.
+     *
+     * @param allowed whether the tokens were taken
+     * @param limit tokens in a full bucket
+     * @param remaining tokens left in the bucket
+     * @param resetNanos time until the bucket is full again
+     * @param retryAfterNanos for a rejected request, time until enough tokens are available
+     */
+    public record Decision(boolean allowed, int limit, long remaining, long resetNanos, long retryAfterNanos) {
+    }
+
+    private static final class TokenBucket {
+        private final AtomicLong fullAt;
+
+        private TokenBucket(long now) {
+            this.fullAt = new AtomicLong(now);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.niyiment.invoice.controller;
 
 import com.niyiment.invoice.domain.enums.ExportFormat;
 import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.money.Money;
+import com.niyiment.invoice.exception.BadRequestException;
 import com.niyiment.invoice.service.ReportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -16,15 +18,22 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Currency;
 import java.util.List;
 import java.util.Map;
 
 
 /**
  * REST controller for reporting and exporting functionality.
+ * <p>
+ * Exports take a slot in the bulkhead of their format before the response starts and hold it until the
+ * document is written; JSON reports share the reports bulkhead. Requests beyond a bulkhead's queue are
+ * answered with {@code 429 Too Many Requests}. Exports run under the export deadline and stop when the client
+ * disconnects, see {@link ExportSupervisor}.
  */
 @RestController
 @RequestMapping("/api/reports")
@@ -32,6 +41,8 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class ReportController {
     private final ReportService reportService;
+    private final Bulkheads bulkheads;
+    private final ExportSupervisor exportSupervisor;
     
     
     @GetMapping("/invoice/{id}/export")
@@ -46,9 +57,10 @@ public class ReportController {
             @Parameter(description = "Export format (PDF, CSV, EXCEL)", required = true)
             @RequestParam ExportFormat format) {
         
-        StreamingResponseBody responseBody = outputStream -> {
+        Bulkhead.Permit permit = bulkheads.export(format).acquire();
+        StreamingResponseBody responseBody = exportSupervisor.supervise(format, permit, outputStream -> {
             reportService.exportInvoice(id, format, outputStream);
-        };
+        });
         
         return ResponseEntity.ok()
                 .headers(getExportHeaders("invoice_" + id, format))
@@ -65,9 +77,10 @@ public class ReportController {
             @Parameter(description = "Export format (PDF, CSV, EXCEL)", required = true)
             @RequestParam ExportFormat format) {
         
-        StreamingResponseBody responseBody = outputStream -> {
+        Bulkhead.Permit permit = bulkheads.export(format).acquire();
+        StreamingResponseBody responseBody = exportSupervisor.supervise(format, permit, outputStream -> {
             reportService.exportInvoices(invoiceIds, format, outputStream);
-        };
+        });
         
         return ResponseEntity.ok()
                 .headers(getExportHeaders("invoices", format))
@@ -94,9 +107,10 @@ public class ReportController {
         LocalDateTime startDateTime = startDate != null ? startDate.atStartOfDay() : null;
         LocalDateTime endDateTime = endDate != null ? endDate.atTime(LocalTime.MAX) : null;
         
-        StreamingResponseBody responseBody = outputStream -> {
+        Bulkhead.Permit permit = bulkheads.export(format).acquire();
+        StreamingResponseBody responseBody = exportSupervisor.supervise(format, permit, outputStream -> {
             reportService.exportInvoicesWithCriteria(customerName, status, startDateTime, endDateTime, format, outputStream);
-        };
+        });
         
         return ResponseEntity.ok()
                 .headers(getExportHeaders("invoices_report", format))
@@ -107,18 +121,24 @@ public class ReportController {
     @GetMapping("/revenue/by-customer")
     @Operation(summary = "Generate revenue report by customer")
     @ApiResponse(responseCode = "200", description = "Report generated successfully")
-    public ResponseEntity<Map<String, Double>> getRevenueReportByCustomer(
+    public ResponseEntity<Map<String, BigDecimal>> getRevenueReportByCustomer(
             @Parameter(description = "Start date (yyyy-MM-dd)")
             @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
             @Parameter(description = "End date (yyyy-MM-dd)")
-            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) {
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @Parameter(description = "ISO 4217 currency of the invoices to total, the default currency if absent")
+            @RequestParam(required = false) String currency) {
         
         // Convert LocalDate to LocalDateTime
         LocalDateTime startDateTime = startDate.atStartOfDay();
         LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
+        Currency reportCurrency = reportCurrency(currency);
         
-        Map<String, Double> report = reportService.generateRevenueReportByCustomer(startDateTime, endDateTime);
-        return ResponseEntity.ok(report);
+        try (Bulkhead.Permit permit = bulkheads.reports().acquire()) {
+            Map<String, BigDecimal> report = reportService.generateRevenueReportByCustomer(startDateTime, endDateTime,
+                    reportCurrency);
+            return ResponseEntity.ok(report);
+        }
     }
     
     @GetMapping("/revenue/by-customer/export")
@@ -130,17 +150,23 @@ public class ReportController {
             @Parameter(description = "End date (yyyy-MM-dd)")
             @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
             @Parameter(description = "Export format (PDF, CSV, EXCEL)", required = true)
-            @RequestParam ExportFormat format) {
+            @RequestParam ExportFormat format,
+            @Parameter(description = "ISO 4217 currency of the invoices to total, the default currency if absent")
+            @RequestParam(required = false) String currency) {
         
         // Convert LocalDate to LocalDateTime
         LocalDateTime startDateTime = startDate.atStartOfDay();
         LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
+        Currency reportCurrency = reportCurrency(currency);
         
-        StreamingResponseBody responseBody = outputStream -> {
-            Map<String, Double> report = reportService.generateRevenueReportByCustomer(startDateTime, endDateTime);
-            String title = "Revenue Report by Customer (" + startDate + " to " + endDate + ")";
+        Bulkhead.Permit permit = bulkheads.export(format).acquire();
+        StreamingResponseBody responseBody = exportSupervisor.supervise(format, permit, outputStream -> {
+            Map<String, BigDecimal> report = reportService.generateRevenueReportByCustomer(startDateTime, endDateTime,
+                    reportCurrency);
+            String title = "Revenue Report by Customer (" + startDate + " to " + endDate + ", "
+                    + reportCurrency.getCurrencyCode() + ")";
             reportService.exportReport(report, title, format, outputStream);
-        };
+        });
         
         return ResponseEntity.ok()
                 .headers(getExportHeaders("revenue_by_customer", format))
@@ -151,12 +177,17 @@ public class ReportController {
     @GetMapping("/revenue/by-month")
     @Operation(summary = "Generate revenue report by month")
     @ApiResponse(responseCode = "200", description = "Report generated successfully")
-    public ResponseEntity<Map<String, Double>> getRevenueReportByMonth(
+    public ResponseEntity<Map<String, BigDecimal>> getRevenueReportByMonth(
             @Parameter(description = "Year", required = true)
-            @RequestParam int year) {
+            @RequestParam int year,
+            @Parameter(description = "ISO 4217 currency of the invoices to total, the default currency if absent")
+            @RequestParam(required = false) String currency) {
         
-        Map<String, Double> report = reportService.generateRevenueReportByMonth(year);
-        return ResponseEntity.ok(report);
+        Currency reportCurrency = reportCurrency(currency);
+        try (Bulkhead.Permit permit = bulkheads.reports().acquire()) {
+            Map<String, BigDecimal> report = reportService.generateRevenueReportByMonth(year, reportCurrency);
+            return ResponseEntity.ok(report);
+        }
     }
     
     @GetMapping("/revenue/by-month/export")
@@ -166,13 +197,17 @@ public class ReportController {
             @Parameter(description = "Year", required = true)
             @RequestParam int year,
             @Parameter(description = "Export format (PDF, CSV, EXCEL)", required = true)
-            @RequestParam ExportFormat format) {
+            @RequestParam ExportFormat format,
+            @Parameter(description = "ISO 4217 currency of the invoices to total, the default currency if absent")
+            @RequestParam(required = false) String currency) {
         
-        StreamingResponseBody responseBody = outputStream -> {
-            Map<String, Double> report = reportService.generateRevenueReportByMonth(year);
-            String title = "Revenue Report by Month (" + year + ")";
+        Currency reportCurrency = reportCurrency(currency);
+        Bulkhead.Permit permit = bulkheads.export(format).acquire();
+        StreamingResponseBody responseBody = exportSupervisor.supervise(format, permit, outputStream -> {
+            Map<String, BigDecimal> report = reportService.generateRevenueReportByMonth(year, reportCurrency);
+            String title = "Revenue Report by Month (" + year + ", " + reportCurrency.getCurrencyCode() + ")";
             reportService.exportReport(report, title, format, outputStream);
-        };
+        });
         
         return ResponseEntity.ok()
                 .headers(getExportHeaders("revenue_by_month_" + year, format))
@@ -183,9 +218,14 @@ public class ReportController {
     @GetMapping("/aging")
     @Operation(summary = "Generate aging report")
     @ApiResponse(responseCode = "200", description = "Report generated successfully")
-    public ResponseEntity<Map<String, Double>> getAgingReport() {
-        Map<String, Double> report = reportService.generateAgingReport();
-        return ResponseEntity.ok(report);
+    public ResponseEntity<Map<String, BigDecimal>> getAgingReport(
+            @Parameter(description = "ISO 4217 currency of the invoices to total, the default currency if absent")
+            @RequestParam(required = false) String currency) {
+        Currency reportCurrency = reportCurrency(currency);
+        try (Bulkhead.Permit permit = bulkheads.reports().acquire()) {
+            Map<String, BigDecimal> report = reportService.generateAgingReport(reportCurrency);
+            return ResponseEntity.ok(report);
+        }
     }
     
     @GetMapping("/aging/export")
@@ -193,13 +233,17 @@ public class ReportController {
     @ApiResponse(responseCode = "200", description = "Report exported successfully")
     public ResponseEntity<StreamingResponseBody> exportAgingReport(
             @Parameter(description = "Export format (PDF, CSV, EXCEL)", required = true)
-            @RequestParam ExportFormat format) {
+            @RequestParam ExportFormat format,
+            @Parameter(description = "ISO 4217 currency of the invoices to total, the default currency if absent")
+            @RequestParam(required = false) String currency) {
 
-        StreamingResponseBody responseBody = outputStream -> {
-            Map<String, Double> report = reportService.generateAgingReport();
-            String title = "Accounts Receivable Aging Report";
+        Currency reportCurrency = reportCurrency(currency);
+        Bulkhead.Permit permit = bulkheads.export(format).acquire();
+        StreamingResponseBody responseBody = exportSupervisor.supervise(format, permit, outputStream -> {
+            Map<String, BigDecimal> report = reportService.generateAgingReport(reportCurrency);
+            String title = "Accounts Receivable Aging Report (" + reportCurrency.getCurrencyCode() + ")";
             reportService.exportReport(report, title, format, outputStream);
-        };
+        });
 
         return ResponseEntity.ok()
                 .headers(getExportHeaders("aging_report", format))
@@ -211,8 +255,10 @@ public class ReportController {
     @Operation(summary = "Generate invoices by status report")
     @ApiResponse(responseCode = "200", description = "Report generated successfully")
     public ResponseEntity<Map<InvoiceStatus, Long>> getInvoicesByStatusReport() {
-        Map<InvoiceStatus, Long> report = reportService.generateInvoicesByStatusReport();
-        return ResponseEntity.ok(report);
+        try (Bulkhead.Permit permit = bulkheads.reports().acquire()) {
+            Map<InvoiceStatus, Long> report = reportService.generateInvoicesByStatusReport();
+            return ResponseEntity.ok(report);
+        }
     }
     
     @GetMapping("/status/export")
@@ -222,11 +268,12 @@ public class ReportController {
             @Parameter(description = "Export format (PDF, CSV, EXCEL)", required = true)
             @RequestParam ExportFormat format) {
         
-        StreamingResponseBody responseBody = outputStream -> {
+        Bulkhead.Permit permit = bulkheads.export(format).acquire();
+        StreamingResponseBody responseBody = exportSupervisor.supervise(format, permit, outputStream -> {
             Map<InvoiceStatus, Long> report = reportService.generateInvoicesByStatusReport();
             String title = "Invoices by Status Report";
             reportService.exportReport(report, title, format, outputStream);
-        };
+        });
         
         return ResponseEntity.ok()
                 .headers(getExportHeaders("invoices_by_status", format))
@@ -287,4 +334,18 @@ public class ReportController {
                 return "";
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Resolves the currency a monetary report totals; reports never add amounts of different currencies.
+     *
+     * @param currencyCode ISO 4217 code, or null for the default currency
+     * @return The resolved currency
+     */
+    private Currency reportCurrency(String currencyCode) {
+        try {
+            return Money.currencyOf(currencyCode);
+        } catch (IllegalArgumentException exception) {
+            throw new BadRequestException("Unsupported currency: " + currencyCode, exception);
+        }
+    }
+}
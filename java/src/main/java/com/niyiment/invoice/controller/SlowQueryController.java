@@ -0,0 +1,42 @@
+package com.niyiment.invoice.controller;
+
+import com.niyiment.invoice.domain.repository.SlowQuery;
+import com.niyiment.invoice.domain.repository.SlowQueryProfiler;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+
+/**
+ * REST controller exposing the MongoDB queries recorded by the {@link SlowQueryProfiler}.
+ */
+@RestController
+@RequestMapping("/api/admin/slow-queries")
+@Tag(name = "Admin", description = "Operational API")
+@RequiredArgsConstructor
+public class SlowQueryController {
+    private final SlowQueryProfiler slowQueryProfiler;
+
+    @GetMapping
+    @Operation(summary = "List recent slow queries, most recent first")
+    @ApiResponse(responseCode = "200", description = "Slow queries returned")
+    public ResponseEntity<List<SlowQuery>> getSlowQueries() {
+        return ResponseEntity.ok(slowQueryProfiler.getSlowQueries());
+    }
+
+    @DeleteMapping
+    @Operation(summary = "Clear the recorded slow queries")
+    @ApiResponse(responseCode = "204", description = "Slow queries cleared")
+    public ResponseEntity<Void> clearSlowQueries() {
+        slowQueryProfiler.clear();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,27 @@
+package com.niyiment.invoice.domain.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.math.BigDecimal;
+
+/**
+ * Selects invoices with the {@link InvoiceFilter} filters and describes the
+ * adjustment to apply to them.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class BulkRecalculationRequest extends InvoiceFilter {
+
+    /** New tax rate as a percentage, or null to keep each invoice's rate. */
+    @Min(value = 0, message = "Tax rate cannot be negative")
+    private Double taxRate;
+
+    /** Percentage change applied to every unit price, e.g. -10 for a 10% reduction. */
+    @DecimalMin(value = "-100", inclusive = false, message = "Unit price change must be above -100%")
+    private BigDecimal unitPricePercentChange;
+
+    private boolean dryRun;
+}
@@ -0,0 +1,32 @@
+package com.niyiment.invoice.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkRecalculationResult {
+    private boolean dryRun;
+    private long matchedCount;
+    /** Invoices whose amounts change; for a dry run, the invoices that would change. */
+    private long modifiedCount;
+    /** Invoices with externally stored items, which unit price adjustments do not apply to. */
+    private long skippedCount;
+    /** Amount deltas per currency, reported for dry runs. */
+    private List<CurrencyDelta> deltas = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CurrencyDelta {
+        private String currency;
+        private long invoiceCount;
+        private BigDecimal subtotalDelta;
+        private BigDecimal taxAmountDelta;
+        private BigDecimal totalAmountDelta;
+    }
+}
@@ -8,6 +8,7 @@ import jakarta.validation.constraints.Size;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -38,18 +39,28 @@ public class InvoiceDto {
     @Size(min = 1, message = "At least one item is required")
     private List<InvoiceItemDto> items = new ArrayList<>();
 
-    private double subtotal;
+    /**
+     * Number of items on the invoice. When it exceeds the size of {@link #items} the items are
+     * stored separately and have to be read through the paged items endpoint.
+     */
+    private int itemCount;
+
+    @Size(min = 3, max = 3, message = "Currency must be an ISO 4217 code")
+    private String currency;
+
+    private BigDecimal subtotal = BigDecimal.ZERO;
 
     @Min(value = 0, message = "Tax rate cannot be negative")
     private double taxRate;
 
-    private double taxAmount;
-    private double totalAmount;
+    private BigDecimal taxAmount = BigDecimal.ZERO;
+    private BigDecimal totalAmount = BigDecimal.ZERO;
     private InvoiceStatus status;
     private String notes;
+    private Long version;
 
 
-    public InvoiceDto(String id, String customerName, InvoiceStatus status, Double totalAmount,
+    public InvoiceDto(String id, String customerName, InvoiceStatus status, BigDecimal totalAmount,
                       LocalDateTime invoiceDate, LocalDateTime dueDate) {
         this.id = id;
         this.customerName = customerName;
@@ -0,0 +1,28 @@
+package com.niyiment.invoice.domain.dto;
+
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters shared by the invoice list endpoints, the advanced search and bulk recalculation.
+ * Dates bound the due date and amounts bound the total in the filter's currency, the default currency if
+ * absent; amount filters only match invoices in that currency.
+ */
+@Data
+public class InvoiceFilter {
+    private String clientName;
+    private String customerEmail;
+    private InvoiceStatus status;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    /** ISO 4217 code; when set, only invoices in this currency. */
+    private String currency;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+
+    /** Only unsettled invoices whose due date has passed. */
+    private boolean overdue;
+}
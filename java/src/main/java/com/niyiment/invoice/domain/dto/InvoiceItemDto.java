@@ -1,39 +1,47 @@
 package com.niyiment.invoice.domain.dto;
 
 import com.niyiment.invoice.domain.entity.InvoiceItem;
+import com.niyiment.invoice.domain.money.Money;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 
+import java.math.BigDecimal;
+import java.util.Currency;
+
 @Data
 public class InvoiceItemDto {
+    private long lineNumber;
+
     @NotBlank(message = "Item description is required")
     private String description;
 
     @Min(value = 1, message = "Quantity must be at least 1")
     private int quantity;
 
-    @Min(value = 0, message = "Unit price cannot be negative")
-    private double unitPrice;
+    @DecimalMin(value = "0", message = "Unit price cannot be negative")
+    private BigDecimal unitPrice = BigDecimal.ZERO;
 
-    private double amount;
+    private BigDecimal amount = BigDecimal.ZERO;
 
-    public static InvoiceItemDto fromEntity(InvoiceItem item) {
+    public static InvoiceItemDto fromEntity(InvoiceItem item, Currency currency) {
         if (item == null) {
             return null;
         }
 
         InvoiceItemDto dto = new InvoiceItemDto();
+        dto.setLineNumber(item.getLineNumber());
         dto.setDescription(item.getDescription());
         dto.setQuantity(item.getQuantity());
-        dto.setUnitPrice(item.getUnitPrice());
-        dto.setAmount(item.getAmount());
+        dto.setUnitPrice(Money.toDecimal(item.getUnitPrice(), currency));
+        dto.setAmount(Money.toDecimal(item.getAmount(), currency));
 
         return dto;
     }
 
-    public InvoiceItem toEntity() {
-        return new InvoiceItem(description, quantity, unitPrice);
+    public InvoiceItem toEntity(Currency currency) {
+        return new InvoiceItem(description, quantity, Money.toMinorUnits(unitPrice, currency));
     }
 
 }
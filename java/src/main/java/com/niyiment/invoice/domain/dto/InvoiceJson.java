@@ -0,0 +1,54 @@
+package com.niyiment.invoice.domain.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.niyiment.invoice.domain.mapper.InvoiceJsonWriter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.bson.BsonNumber;
+import org.bson.BsonObjectId;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+
+import java.io.IOException;
+
+
+/**
+ * A read-only invoice kept as the raw document returned by MongoDB, serialized by
+ * {@link InvoiceJsonWriter} to the same JSON as {@link InvoiceDto}.
+ * <p>
+ * Because it is {@link JsonSerializable}, Jackson writes it without introspection wherever it appears,
+ * so pages and lists of it keep the shape they have with DTOs.
+ */
+@Schema(implementation = InvoiceDto.class)
+public final class InvoiceJson extends JsonSerializable.Base {
+    private final RawBsonDocument document;
+
+    public InvoiceJson(RawBsonDocument document) {
+        this.document = document;
+    }
+
+    public String getId() {
+        BsonValue id = document.get("_id");
+        if (id instanceof BsonObjectId objectId) {
+            return objectId.getValue().toHexString();
+        }
+        return id != null && id.isString() ? id.asString().getValue() : null;
+    }
+
+    public Long getVersion() {
+        return document.get("version") instanceof BsonNumber version ? version.longValue() : null;
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        InvoiceJsonWriter.write(document, generator);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider serializers, TypeSerializer typeSerializer)
+            throws IOException {
+        serialize(generator, serializers);
+    }
+}
@@ -2,12 +2,15 @@ package com.niyiment.invoice.domain.entity;
 
 
 import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.enums.ItemStorage;
+import com.niyiment.invoice.domain.money.Money;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -29,10 +32,20 @@ public class Invoice {
     private String customerEmail;
     private String customerAddress;
     private List<InvoiceItem> items = new ArrayList<>();
-    private double subtotal;
+    /** {@link ItemStorage#EXTERNAL} invoices keep their items in the invoice items collection. */
+    private ItemStorage itemStorage = ItemStorage.EMBEDDED;
+    private int itemCount;
+    /**
+     * Set while the external items of the saved header are being written. It stays set when the write failed
+     * part way, until the items are saved again.
+     */
+    private boolean itemsPending;
+    private String currency = Money.DEFAULT_CURRENCY.getCurrencyCode();
+    /** Amounts are held in minor units of {@link #currency}. */
+    private long subtotal;
     private double taxRate;
-    private double taxAmount;
-    private double totalAmount;
+    private long taxAmount;
+    private long totalAmount;
     private InvoiceStatus status = InvoiceStatus.DRAFT;
     private String notes;
     private LocalDateTime invoiceDate;
@@ -42,42 +55,53 @@ public class Invoice {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    /** Incremented on every write; used for optimistic locking and as the HTTP entity tag. */
+    @Version
+    private Long version;
+
     public Invoice(@NotBlank(message = "Invoice number is required") String invoiceNumber) {
         this.invoiceNumber = invoiceNumber;
     }
 
 
     /**
-     * Calculatess the invoice subtotal by summing up all items amount
-     * @return the calculated subtotal
+     * Calculatess the invoice subtotal by summing up all items amount.
+     * The header of an invoice whose items are stored externally keeps its denormalised subtotal.
+     * @return the calculated subtotal in minor units
      */
-    public double calculateSubtotal() {
-        subtotal = items.stream()
-                .mapToDouble(InvoiceItem::getAmount)
-                .sum();
+    public long calculateSubtotal() {
+        if (hasDetachedItems()) {
+            return subtotal;
+        }
+        long sum = 0;
+        for (InvoiceItem item : items) {
+            sum = Math.addExact(sum, item.getAmount());
+        }
+        subtotal = sum;
         return subtotal;
     }
 
     /**
-     * Calculates the invoice total amount by adding the subtotal and tax amount
-     * @return the calculated total amount
+     * Calculates the invoice tax amount from the subtotal and tax rate
+     * @return the calculated tax amount in minor units
      */
-    public double calculateTaxAmount() {
-        taxAmount = subtotal * (taxRate / 100);
+    public long calculateTaxAmount() {
+        taxAmount = Money.percentage(subtotal, taxRate);
         return taxAmount;
     }
 
     /**
      * Calculates the invoice total amount by adding the subtotal and tax amount
-     * @return the calculated total amount
+     * @return the calculated total amount in minor units
      */
-    public double calculateTotal() {
-        totalAmount = subtotal + taxAmount;
+    public long calculateTotal() {
+        totalAmount = Math.addExact(subtotal, taxAmount);
         return totalAmount;
     }
 
     /**
-     * Recalculates the invoice subtotal, tax amount, and total amount
+     * Recalculates the invoice subtotal, tax amount, and total amount from every item.
+     * Needed only after items were mutated directly rather than through this class.
      */
     public void reCalculateAmount() {
         calculateSubtotal();
@@ -86,26 +110,174 @@ public class Invoice {
     }
 
     /**
-     * Adds an item to the invoice and recalculates amounts.
+     * Checks the running totals against a full recalculation without modifying the invoice.
+     * @return true if subtotal, tax amount and total amount match the items
+     */
+    public boolean verifyTotals() {
+        if (hasDetachedItems()) {
+            return totalAmount == Math.addExact(subtotal, taxAmount);
+        }
+        long expectedSubtotal = 0;
+        for (InvoiceItem item : items) {
+            expectedSubtotal = Math.addExact(expectedSubtotal, item.getAmount());
+        }
+        long expectedTax = Money.percentage(expectedSubtotal, taxRate);
+        return subtotal == expectedSubtotal
+                && taxAmount == expectedTax
+                && totalAmount == Math.addExact(expectedSubtotal, expectedTax);
+    }
+
+    /**
+     * Replaces the items, numbering them in order and recalculating amounts.
+     * @param items the new items
+     */
+    public void setItems(List<InvoiceItem> items) {
+        this.items = new ArrayList<>(items);
+        this.itemCount = this.items.size();
+        renumberItems();
+        reCalculateAmount();
+    }
+
+    /**
+     * Takes the items off the invoice so they can be stored outside the invoice document.
+     * The totals and item count are left untouched as the denormalised header values.
+     * @return the detached items
+     */
+    public List<InvoiceItem> detachItems() {
+        List<InvoiceItem> detached = items;
+        items = new ArrayList<>();
+        itemStorage = ItemStorage.EXTERNAL;
+        return detached;
+    }
+
+    /**
+     * @return true if the items are stored externally and not loaded on this instance
+     */
+    public boolean hasDetachedItems() {
+        return itemStorage == ItemStorage.EXTERNAL && items.isEmpty() && itemCount > 0;
+    }
+
+    /**
+     * Sets the tax rate and updates the tax and total amounts.
+     * @param taxRate the tax rate as a percentage
+     */
+    public void setTaxRate(double taxRate) {
+        this.taxRate = taxRate;
+        applySubtotalDelta(0);
+    }
+
+    /**
+     * Appends an item to the invoice and updates the running amounts.
      * @param invoiceItem to add
      * @return the invoice instance
      */
     public Invoice addItem(InvoiceItem invoiceItem) {
+        long lastLineNumber = items.isEmpty() ? 0 : items.get(items.size() - 1).getLineNumber();
+        invoiceItem.setLineNumber(lastLineNumber + 1);
         items.add(invoiceItem);
-        reCalculateAmount();
+        itemCount = items.size();
+        applySubtotalDelta(invoiceItem.getAmount());
         return this;
     }
 
     /**
-     * Removes an item from the invoice and recalculates amounts.
+     * Removes an item from the invoice and updates the running amounts.
      * @param invoiceItem to remove
      * @return the invoice instance
      */
     public Invoice removeItem(InvoiceItem invoiceItem) {
-        items.remove(invoiceItem);
-        reCalculateAmount();
+        int index = indexOf(invoiceItem);
+        if (index >= 0) {
+            InvoiceItem removed = items.remove(index);
+            itemCount = items.size();
+            applySubtotalDelta(-removed.getAmount());
+        }
         return this;
     }
 
+    /**
+     * Removes the item with the given line number and updates the running amounts.
+     * @param lineNumber of the item to remove
+     * @return the removed item, or null if there is no such line
+     */
+    public InvoiceItem removeItem(long lineNumber) {
+        int index = indexOfLine(lineNumber);
+        if (index < 0) {
+            return null;
+        }
+        InvoiceItem removed = items.remove(index);
+        itemCount = items.size();
+        applySubtotalDelta(-removed.getAmount());
+        return removed;
+    }
+
+    /**
+     * Changes the quantity and unit price of a line and updates the running amounts.
+     * @param lineNumber of the item to update
+     * @param quantity the new quantity
+     * @param unitPrice the new unit price in minor units
+     * @return the updated item, or null if there is no such line
+     */
+    public InvoiceItem updateItem(long lineNumber, int quantity, long unitPrice) {
+        int index = indexOfLine(lineNumber);
+        if (index < 0) {
+            return null;
+        }
+        InvoiceItem item = items.get(index);
+        long previousAmount = item.getAmount();
+        item.setQuantity(quantity);
+        item.setUnitPrice(unitPrice);
+        applySubtotalDelta(Math.subtractExact(item.getAmount(), previousAmount));
+        return item;
+    }
 
+    private void applySubtotalDelta(long delta) {
+        subtotal = Math.addExact(subtotal, delta);
+        calculateTaxAmount();
+        calculateTotal();
+    }
+
+    /**
+     * Locates an item by its line number, falling back to a scan for items
+     * that were not numbered by this invoice.
+     */
+    private int indexOf(InvoiceItem invoiceItem) {
+        int index = indexOfLine(invoiceItem.getLineNumber());
+        if (index >= 0 && (items.get(index) == invoiceItem || items.get(index).equals(invoiceItem))) {
+            return index;
+        }
+        return items.indexOf(invoiceItem);
+    }
+
+    /**
+     * Binary search over line numbers, which {@link #addItem} and {@link #setItems} keep strictly
+     * increasing. Lists loaded without numbering (e.g. legacy documents) are renumbered once.
+     */
+    private int indexOfLine(long lineNumber) {
+        int low = 0;
+        int high = items.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midLine = items.get(mid).getLineNumber();
+            if (midLine < lineNumber) {
+                low = mid + 1;
+            } else if (midLine > lineNumber) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        if (!items.isEmpty() && items.get(0).getLineNumber() == 0) {
+            renumberItems();
+            return lineNumber >= 1 && lineNumber <= items.size() ? (int) lineNumber - 1 : -1;
+        }
+        return -1;
+    }
+
+    private void renumberItems() {
+        long lineNumber = 0;
+        for (InvoiceItem item : items) {
+            item.setLineNumber(++lineNumber);
+        }
+    }
 }
@@ -1,28 +1,38 @@
 package com.niyiment.invoice.domain.entity;
 
 
+import com.niyiment.invoice.domain.money.Money;
 import lombok.Getter;
 
 import java.util.Objects;
 
+/**
+ * Invoice line. {@code unitPrice} and {@code amount} are minor units of the owning invoice's currency.
+ * {@code lineNumber} is assigned by the owning {@link Invoice} and is not part of item equality.
+ */
 @Getter
 public class InvoiceItem {
+    private long lineNumber;
     private String description;
     private int quantity;
-    private double unitPrice;
-    private double amount;
+    private long unitPrice;
+    private long amount;
 
     public InvoiceItem() {
 
     }
 
-    public InvoiceItem(String description, int quantity, double unitPrice) {
+    public InvoiceItem(String description, int quantity, long unitPrice) {
         this.description = description;
         this.quantity = quantity;
         this.unitPrice = unitPrice;
         this.amount = calculateAmount();
     }
 
+    public void setLineNumber(long lineNumber) {
+        this.lineNumber = lineNumber;
+    }
+
     public void setDescription(String description) {
         this.description = description;
     }
@@ -32,17 +42,17 @@ public class InvoiceItem {
         calculateAmount();
     }
 
-    public void setUnitPrice(double unitPrice) {
+    public void setUnitPrice(long unitPrice) {
         this.unitPrice = unitPrice;
         calculateAmount();
     }
 
-    public void setAmount(double amount) {
+    public void setAmount(long amount) {
         this.amount = amount;
     }
 
-    public double calculateAmount() {
-        amount = quantity * unitPrice;
+    public long calculateAmount() {
+        amount = Money.multiply(unitPrice, quantity);
         return amount;
     }
 
@@ -61,7 +71,7 @@ public class InvoiceItem {
     public boolean equals(Object object) {
         if (object == null || getClass() != object.getClass()) return false;
         InvoiceItem that = (InvoiceItem) object;
-        return quantity == that.quantity && Double.compare(unitPrice, that.unitPrice) == 0 && Double.compare(amount, that.amount) == 0 && Objects.equals(description, that.description);
+        return quantity == that.quantity && unitPrice == that.unitPrice && amount == that.amount && Objects.equals(description, that.description);
     }
 
     @Override
@@ -0,0 +1,44 @@
+package com.niyiment.invoice.domain.entity;
+
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Line item of an invoice whose items are stored outside the invoice document.
+ */
+@Document("invoiceItems")
+@CompoundIndex(name = "invoice_line", def = "{'invoiceId': 1, 'lineNumber': 1}", unique = true)
+@Data
+@NoArgsConstructor
+public class InvoiceLineItem {
+    @Id
+    private String id;
+    private String invoiceId;
+    private long lineNumber;
+    private String description;
+    private int quantity;
+    private long unitPrice;
+    private long amount;
+
+    public static InvoiceLineItem of(String invoiceId, InvoiceItem item) {
+        InvoiceLineItem lineItem = new InvoiceLineItem();
+        lineItem.setInvoiceId(invoiceId);
+        lineItem.setLineNumber(item.getLineNumber());
+        lineItem.setDescription(item.getDescription());
+        lineItem.setQuantity(item.getQuantity());
+        lineItem.setUnitPrice(item.getUnitPrice());
+        lineItem.setAmount(item.getAmount());
+        return lineItem;
+    }
+
+    public InvoiceItem toItem() {
+        InvoiceItem item = new InvoiceItem(description, quantity, unitPrice);
+        item.setLineNumber(lineNumber);
+        item.setAmount(amount);
+        return item;
+    }
+}
@@ -1,8 +1,34 @@
 package com.niyiment.invoice.domain.enums;
 
+import java.util.Arrays;
+import java.util.List;
+
 public enum InvoiceStatus {
     DRAFT, SENT, PAID, OVERDUE, CANCELLED;
 
+    private static final List<InvoiceStatus> OPEN_STATES = Arrays.stream(values())
+            .filter(status -> !status.isFinalState())
+            .toList();
+    private static final List<InvoiceStatus> FINAL_STATES = Arrays.stream(values())
+            .filter(InvoiceStatus::isFinalState)
+            .toList();
+
+    /**
+     * The states that are not final, in declaration order. Queries for open invoices match these with
+     * {@code $in} instead of excluding the final states with {@code $nin}, so that the partial index on open
+     * invoices can serve them.
+     */
+    public static List<InvoiceStatus> openStates() {
+        return OPEN_STATES;
+    }
+
+    /**
+     * The final states, in declaration order. Only invoices in these states are archived.
+     */
+    public static List<InvoiceStatus> finalStates() {
+        return FINAL_STATES;
+    }
+
     public boolean isFinalState() {
         return this == PAID || this == CANCELLED;
     }
@@ -0,0 +1,11 @@
+package com.niyiment.invoice.domain.enums;
+
+/**
+ * Where the line items of an invoice are persisted.
+ */
+public enum ItemStorage {
+    /** Items are embedded in the invoice document. */
+    EMBEDDED,
+    /** Items live in the invoice items collection, keyed by invoice id and line number. */
+    EXTERNAL
+}
@@ -0,0 +1,338 @@
+package com.niyiment.invoice.domain.mapper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.niyiment.invoice.domain.dto.InvoiceDto;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.money.Money;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.RawBsonDocument;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Currency;
+
+
+/**
+ * Writes a stored invoice document straight from its BSON bytes as the JSON of {@link InvoiceDto}.
+ * <p>
+ * The read path through the entity and the DTO allocates an {@code Invoice}, a list of items, a DTO per
+ * item and a {@code BigDecimal} per amount before Jackson walks the result reflectively. This writer
+ * scans the raw document twice instead: once for the currency and item count, which decide how the rest
+ * is rendered, and once to emit fields in document order. Amounts are formatted from the stored minor
+ * units into a reused buffer, or written as decimals when the generator is a binary one such as CBOR.
+ * <p>
+ * The output follows the application's Jackson settings: null fields are left out, dates are ISO local
+ * date-times in the zone Spring Data converted them from, and fields missing from the document take the
+ * defaults the entity would have on load.
+ */
+public final class InvoiceJsonWriter {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final int AMOUNT_BUFFER_SIZE = 24;
+
+    private static final int ITEMS = 1;
+    private static final int STATUS = 1 << 1;
+    private static final int SUBTOTAL = 1 << 2;
+    private static final int TAX_RATE = 1 << 3;
+    private static final int TAX_AMOUNT = 1 << 4;
+    private static final int TOTAL_AMOUNT = 1 << 5;
+
+    private static final int ITEM_LINE_NUMBER = 1;
+    private static final int ITEM_QUANTITY = 1 << 1;
+    private static final int ITEM_UNIT_PRICE = 1 << 2;
+    private static final int ITEM_AMOUNT = 1 << 3;
+
+    private InvoiceJsonWriter() {
+    }
+
+    /**
+     * Writes the invoice as a JSON object.
+     *
+     * @param document the invoice as stored in the {@code invoices} collection
+     * @param generator the generator to write to
+     */
+    public static void write(RawBsonDocument document, JsonGenerator generator) throws IOException {
+        Header header = scanHeader(document);
+        int scale = Money.scale(header.currency);
+        char[] buffer = new char[AMOUNT_BUFFER_SIZE];
+        int written = 0;
+
+        generator.writeStartObject();
+        try (BsonBinaryReader reader = new BsonBinaryReader(document.getByteBuffer().asNIO())) {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                String name = reader.readName();
+                if (reader.getCurrentBsonType() == BsonType.NULL) {
+                    // An explicit null replaces the entity default, and null fields are not rendered
+                    if ("status".equals(name)) {
+                        written |= STATUS;
+                    }
+                    reader.readNull();
+                    continue;
+                }
+                switch (name) {
+                    case "_id" -> writeId(reader, generator);
+                    case "invoiceNumber", "customerName", "customerEmail", "customerAddress", "notes" ->
+                            generator.writeStringField(name, reader.readString());
+                    case "invoiceDate", "dueDate" -> {
+                        generator.writeFieldName(name);
+                        writeDate(reader.readDateTime(), generator);
+                    }
+                    case "items" -> {
+                        if (reader.getCurrentBsonType() == BsonType.ARRAY) {
+                            writeItems(reader, generator, scale, buffer);
+                            written |= ITEMS;
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    case "status" -> {
+                        generator.writeStringField(name, reader.readString());
+                        written |= STATUS;
+                    }
+                    case "subtotal" -> {
+                        writeAmountField(name, readLong(reader), scale, generator, buffer);
+                        written |= SUBTOTAL;
+                    }
+                    case "taxRate" -> {
+                        generator.writeNumberField(name, readDouble(reader));
+                        written |= TAX_RATE;
+                    }
+                    case "taxAmount" -> {
+                        writeAmountField(name, readLong(reader), scale, generator, buffer);
+                        written |= TAX_AMOUNT;
+                    }
+                    case "totalAmount" -> {
+                        writeAmountField(name, readLong(reader), scale, generator, buffer);
+                        written |= TOTAL_AMOUNT;
+                    }
+                    case "version" -> generator.writeNumberField(name, readLong(reader));
+                    default -> reader.skipValue();
+                }
+            }
+            reader.readEndDocument();
+        }
+
+        if ((written & ITEMS) == 0) {
+            generator.writeFieldName("items");
+            generator.writeStartArray();
+            generator.writeEndArray();
+        }
+        generator.writeNumberField("itemCount", Math.max(header.itemCount, header.itemsSize));
+        generator.writeStringField("currency", header.currency.getCurrencyCode());
+        if ((written & SUBTOTAL) == 0) {
+            writeAmountField("subtotal", 0L, scale, generator, buffer);
+        }
+        if ((written & TAX_RATE) == 0) {
+            generator.writeNumberField("taxRate", 0.0);
+        }
+        if ((written & TAX_AMOUNT) == 0) {
+            writeAmountField("taxAmount", 0L, scale, generator, buffer);
+        }
+        if ((written & TOTAL_AMOUNT) == 0) {
+            writeAmountField("totalAmount", 0L, scale, generator, buffer);
+        }
+        if ((written & STATUS) == 0) {
+            generator.writeStringField("status", InvoiceStatus.DRAFT.name());
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Formats minor units as a decimal with the given scale, exactly as {@code BigDecimal.valueOf(minorUnits,
+     * scale).toString()} would for the scales used by currencies.
+     *
+     * @return the number of characters written to the end of {@code buffer}
+     */
+    static int formatAmount(long minorUnits, int scale, char[] buffer) {
+        int position = buffer.length;
+        boolean negative = minorUnits < 0;
+        // Work on the negated value so that Long.MIN_VALUE does not overflow
+        long remaining = negative ? minorUnits : -minorUnits;
+        for (int digit = 0; digit < scale; digit++) {
+            buffer[--position] = (char) ('0' - (remaining % 10));
+            remaining /= 10;
+        }
+        if (scale > 0) {
+            buffer[--position] = '.';
+        }
+        do {
+            buffer[--position] = (char) ('0' - (remaining % 10));
+            remaining /= 10;
+        } while (remaining != 0);
+        if (negative) {
+            buffer[--position] = '-';
+        }
+        return buffer.length - position;
+    }
+
+    private static void writeItems(BsonReader reader, JsonGenerator generator, int scale, char[] buffer)
+            throws IOException {
+        generator.writeFieldName("items");
+        generator.writeStartArray();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (reader.getCurrentBsonType() != BsonType.DOCUMENT) {
+                reader.skipValue();
+                continue;
+            }
+            writeItem(reader, generator, scale, buffer);
+        }
+        reader.readEndArray();
+        generator.writeEndArray();
+    }
+
+    private static void writeItem(BsonReader reader, JsonGenerator generator, int scale, char[] buffer)
+            throws IOException {
+        int written = 0;
+        generator.writeStartObject();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                continue;
+            }
+            switch (name) {
+                case "lineNumber" -> {
+                    generator.writeNumberField(name, readLong(reader));
+                    written |= ITEM_LINE_NUMBER;
+                }
+                case "description" -> generator.writeStringField(name, reader.readString());
+                case "quantity" -> {
+                    generator.writeNumberField(name, (int) readLong(reader));
+                    written |= ITEM_QUANTITY;
+                }
+                case "unitPrice" -> {
+                    writeAmountField(name, readLong(reader), scale, generator, buffer);
+                    written |= ITEM_UNIT_PRICE;
+                }
+                case "amount" -> {
+                    writeAmountField(name, readLong(reader), scale, generator, buffer);
+                    written |= ITEM_AMOUNT;
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        if ((written & ITEM_LINE_NUMBER) == 0) {
+            generator.writeNumberField("lineNumber", 0L);
+        }
+        if ((written & ITEM_QUANTITY) == 0) {
+            generator.writeNumberField("quantity", 0);
+        }
+        if ((written & ITEM_UNIT_PRICE) == 0) {
+            writeAmountField("unitPrice", 0L, scale, generator, buffer);
+        }
+        if ((written & ITEM_AMOUNT) == 0) {
+            writeAmountField("amount", 0L, scale, generator, buffer);
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeId(BsonReader reader, JsonGenerator generator) throws IOException {
+        String id = switch (reader.getCurrentBsonType()) {
+            case OBJECT_ID -> reader.readObjectId().toHexString();
+            case STRING -> reader.readString();
+            default -> {
+                reader.skipValue();
+                yield null;
+            }
+        };
+        if (id != null) {
+            generator.writeStringField("id", id);
+        }
+    }
+
+    private static void writeDate(long epochMillis, JsonGenerator generator) throws IOException {
+        LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+        generator.writeString(DATE_FORMAT.format(dateTime));
+    }
+
+    private static void writeAmountField(String name, long minorUnits, int scale, JsonGenerator generator,
+                                         char[] buffer) throws IOException {
+        generator.writeFieldName(name);
+        if (!generator.canWriteFormattedNumbers()) {
+            // Binary formats encode decimals natively and would write preformatted numbers as text
+            generator.writeNumber(BigDecimal.valueOf(minorUnits, scale));
+            return;
+        }
+        int length = formatAmount(minorUnits, scale, buffer);
+        generator.writeNumber(buffer, buffer.length - length, length);
+    }
+
+    private static long readLong(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case INT32 -> reader.readInt32();
+            case INT64 -> reader.readInt64();
+            case DOUBLE -> (long) reader.readDouble();
+            case DECIMAL128 -> reader.readDecimal128().longValue();
+            default -> {
+                reader.skipValue();
+                yield 0L;
+            }
+        };
+    }
+
+    private static double readDouble(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case DOUBLE -> reader.readDouble();
+            case INT32 -> reader.readInt32();
+            case INT64 -> reader.readInt64();
+            case DECIMAL128 -> reader.readDecimal128().doubleValue();
+            default -> {
+                reader.skipValue();
+                yield 0.0;
+            }
+        };
+    }
+
+    /**
+     * First pass: the fields that decide how the others are rendered, skipping everything else.
+     */
+    private static Header scanHeader(RawBsonDocument document) {
+        Header header = new Header();
+        try (BsonBinaryReader reader = new BsonBinaryReader(document.getByteBuffer().asNIO())) {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                String name = reader.readName();
+                BsonType type = reader.getCurrentBsonType();
+                if ("currency".equals(name) && type == BsonType.STRING) {
+                    header.currency = Money.currencyOf(reader.readString());
+                } else if ("itemCount".equals(name) && type != BsonType.NULL) {
+                    header.itemCount = (int) readLong(reader);
+                } else if ("items".equals(name) && type == BsonType.ARRAY) {
+                    header.itemsSize = countItems(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+        }
+        return header;
+    }
+
+    private static int countItems(BsonReader reader) {
+        int count = 0;
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (reader.getCurrentBsonType() == BsonType.DOCUMENT) {
+                count++;
+            }
+            reader.skipValue();
+        }
+        reader.readEndArray();
+        return count;
+    }
+
+    private static final class Header {
+        private Currency currency = Money.DEFAULT_CURRENCY;
+        private int itemCount;
+        private int itemsSize;
+    }
+}
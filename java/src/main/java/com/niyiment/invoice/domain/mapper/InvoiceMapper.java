@@ -5,9 +5,13 @@ import com.niyiment.invoice.domain.dto.InvoiceDto;
 import com.niyiment.invoice.domain.dto.InvoiceItemDto;
 import com.niyiment.invoice.domain.entity.Invoice;
 import com.niyiment.invoice.domain.entity.InvoiceItem;
+import com.niyiment.invoice.domain.money.Money;
+import com.niyiment.invoice.exception.BadRequestException;
 import org.springframework.stereotype.Component;
 
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
 
 
 @Component
@@ -23,6 +27,7 @@ public class InvoiceMapper {
             return null;
         }
 
+        Currency currency = Money.currencyOf(invoice.getCurrency());
         InvoiceDto dto = new InvoiceDto();
         dto.setId(invoice.getId());
         dto.setInvoiceNumber(invoice.getInvoiceNumber());
@@ -31,16 +36,17 @@ public class InvoiceMapper {
         dto.setCustomerAddress(invoice.getCustomerAddress());
         dto.setInvoiceDate(invoice.getInvoiceDate());
         dto.setDueDate(invoice.getDueDate());
-        dto.setItems(invoice.getItems().stream()
-                .map(this::toItemDto)
-                .collect(Collectors.toList()));
+        dto.setItems(toItemDtos(invoice.getItems(), currency));
+        dto.setItemCount(Math.max(invoice.getItemCount(), invoice.getItems().size()));
 
-        dto.setSubtotal(invoice.getSubtotal());
+        dto.setCurrency(currency.getCurrencyCode());
+        dto.setSubtotal(Money.toDecimal(invoice.getSubtotal(), currency));
         dto.setTaxRate(invoice.getTaxRate());
-        dto.setTaxAmount(invoice.getTaxAmount());
-        dto.setTotalAmount(invoice.getTotalAmount());
+        dto.setTaxAmount(Money.toDecimal(invoice.getTaxAmount(), currency));
+        dto.setTotalAmount(Money.toDecimal(invoice.getTotalAmount(), currency));
         dto.setStatus(invoice.getStatus());
         dto.setNotes(invoice.getNotes());
+        dto.setVersion(invoice.getVersion());
 
         return dto;
     }
@@ -56,25 +62,24 @@ public class InvoiceMapper {
             return null;
         }
 
+        Currency currency = resolveCurrency(dto.getCurrency());
         Invoice invoice = new Invoice(dto.getInvoiceNumber());
 
         if (dto.getId() != null && !dto.getId().isEmpty()) {
             invoice.setId(dto.getId());
         }
 
+        invoice.setCurrency(currency.getCurrencyCode());
         invoice.setCustomerName(dto.getCustomerName());
         invoice.setCustomerEmail(dto.getCustomerEmail());
         invoice.setCustomerAddress(dto.getCustomerAddress());
         invoice.setInvoiceDate(dto.getInvoiceDate());
         invoice.setDueDate(dto.getDueDate());
-        invoice.setItems(dto.getItems().stream()
-                .map(InvoiceItemDto::toEntity)
-                .collect(Collectors.toList()));
+        invoice.setItems(toItemEntities(dto.getItems(), currency));
 
         invoice.setTaxRate(dto.getTaxRate());
         invoice.setStatus(dto.getStatus());
         invoice.setNotes(dto.getNotes());
-        invoice.reCalculateAmount();
 
         return invoice;
     }
@@ -91,14 +96,17 @@ public class InvoiceMapper {
             return invoice;
         }
 
+        Currency currency = dto.getCurrency() != null
+                ? resolveCurrency(dto.getCurrency())
+                : Money.currencyOf(invoice.getCurrency());
+
         invoice.setCustomerName(dto.getCustomerName());
         invoice.setCustomerEmail(dto.getCustomerEmail());
         invoice.setCustomerAddress(dto.getCustomerAddress());
         invoice.setInvoiceDate(dto.getInvoiceDate());
         invoice.setDueDate(dto.getDueDate());
-        invoice.setItems(dto.getItems().stream()
-                .map(InvoiceItemDto::toEntity)
-                .collect(Collectors.toList()));
+        invoice.setCurrency(currency.getCurrencyCode());
+        invoice.setItems(toItemEntities(dto.getItems(), currency));
 
         invoice.setTaxRate(dto.getTaxRate());
 
@@ -107,18 +115,51 @@ public class InvoiceMapper {
         }
 
         invoice.setNotes(dto.getNotes());
-        invoice.reCalculateAmount();
 
         return invoice;
     }
 
     /**
-     * Converts an InvoiceItem entity to an InvoiceItemDto.
+     * Converts InvoiceItem entities to InvoiceItemDtos.
+     *
+     * @param items The InvoiceItem entities
+     * @param currency The currency of the owning invoice
+     * @return The corresponding InvoiceItemDtos
+     */
+    private List<InvoiceItemDto> toItemDtos(List<InvoiceItem> items, Currency currency) {
+        List<InvoiceItemDto> dtos = new ArrayList<>(items.size());
+        for (InvoiceItem item : items) {
+            dtos.add(InvoiceItemDto.fromEntity(item, currency));
+        }
+        return dtos;
+    }
+
+    /**
+     * Converts InvoiceItemDtos to InvoiceItem entities.
      *
-     * @param item The InvoiceItem entity
-     * @return The corresponding InvoiceItemDto
+     * @param items The InvoiceItemDtos
+     * @param currency The currency of the owning invoice
+     * @return The corresponding InvoiceItem entities
      */
-    private InvoiceItemDto toItemDto(InvoiceItem item) {
-        return InvoiceItemDto.fromEntity(item);
+    private List<InvoiceItem> toItemEntities(List<InvoiceItemDto> items, Currency currency) {
+        List<InvoiceItem> entities = new ArrayList<>(items.size());
+        for (InvoiceItemDto item : items) {
+            entities.add(item.toEntity(currency));
+        }
+        return entities;
+    }
+
+    /**
+     * Resolves the currency code supplied by a client.
+     *
+     * @param currencyCode ISO 4217 code, or null for the default currency
+     * @return The resolved currency
+     */
+    private Currency resolveCurrency(String currencyCode) {
+        try {
+            return Money.currencyOf(currencyCode);
+        } catch (IllegalArgumentException exception) {
+            throw new BadRequestException("Unsupported currency: " + currencyCode, exception);
+        }
     }
 }
@@ -0,0 +1,121 @@
+package com.niyiment.invoice.domain.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+/**
+ * Fixed-point arithmetic on monetary amounts held as a count of minor units (e.g. cents) of a currency.
+ * <p>
+ * The helpers operate on raw {@code long} minor units so that hot calculation paths
+ * (invoice totals, report aggregations) never allocate. Amounts of different currencies are
+ * never combined; callers keep them apart by currency. All rounding is half-even, which is
+ * also what MongoDB's {@code $round} uses, so amounts computed in Java and in an update
+ * pipeline agree to the last minor unit.
+ */
+public final class Money {
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance("USD");
+
+    /**
+     * Percentage rates are applied with four decimal places of precision (e.g. 7.125%).
+     */
+    public static final long RATE_SCALE = 10_000L;
+    /** Divisor turning an amount multiplied by a scaled rate back into the amount's units. */
+    public static final long PERCENT_DIVISOR = 100L * RATE_SCALE;
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L};
+
+    private Money() {
+    }
+
+    /**
+     * Multiplies a minor-unit amount by a quantity, failing on overflow instead of wrapping.
+     */
+    public static long multiply(long minorUnits, long quantity) {
+        return Math.multiplyExact(minorUnits, quantity);
+    }
+
+    /**
+     * Applies a percentage rate to a minor-unit amount, rounding half-even.
+     *
+     * @param minorUnits the amount in minor units
+     * @param ratePercent the rate as a percentage, e.g. {@code 7.5} for 7.5%
+     * @return the rounded result in minor units
+     */
+    public static long percentage(long minorUnits, double ratePercent) {
+        long scaledRate = scaledRate(ratePercent);
+        long high = Math.multiplyHigh(minorUnits, scaledRate);
+        long low = minorUnits * scaledRate;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            return divideHalfEven(low, PERCENT_DIVISOR);
+        }
+        return BigDecimal.valueOf(minorUnits)
+                .multiply(BigDecimal.valueOf(scaledRate))
+                .divide(BigDecimal.valueOf(PERCENT_DIVISOR), 0, RoundingMode.HALF_EVEN)
+                .longValueExact();
+    }
+
+    /**
+     * Converts a percentage rate to the fixed-point form used by {@link #percentage(long, double)}, rounding the
+     * rate as written half-even.
+     */
+    public static long scaledRate(double ratePercent) {
+        return BigDecimal.valueOf(ratePercent)
+                .multiply(BigDecimal.valueOf(RATE_SCALE))
+                .setScale(0, RoundingMode.HALF_EVEN)
+                .longValueExact();
+    }
+
+    /**
+     * Converts a decimal amount to minor units of the currency, rounding half-even.
+     * A {@code null} amount is treated as zero.
+     */
+    public static long toMinorUnits(BigDecimal amount, Currency currency) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.setScale(scale(currency), RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts minor units of the currency to a decimal amount carrying the currency's scale.
+     */
+    public static BigDecimal toDecimal(long minorUnits, Currency currency) {
+        return BigDecimal.valueOf(minorUnits, scale(currency));
+    }
+
+    /**
+     * Converts minor units of the currency to a {@code double}, for presentation only.
+     */
+    public static double toDouble(long minorUnits, Currency currency) {
+        return (double) minorUnits / POWERS_OF_TEN[scale(currency)];
+    }
+
+    /**
+     * Number of minor-unit digits of the currency, e.g. 2 for USD and 0 for JPY.
+     */
+    public static int scale(Currency currency) {
+        return Math.max(currency.getDefaultFractionDigits(), 0);
+    }
+
+    /**
+     * Resolves an ISO 4217 code, falling back to {@link #DEFAULT_CURRENCY} when absent.
+     *
+     * @throws IllegalArgumentException if the code is not a supported currency
+     */
+    public static Currency currencyOf(String currencyCode) {
+        if (currencyCode == null || currencyCode.isBlank()) {
+            return DEFAULT_CURRENCY;
+        }
+        return Currency.getInstance(currencyCode.trim().toUpperCase());
+    }
+
+    static long divideHalfEven(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        long twiceRemainder = Math.abs(remainder) * 2;
+        if (twiceRemainder > divisor || (twiceRemainder == divisor && (quotient & 1) != 0)) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,11 @@
+package com.niyiment.invoice.domain.repository;
+
+/**
+ * Outcome of archiving one batch of invoices.
+ *
+ * @param selected invoices read from the invoice collection
+ * @param verified invoices whose archived copy matched the original
+ * @param deleted  verified invoices removed from the invoice collection; fewer when one changed in between
+ */
+public record ArchiveBatch(int selected, int verified, long deleted) {
+}
@@ -0,0 +1,33 @@
+package com.niyiment.invoice.domain.repository;
+
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.MongoOperationTimeoutException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+
+
+/**
+ * Translates operations that ran out of time, whether stopped by the driver or by the server's
+ * {@code maxTimeMS}, to {@link QueryTimeoutException} and counts them as {@code invoice.queries.timed-out}.
+ */
+public class DeadlineExceptionTranslator extends MongoExceptionTranslator {
+    private final Counter timedOut;
+
+    public DeadlineExceptionTranslator(MeterRegistry meterRegistry) {
+        this.timedOut = Counter.builder("invoice.queries.timed-out")
+                .description("MongoDB operations stopped at their request deadline")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+        if (ex instanceof MongoOperationTimeoutException || ex instanceof MongoExecutionTimeoutException) {
+            timedOut.increment();
+            return new QueryTimeoutException("Query exceeded its deadline: " + ex.getMessage(), ex);
+        }
+        return super.translateExceptionIfPossible(ex);
+    }
+}
@@ -0,0 +1,39 @@
+package com.niyiment.invoice.domain.repository;
+
+import com.mongodb.MongoOperationTimeoutException;
+import com.mongodb.client.MongoDatabase;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * A {@link MongoTemplate} that bounds each operation by the caller's {@link QueryDeadline}.
+ * <p>
+ * The database handle of every operation, repository queries included, is given the remaining time as its
+ * timeout. The driver then limits server selection, connection checkout and the command itself to it, and
+ * sends it to the server as {@code maxTimeMS}. Cursors must be fully read before the deadline. Operations
+ * without a deadline run unbounded as before.
+ */
+public class DeadlineMongoTemplate extends MongoTemplate {
+
+    public DeadlineMongoTemplate(MongoDatabaseFactory mongoDbFactory, MongoConverter mongoConverter) {
+        super(mongoDbFactory, mongoConverter);
+    }
+
+    @Override
+    protected MongoDatabase prepareDatabase(MongoDatabase database) {
+        if (!QueryDeadline.isSet()) {
+            return database;
+        }
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(QueryDeadline.remainingNanos());
+        if (remainingMillis <= 0) {
+            // A timeout of zero would mean no limit at all
+            throw getExceptionTranslator().translateExceptionIfPossible(
+                    new MongoOperationTimeoutException("Deadline passed before the operation was sent"));
+        }
+        return database.withTimeout(remainingMillis, TimeUnit.MILLISECONDS);
+    }
+}
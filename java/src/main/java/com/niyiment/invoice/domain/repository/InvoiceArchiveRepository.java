@@ -0,0 +1,172 @@
+package com.niyiment.invoice.domain.repository;
+
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+
+/**
+ * The archive tier: settled invoices moved out of the invoice collection into {@value #COLLECTION}.
+ * <p>
+ * Archived documents are exact copies of the invoice documents, so they read back as {@link Invoice}s. Items of
+ * invoices stored externally stay in the invoice items collection, keyed by the same invoice id. The archive is
+ * read-only for the application; only {@link #archiveBatch} writes to it.
+ */
+@Repository
+@RequiredArgsConstructor
+public class InvoiceArchiveRepository {
+    public static final String COLLECTION = "invoiceArchive";
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+
+    private final MongoTemplate mongoTemplate;
+    private final InvoicePartitions partitions;
+
+    public Optional<Invoice> findById(String id) {
+        return Optional.ofNullable(mongoTemplate.findById(id, Invoice.class, COLLECTION));
+    }
+
+    public Optional<Invoice> findByInvoiceNumber(String invoiceNumber) {
+        return Optional.ofNullable(mongoTemplate.findOne(byInvoiceNumber(invoiceNumber), Invoice.class, COLLECTION));
+    }
+
+    public boolean existsByInvoiceNumber(String invoiceNumber) {
+        return mongoTemplate.exists(byInvoiceNumber(invoiceNumber), Invoice.class, COLLECTION);
+    }
+
+    /**
+     * Moves up to {@code batchSize} paid or cancelled invoices due before the given time to the archive.
+     * <p>
+     * The invoices are copied with a majority write concern, read back from the archive and compared field by
+     * field, and only the identical copies are deleted. Each delete also matches the version that was copied, so
+     * an invoice changed in the meantime stays in the invoice collection; its copy is removed from the archive
+     * again, provided it still has the version copied, and the invoice is copied again by a later batch if it
+     * still qualifies. Copies replace earlier ones, so a batch interrupted between copy and delete is simply repeated. Until the
+     * delete, the invoice is in both collections; readers look in the invoice collection first. With invoices
+     * stored per year, the batch is taken from the oldest partitions that can hold invoices due that early.
+     */
+    public ArchiveBatch archiveBatch(LocalDateTime dueBefore, int batchSize) {
+        Document filter = mappedFilter(new Query(Criteria.where("status").in(InvoiceStatus.finalStates())
+                .and("dueDate").lt(dueBefore)));
+        Map<String, List<Document>> selected = new LinkedHashMap<>();
+        int selectedCount = 0;
+        for (String partition : partitions.overlapping(null, dueBefore)) {
+            if (selectedCount == batchSize) {
+                break;
+            }
+            List<Document> found = mongoTemplate.getCollection(partition).find(filter)
+                    .limit(batchSize - selectedCount)
+                    .into(new ArrayList<>());
+            if (!found.isEmpty()) {
+                selected.put(partition, found);
+                selectedCount += found.size();
+            }
+        }
+        if (selectedCount == 0) {
+            return new ArchiveBatch(0, 0, 0);
+        }
+
+        MongoCollection<Document> archive = mongoTemplate.getCollection(COLLECTION).withWriteConcern(WriteConcern.MAJORITY);
+        List<Document> invoices = selected.values().stream().flatMap(List::stream).toList();
+        archive.bulkWrite(invoices.stream()
+                .map(invoice -> new ReplaceOneModel<>(Filters.eq("_id", invoice.get("_id")), invoice,
+                        new ReplaceOptions().upsert(true)))
+                .toList(), UNORDERED);
+
+        List<Object> ids = invoices.stream().map(invoice -> invoice.get("_id")).toList();
+        Map<Object, Document> copies = new HashMap<>();
+        archive.find(Filters.in("_id", ids)).forEach(copy -> copies.put(copy.get("_id"), copy));
+
+        int verifiedCount = 0;
+        long deleted = 0;
+        for (Map.Entry<String, List<Document>> source : selected.entrySet()) {
+            List<Document> verified = source.getValue().stream()
+                    .filter(invoice -> invoice.equals(copies.get(invoice.get("_id"))))
+                    .toList();
+            if (verified.isEmpty()) {
+                continue;
+            }
+            verifiedCount += verified.size();
+            MongoCollection<Document> invoiceCollection = mongoTemplate.getCollection(source.getKey())
+                    .withWriteConcern(WriteConcern.MAJORITY);
+            long deletedFromSource = invoiceCollection.bulkWrite(versioned(verified), UNORDERED).getDeletedCount();
+            deleted += deletedFromSource;
+            if (deletedFromSource < verified.size()) {
+                discardChanged(archive, invoiceCollection, verified);
+            } else if (partitions.isEnabled()) {
+                partitions.forget(verified.stream().map(invoice -> String.valueOf(invoice.get("_id"))).toList());
+            }
+        }
+        return new ArchiveBatch(selectedCount, verifiedCount, deleted);
+    }
+
+    /**
+     * Removes the archive copies of the invoices that changed before they could be deleted, and the partition
+     * directory entries of those that were deleted.
+     */
+    private void discardChanged(MongoCollection<Document> archive, MongoCollection<Document> invoiceCollection,
+                                List<Document> verified) {
+        Set<Object> remaining = new HashSet<>();
+        invoiceCollection.find(Filters.in("_id", verified.stream().map(invoice -> invoice.get("_id")).toList()))
+                .projection(Projections.include("_id"))
+                .forEach(invoice -> remaining.add(invoice.get("_id")));
+        List<Document> changed = verified.stream()
+                .filter(invoice -> remaining.contains(invoice.get("_id")))
+                .toList();
+        if (!changed.isEmpty()) {
+            archive.bulkWrite(versioned(changed), UNORDERED);
+        }
+        if (partitions.isEnabled()) {
+            partitions.forget(verified.stream()
+                    .map(invoice -> invoice.get("_id"))
+                    .filter(id -> !remaining.contains(id))
+                    .map(String::valueOf)
+                    .toList());
+        }
+    }
+
+    /**
+     * Deletes of the given invoices that only match the version read.
+     */
+    private static List<DeleteOneModel<Document>> versioned(List<Document> invoices) {
+        return invoices.stream()
+                .map(invoice -> new DeleteOneModel<Document>(Filters.and(
+                        Filters.eq("_id", invoice.get("_id")),
+                        Filters.eq("version", invoice.get("version")))))
+                .toList();
+    }
+
+    private Document mappedFilter(Query query) {
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(Invoice.class);
+        return new QueryMapper(mongoTemplate.getConverter()).getMappedObject(query.getQueryObject(), entity);
+    }
+
+    private static Query byInvoiceNumber(String invoiceNumber) {
+        return new Query(Criteria.where("invoiceNumber").is(invoiceNumber));
+    }
+}
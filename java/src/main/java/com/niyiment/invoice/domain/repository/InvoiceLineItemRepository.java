@@ -0,0 +1,23 @@
+package com.niyiment.invoice.domain.repository;
+
+import com.niyiment.invoice.domain.entity.InvoiceLineItem;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.stream.Stream;
+
+
+@Repository
+public interface InvoiceLineItemRepository extends MongoRepository<InvoiceLineItem, String>,
+        InvoiceLineItemRepositoryCustom {
+
+    Page<InvoiceLineItem> findByInvoiceIdOrderByLineNumberAsc(String invoiceId, Pageable pageable);
+
+    Stream<InvoiceLineItem> streamByInvoiceIdOrderByLineNumberAsc(String invoiceId);
+
+    long deleteByInvoiceId(String invoiceId);
+
+    long deleteByInvoiceIdAndLineNumberGreaterThan(String invoiceId, long lineNumber);
+}
@@ -0,0 +1,16 @@
+package com.niyiment.invoice.domain.repository;
+
+import com.niyiment.invoice.domain.entity.InvoiceLineItem;
+
+import java.util.List;
+
+/**
+ * Line item writes that can be repeated after a failure without duplicating lines.
+ */
+public interface InvoiceLineItemRepositoryCustom {
+
+    /**
+     * Inserts the lines, or replaces those already stored with the same invoice id and line number.
+     */
+    void upsertLines(List<InvoiceLineItem> lineItems);
+}
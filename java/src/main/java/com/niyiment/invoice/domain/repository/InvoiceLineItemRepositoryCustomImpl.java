@@ -0,0 +1,34 @@
+package com.niyiment.invoice.domain.repository;
+
+import com.niyiment.invoice.domain.entity.InvoiceLineItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+
+/**
+ * Upserts line items in one unordered bulk write, matching them on the unique invoice line index.
+ */
+@RequiredArgsConstructor
+public class InvoiceLineItemRepositoryCustomImpl implements InvoiceLineItemRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void upsertLines(List<InvoiceLineItem> lineItems) {
+        if (lineItems.isEmpty()) {
+            return;
+        }
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InvoiceLineItem.class);
+        for (InvoiceLineItem lineItem : lineItems) {
+            operations.replaceOne(new Query(Criteria.where("invoiceId").is(lineItem.getInvoiceId())
+                            .and("lineNumber").is(lineItem.getLineNumber())),
+                    lineItem, FindAndReplaceOptions.options().upsert());
+        }
+        operations.execute();
+    }
+}
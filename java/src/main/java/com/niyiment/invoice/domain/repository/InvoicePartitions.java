@@ -0,0 +1,402 @@
+package com.niyiment.invoice.domain.repository;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.niyiment.invoice.config.PartitionProperties;
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.migration.IndexDefinition;
+import com.niyiment.invoice.migration.InvoiceIndexes;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+
+/**
+ * Routes invoice operations to the collections that hold the invoices.
+ * <p>
+ * With {@link PartitionProperties#isEnabled() partitioning} off there is a single partition, the invoice
+ * collection, and every operation goes straight to it. With partitioning on, each invoice is stored in the
+ * collection of its invoice date year, e.g. {@code invoice_2024}, which has the invoice indexes of its own.
+ * Two small collections keep track of them:
+ * <ul>
+ *     <li>{@value #DIRECTORY_COLLECTION} maps each invoice id and number to its partition, for lookups. Its unique
+ *     index on the number keeps invoice numbers unique across partitions.</li>
+ *     <li>{@value #CATALOG_COLLECTION} lists the partitions with the earliest and latest due date they hold, so
+ *     that a query bounded by due date reads only the partitions whose range it overlaps. The bounds only ever
+ *     widen; they are updated before an invoice is written.</li>
+ * </ul>
+ * Queries over several partitions run in parallel on a pool of {@link PartitionProperties#getParallelism()}
+ * threads with the caller's {@link QueryDeadline}. Until {@code PartitionMigration} has moved them, invoices
+ * left in the invoice collection are found there as if it were one more partition.
+ */
+@Slf4j
+@Component
+public class InvoicePartitions implements DisposableBean {
+    public static final String DIRECTORY_COLLECTION = "invoicePartitionDirectory";
+    public static final String CATALOG_COLLECTION = "invoicePartitions";
+    private static final String PARTITION = "partition";
+    private static final String INVOICE_NUMBER = "invoiceNumber";
+    private static final String MIN_DUE_DATE = "minDueDate";
+    private static final String MAX_DUE_DATE = "maxDueDate";
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final String invoiceCollection;
+    private final ExecutorService executor;
+    private final Set<String> prepared = ConcurrentHashMap.newKeySet();
+    private volatile Boolean unmigrated;
+
+    public InvoicePartitions(MongoTemplate mongoTemplate, PartitionProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = properties.isEnabled();
+        this.invoiceCollection = mongoTemplate.getCollectionName(Invoice.class);
+        this.executor = Executors.newFixedThreadPool(Math.max(properties.getParallelism(), 1),
+                Thread.ofPlatform().name("invoice-partition-", 0).daemon(true).factory());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The collection all invoices are stored in without partitioning, and that holds the invoices not yet moved
+     * into partitions.
+     */
+    public String invoiceCollection() {
+        return invoiceCollection;
+    }
+
+    /**
+     * Matches the names of the collections invoices are stored in.
+     */
+    public Pattern collectionPattern() {
+        return Pattern.compile("^" + Pattern.quote(invoiceCollection) + "(_\\d{4})?$");
+    }
+
+    /**
+     * The partition an invoice belongs to: the year of its invoice date, or of its creation without one.
+     */
+    public String partitionOf(Invoice invoice) {
+        LocalDateTime date = invoice.getInvoiceDate() != null ? invoice.getInvoiceDate() : invoice.getCreatedAt();
+        return partitionFor(date != null ? date.getYear() : LocalDateTime.now().getYear());
+    }
+
+    public String partitionFor(int year) {
+        return enabled ? invoiceCollection + "_" + year : invoiceCollection;
+    }
+
+    /**
+     * The partition holding the invoice with the given id, or null if it is in none.
+     */
+    public String locate(String id) {
+        if (!enabled) {
+            return invoiceCollection;
+        }
+        Document entry = directory().find(Filters.eq("_id", id)).first();
+        return entry != null ? entry.getString(PARTITION) : unmigratedCollection();
+    }
+
+    /**
+     * The partition holding the invoice with the given number, or null if it is in none.
+     */
+    public String locateByNumber(String invoiceNumber) {
+        if (!enabled) {
+            return invoiceCollection;
+        }
+        Document entry = directory().find(Filters.eq(INVOICE_NUMBER, invoiceNumber)).first();
+        return entry != null ? entry.getString(PARTITION) : unmigratedCollection();
+    }
+
+    /**
+     * Adds a new invoice to the directory before it is written.
+     *
+     * @throws org.springframework.dao.DuplicateKeyException if another invoice has the number
+     */
+    void reserve(String id, String invoiceNumber, String partition) {
+        mongoTemplate.execute(DIRECTORY_COLLECTION, collection -> collection.insertOne(
+                new Document("_id", id).append(INVOICE_NUMBER, invoiceNumber).append(PARTITION, partition)));
+    }
+
+    /**
+     * Records the partition and number of a written invoice.
+     */
+    public void register(String id, String invoiceNumber, String partition) {
+        mongoTemplate.execute(DIRECTORY_COLLECTION, collection -> collection.updateOne(Filters.eq("_id", id),
+                Updates.combine(Updates.set(INVOICE_NUMBER, invoiceNumber), Updates.set(PARTITION, partition)),
+                new UpdateOptions().upsert(true)));
+    }
+
+    /**
+     * Removes invoices that were deleted or moved out of all partitions from the directory.
+     */
+    public void forget(Collection<String> ids) {
+        if (enabled && !ids.isEmpty()) {
+            directory().deleteMany(Filters.in("_id", ids));
+        }
+    }
+
+    /**
+     * Prepares a partition to take an invoice due at the given time: builds the partition's indexes on its first
+     * use by this instance, and widens its due date range in the catalog.
+     */
+    public void prepare(String partition, LocalDateTime dueDate) {
+        if (!enabled) {
+            return;
+        }
+        if (prepared.add(partition)) {
+            createIndexes(partition);
+        }
+        List<Bson> updates = new ArrayList<>();
+        updates.add(Updates.setOnInsert("year", Integer.parseInt(partition.substring(invoiceCollection.length() + 1))));
+        if (dueDate != null) {
+            updates.add(Updates.min(MIN_DUE_DATE, toDate(dueDate)));
+            updates.add(Updates.max(MAX_DUE_DATE, toDate(dueDate)));
+        }
+        catalog().updateOne(Filters.eq("_id", partition), Updates.combine(updates), new UpdateOptions().upsert(true));
+    }
+
+    /**
+     * All partitions, oldest first.
+     */
+    public List<String> all() {
+        return overlapping(null, null);
+    }
+
+    /**
+     * The partitions that can hold invoices due within the range, oldest first. Either bound may be null.
+     * Partitions holding only invoices without a due date never overlap a bounded range.
+     */
+    public List<String> overlapping(LocalDateTime dueFrom, LocalDateTime dueTo) {
+        if (!enabled) {
+            return List.of(invoiceCollection);
+        }
+        List<Bson> filters = new ArrayList<>();
+        if (dueFrom != null) {
+            filters.add(Filters.gte(MAX_DUE_DATE, toDate(dueFrom)));
+        }
+        if (dueTo != null) {
+            filters.add(Filters.lte(MIN_DUE_DATE, toDate(dueTo)));
+        }
+        List<String> partitions = new ArrayList<>();
+        String unmigrated = unmigratedCollection();
+        if (unmigrated != null) {
+            partitions.add(unmigrated);
+        }
+        catalog().find(filters.isEmpty() ? new Document() : Filters.and(filters))
+                .sort(Sorts.ascending("year"))
+                .forEach(entry -> partitions.add(entry.getString("_id")));
+        return partitions;
+    }
+
+    /**
+     * The partitions that can hold invoices matching the criteria.
+     */
+    public List<String> overlapping(InvoiceSearchCriteria criteria) {
+        LocalDateTime dueTo = criteria.endDate();
+        if (criteria.overdueAt() != null && (dueTo == null || criteria.overdueAt().isBefore(dueTo))) {
+            dueTo = criteria.overdueAt();
+        }
+        return overlapping(criteria.startDate(), dueTo);
+    }
+
+    /**
+     * Runs a task per partition, in parallel when there are several, and returns the results in partition order.
+     * The first failure cancels the remaining tasks and is rethrown.
+     */
+    public <T> List<T> map(List<String> partitions, Function<String, T> task) {
+        if (partitions.size() == 1) {
+            return Collections.singletonList(task.apply(partitions.get(0)));
+        }
+        List<Future<T>> futures = new ArrayList<>(partitions.size());
+        for (String partition : partitions) {
+            futures.add(executor.submit(QueryDeadline.propagate(() -> task.apply(partition))));
+        }
+        try {
+            List<T> results = new ArrayList<>(partitions.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessResourceFailureException("Interrupted while querying invoice partitions", exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new DataAccessResourceFailureException("Error querying invoice partitions", exception.getCause());
+        } catch (CancellationException exception) {
+            throw new DataAccessResourceFailureException("Invoice partition query was cancelled", exception);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Runs a query on each partition and concatenates the results in partition order.
+     */
+    public <T> List<T> fanOut(List<String> partitions, Function<String, List<T>> query) {
+        List<T> results = new ArrayList<>();
+        map(partitions, query).forEach(results::addAll);
+        return results;
+    }
+
+    /**
+     * Finds a page of invoices matching the query across partitions.
+     * <p>
+     * Each partition returns its first {@code offset + size} results in the page's sort order, by id when the
+     * page is unsorted. The merged results are sorted again and the page is cut from them, so deep pages cost one
+     * offset per partition. The total is the sum of the partitions' counts.
+     * <p>
+     * An invoice being moved to another partition is in both until the move completes. The merged results keep
+     * one copy of each id, and the total leaves out the copies dropped; a copy further down than the page is
+     * still counted twice, and the page may then come up short by that invoice.
+     *
+     * @param find  runs a query on one partition
+     * @param order the order of the page's sort, for merging
+     * @param id    the id of a result, for dropping copies
+     */
+    public <T> Page<T> findPage(List<String> partitions, Query query, Pageable pageable,
+                                BiFunction<Query, String, List<T>> find, Function<Sort, Comparator<T>> order,
+                                Function<T, Object> id) {
+        if (partitions.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        if (partitions.size() == 1) {
+            String partition = partitions.get(0);
+            return PageableExecutionUtils.getPage(find.apply(Query.of(query).with(pageable), partition), pageable,
+                    () -> count(query, partition));
+        }
+
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("id");
+        Query sorted = Query.of(query).with(sort);
+        if (pageable.isPaged()) {
+            sorted.limit(Math.toIntExact(pageable.getOffset() + pageable.getPageSize()));
+        }
+        List<T> found = fanOut(partitions, partition -> find.apply(sorted, partition));
+        found.sort(order.apply(sort));
+        Set<Object> ids = new HashSet<>();
+        List<T> merged = found.stream().filter(result -> ids.add(id.apply(result))).toList();
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(merged, pageable, merged.size());
+        }
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        int to = Math.min(from + pageable.getPageSize(), merged.size());
+        long total = map(partitions, partition -> count(query, partition)).stream().mapToLong(Long::longValue).sum()
+                - (found.size() - merged.size());
+        return new PageImpl<>(new ArrayList<>(merged.subList(from, to)), pageable, total);
+    }
+
+    /**
+     * Counts the invoices matching the query in one partition.
+     */
+    public long count(Query query, String partition) {
+        return mongoTemplate.count(Query.of(query).limit(-1).skip(-1), Invoice.class, partition);
+    }
+
+    /**
+     * Drops the partition of a year with its catalog and directory entries. The collection drop is immediate
+     * however many invoices the year holds; the directory entries are deleted afterwards.
+     */
+    public void dropPartition(int year) {
+        if (!enabled) {
+            throw new IllegalStateException("Invoices are not partitioned");
+        }
+        String partition = partitionFor(year);
+        mongoTemplate.dropCollection(partition);
+        catalog().deleteOne(Filters.eq("_id", partition));
+        long forgotten = directory().deleteMany(Filters.eq(PARTITION, partition)).getDeletedCount();
+        prepared.remove(partition);
+        log.info("Dropped invoice partition {} with {} invoices", partition, forgotten);
+    }
+
+    /**
+     * Called once the invoice collection holds no more invoices, so that queries stop reading it.
+     */
+    public void migrated() {
+        unmigrated = false;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * The invoice collection while it still holds invoices to be moved into partitions, otherwise null.
+     */
+    private String unmigratedCollection() {
+        Boolean pending = unmigrated;
+        if (pending == null) {
+            pending = mongoTemplate.getCollection(invoiceCollection).find().limit(1).first() != null;
+            unmigrated = pending;
+        }
+        return pending ? invoiceCollection : null;
+    }
+
+    /**
+     * Builds the declared invoice indexes in a partition, along with the directory's indexes.
+     */
+    private void createIndexes(String partition) {
+        List<IndexModel> indexes = InvoiceIndexes.INDEXES.stream()
+                .filter(index -> index.entity() == Invoice.class && index.collection() == null)
+                .map(IndexDefinition::toIndexModel)
+                .toList();
+        mongoTemplate.getCollection(partition).createIndexes(indexes);
+        directory().createIndexes(List.of(
+                new IndexModel(Indexes.ascending(INVOICE_NUMBER), new IndexOptions().name(INVOICE_NUMBER).unique(true)
+                        .partialFilterExpression(Filters.type(INVOICE_NUMBER, "string"))),
+                new IndexModel(Indexes.ascending(PARTITION), new IndexOptions().name(PARTITION))));
+    }
+
+    private MongoCollection<Document> directory() {
+        return mongoTemplate.getCollection(DIRECTORY_COLLECTION);
+    }
+
+    private MongoCollection<Document> catalog() {
+        return mongoTemplate.getCollection(CATALOG_COLLECTION);
+    }
+
+    /**
+     * Converts like the mapping layer does, so that catalog bounds compare with stored due dates.
+     */
+    private static Date toDate(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,14 @@
+package com.niyiment.invoice.domain.repository;
+
+/**
+ * Adjustment applied by a bulk recalculation.
+ *
+ * @param taxRate new tax rate as a percentage, or null to keep each invoice's rate
+ * @param unitPricePercentChange percentage change of every unit price, or null to keep prices
+ */
+public record InvoiceRecalculation(Double taxRate, Double unitPricePercentChange) {
+
+    public boolean changesPrices() {
+        return unitPricePercentChange != null && unitPricePercentChange != 0;
+    }
+}
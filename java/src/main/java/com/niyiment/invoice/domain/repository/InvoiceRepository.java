@@ -4,7 +4,6 @@ import com.niyiment.invoice.domain.enums.InvoiceStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import com.niyiment.invoice.domain.entity.Invoice;
 
@@ -13,40 +12,39 @@ import java.util.List;
 import java.util.Optional;
 
 
+/**
+ * Invoice storage. Lookups, saves and list queries go through {@link PartitionedInvoiceRepository}, which finds
+ * the collections holding the invoices; the remaining CRUD methods only see the invoice collection.
+ */
 @Repository
-public interface InvoiceRepository extends MongoRepository<Invoice, String> {
+public interface InvoiceRepository extends MongoRepository<Invoice, String>, PartitionedInvoiceRepository,
+        InvoiceRepositoryCustom {
 
-    Optional<Invoice> findByInvoiceNumber(String invoiceNumber);
+    @Override
+    <S extends Invoice> S save(S invoice);
 
-    boolean existsByInvoiceNumber(String invoiceNumber);
+    @Override
+    Optional<Invoice> findById(String id);
 
-    Page<Invoice> findByStatus(InvoiceStatus status, Pageable pageable);
+    @Override
+    boolean existsById(String id);
 
-    Page<Invoice> findByCustomerEmail(String customerEmail, Pageable pageable);
+    @Override
+    void deleteById(String id);
 
-    Page<Invoice> findByDueDateBetween(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable);
+    @Override
+    List<Invoice> findAll();
 
-    Page<Invoice> findByTotalAmountGreaterThanEqual(double amount, Pageable pageable);
+    @Override
+    Page<Invoice> findAll(Pageable pageable);
 
-    Page<Invoice> findByTotalAmountLessThanEqual(double amount, Pageable pageable);
+    @Override
+    long count();
 
-    @Query("{'customerName': {$regex: ?0, $options: 'i'}}")
-    Page<Invoice> findByCustomerNameContainingIgnoreCase(String customerName, Pageable pageable);
-
-    @Query("{'dueDate': {$lt:?0}, 'status': {$nin: ['PAID', 'CANCELLED']} }")
-    Page<Invoice> findOverdueInvoices(LocalDateTime now, Pageable pageable);
-
-
-    @Query("""
-           { $and[
-            { $or: [ {'customerName': {$regex: ?0, $options: 'i' }}, {?0: null} ] },
-            { $or: [ {'status': ?1 }, {?1: null} ] },
-            { $or: [ {'dueDate': {$gte: ?2 }}, {?2: null} ] },
-            { $or: [ {'dueDate': {$lte: ?3 }}, {?3: null} ] },
-            { $or: [ {'totalAmount': {$gte: ?4 }}, {?4: null} ] },
-            { $or: [ {'totalAmount': {$lte: ?5 }}, {?5: null} ] },
-            ] }
-            """)
-    List<Invoice> advanceSearch(String clientName, InvoiceStatus status, LocalDateTime startDate,
-                                LocalDateTime endDate, Double minAmount, Double maxAmount);
+    /**
+     * Finds the open invoices due before the given time, using the partial index on open invoices.
+     */
+    default Page<Invoice> findOverdueInvoices(LocalDateTime now, Pageable pageable) {
+        return findByDueDateBeforeAndStatusIn(now, InvoiceStatus.openStates(), pageable);
+    }
 }
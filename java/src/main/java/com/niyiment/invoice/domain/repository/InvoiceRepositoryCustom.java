@@ -0,0 +1,40 @@
+package com.niyiment.invoice.domain.repository;
+
+import com.mongodb.client.result.UpdateResult;
+import org.bson.RawBsonDocument;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Invoice operations that run as MongoDB pipelines or raw reads rather than derived queries.
+ */
+public interface InvoiceRepositoryCustom {
+
+    /**
+     * Finds a page of invoices matching the criteria as raw documents, without mapping them to entities.
+     */
+    Page<RawBsonDocument> findRaw(InvoiceSearchCriteria criteria, Pageable pageable);
+
+    /**
+     * Finds all invoices matching the criteria as raw documents, without mapping them to entities.
+     */
+    List<RawBsonDocument> findRaw(InvoiceSearchCriteria criteria);
+
+    /**
+     * Applies the adjustment to the open invoices matching the criteria and recomputes their amounts
+     * inside MongoDB. Invoices in a final state are never touched.
+     */
+    UpdateResult recalculate(InvoiceSearchCriteria criteria, InvoiceRecalculation recalculation);
+
+    /**
+     * Computes what {@link #recalculate} would change, per currency, without writing.
+     */
+    List<RecalculationPreview> previewRecalculation(InvoiceSearchCriteria criteria, InvoiceRecalculation recalculation);
+
+    /**
+     * Counts the open invoices matching the criteria whose items are stored externally.
+     */
+    long countExternalItemInvoices(InvoiceSearchCriteria criteria);
+}
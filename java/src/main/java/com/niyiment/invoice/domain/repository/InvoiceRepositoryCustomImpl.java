@@ -0,0 +1,269 @@
+package com.niyiment.invoice.domain.repository;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.result.UpdateResult;
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.enums.ItemStorage;
+import com.niyiment.invoice.domain.money.Money;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.SetOperation;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * Raw reads and bulk recalculation as pipeline-style updates.
+ * <p>
+ * Raw reads map the query through the entity metadata like any repository query, then fetch
+ * {@link RawBsonDocument}s so that callers can render the bytes without building entities.
+ * <p>
+ * The pipeline mirrors {@link Invoice#reCalculateAmount()}: unit prices and tax are scaled with the
+ * fixed-point rate of {@link Money#scaledRate(double)} and rounded half-even on Decimal128, so the
+ * amounts agree with the Java calculation to the last minor unit. Headers of invoices whose items are
+ * stored externally keep their denormalised subtotal.
+ * <p>
+ * Each operation runs on the {@link InvoicePartitions partitions} that can hold matching invoices; results,
+ * counts and previews are combined afterwards.
+ */
+@RequiredArgsConstructor
+public class InvoiceRepositoryCustomImpl implements InvoiceRepositoryCustom {
+    private static final String BEFORE = "before";
+
+    private final MongoTemplate mongoTemplate;
+    private final InvoicePartitions partitions;
+
+    @Override
+    public Page<RawBsonDocument> findRaw(InvoiceSearchCriteria criteria, Pageable pageable) {
+        return partitions.findPage(partitions.overlapping(criteria), new Query(criteria.toCriteria()), pageable,
+                this::findRaw, sort -> PartitionOrder.ofDocuments(new QueryMapper(mongoTemplate.getConverter())
+                        .getMappedSort(new Query().with(sort).getSortObject(), invoiceEntity())),
+                document -> document.get("_id"));
+    }
+
+    @Override
+    public List<RawBsonDocument> findRaw(InvoiceSearchCriteria criteria) {
+        Query query = new Query(criteria.toCriteria());
+        return partitions.fanOut(partitions.overlapping(criteria), partition -> findRaw(query, partition));
+    }
+
+    @Override
+    public UpdateResult recalculate(InvoiceSearchCriteria criteria, InvoiceRecalculation recalculation) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(context -> snapshotStage(recalculation));
+        for (Document stage : recalculationStages(recalculation)) {
+            stages.add(context -> stage);
+        }
+        // Only invoices whose amounts change get a new version, so their ETags stay valid otherwise
+        AggregationExpression version = context -> new Document("$cond", List.of(changedExpression(recalculation),
+                new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L)),
+                "$version"));
+        AggregationUpdate update = AggregationUpdate.from(stages)
+                .set(SetOperation.set("version").toValue(version))
+                .unset(BEFORE);
+        Query query = new Query(recalculationFilter(criteria, recalculation));
+        List<UpdateResult> results = partitions.map(partitions.overlapping(criteria),
+                partition -> mongoTemplate.updateMulti(query, update, Invoice.class, partition));
+        return UpdateResult.acknowledged(
+                results.stream().mapToLong(UpdateResult::getMatchedCount).sum(),
+                results.stream().mapToLong(UpdateResult::getModifiedCount).sum(),
+                null);
+    }
+
+    @Override
+    public List<RecalculationPreview> previewRecalculation(InvoiceSearchCriteria criteria,
+                                                           InvoiceRecalculation recalculation) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        operations.add(Aggregation.match(recalculationFilter(criteria, recalculation)));
+
+        operations.add(context -> snapshotStage(recalculation));
+        for (Document stage : recalculationStages(recalculation)) {
+            operations.add(context -> stage);
+        }
+
+        Document group = new Document("_id", new Document("$ifNull",
+                List.of("$currency", Money.DEFAULT_CURRENCY.getCurrencyCode())))
+                .append("invoiceCount", new Document("$sum", 1))
+                .append("changedCount", new Document("$sum",
+                        new Document("$cond", List.of(changedExpression(recalculation), 1, 0))))
+                .append("subtotalDelta", delta("subtotal"))
+                .append("taxAmountDelta", delta("taxAmount"))
+                .append("totalAmountDelta", delta("totalAmount"));
+        operations.add(context -> new Document("$group", group));
+        operations.add(context -> new Document("$sort", new Document("_id", 1)));
+
+        Aggregation aggregation = Aggregation.newAggregation(Invoice.class, operations);
+        Map<String, RecalculationPreview> previews = new TreeMap<>();
+        for (List<Document> results : partitions.map(partitions.overlapping(criteria), partition ->
+                mongoTemplate.aggregate(aggregation, partition, Document.class).getMappedResults())) {
+            for (Document result : results) {
+                RecalculationPreview preview = new RecalculationPreview(result.getString("_id"),
+                        longValue(result, "invoiceCount"), longValue(result, "changedCount"),
+                        longValue(result, "subtotalDelta"), longValue(result, "taxAmountDelta"),
+                        longValue(result, "totalAmountDelta"));
+                previews.merge(preview.currency(), preview, InvoiceRepositoryCustomImpl::add);
+            }
+        }
+        return new ArrayList<>(previews.values());
+    }
+
+    @Override
+    public long countExternalItemInvoices(InvoiceSearchCriteria criteria) {
+        Criteria external = new Criteria().andOperator(openInvoices(criteria),
+                Criteria.where("itemStorage").is(ItemStorage.EXTERNAL));
+        Query query = new Query(external);
+        return partitions.map(partitions.overlapping(criteria), partition -> partitions.count(query, partition))
+                .stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    private List<RawBsonDocument> findRaw(Query query, String partition) {
+        QueryMapper queryMapper = new QueryMapper(mongoTemplate.getConverter());
+        Document filter = queryMapper.getMappedObject(query.getQueryObject(), invoiceEntity());
+        Document sort = queryMapper.getMappedSort(query.getSortObject(), invoiceEntity());
+
+        return mongoTemplate.execute(partition, collection -> {
+            FindIterable<RawBsonDocument> documents = collection.withDocumentClass(RawBsonDocument.class)
+                    .find(filter)
+                    .sort(sort)
+                    .skip((int) query.getSkip());
+            if (query.getLimit() > 0) {
+                documents.limit(query.getLimit());
+            }
+            return documents.into(new ArrayList<>());
+        });
+    }
+
+    private MongoPersistentEntity<?> invoiceEntity() {
+        return mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(Invoice.class);
+    }
+
+    private static RecalculationPreview add(RecalculationPreview left, RecalculationPreview right) {
+        return new RecalculationPreview(left.currency(),
+                left.invoiceCount() + right.invoiceCount(), left.changedCount() + right.changedCount(),
+                left.subtotalDelta() + right.subtotalDelta(), left.taxAmountDelta() + right.taxAmountDelta(),
+                left.totalAmountDelta() + right.totalAmountDelta());
+    }
+
+    /**
+     * The stages recomputing item amounts, subtotal, tax amount and total amount.
+     */
+    static List<Document> recalculationStages(InvoiceRecalculation recalculation) {
+        List<Document> stages = new ArrayList<>();
+
+        if (recalculation.changesPrices()) {
+            long priceRate = Money.scaledRate(100 + recalculation.unitPricePercentChange());
+            Document adjustedItem = new Document("$let", new Document()
+                    .append("vars", new Document("unitPrice", applyRate("$$item.unitPrice", priceRate)))
+                    .append("in", new Document("$mergeObjects", List.of("$$item", new Document()
+                            .append("unitPrice", "$$unitPrice")
+                            .append("amount", new Document("$multiply",
+                                    List.of("$$unitPrice", new Document("$toLong", "$$item.quantity"))))))));
+            stages.add(new Document("$set", new Document("items", new Document("$map", new Document()
+                    .append("input", "$items")
+                    .append("as", "item")
+                    .append("in", adjustedItem)))));
+        }
+
+        stages.add(new Document("$set", new Document("subtotal", new Document("$cond", List.of(
+                new Document("$eq", List.of("$itemStorage", ItemStorage.EXTERNAL.name())),
+                "$subtotal",
+                new Document("$toLong", new Document("$sum", "$items.amount")))))));
+
+        Object taxRate;
+        Document taxStage = new Document();
+        if (recalculation.taxRate() != null) {
+            taxRate = Money.scaledRate(recalculation.taxRate());
+            taxStage.append("taxRate", recalculation.taxRate());
+        } else {
+            taxRate = new Document("$round", List.of(
+                    new Document("$multiply", List.of(new Document("$toDecimal", "$taxRate"), Money.RATE_SCALE)), 0));
+        }
+        taxStage.append("taxAmount", applyRate("$subtotal", taxRate));
+        stages.add(new Document("$set", taxStage));
+
+        stages.add(new Document("$set", new Document("totalAmount",
+                new Document("$add", List.of("$subtotal", "$taxAmount")))));
+        return stages;
+    }
+
+    /**
+     * Keeps the fields a recalculation may change, to compare against afterwards.
+     */
+    private static Document snapshotStage(InvoiceRecalculation recalculation) {
+        Document before = new Document();
+        for (String field : changedFields(recalculation)) {
+            before.append(field, "$" + field);
+        }
+        return new Document("$set", new Document(BEFORE, before));
+    }
+
+    private static Document changedExpression(InvoiceRecalculation recalculation) {
+        List<Object> changes = new ArrayList<>();
+        for (String field : changedFields(recalculation)) {
+            changes.add(new Document("$ne", List.of("$" + field, "$" + BEFORE + "." + field)));
+        }
+        return new Document("$or", changes);
+    }
+
+    private static List<String> changedFields(InvoiceRecalculation recalculation) {
+        List<String> fields = new ArrayList<>(List.of("subtotal", "taxRate", "taxAmount", "totalAmount"));
+        if (recalculation.changesPrices()) {
+            fields.add("items");
+        }
+        return fields;
+    }
+
+    private static Criteria recalculationFilter(InvoiceSearchCriteria criteria, InvoiceRecalculation recalculation) {
+        if (!recalculation.changesPrices()) {
+            return openInvoices(criteria);
+        }
+        return new Criteria().andOperator(openInvoices(criteria),
+                Criteria.where("itemStorage").ne(ItemStorage.EXTERNAL));
+    }
+
+    private static Criteria openInvoices(InvoiceSearchCriteria criteria) {
+        List<InvoiceStatus> finalStates = Arrays.stream(InvoiceStatus.values())
+                .filter(InvoiceStatus::isFinalState)
+                .toList();
+        return new Criteria().andOperator(criteria.toCriteria(), Criteria.where("status").nin(finalStates));
+    }
+
+    /**
+     * Builds {@code round(field * scaledRate / PERCENT_DIVISOR)} as a long, rounding half-even on Decimal128.
+     */
+    private static Document applyRate(String field, Object scaledRate) {
+        return new Document("$toLong", new Document("$round", List.of(
+                new Document("$divide", List.of(
+                        new Document("$multiply", List.of(new Document("$toDecimal", field), scaledRate)),
+                        Money.PERCENT_DIVISOR)),
+                0)));
+    }
+
+    private static Document delta(String field) {
+        return new Document("$sum", new Document("$subtract", List.of("$" + field, "$" + BEFORE + "." + field)));
+    }
+
+    private static long longValue(Document document, String field) {
+        Object value = document.get(field);
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+}
@@ -0,0 +1,76 @@
+package com.niyiment.invoice.domain.repository;
+
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The invoice filters, all optional, with amounts in minor units.
+ *
+ * @param currency  when set, only invoices in this currency; amounts are compared in its minor units, so
+ *                  amount filters always come with a currency
+ * @param overdueAt when set, only invoices due before this time that are not yet settled
+ */
+public record InvoiceSearchCriteria(String customerName, String customerEmail, InvoiceStatus status,
+                                    LocalDateTime startDate, LocalDateTime endDate, String currency,
+                                    Long minAmount, Long maxAmount, LocalDateTime overdueAt) {
+
+    /**
+     * Builds the filters of {@link InvoiceRepository#advanceSearch} and the derived list queries, leaving
+     * out absent values.
+     */
+    public Criteria toCriteria() {
+        List<Criteria> criteria = new ArrayList<>();
+        if (customerName != null) {
+            criteria.add(Criteria.where("customerName").regex(customerName, "i"));
+        }
+        if (customerEmail != null) {
+            criteria.add(Criteria.where("customerEmail").is(customerEmail));
+        }
+        if (status != null) {
+            criteria.add(Criteria.where("status").is(status));
+        }
+        if (startDate != null) {
+            criteria.add(Criteria.where("dueDate").gte(startDate));
+        }
+        if (endDate != null) {
+            criteria.add(Criteria.where("dueDate").lte(endDate));
+        }
+        if (currency != null) {
+            criteria.add(Criteria.where("currency").is(currency));
+        }
+        if (minAmount != null) {
+            criteria.add(Criteria.where("totalAmount").gte(minAmount));
+        }
+        if (maxAmount != null) {
+            criteria.add(Criteria.where("totalAmount").lte(maxAmount));
+        }
+        if (overdueAt != null) {
+            criteria.add(Criteria.where("dueDate").lt(overdueAt));
+            criteria.add(open());
+        }
+        return criteria.isEmpty() ? new Criteria() : new Criteria().andOperator(criteria);
+    }
+
+    /**
+     * Whether archived invoices can match: the archive holds only settled invoices, all due no later than
+     * {@code archivedUntil}, which is null while the archive is empty.
+     */
+    public boolean mayMatchArchive(LocalDateTime archivedUntil) {
+        return archivedUntil != null
+                && overdueAt == null
+                && (status == null || status.isFinalState())
+                && (startDate == null || !startDate.isAfter(archivedUntil));
+    }
+
+    /**
+     * Matches the invoices that are not in a final state, with the filter of the partial index on open
+     * invoices, so that the planner can use it.
+     */
+    public static Criteria open() {
+        return Criteria.where("status").in(InvoiceStatus.openStates());
+    }
+}
@@ -0,0 +1,24 @@
+package com.niyiment.invoice.domain.repository;
+
+/**
+ * Projection reading only the id and version of an invoice, for conditional requests.
+ */
+public interface InvoiceVersion {
+    String getId();
+
+    Long getVersion();
+
+    static InvoiceVersion of(String id, Long version) {
+        return new InvoiceVersion() {
+            @Override
+            public String getId() {
+                return id;
+            }
+
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+        };
+    }
+}
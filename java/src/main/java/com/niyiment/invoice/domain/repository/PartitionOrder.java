@@ -0,0 +1,94 @@
+package com.niyiment.invoice.domain.repository;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.Map;
+
+
+/**
+ * Orders results merged from several partitions the way MongoDB sorts them, so that a page cut from the merged
+ * results is the page a single collection would return. Missing and null values sort first in ascending order.
+ */
+final class PartitionOrder {
+
+    private PartitionOrder() {
+    }
+
+    /**
+     * Orders entities by the properties of the sort.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Comparator<T> ofEntities(Sort sort) {
+        Comparator<T> order = (left, right) -> 0;
+        for (Sort.Order property : sort) {
+            Comparator<T> byProperty = Comparator.comparing(
+                    entity -> (Comparable<Object>) new BeanWrapperImpl(entity).getPropertyValue(property.getProperty()),
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+            order = order.thenComparing(property.isDescending() ? byProperty.reversed() : byProperty);
+        }
+        return order;
+    }
+
+    /**
+     * Orders raw documents by a sort already mapped to document fields, such as {@code {_id: 1}}.
+     */
+    static <T extends BsonDocument> Comparator<T> ofDocuments(Document mappedSort) {
+        Comparator<T> order = (left, right) -> 0;
+        for (Map.Entry<String, Object> field : mappedSort.entrySet()) {
+            Comparator<T> byField = (left, right) -> compare(value(left, field.getKey()), value(right, field.getKey()));
+            boolean descending = field.getValue() instanceof Number direction && direction.intValue() < 0;
+            order = order.thenComparing(descending ? byField.reversed() : byField);
+        }
+        return order;
+    }
+
+    private static BsonValue value(BsonDocument document, String path) {
+        BsonValue value = document;
+        for (String name : path.split("\\.")) {
+            if (value == null || !value.isDocument()) {
+                return null;
+            }
+            value = value.asDocument().get(name);
+        }
+        return value;
+    }
+
+    /**
+     * Compares the BSON types an invoice holds; values of different types compare by type, null first.
+     */
+    static int compare(BsonValue left, BsonValue right) {
+        boolean leftNull = left == null || left.isNull();
+        boolean rightNull = right == null || right.isNull();
+        if (leftNull || rightNull) {
+            return Boolean.compare(!leftNull, !rightNull);
+        }
+        if (left.isNumber() && right.isNumber()) {
+            return number(left).compareTo(number(right));
+        }
+        if (left.getBsonType() != right.getBsonType()) {
+            return left.getBsonType().compareTo(right.getBsonType());
+        }
+        return switch (left.getBsonType()) {
+            case STRING -> left.asString().getValue().compareTo(right.asString().getValue());
+            case DATE_TIME -> Long.compare(left.asDateTime().getValue(), right.asDateTime().getValue());
+            case OBJECT_ID -> left.asObjectId().getValue().compareTo(right.asObjectId().getValue());
+            case BOOLEAN -> Boolean.compare(left.asBoolean().getValue(), right.asBoolean().getValue());
+            default -> 0;
+        };
+    }
+
+    private static BigDecimal number(BsonValue value) {
+        return switch (value.getBsonType()) {
+            case INT32 -> BigDecimal.valueOf(value.asInt32().getValue());
+            case INT64 -> BigDecimal.valueOf(value.asInt64().getValue());
+            case DECIMAL128 -> value.asDecimal128().getValue().bigDecimalValue();
+            default -> BigDecimal.valueOf(value.asDouble().getValue());
+        };
+    }
+}
@@ -0,0 +1,83 @@
+package com.niyiment.invoice.domain.repository;
+
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Invoice reads and writes routed by {@link InvoicePartitions} to the collections holding the invoices, in place
+ * of the derived queries and the repository's own CRUD methods, which only know the invoice collection.
+ */
+public interface PartitionedInvoiceRepository {
+
+    /**
+     * Saves an invoice into the partition of its invoice date year, moving it there if the year changed.
+     */
+    <S extends Invoice> S save(S invoice);
+
+    Optional<Invoice> findById(String id);
+
+    boolean existsById(String id);
+
+    void deleteById(String id);
+
+    /**
+     * Clears the {@link Invoice#isItemsPending() pending items} flag of a saved invoice, leaving its version as
+     * it is.
+     */
+    void markItemsWritten(String id);
+
+    List<Invoice> findAll();
+
+    Page<Invoice> findAll(Pageable pageable);
+
+    long count();
+
+    Optional<Invoice> findByInvoiceNumber(String invoiceNumber);
+
+    Optional<InvoiceVersion> findVersionById(String id);
+
+    Optional<InvoiceVersion> findVersionByInvoiceNumber(String invoiceNumber);
+
+    boolean existsByInvoiceNumber(String invoiceNumber);
+
+    Page<Invoice> findByStatus(InvoiceStatus status, Pageable pageable);
+
+    Page<Invoice> findByCustomerEmail(String customerEmail, Pageable pageable);
+
+    /**
+     * Finds the invoices due strictly between the two times, reading only the partitions holding such invoices.
+     */
+    Page<Invoice> findByDueDateBetween(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable);
+
+    /**
+     * Finds the invoices in the currency whose total, in its minor units, is at least the amount.
+     */
+    Page<Invoice> findByCurrencyAndTotalAmountGreaterThanEqual(String currency, long amount, Pageable pageable);
+
+    /**
+     * Finds the invoices in the currency whose total, in its minor units, is at most the amount.
+     */
+    Page<Invoice> findByCurrencyAndTotalAmountLessThanEqual(String currency, long amount, Pageable pageable);
+
+    /**
+     * Finds the invoices whose customer name matches the pattern, ignoring case.
+     */
+    Page<Invoice> findByCustomerNameContainingIgnoreCase(String customerName, Pageable pageable);
+
+    Page<Invoice> findByDueDateBeforeAndStatusIn(LocalDateTime dueDate, Collection<InvoiceStatus> statuses,
+                                                 Pageable pageable);
+
+    /**
+     * Finds the invoices matching all given filters; null filters are left out. Amounts are minor units of the
+     * currency, which must be given with them.
+     */
+    List<Invoice> advanceSearch(String clientName, InvoiceStatus status, LocalDateTime startDate,
+                                LocalDateTime endDate, String currency, Long minAmount, Long maxAmount);
+}
@@ -0,0 +1,231 @@
+package com.niyiment.invoice.domain.repository;
+
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Updates;
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+
+/**
+ * Reads an invoice by id or number from the partition the directory points to, and runs list queries on every
+ * partition that can hold matches, merging the pages.
+ * <p>
+ * A new invoice gets its id and directory entry before it is written, so a duplicate number fails before
+ * anything reaches a partition. An invoice whose invoice date moves to another year is saved where it is, then
+ * copied to its new partition and deleted from the old one; until the delete it is in both, and lookups follow
+ * the directory to the new copy.
+ */
+@RequiredArgsConstructor
+public class PartitionedInvoiceRepositoryImpl implements PartitionedInvoiceRepository {
+    private final MongoTemplate mongoTemplate;
+    private final InvoicePartitions partitions;
+
+    @Override
+    public <S extends Invoice> S save(S invoice) {
+        if (!partitions.isEnabled()) {
+            return mongoTemplate.save(invoice, partitions.invoiceCollection());
+        }
+        String target = partitions.partitionOf(invoice);
+        partitions.prepare(target, invoice.getDueDate());
+
+        if (invoice.getVersion() == null) {
+            if (invoice.getId() == null) {
+                invoice.setId(new ObjectId().toHexString());
+            }
+            partitions.reserve(invoice.getId(), invoice.getInvoiceNumber(), target);
+            try {
+                return mongoTemplate.save(invoice, target);
+            } catch (RuntimeException exception) {
+                partitions.forget(List.of(invoice.getId()));
+                throw exception;
+            }
+        }
+
+        String current = partitions.locate(invoice.getId());
+        if (current == null) {
+            current = target;
+        }
+        S saved = mongoTemplate.save(invoice, current);
+        if (!current.equals(target)) {
+            move(saved, current, target);
+        }
+        return saved;
+    }
+
+    @Override
+    public Optional<Invoice> findById(String id) {
+        String partition = partitions.locate(id);
+        return partition == null ? Optional.empty()
+                : Optional.ofNullable(mongoTemplate.findById(id, Invoice.class, partition));
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        String partition = partitions.locate(id);
+        return partition != null && mongoTemplate.exists(byId(id), Invoice.class, partition);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        String partition = partitions.locate(id);
+        if (partition != null) {
+            mongoTemplate.remove(byId(id), Invoice.class, partition);
+        }
+        partitions.forget(List.of(id));
+    }
+
+    @Override
+    public void markItemsWritten(String id) {
+        String partition = partitions.locate(id);
+        if (partition != null) {
+            mongoTemplate.getCollection(partition).updateOne(idFilter(id), Updates.unset("itemsPending"));
+        }
+    }
+
+    @Override
+    public List<Invoice> findAll() {
+        return partitions.fanOut(partitions.all(), partition -> mongoTemplate.findAll(Invoice.class, partition));
+    }
+
+    @Override
+    public Page<Invoice> findAll(Pageable pageable) {
+        return findPage(partitions.all(), new Criteria(), pageable);
+    }
+
+    @Override
+    public long count() {
+        return partitions.map(partitions.all(), partition -> partitions.count(new Query(), partition)).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    @Override
+    public Optional<Invoice> findByInvoiceNumber(String invoiceNumber) {
+        String partition = partitions.locateByNumber(invoiceNumber);
+        return partition == null ? Optional.empty()
+                : Optional.ofNullable(mongoTemplate.findOne(byNumber(invoiceNumber), Invoice.class, partition));
+    }
+
+    @Override
+    public Optional<InvoiceVersion> findVersionById(String id) {
+        return findVersion(partitions.locate(id), byId(id));
+    }
+
+    @Override
+    public Optional<InvoiceVersion> findVersionByInvoiceNumber(String invoiceNumber) {
+        return findVersion(partitions.locateByNumber(invoiceNumber), byNumber(invoiceNumber));
+    }
+
+    @Override
+    public boolean existsByInvoiceNumber(String invoiceNumber) {
+        String partition = partitions.locateByNumber(invoiceNumber);
+        return partition != null && mongoTemplate.exists(byNumber(invoiceNumber), Invoice.class, partition);
+    }
+
+    @Override
+    public Page<Invoice> findByStatus(InvoiceStatus status, Pageable pageable) {
+        return findPage(partitions.all(), Criteria.where("status").is(status), pageable);
+    }
+
+    @Override
+    public Page<Invoice> findByCustomerEmail(String customerEmail, Pageable pageable) {
+        return findPage(partitions.all(), Criteria.where("customerEmail").is(customerEmail), pageable);
+    }
+
+    @Override
+    public Page<Invoice> findByDueDateBetween(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
+        return findPage(partitions.overlapping(startDate, endDate),
+                Criteria.where("dueDate").gt(startDate).lt(endDate), pageable);
+    }
+
+    @Override
+    public Page<Invoice> findByCurrencyAndTotalAmountGreaterThanEqual(String currency, long amount,
+                                                                      Pageable pageable) {
+        return findPage(partitions.all(), Criteria.where("currency").is(currency).and("totalAmount").gte(amount),
+                pageable);
+    }
+
+    @Override
+    public Page<Invoice> findByCurrencyAndTotalAmountLessThanEqual(String currency, long amount, Pageable pageable) {
+        return findPage(partitions.all(), Criteria.where("currency").is(currency).and("totalAmount").lte(amount),
+                pageable);
+    }
+
+    @Override
+    public Page<Invoice> findByCustomerNameContainingIgnoreCase(String customerName, Pageable pageable) {
+        return findPage(partitions.all(), Criteria.where("customerName").regex(customerName, "i"), pageable);
+    }
+
+    @Override
+    public Page<Invoice> findByDueDateBeforeAndStatusIn(LocalDateTime dueDate, Collection<InvoiceStatus> statuses,
+                                                        Pageable pageable) {
+        return findPage(partitions.overlapping(null, dueDate),
+                Criteria.where("dueDate").lt(dueDate).and("status").in(statuses), pageable);
+    }
+
+    @Override
+    public List<Invoice> advanceSearch(String clientName, InvoiceStatus status, LocalDateTime startDate,
+                                       LocalDateTime endDate, String currency, Long minAmount, Long maxAmount) {
+        InvoiceSearchCriteria criteria = new InvoiceSearchCriteria(clientName, null, status, startDate, endDate,
+                currency, minAmount, maxAmount, null);
+        Query query = new Query(criteria.toCriteria());
+        return partitions.fanOut(partitions.overlapping(criteria),
+                partition -> mongoTemplate.find(query, Invoice.class, partition));
+    }
+
+    private Page<Invoice> findPage(List<String> candidates, Criteria criteria, Pageable pageable) {
+        return partitions.findPage(candidates, new Query(criteria), pageable,
+                (query, partition) -> mongoTemplate.find(query, Invoice.class, partition),
+                PartitionOrder::ofEntities, Invoice::getId);
+    }
+
+    private Optional<InvoiceVersion> findVersion(String partition, Query query) {
+        if (partition == null) {
+            return Optional.empty();
+        }
+        return mongoTemplate.query(Invoice.class).inCollection(partition).as(InvoiceVersion.class)
+                .matching(query)
+                .one();
+    }
+
+    /**
+     * Copies the stored invoice to its new partition, points the directory at the copy, then deletes the original.
+     */
+    private void move(Invoice invoice, String from, String to) {
+        Document filter = idFilter(invoice.getId());
+        Document stored = mongoTemplate.getCollection(from).find(filter).first();
+        if (stored == null) {
+            return;
+        }
+        mongoTemplate.getCollection(to).replaceOne(filter, stored, new ReplaceOptions().upsert(true));
+        partitions.register(invoice.getId(), invoice.getInvoiceNumber(), to);
+        mongoTemplate.getCollection(from).deleteOne(filter);
+    }
+
+    private Document idFilter(String id) {
+        return new QueryMapper(mongoTemplate.getConverter()).getMappedObject(byId(id).getQueryObject(),
+                mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(Invoice.class));
+    }
+
+    private static Query byId(String id) {
+        return new Query(Criteria.where("id").is(id));
+    }
+
+    private static Query byNumber(String invoiceNumber) {
+        return new Query(Criteria.where("invoiceNumber").is(invoiceNumber));
+    }
+}
@@ -0,0 +1,103 @@
+package com.niyiment.invoice.domain.repository;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+
+/**
+ * The deadline of the work running on the current thread, applied to every MongoDB operation it issues.
+ * <p>
+ * A deadline is set for a block of work with {@link #start} and applies until its scope is closed. Nested
+ * scopes can only shorten it. {@link DeadlineMongoTemplate} hands the remaining time to the driver with each
+ * operation, and the driver sends it to the server as {@code maxTimeMS}. Work handed to another thread takes
+ * the deadline along through {@link #propagate}.
+ */
+public final class QueryDeadline {
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private QueryDeadline() {
+    }
+
+    /**
+     * Sets a deadline for the current thread, unless an earlier one is already set.
+     *
+     * @param timeout time from now until the deadline
+     * @return the scope, to be closed on this thread when the work is done
+     */
+    public static Scope start(Duration timeout) {
+        Long previous = DEADLINE.get();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        if (previous == null || deadline - previous < 0) {
+            DEADLINE.set(deadline);
+        }
+        return new Scope(previous);
+    }
+
+    /**
+     * Whether the current thread has a deadline.
+     */
+    public static boolean isSet() {
+        return DEADLINE.get() != null;
+    }
+
+    /**
+     * Time left until the current thread's deadline; negative once it has passed.
+     *
+     * @throws IllegalStateException if no deadline is set
+     */
+    public static long remainingNanos() {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            throw new IllegalStateException("No deadline set");
+        }
+        return deadline - System.nanoTime();
+    }
+
+    /**
+     * Wraps a task so that it runs with the current thread's deadline, wherever it is executed.
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return task;
+        }
+        return () -> {
+            Long previous = DEADLINE.get();
+            DEADLINE.set(deadline);
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static void restore(Long previous) {
+        if (previous == null) {
+            DEADLINE.remove();
+        } else {
+            DEADLINE.set(previous);
+        }
+    }
+
+    /**
+     * Restores the previous deadline when closed. Only the first close on the thread that started it has an effect.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final Long previous;
+        private final Thread owner = Thread.currentThread();
+        private boolean closed;
+
+        private Scope(Long previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (!closed && Thread.currentThread() == owner) {
+                closed = true;
+                restore(previous);
+            }
+        }
+    }
+}
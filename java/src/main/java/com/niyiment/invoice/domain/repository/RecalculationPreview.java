@@ -0,0 +1,8 @@
+package com.niyiment.invoice.domain.repository;
+
+/**
+ * Effect a bulk recalculation would have on the invoices of one currency, amounts in minor units.
+ */
+public record RecalculationPreview(String currency, long invoiceCount, long changedCount,
+                                   long subtotalDelta, long taxAmountDelta, long totalAmountDelta) {
+}
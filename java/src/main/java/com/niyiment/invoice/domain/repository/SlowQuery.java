@@ -0,0 +1,25 @@
+package com.niyiment.invoice.domain.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A MongoDB query that took longer than the slow query threshold.
+ *
+ * @param recordedAt when the query ended
+ * @param database the database queried
+ * @param collection the collection queried, or {@code null} for database-level commands
+ * @param command the command name, such as {@code find} or {@code aggregate}
+ * @param durationMillis how long the command took
+ * @param shape the command with the values of its filter, pipeline and updates replaced by {@code "?"}, or
+ *              {@code null} if the command was too large to keep
+ * @param explained whether the plan was captured; only a sample of slow queries is explained
+ * @param planStages the stages of the winning plan, from the root
+ * @param indexes the indexes the winning plan uses
+ * @param collectionScan whether the plan scans the whole collection
+ * @param inMemorySort whether the plan sorts in memory instead of reading an index in order
+ */
+public record SlowQuery(Instant recordedAt, String database, String collection, String command, long durationMillis,
+                        String shape, boolean explained, List<String> planStages, List<String> indexes,
+                        boolean collectionScan, boolean inMemorySort) {
+}
@@ -0,0 +1,287 @@
+package com.niyiment.invoice.domain.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.niyiment.invoice.config.SlowQueryProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Records MongoDB queries slower than {@link SlowQueryProperties#getThreshold()}, whichever repository method
+ * or template call issued them.
+ * <p>
+ * The profiler listens to the commands of both MongoDB clients. A sample of the slow queries is explained
+ * with {@code queryPlanner} verbosity on a background thread, which does not run the query again; plans
+ * that scan the whole collection or sort in memory are flagged and logged. The most recent slow queries
+ * are kept for {@code /api/admin/slow-queries}, with the values in their filters redacted, and counted as
+ * {@code invoice.queries.slow}.
+ * <p>
+ * While a command runs only its collection and the parts explain needs are kept: session fields are dropped,
+ * a bulk update or delete keeps its first statement, and a command still larger than
+ * {@link SlowQueryProperties#getMaxCommandSize()} is kept by name and collection only.
+ */
+@Slf4j
+@Component
+public class SlowQueryProfiler implements CommandListener, DisposableBean {
+    private static final Set<String> EXPLAINABLE =
+            Set.of("find", "aggregate", "count", "distinct", "update", "delete", "findAndModify");
+    private static final Set<String> REDACTED = Set.of("filter", "query", "pipeline", "updates", "deletes", "update");
+    /** Statement lists of bulk writes, of which explain takes one. */
+    private static final Set<String> STATEMENTS = Set.of("updates", "deletes");
+    /** Session and transaction fields, which explain rejects. */
+    private static final Set<String> SESSION_FIELDS =
+            Set.of("lsid", "txnNumber", "autocommit", "startTransaction", "readConcern", "writeConcern");
+    /** Parts of explain output that do not describe the winning plan. */
+    private static final Set<String> NOT_WINNING_PLAN = Set.of("rejectedPlans", "command", "serverInfo", "serverParameters");
+    private static final long EXPLAIN_TIMEOUT_MILLIS = 5_000;
+    private static final BsonDocumentCodec CODEC = new BsonDocumentCodec();
+
+    private final SlowQueryProperties properties;
+    private final Explainer explainer;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final Map<Integer, RunningCommand> running = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+
+    @Autowired
+    public SlowQueryProfiler(SlowQueryProperties properties, ObjectProvider<MongoClient> mongoClient,
+                             MeterRegistry meterRegistry) {
+        this(properties, (database, command) -> mongoClient.getObject().getDatabase(database)
+                        .withTimeout(EXPLAIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                        .runCommand(new BsonDocument("explain", command)
+                                .append("verbosity", new BsonString("queryPlanner")), BsonDocument.class),
+                new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(16),
+                        Thread.ofPlatform().name("slow-query-explain").daemon(true).factory()),
+                meterRegistry);
+    }
+
+    SlowQueryProfiler(SlowQueryProperties properties, Explainer explainer, ExecutorService executor,
+                      MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.explainer = explainer;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (properties.isEnabled() && EXPLAINABLE.contains(event.getCommandName())) {
+            BsonValue target = event.getCommand().get(event.getCommandName());
+            String collection = target != null && target.isString() ? target.asString().getValue() : null;
+            // The event's document is only valid during the callback
+            RawBsonDocument command = new RawBsonDocument(retained(event.getCommand()), CODEC);
+            if (command.getByteBuffer().remaining() > properties.getMaxCommandSize().toBytes()) {
+                command = null;
+            }
+            running.put(event.getRequestId(), new RunningCommand(collection, command));
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        ended(event.getRequestId(), event.getDatabaseName(), event.getCommandName(),
+                event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        ended(event.getRequestId(), event.getDatabaseName(), event.getCommandName(),
+                event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * The recorded slow queries, most recent first.
+     */
+    public synchronized List<SlowQuery> getSlowQueries() {
+        return new ArrayList<>(slowQueries.reversed());
+    }
+
+    public synchronized void clear() {
+        slowQueries.clear();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void ended(int requestId, String database, String commandName, long elapsedNanos) {
+        RunningCommand runningCommand = running.remove(requestId);
+        if (runningCommand == null || elapsedNanos < properties.getThreshold().toNanos()) {
+            return;
+        }
+
+        String collection = runningCommand.collection();
+        BsonDocument command = runningCommand.command();
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        String shape = command != null ? shape(command).toJson() : null;
+        Counter.builder("invoice.queries.slow")
+                .description("MongoDB queries slower than the slow query threshold")
+                .tag("collection", String.valueOf(collection))
+                .tag("command", commandName)
+                .register(meterRegistry)
+                .increment();
+
+        Instant recordedAt = Instant.now();
+        SlowQuery unexplained = new SlowQuery(recordedAt, database, collection, commandName, durationMillis, shape,
+                false, List.of(), List.of(), false, false);
+        if (command == null || ThreadLocalRandom.current().nextDouble() >= properties.getExplainSampleRate()) {
+            record(unexplained);
+            return;
+        }
+        try {
+            executor.execute(() -> record(explain(unexplained, command)));
+        } catch (RejectedExecutionException exception) {
+            // Explains are falling behind; keep the query without its plan
+            record(unexplained);
+        }
+    }
+
+    private SlowQuery explain(SlowQuery query, BsonDocument command) {
+        BsonDocument plan;
+        try {
+            plan = explainer.explain(query.database(), explainable(command));
+        } catch (RuntimeException exception) {
+            log.debug("Could not explain slow {} on {}", query.command(), query.collection(), exception);
+            return query;
+        }
+
+        List<String> stages = new ArrayList<>();
+        List<String> indexes = new ArrayList<>();
+        collectPlan(plan, stages, indexes);
+        boolean collectionScan = stages.contains("COLLSCAN");
+        boolean inMemorySort = stages.contains("SORT");
+        if (collectionScan || inMemorySort) {
+            log.warn("Slow {} on {} took {} ms with plan {}: {}", query.command(), query.collection(),
+                    query.durationMillis(), stages, query.shape());
+        }
+        return new SlowQuery(query.recordedAt(), query.database(), query.collection(), query.command(),
+                query.durationMillis(), query.shape(), true, stages, indexes, collectionScan, inMemorySort);
+    }
+
+    private synchronized void record(SlowQuery query) {
+        if (slowQueries.size() >= Math.max(properties.getCapacity(), 1)) {
+            slowQueries.removeFirst();
+        }
+        slowQueries.addLast(query);
+    }
+
+    /**
+     * Drops the fields a command carries for the driver and its session.
+     */
+    static BsonDocument explainable(BsonDocument command) {
+        BsonDocument explainable = new BsonDocument();
+        command.forEach((key, value) -> {
+            if (!key.startsWith("$") && !SESSION_FIELDS.contains(key)) {
+                explainable.put(key, value);
+            }
+        });
+        return explainable;
+    }
+
+    /**
+     * The part of a command kept while it runs: what explain is given, with only the first statement of a bulk
+     * update or delete.
+     */
+    static BsonDocument retained(BsonDocument command) {
+        BsonDocument retained = explainable(command);
+        retained.replaceAll((key, value) -> STATEMENTS.contains(key) && value.isArray() && value.asArray().size() > 1
+                ? new BsonArray(List.of(value.asArray().get(0))) : value);
+        return retained;
+    }
+
+    static BsonDocument shape(BsonDocument command) {
+        BsonDocument shape = explainable(command);
+        shape.replaceAll((key, value) -> REDACTED.contains(key) ? redact(value) : value);
+        return shape;
+    }
+
+    private static BsonValue redact(BsonValue value) {
+        if (value.isDocument()) {
+            BsonDocument redacted = new BsonDocument();
+            value.asDocument().forEach((key, field) -> redacted.put(key, redact(field)));
+            return redacted;
+        }
+        if (value.isArray()) {
+            BsonArray redacted = new BsonArray();
+            value.asArray().forEach(element -> redacted.add(redact(element)));
+            return redacted;
+        }
+        return new BsonString("?");
+    }
+
+    /**
+     * Collects the stages and indexes of the winning plan. Aggregation stages that run after the query, such
+     * as a {@code $sort} that could not use an index, are reported as plan stages.
+     */
+    static void collectPlan(BsonValue value, List<String> stages, List<String> indexes) {
+        if (value.isArray()) {
+            value.asArray().forEach(element -> collectPlan(element, stages, indexes));
+            return;
+        }
+        if (!value.isDocument()) {
+            return;
+        }
+        value.asDocument().forEach((key, field) -> {
+            if (NOT_WINNING_PLAN.contains(key)) {
+                return;
+            }
+            if (key.equals("stage") && field.isString()) {
+                stages.add(field.asString().getValue());
+            } else if (key.equals("indexName") && field.isString()) {
+                indexes.add(field.asString().getValue());
+            } else if (key.equals("$sort")) {
+                stages.add("SORT");
+            } else {
+                collectPlan(field, stages, indexes);
+            }
+        });
+    }
+
+    /**
+     * A command awaiting its outcome.
+     *
+     * @param collection the collection it targets
+     * @param command the retained command, or {@code null} when it was too large to keep
+     */
+    private record RunningCommand(String collection, BsonDocument command) {
+    }
+
+    /**
+     * Runs {@code explain} for a command.
+     */
+    @FunctionalInterface
+    interface Explainer {
+        BsonDocument explain(String database, BsonDocument command);
+    }
+}
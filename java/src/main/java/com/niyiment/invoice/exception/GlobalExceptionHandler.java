@@ -2,6 +2,8 @@ package com.niyiment.invoice.exception;
 
 
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -59,6 +61,47 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return createErrorResponse(ex, HttpStatus.CONFLICT, request);
     }
 
+    /**
+     * Handles OptimisticLockingFailureException when an invoice was changed concurrently
+     * and returns a 409 response.
+     *
+     * @param ex The exception
+     * @param request The web request
+     * @return 409 response with error details
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorDetails> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex,
+                                                                               WebRequest request) {
+        return createErrorResponse(ex, HttpStatus.CONFLICT, request);
+    }
+
+    /**
+     * Handles TooManyRequestsException when a bulkhead is full and returns a 429 response
+     * with a Retry-After header.
+     *
+     * @param ex The exception
+     * @param request The web request
+     * @return 429 response with error details
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorDetails> handleTooManyRequestsException(TooManyRequestsException ex, WebRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfter().toSeconds()));
+        return createErrorResponse(ex, HttpStatus.TOO_MANY_REQUESTS, headers, request);
+    }
+
+    /**
+     * Handles QueryTimeoutException when a query ran past the request deadline and returns a 504 response.
+     *
+     * @param ex The exception
+     * @param request The web request
+     * @return 504 response with error details
+     */
+    @ExceptionHandler(QueryTimeoutException.class)
+    public ResponseEntity<ErrorDetails> handleQueryTimeoutException(QueryTimeoutException ex, WebRequest request) {
+        return createErrorResponse(ex, HttpStatus.GATEWAY_TIMEOUT, request);
+    }
+
     /**
      * Handles validation errors and returns a 400 response with field error details.
      *
@@ -109,13 +152,27 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
      * @return Response entity with error details
      */
     private ResponseEntity<ErrorDetails> createErrorResponse(Exception ex, HttpStatus status, WebRequest request) {
+        return createErrorResponse(ex, status, new HttpHeaders(), request);
+    }
+
+    /**
+     * Creates an error response with the given exception, status, extra headers, and request.
+     *
+     * @param ex The exception
+     * @param status The HTTP status
+     * @param headers Headers to add to the response
+     * @param request The web request
+     * @return Response entity with error details
+     */
+    private ResponseEntity<ErrorDetails> createErrorResponse(Exception ex, HttpStatus status, HttpHeaders headers,
+                                                             WebRequest request) {
         ErrorDetails errorDetails = new ErrorDetails(
                 LocalDateTime.now(),
                 ex.getMessage(),
                 request.getDescription(false)
         );
 
-        return new ResponseEntity<>(errorDetails, status);
+        return new ResponseEntity<>(errorDetails, headers, status);
     }
 
     /**
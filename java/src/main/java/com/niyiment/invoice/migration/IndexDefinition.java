@@ -0,0 +1,84 @@
+package com.niyiment.invoice.migration;
+
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import org.bson.Document;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+
+
+/**
+ * An index the application declares, by entity and name.
+ *
+ * @param entity        the entity whose collection holds the index
+ * @param collection    when set, the collection holding the index instead of the entity's, for documents of the
+ *                      entity kept in a second collection
+ * @param name          the index name, which identifies it when comparing with the live collection
+ * @param keys          the indexed fields in order, with their direction
+ * @param unique        whether the index rejects duplicate keys
+ * @param partialFilter when set, only documents matching this filter are indexed
+ */
+public record IndexDefinition(Class<?> entity, String collection, String name, Document keys, boolean unique,
+                              Document partialFilter) {
+
+    public static IndexDefinition of(Class<?> entity, String name, Document keys) {
+        return new IndexDefinition(entity, null, name, keys, false, null);
+    }
+
+    public IndexDefinition inCollection(String collectionName) {
+        return new IndexDefinition(entity, collectionName, name, keys, unique, partialFilter);
+    }
+
+    public IndexDefinition asUnique() {
+        return new IndexDefinition(entity, collection, name, keys, true, partialFilter);
+    }
+
+    public IndexDefinition withPartialFilter(Document filter) {
+        return new IndexDefinition(entity, collection, name, keys, unique, filter);
+    }
+
+    public IndexModel toIndexModel() {
+        IndexOptions options = new IndexOptions().name(name).unique(unique);
+        if (partialFilter != null) {
+            options.partialFilterExpression(partialFilter);
+        }
+        return new IndexModel(keys, options);
+    }
+
+    /**
+     * Whether an index of the live collection, as returned by {@code listIndexes}, has the keys and options of
+     * this definition.
+     */
+    boolean matches(Document liveIndex) {
+        return sameKeys(keys, liveIndex.get("key", Document.class))
+                && unique == liveIndex.getBoolean("unique", false)
+                && Objects.equals(partialFilter, liveIndex.get("partialFilterExpression", Document.class));
+    }
+
+    /**
+     * Compares keys in order; the server may return a direction of {@code 1} as a double.
+     */
+    private static boolean sameKeys(Document declared, Document live) {
+        if (live == null || declared.size() != live.size()) {
+            return false;
+        }
+        Iterator<Map.Entry<String, Object>> liveKeys = live.entrySet().iterator();
+        for (Map.Entry<String, Object> declaredKey : declared.entrySet()) {
+            Map.Entry<String, Object> liveKey = liveKeys.next();
+            if (!declaredKey.getKey().equals(liveKey.getKey())
+                    || !sameDirection(declaredKey.getValue(), liveKey.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameDirection(Object declared, Object live) {
+        if (declared instanceof Number declaredNumber && live instanceof Number liveNumber) {
+            return declaredNumber.intValue() == liveNumber.intValue();
+        }
+        return Objects.equals(declared, live);
+    }
+}
@@ -0,0 +1,55 @@
+package com.niyiment.invoice.migration;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+
+/**
+ * The differences between the declared indexes and those of the live collections. Indexes are named
+ * {@code collection.index}.
+ *
+ * @param missing    declared indexes the collection does not have
+ * @param mismatched declared indexes that exist with other keys or options
+ * @param unexpected indexes the collection has but the application does not declare, other than {@code _id_}
+ */
+public record IndexDrift(List<String> missing, List<String> mismatched, List<String> unexpected) {
+    private static final String ID_INDEX = "_id_";
+
+    /**
+     * Compares the declared indexes with the live ones.
+     *
+     * @param live the {@code listIndexes} output of each collection that has declared indexes
+     */
+    public static IndexDrift compare(Map<String, List<IndexDefinition>> declared, Map<String, List<Document>> live) {
+        List<String> missing = new ArrayList<>();
+        List<String> mismatched = new ArrayList<>();
+        List<String> unexpected = new ArrayList<>();
+        declared.forEach((collection, definitions) -> {
+            Map<String, Document> liveIndexes = live.getOrDefault(collection, List.of()).stream()
+                    .collect(Collectors.toMap(index -> index.getString("name"), index -> index));
+            for (IndexDefinition definition : definitions) {
+                Document liveIndex = liveIndexes.get(definition.name());
+                if (liveIndex == null) {
+                    missing.add(collection + "." + definition.name());
+                } else if (!definition.matches(liveIndex)) {
+                    mismatched.add(collection + "." + definition.name());
+                }
+            }
+            Set<String> declaredNames = definitions.stream().map(IndexDefinition::name).collect(Collectors.toSet());
+            liveIndexes.keySet().stream()
+                    .filter(name -> !name.equals(ID_INDEX) && !declaredNames.contains(name))
+                    .sorted()
+                    .forEach(name -> unexpected.add(collection + "." + name));
+        });
+        return new IndexDrift(missing, mismatched, unexpected);
+    }
+
+    public boolean isEmpty() {
+        return missing.isEmpty() && mismatched.isEmpty() && unexpected.isEmpty();
+    }
+}
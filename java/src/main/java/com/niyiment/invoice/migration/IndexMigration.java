@@ -0,0 +1,194 @@
+package com.niyiment.invoice.migration;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Builds the {@link InvoiceIndexes} in the background and verifies them against the live collections.
+ * <p>
+ * The migration runs on a thread of its own, so the application is ready while indexes are still being
+ * built; queries simply run without them until they are. Since MongoDB 4.2 index builds hold an exclusive
+ * lock only at their start and end, so reads and writes continue during the build. Missing indexes are
+ * built on every start. When {@link InvoiceIndexes#VERSION} is newer than the version recorded in the
+ * {@value #MIGRATION_COLLECTION} collection, indexes whose definition changed are rebuilt and retired ones
+ * dropped, and the new version is recorded once every index is in place. Indexes the application does not
+ * declare are never dropped; they are reported as drift by {@link InvoiceIndexHealthIndicator}.
+ */
+@Slf4j
+@Component
+@Order(2)
+@ConditionalOnProperty(prefix = "invoice.migration.indexes", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class IndexMigration implements ApplicationRunner {
+    static final String MIGRATION_COLLECTION = "migrations";
+    static final String MIGRATION_ID = "invoice-indexes";
+
+    /**
+     * Progress of the migration since the application started.
+     */
+    public enum State {
+        PENDING, BUILDING, COMPLETED, FAILED
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final int version;
+    private final List<IndexDefinition> indexes;
+    private final Set<String> retired;
+    private volatile State state = State.PENDING;
+    private volatile String failure;
+
+    @Autowired
+    public IndexMigration(MongoTemplate mongoTemplate) {
+        this(mongoTemplate, InvoiceIndexes.VERSION, InvoiceIndexes.INDEXES, InvoiceIndexes.RETIRED);
+    }
+
+    IndexMigration(MongoTemplate mongoTemplate, int version, List<IndexDefinition> indexes, Set<String> retired) {
+        this.mongoTemplate = mongoTemplate;
+        this.version = version;
+        this.indexes = indexes;
+        this.retired = retired;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread.ofPlatform().daemon().name("invoice-index-migration").start(() -> {
+            try {
+                migrate();
+            } catch (RuntimeException exception) {
+                failure = exception.getMessage();
+                state = State.FAILED;
+                log.error("Index migration failed", exception);
+            }
+        });
+    }
+
+    /**
+     * Builds the missing indexes, and on a version upgrade rebuilds changed ones and drops retired ones.
+     * Blocks until the builds finish.
+     *
+     * @return the drift remaining afterwards
+     */
+    public IndexDrift migrate() {
+        state = State.BUILDING;
+        int appliedVersion = appliedVersion();
+        boolean upgrade = appliedVersion < version;
+        IndexDrift drift = verify();
+        List<String> failures = new ArrayList<>();
+
+        declaredByCollection().forEach((collectionName, definitions) -> {
+            MongoCollection<Document> collection = mongoTemplate.getCollection(collectionName);
+            for (IndexDefinition definition : definitions) {
+                String qualifiedName = collectionName + "." + definition.name();
+                boolean changed = drift.mismatched().contains(qualifiedName);
+                if (changed && upgrade) {
+                    log.info("Dropping index {} to rebuild it with its version {} definition", qualifiedName, version);
+                    collection.dropIndex(definition.name());
+                }
+                if (drift.missing().contains(qualifiedName) || (changed && upgrade)) {
+                    build(collection, qualifiedName, definition, failures);
+                }
+            }
+            for (String name : retired) {
+                if (upgrade && drift.unexpected().contains(collectionName + "." + name)) {
+                    log.info("Dropping retired index {}.{}", collectionName, name);
+                    collection.dropIndex(name);
+                }
+            }
+        });
+
+        if (upgrade && failures.isEmpty()) {
+            recordVersion();
+            log.info("Migrated invoice indexes from version {} to {}", appliedVersion, version);
+        }
+        IndexDrift remaining = verify();
+        if (!remaining.isEmpty()) {
+            log.warn("Invoice indexes differ from version {}: {}", version, remaining);
+        }
+        failure = failures.isEmpty() ? null : String.join("; ", failures);
+        state = failures.isEmpty() ? State.COMPLETED : State.FAILED;
+        return remaining;
+    }
+
+    /**
+     * Compares the declared indexes with those of the live collections.
+     */
+    public IndexDrift verify() {
+        Map<String, List<Document>> live = new LinkedHashMap<>();
+        for (String collectionName : declaredByCollection().keySet()) {
+            live.put(collectionName, mongoTemplate.getCollection(collectionName).listIndexes().into(new ArrayList<>()));
+        }
+        return IndexDrift.compare(declaredByCollection(), live);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Why the last migration failed, or {@code null}.
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * The version of the indexes recorded by the last complete migration, or 0 if none.
+     */
+    public int appliedVersion() {
+        Document migration = mongoTemplate.getCollection(MIGRATION_COLLECTION)
+                .find(Filters.eq("_id", MIGRATION_ID)).first();
+        return migration != null ? migration.getInteger("version", 0) : 0;
+    }
+
+    private void build(MongoCollection<Document> collection, String qualifiedName, IndexDefinition definition,
+                       List<String> failures) {
+        long start = System.nanoTime();
+        try {
+            collection.createIndexes(List.of(definition.toIndexModel()));
+            log.info("Built index {} in {}", qualifiedName, Duration.ofNanos(System.nanoTime() - start));
+        } catch (MongoException exception) {
+            failures.add(qualifiedName + ": " + exception.getMessage());
+            log.error("Could not build index {}", qualifiedName, exception);
+        }
+    }
+
+    private void recordVersion() {
+        mongoTemplate.getCollection(MIGRATION_COLLECTION).replaceOne(Filters.eq("_id", MIGRATION_ID),
+                new Document("_id", MIGRATION_ID).append("version", version).append("migratedAt", new Date()),
+                new ReplaceOptions().upsert(true));
+    }
+
+    private Map<String, List<IndexDefinition>> declaredByCollection() {
+        Map<String, List<IndexDefinition>> byCollection = new LinkedHashMap<>();
+        for (IndexDefinition definition : indexes) {
+            String collectionName = definition.collection() != null
+                    ? definition.collection()
+                    : mongoTemplate.getCollectionName(definition.entity());
+            byCollection.computeIfAbsent(collectionName, collection -> new ArrayList<>()).add(definition);
+        }
+        return byCollection;
+    }
+}
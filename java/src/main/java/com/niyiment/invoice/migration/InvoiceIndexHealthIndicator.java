@@ -0,0 +1,51 @@
+package com.niyiment.invoice.migration;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Reports the invoice indexes as {@code invoiceIndex} on the health endpoint, comparing the declared indexes
+ * with the live collections on each call.
+ * <p>
+ * While the {@link IndexMigration} is building, the indexes not built yet are listed and the status is
+ * {@code UP}. Afterwards, missing, changed or undeclared indexes make the status {@link #DRIFT}, which ranks
+ * below {@code DOWN} and above {@code UP} but still answers with HTTP 200: queries are slower without their
+ * indexes, not unavailable. If the indexes cannot be listed the status is {@code DOWN}.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "invoice.migration.indexes", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class InvoiceIndexHealthIndicator extends AbstractHealthIndicator {
+    public static final Status DRIFT = new Status("DRIFT", "Indexes differ from the declared ones");
+
+    private final IndexMigration indexMigration;
+
+    @Override
+    protected void doHealthCheck(Health.Builder health) {
+        IndexMigration.State state = indexMigration.getState();
+        IndexDrift drift = indexMigration.verify();
+        boolean migrating = state == IndexMigration.State.PENDING || state == IndexMigration.State.BUILDING;
+
+        health.status(drift.isEmpty() || migrating ? Status.UP : DRIFT)
+                .withDetail("state", state)
+                .withDetail("version", indexMigration.getVersion())
+                .withDetail("appliedVersion", indexMigration.appliedVersion());
+        if (!drift.missing().isEmpty()) {
+            health.withDetail("missing", drift.missing());
+        }
+        if (!drift.mismatched().isEmpty()) {
+            health.withDetail("mismatched", drift.mismatched());
+        }
+        if (!drift.unexpected().isEmpty()) {
+            health.withDetail("unexpected", drift.unexpected());
+        }
+        if (indexMigration.getFailure() != null) {
+            health.withDetail("failure", indexMigration.getFailure());
+        }
+    }
+}
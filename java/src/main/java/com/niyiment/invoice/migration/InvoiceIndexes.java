@@ -0,0 +1,63 @@
+package com.niyiment.invoice.migration;
+
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.entity.InvoiceLineItem;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.enums.ItemStorage;
+import com.niyiment.invoice.domain.repository.InvoiceArchiveRepository;
+import org.bson.Document;
+
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * The indexes of the invoice collections, built and verified by {@link IndexMigration}.
+ * <p>
+ * Raise {@link #VERSION} whenever an index is added, changed or retired. An index whose keys or options
+ * changed is rebuilt once by the new version; without a version change it is only reported as drift.
+ */
+public final class InvoiceIndexes {
+    public static final int VERSION = 3;
+
+    public static final List<IndexDefinition> INDEXES = List.of(
+            // Lookups by number and the uniqueness check on create
+            IndexDefinition.of(Invoice.class, "invoiceNumber", new Document("invoiceNumber", 1)).asUnique(),
+            // Status lists, and status with a due date range: searches and the revenue reports on paid invoices
+            IndexDefinition.of(Invoice.class, "status_dueDate", new Document("status", 1).append("dueDate", 1)),
+            // Invoices of a customer, most recently due first
+            IndexDefinition.of(Invoice.class, "customerEmail_dueDate",
+                    new Document("customerEmail", 1).append("dueDate", -1)),
+            // Due date ranges without a status
+            IndexDefinition.of(Invoice.class, "dueDate", new Document("dueDate", 1)),
+            // Open invoices only, for the overdue list and the aging report; small however much history is settled
+            IndexDefinition.of(Invoice.class, "open_dueDate", new Document("dueDate", 1))
+                    .withPartialFilter(new Document("status", new Document("$in",
+                            InvoiceStatus.openStates().stream().map(InvoiceStatus::name).toList()))),
+            // Amount thresholds and ranges
+            IndexDefinition.of(Invoice.class, "totalAmount", new Document("totalAmount", 1)),
+            // Customer name searches; a case-insensitive regex scans the index keys instead of the documents
+            IndexDefinition.of(Invoice.class, "customerName", new Document("customerName", 1)),
+            // The few invoices whose items are stored externally, skipped by bulk recalculation
+            IndexDefinition.of(Invoice.class, "external_items_status", new Document("status", 1))
+                    .withPartialFilter(new Document("itemStorage", ItemStorage.EXTERNAL.name())),
+            // Items of an external-item invoice in line order
+            IndexDefinition.of(InvoiceLineItem.class, "invoice_line",
+                    new Document("invoiceId", 1).append("lineNumber", 1)).asUnique(),
+            // Archived invoices: lookups by number, paid invoices by due date for the revenue reports, and the
+            // latest archived due date that decides whether a report reads the archive
+            IndexDefinition.of(Invoice.class, "invoiceNumber", new Document("invoiceNumber", 1)).asUnique()
+                    .inCollection(InvoiceArchiveRepository.COLLECTION),
+            IndexDefinition.of(Invoice.class, "status_dueDate", new Document("status", 1).append("dueDate", 1))
+                    .inCollection(InvoiceArchiveRepository.COLLECTION),
+            IndexDefinition.of(Invoice.class, "dueDate", new Document("dueDate", 1))
+                    .inCollection(InvoiceArchiveRepository.COLLECTION));
+
+    /**
+     * Names of indexes that earlier versions declared and that are dropped when migrating to this version.
+     */
+    public static final Set<String> RETIRED = Set.of();
+
+    private InvoiceIndexes() {
+    }
+}
@@ -0,0 +1,95 @@
+package com.niyiment.invoice.migration;
+
+import com.mongodb.client.result.UpdateResult;
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.money.Money;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+
+/**
+ * Converts invoices written before amounts were stored as minor units.
+ * <p>
+ * Legacy documents hold {@code subtotal}, {@code taxAmount}, {@code totalAmount} and the item
+ * {@code unitPrice}/{@code amount} fields as doubles in the default currency. The conversion runs
+ * inside MongoDB as a pipeline {@code updateMany}; only fields still typed as double are touched,
+ * so the migration is idempotent and safe to run on every startup.
+ */
+@Slf4j
+@Component
+@Order(0)
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "invoice.migration.money", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class MoneyMigration implements ApplicationRunner {
+    private static final String DOUBLE_TYPE = "double";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        UpdateResult result = migrate();
+        if (result.getModifiedCount() > 0) {
+            log.info("Converted {} invoices to minor-unit amounts", result.getModifiedCount());
+        }
+    }
+
+    /**
+     * Converts every invoice that still has a double-typed amount.
+     *
+     * @return the result of the update
+     */
+    public UpdateResult migrate() {
+        long factor = (long) Math.pow(10, Money.scale(Money.DEFAULT_CURRENCY));
+
+        Document filter = new Document("$or", List.of(
+                hasDoubleField("subtotal"),
+                hasDoubleField("taxAmount"),
+                hasDoubleField("totalAmount"),
+                hasDoubleField("items.unitPrice"),
+                hasDoubleField("items.amount")));
+
+        Document convertedItem = new Document("$mergeObjects", List.of("$$item", new Document()
+                .append("unitPrice", toMinorUnits("$$item.unitPrice", factor))
+                .append("amount", toMinorUnits("$$item.amount", factor))));
+
+        Document set = new Document()
+                .append("currency", new Document("$ifNull",
+                        List.of("$currency", Money.DEFAULT_CURRENCY.getCurrencyCode())))
+                .append("subtotal", toMinorUnits("$subtotal", factor))
+                .append("taxAmount", toMinorUnits("$taxAmount", factor))
+                .append("totalAmount", toMinorUnits("$totalAmount", factor))
+                .append("items", new Document("$map", new Document()
+                        .append("input", new Document("$ifNull", List.of("$items", List.of())))
+                        .append("as", "item")
+                        .append("in", convertedItem)));
+
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Invoice.class))
+                .updateMany(filter, List.of(new Document("$set", set)));
+    }
+
+    private static Document hasDoubleField(String field) {
+        return new Document(field, new Document("$type", DOUBLE_TYPE));
+    }
+
+    /**
+     * Builds {@code round(field * factor)} as a long, going through Decimal128 so that the binary
+     * representation of the legacy double does not leak into the rounding.
+     */
+    private static Document toMinorUnits(String field, long factor) {
+        Document converted = new Document("$toLong", new Document("$round", List.of(
+                new Document("$multiply", List.of(new Document("$toDecimal", field), factor)), 0)));
+        return new Document("$cond", List.of(
+                new Document("$eq", List.of(new Document("$type", field), DOUBLE_TYPE)),
+                converted,
+                field));
+    }
+}
@@ -0,0 +1,127 @@
+package com.niyiment.invoice.migration;
+
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.niyiment.invoice.config.PartitionProperties;
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.repository.InvoicePartitions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Moves the invoices of the invoice collection into the {@link InvoicePartitions partitions} of their invoice
+ * date year, once partitioning is turned on.
+ * <p>
+ * The migration runs on a thread of its own after the other migrations, in batches of
+ * {@link PartitionProperties#getMigrationBatchSize()}. Each invoice is copied to its partition, registered in
+ * the directory, then deleted from the invoice collection if its version is still the one copied; an invoice
+ * changed in the meantime is copied again by the next batch. Until it is moved, an invoice is read from the
+ * invoice collection, which queries treat as one more partition until the migration completes.
+ */
+@Slf4j
+@Component
+@Order(3)
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "invoice.partitioning", name = "enabled", havingValue = "true")
+public class PartitionMigration implements ApplicationRunner {
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+
+    private final MongoTemplate mongoTemplate;
+    private final InvoicePartitions partitions;
+    private final PartitionProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread.ofPlatform().daemon().name("invoice-partition-migration").start(() -> {
+            try {
+                long moved = migrate();
+                if (moved > 0) {
+                    log.info("Moved {} invoices into partitions", moved);
+                }
+            } catch (RuntimeException exception) {
+                log.error("Partition migration failed", exception);
+            }
+        });
+    }
+
+    /**
+     * Moves batches of invoices until the invoice collection is empty, or a batch moves none because all its
+     * invoices changed while being copied.
+     *
+     * @return the number of invoices moved
+     */
+    public long migrate() {
+        long moved = 0;
+        int batch;
+        while ((batch = migrateBatch()) > 0) {
+            moved += batch;
+        }
+        if (batch == 0) {
+            partitions.migrated();
+        } else {
+            log.warn("No invoice of the last batch could be moved; the migration continues on the next start");
+        }
+        return moved;
+    }
+
+    /**
+     * Moves one batch.
+     *
+     * @return the number of invoices moved, 0 if there were none left, or -1 if none of the batch could be moved
+     */
+    int migrateBatch() {
+        MongoCollection<Document> invoices = mongoTemplate.getCollection(partitions.invoiceCollection())
+                .withWriteConcern(WriteConcern.MAJORITY);
+        List<Document> batch = invoices.find().limit(properties.getMigrationBatchSize()).into(new ArrayList<>());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, List<Document>> byPartition = new LinkedHashMap<>();
+        Map<Object, Invoice> read = new HashMap<>();
+        for (Document document : batch) {
+            Invoice invoice = mongoTemplate.getConverter().read(Invoice.class, document);
+            String partition = partitions.partitionOf(invoice);
+            partitions.prepare(partition, invoice.getDueDate());
+            byPartition.computeIfAbsent(partition, name -> new ArrayList<>()).add(document);
+            read.put(document.get("_id"), invoice);
+        }
+
+        byPartition.forEach((partition, documents) -> {
+            mongoTemplate.getCollection(partition).withWriteConcern(WriteConcern.MAJORITY).bulkWrite(documents.stream()
+                    .map(document -> new ReplaceOneModel<>(Filters.eq("_id", document.get("_id")), document,
+                            new ReplaceOptions().upsert(true)))
+                    .toList(), UNORDERED);
+            for (Document document : documents) {
+                Invoice invoice = read.get(document.get("_id"));
+                partitions.register(invoice.getId(), invoice.getInvoiceNumber(), partition);
+            }
+        });
+
+        long deleted = invoices.bulkWrite(batch.stream()
+                .map(document -> new DeleteOneModel<Document>(Filters.and(
+                        Filters.eq("_id", document.get("_id")),
+                        Filters.eq("version", document.get("version")))))
+                .toList(), UNORDERED).getDeletedCount();
+        return deleted > 0 ? (int) deleted : -1;
+    }
+}
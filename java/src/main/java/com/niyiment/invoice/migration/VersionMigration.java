@@ -0,0 +1,48 @@
+package com.niyiment.invoice.migration;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import com.niyiment.invoice.domain.entity.Invoice;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Initialises the version of invoices written before {@link Invoice#getVersion()} existed.
+ * <p>
+ * Spring Data treats an entity with a {@code null} version as new, so saving such an invoice would be
+ * attempted as an insert. Setting the missing versions to zero lets those invoices be updated normally.
+ */
+@Slf4j
+@Component
+@Order(1)
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "invoice.migration.version", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class VersionMigration implements ApplicationRunner {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        UpdateResult result = migrate();
+        if (result.getModifiedCount() > 0) {
+            log.info("Initialised the version of {} invoices", result.getModifiedCount());
+        }
+    }
+
+    /**
+     * Sets the version of every invoice that has none.
+     *
+     * @return the result of the update
+     */
+    public UpdateResult migrate() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Invoice.class))
+                .updateMany(Filters.exists("version", false), Updates.set("version", 0L));
+    }
+}
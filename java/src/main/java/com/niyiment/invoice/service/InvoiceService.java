@@ -1,31 +1,69 @@
 package com.niyiment.invoice.service;
 
+import com.niyiment.invoice.domain.dto.BulkRecalculationRequest;
+import com.niyiment.invoice.domain.dto.BulkRecalculationResult;
 import com.niyiment.invoice.domain.dto.InvoiceDto;
+import com.niyiment.invoice.domain.dto.InvoiceFilter;
+import com.niyiment.invoice.domain.dto.InvoiceItemDto;
+import com.niyiment.invoice.domain.dto.InvoiceJson;
 import com.niyiment.invoice.domain.entity.Invoice;
 import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.repository.InvoiceVersion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface InvoiceService {
     InvoiceDto createInvoice(InvoiceDto invoiceDto);
     InvoiceDto getInvoiceById(String id);
     InvoiceDto getInvoiceByNumber(String invoiceNumber);
+
+    /**
+     * Returns the current version of an invoice without loading the document, for conditional requests.
+     */
+    long getInvoiceVersion(String id);
+
+    /**
+     * Returns the id and current version of the invoice with the given number, without loading the document.
+     */
+    InvoiceVersion getInvoiceVersionByNumber(String invoiceNumber);
     Page<InvoiceDto> getAllInvoices(Pageable pageable);
+    Page<InvoiceItemDto> getInvoiceItems(String id, Pageable pageable);
+
+    /**
+     * Streams the items of an invoice in line order, wherever they are stored.
+     * The returned stream must be closed by the caller.
+     */
+    Stream<InvoiceItemDto> streamInvoiceItems(String id);
     InvoiceDto updateInvoice(String id, InvoiceDto invoiceDto);
     InvoiceDto updateInvoiceStatus(String id, InvoiceStatus invoiceStatus);
     void deleteInvoice(String id);
     Page<InvoiceDto> getInvoiceByCustomerEmail(String customerEmail, Pageable pageable);
     Page<InvoiceDto> getInvoicesByDueDateRange(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable);
     Page<InvoiceDto> getOverdueInvoices(Pageable pageable);
-    Page<InvoiceDto> getInvoicesByTotalAmountGreaterThanEquals(double amount, Pageable pageable);
-    Page<InvoiceDto> getInvoicesByTotalAmountLessThanEquals(double amount, Pageable pageable);
+    Page<InvoiceDto> getInvoicesByTotalAmountGreaterThanEquals(BigDecimal amount, Pageable pageable);
+    Page<InvoiceDto> getInvoicesByTotalAmountLessThanEquals(BigDecimal amount, Pageable pageable);
     Page<InvoiceDto> getInvoicesByStatus(InvoiceStatus status, Pageable pageable);
     List<InvoiceDto> advancedSearch(String customerName, InvoiceStatus invoiceStatus,
                                     LocalDateTime startDate, LocalDateTime endDate,
-                                    Double minAmount, Double maxAmount);
+                                    BigDecimal minAmount, BigDecimal maxAmount);
+
+    /**
+     * Finds invoices for rendering only, as raw documents that serialize to the {@link InvoiceDto} JSON
+     * without being mapped to entities or DTOs.
+     */
+    Page<InvoiceJson> findInvoiceJson(InvoiceFilter filter, Pageable pageable);
+    List<InvoiceJson> findInvoiceJson(InvoiceFilter filter);
+
+    /**
+     * Applies a tax rate or unit price adjustment to the open invoices matching the search filters,
+     * recomputing their amounts in the database, or reports the effect without writing for a dry run.
+     */
+    BulkRecalculationResult bulkRecalculate(BulkRecalculationRequest request);
 
     String generateNextInvoiceNumber();
 }
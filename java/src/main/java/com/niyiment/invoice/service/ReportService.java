@@ -4,7 +4,9 @@ import com.niyiment.invoice.domain.enums.ExportFormat;
 import com.niyiment.invoice.domain.enums.InvoiceStatus;
 
 import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Currency;
 import java.util.List;
 import java.util.Map;
 
@@ -14,9 +16,10 @@ public interface ReportService {
     void exportInvoicesWithCriteria(String clientName, InvoiceStatus status,
                                     LocalDateTime startDate, LocalDateTime endDate,
                                     ExportFormat format, OutputStream outputStream);
-    Map<String, Double> generateRevenueReportByCustomer(LocalDateTime startDate, LocalDateTime endDate);
-    Map<String, Double> generateRevenueReportByMonth(int year);
+    Map<String, BigDecimal> generateRevenueReportByCustomer(LocalDateTime startDate, LocalDateTime endDate,
+                                                            Currency currency);
+    Map<String, BigDecimal> generateRevenueReportByMonth(int year, Currency currency);
     Map<InvoiceStatus, Long> generateInvoicesByStatusReport();
-    Map<String, Double> generateAgingReport();
+    Map<String, BigDecimal> generateAgingReport(Currency currency);
     void exportReport(Map<?, ?> reportData, String reportTitle, ExportFormat format, OutputStream outputStream);
 }
@@ -0,0 +1,16 @@
+package com.niyiment.invoice.service.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A Flight Recorder recording started through {@link FlightRecordings}.
+ *
+ * @param name the recording name, also the name of its file
+ * @param state {@code RUNNING} until the duration has passed, {@code CLOSED} once the file is written
+ * @param startTime when the recording started
+ * @param duration how long the recording runs
+ * @param file where the recording is written when it ends
+ */
+public record FlightRecording(String name, String state, Instant startTime, Duration duration, String file) {
+}
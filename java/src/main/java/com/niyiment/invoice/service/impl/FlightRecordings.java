@@ -0,0 +1,116 @@
+package com.niyiment.invoice.service.impl;
+
+import com.niyiment.invoice.config.RecordingProperties;
+import com.niyiment.invoice.exception.BadRequestException;
+import com.niyiment.invoice.exception.TooManyRequestsException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+
+/**
+ * Starts time-boxed Flight Recorder recordings with the configured JDK event settings and the application's
+ * {@link ReportEvent}s. A recording stops by itself after its duration and is then written to
+ * {@link RecordingProperties#getDirectory()}, where it can be opened with JDK Mission Control or
+ * {@code jfr print}. One recording runs at a time, and a recording is closed, releasing its disk chunks, once it
+ * has been written or is dropped from the history.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FlightRecordings {
+    private static final DateTimeFormatter FILE_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private final RecordingProperties properties;
+    private final Deque<Recording> recordings = new ArrayDeque<>();
+
+    /**
+     * Starts a recording.
+     *
+     * @param duration how long to record, or {@code null} for the configured default
+     * @throws TooManyRequestsException if a recording is still running
+     */
+    public synchronized FlightRecording start(Duration duration) {
+        Duration recordingDuration = duration != null ? duration : properties.getDefaultDuration();
+        if (recordingDuration.toSeconds() < 1 || recordingDuration.compareTo(properties.getMaxDuration()) > 0) {
+            throw new BadRequestException("Recording duration must be between 1s and " + properties.getMaxDuration());
+        }
+        closeStopped();
+        for (Recording recording : recordings) {
+            if (recording.getState() == RecordingState.RUNNING) {
+                Duration remaining = Duration.between(Instant.now(),
+                        recording.getStartTime().plus(recording.getDuration()));
+                throw new TooManyRequestsException("Recording " + recording.getName() + " is still running",
+                        remaining.isNegative() ? Duration.ZERO : remaining);
+            }
+        }
+
+        String name = "invoice-" + FILE_TIMESTAMP.format(Instant.now());
+        Path file = properties.getDirectory().resolve(name + ".jfr");
+        try {
+            Files.createDirectories(properties.getDirectory());
+            Recording recording = new Recording(Configuration.getConfiguration(properties.getSettings()));
+            recording.enable(ReportEvent.class);
+            recording.setName(name);
+            recording.setToDisk(true);
+            recording.setDuration(recordingDuration);
+            recording.setDestination(file);
+            recording.start();
+            remember(recording);
+            log.info("Started recording {} for {}, to be written to {}", name, recordingDuration, file);
+            return describe(recording);
+        } catch (IOException | ParseException exception) {
+            throw new IllegalStateException("Could not start recording " + name, exception);
+        }
+    }
+
+    /**
+     * The recordings started, most recent first.
+     */
+    public synchronized List<FlightRecording> getRecordings() {
+        closeStopped();
+        List<FlightRecording> described = new ArrayList<>();
+        recordings.descendingIterator().forEachRemaining(recording -> described.add(describe(recording)));
+        return described;
+    }
+
+    private void remember(Recording recording) {
+        if (recordings.size() >= Math.max(properties.getHistory(), 1)) {
+            recordings.removeFirst().close();
+        }
+        recordings.addLast(recording);
+    }
+
+    /**
+     * Closes the recordings that have stopped; a stopped recording has already been written to its destination.
+     */
+    private void closeStopped() {
+        for (Recording recording : recordings) {
+            if (recording.getState() == RecordingState.STOPPED) {
+                recording.close();
+            }
+        }
+    }
+
+    private static FlightRecording describe(Recording recording) {
+        return new FlightRecording(recording.getName(), recording.getState().name(), recording.getStartTime(),
+                recording.getDuration(), String.valueOf(recording.getDestination()));
+    }
+}
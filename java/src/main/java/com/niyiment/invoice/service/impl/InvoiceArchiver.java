@@ -0,0 +1,129 @@
+package com.niyiment.invoice.service.impl;
+
+import com.niyiment.invoice.config.ArchiveProperties;
+import com.niyiment.invoice.domain.repository.ArchiveBatch;
+import com.niyiment.invoice.domain.repository.InvoiceArchiveRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+
+/**
+ * Moves paid and cancelled invoices older than {@link ArchiveProperties#getMinAge()} to the archive tier.
+ * <p>
+ * A daemon thread starts a run after the initial delay and then once per interval. A run archives batches
+ * until none is left, or until a batch removes nothing from the invoice collection, which happens when every
+ * invoice of the batch changed while it was copied; those are retried by the next run. Batches are idempotent,
+ * so a run interrupted by shutdown, or racing the run of another instance, leaves no invoice lost or
+ * duplicated. Archived invoices are counted as {@code invoice.archive.invoices}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "invoice.archive", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class InvoiceArchiver implements SmartLifecycle {
+    private final InvoiceArchiveRepository archiveRepository;
+    private final ArchiveProperties properties;
+    private final Counter archivedInvoices;
+
+    private volatile boolean running;
+    private volatile Thread worker;
+
+    public InvoiceArchiver(InvoiceArchiveRepository archiveRepository, ArchiveProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.archiveRepository = archiveRepository;
+        this.properties = properties;
+        this.archivedInvoices = Counter.builder("invoice.archive.invoices")
+                .description("Invoices moved to the archive collection")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = Thread.ofPlatform().daemon().name("invoice-archiver").start(this::schedule);
+    }
+
+    /**
+     * Interrupts the current wait or batch; an interrupted batch is repeated by the next run.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        Thread current = worker;
+        if (current != null) {
+            current.interrupt();
+            try {
+                current.join(Duration.ofSeconds(5));
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Archives the settled invoices that are due longer ago than the configured age.
+     *
+     * @return the number of invoices removed from the invoice collection
+     */
+    public long archive() {
+        return archive(LocalDateTime.now().minus(properties.getMinAge()));
+    }
+
+    long archive(LocalDateTime dueBefore) {
+        long archived = 0;
+        long started = System.nanoTime();
+        while (!Thread.currentThread().isInterrupted()) {
+            ArchiveBatch batch = archiveRepository.archiveBatch(dueBefore, properties.getBatchSize());
+            archived += batch.deleted();
+            archivedInvoices.increment(batch.deleted());
+            if (batch.verified() < batch.selected()) {
+                log.warn("{} of {} archived invoices did not match their original and were kept",
+                        batch.selected() - batch.verified(), batch.selected());
+            }
+            if (batch.selected() < properties.getBatchSize() || batch.deleted() == 0) {
+                break;
+            }
+        }
+        if (archived > 0) {
+            log.info("Archived {} invoices due before {} in {} ms", archived, dueBefore,
+                    Duration.ofNanos(System.nanoTime() - started).toMillis());
+        }
+        return archived;
+    }
+
+    private void schedule() {
+        Duration delay = properties.getInitialDelay();
+        while (running && pause(delay)) {
+            try {
+                archive();
+            } catch (RuntimeException exception) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Invoice archive run failed, retrying in {}", properties.getInterval(), exception);
+            }
+            delay = properties.getInterval();
+        }
+    }
+
+    private boolean pause(Duration delay) {
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
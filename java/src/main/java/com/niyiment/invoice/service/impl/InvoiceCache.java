@@ -0,0 +1,168 @@
+package com.niyiment.invoice.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.niyiment.invoice.config.InvoiceCacheProperties;
+import com.niyiment.invoice.domain.dto.InvoiceDto;
+import com.niyiment.invoice.exception.InvoiceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+
+/**
+ * Bounded read-through cache of mapped invoices keyed by id, with a secondary index from invoice
+ * number to id.
+ * <p>
+ * Loads go through {@link Cache#get}, which runs at most one loader per key, so concurrent misses
+ * for the same invoice result in a single database read. Changes seen on the change stream only evict
+ * by id, so the number index may point at a deleted invoice until a read by number finds it gone. Paid and cancelled invoices no longer change
+ * and are kept for {@link InvoiceCacheProperties#getFinalStateTtl()}; all others expire after the
+ * shorter {@link InvoiceCacheProperties#getMutableTtl()}. Cached DTOs are shared and must be treated
+ * as read-only.
+ */
+@Component
+public class InvoiceCache {
+    private final Cache<String, InvoiceDto> invoicesById;
+    private final Cache<String, String> idsByNumber;
+
+    @Autowired
+    public InvoiceCache(InvoiceCacheProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Ticker.systemTicker());
+    }
+
+    InvoiceCache(InvoiceCacheProperties properties, MeterRegistry meterRegistry, Ticker ticker) {
+        long mutableTtl = properties.getMutableTtl().toNanos();
+        long finalStateTtl = properties.getFinalStateTtl().toNanos();
+
+        this.invoicesById = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .ticker(ticker)
+                .expireAfter(new Expiry<String, InvoiceDto>() {
+                    @Override
+                    public long expireAfterCreate(String id, InvoiceDto invoice, long currentTime) {
+                        return isFinal(invoice) ? finalStateTtl : mutableTtl;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String id, InvoiceDto invoice, long currentTime,
+                                                  long currentDuration) {
+                        return isFinal(invoice) ? finalStateTtl : mutableTtl;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String id, InvoiceDto invoice, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        this.idsByNumber = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getFinalStateTtl())
+                .ticker(ticker)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, invoicesById, "invoices");
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByNumber, "invoiceNumbers");
+    }
+
+    /**
+     * Returns the cached invoice, loading it and indexing its number on a miss.
+     *
+     * @param id the invoice id
+     * @param loader loads the invoice by id; exceptions are propagated and nothing is cached
+     */
+    public InvoiceDto get(String id, Function<String, InvoiceDto> loader) {
+        return invoicesById.get(id, key -> {
+            InvoiceDto invoice = loader.apply(key);
+            if (invoice.getInvoiceNumber() != null) {
+                idsByNumber.put(invoice.getInvoiceNumber(), key);
+            }
+            return invoice;
+        });
+    }
+
+    /**
+     * Returns the cached invoice with the given number, loading it on a miss.
+     *
+     * @param invoiceNumber the invoice number
+     * @param numberLoader loads the invoice by number when the number is not indexed
+     * @param idLoader loads the invoice by id when the number is indexed but the invoice was evicted; an
+     *                 {@link InvoiceNotFoundException} means the indexed invoice was deleted, possibly on another
+     *                 instance, and the number is looked up again
+     */
+    public InvoiceDto getByNumber(String invoiceNumber, Function<String, InvoiceDto> numberLoader,
+                                  Function<String, InvoiceDto> idLoader) {
+        String id = idsByNumber.get(invoiceNumber, number -> {
+            InvoiceDto invoice = numberLoader.apply(number);
+            invoicesById.asMap().putIfAbsent(invoice.getId(), invoice);
+            return invoice.getId();
+        });
+        InvoiceDto invoice;
+        try {
+            invoice = get(id, idLoader);
+        } catch (InvoiceNotFoundException exception) {
+            idsByNumber.invalidate(invoiceNumber);
+            return getByNumber(invoiceNumber, numberLoader, idLoader);
+        }
+        if (!invoiceNumber.equals(invoice.getInvoiceNumber())) {
+            idsByNumber.invalidate(invoiceNumber);
+            return getByNumber(invoiceNumber, numberLoader, idLoader);
+        }
+        return invoice;
+    }
+
+    /**
+     * Returns the cached invoice without loading it.
+     *
+     * @return the invoice, or null if it is not cached
+     */
+    public InvoiceDto getIfPresent(String id) {
+        return invoicesById.getIfPresent(id);
+    }
+
+    /**
+     * Returns the cached invoice with the given number without loading it.
+     *
+     * @return the invoice, or null if it is not cached
+     */
+    public InvoiceDto getIfPresentByNumber(String invoiceNumber) {
+        String id = idsByNumber.getIfPresent(invoiceNumber);
+        InvoiceDto invoice = id != null ? invoicesById.getIfPresent(id) : null;
+        return invoice != null && invoiceNumber.equals(invoice.getInvoiceNumber()) ? invoice : null;
+    }
+
+    /**
+     * Drops an invoice after it was changed; the next read loads it again.
+     */
+    public void invalidate(String id) {
+        invoicesById.invalidate(id);
+    }
+
+    /**
+     * Drops an invoice and its number from the index after it was deleted.
+     */
+    public void invalidate(String id, String invoiceNumber) {
+        invoicesById.invalidate(id);
+        idsByNumber.invalidate(invoiceNumber);
+    }
+
+    /**
+     * Drops every invoice, e.g. after a bulk update.
+     */
+    public void invalidateAll() {
+        invoicesById.invalidateAll();
+    }
+
+    private static boolean isFinal(InvoiceDto invoice) {
+        return invoice.getStatus() != null && invoice.getStatus().isFinalState();
+    }
+}
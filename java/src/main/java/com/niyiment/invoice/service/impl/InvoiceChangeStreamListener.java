@@ -0,0 +1,267 @@
+package com.niyiment.invoice.service.impl;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.niyiment.invoice.config.InvoiceCacheProperties;
+import com.niyiment.invoice.domain.repository.InvoicePartitions;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Evicts invoices from the local {@link InvoiceCache} when any instance changes them.
+ * <p>
+ * A daemon thread tails a change stream on the invoice collection. The resume token is persisted per
+ * instance, so after a restart or a dropped connection the stream continues where it stopped. If the
+ * token is no longer in the oplog the whole cache is cleared and the stream restarts from now. Change
+ * streams need a replica set; against a standalone server the listener logs a warning and stops.
+ * Invalidation lag, from the cluster write to the local eviction, is recorded as
+ * {@code invoice.cache.invalidation.lag}. With invoices stored per year, the stream watches the database,
+ * filtered to the {@link InvoicePartitions partitions}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "invoice.cache.change-stream", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class InvoiceChangeStreamListener implements SmartLifecycle {
+    static final String RESUME_TOKEN_COLLECTION = "cacheResumeTokens";
+    private static final int CHANGE_STREAM_NOT_SUPPORTED = 40573;
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final int INVALID_RESUME_TOKEN = 260;
+
+    private final MongoTemplate mongoTemplate;
+    private final InvoiceCache invoiceCache;
+    private final InvoicePartitions partitions;
+    private final InvoiceCacheProperties.ChangeStream properties;
+    private final MeterRegistry meterRegistry;
+    private final Timer invalidationLag;
+    private final String nodeId;
+
+    private volatile boolean running;
+    private volatile boolean listening;
+    private volatile Thread worker;
+    private BsonDocument resumeToken;
+    private BsonDocument persistedToken;
+    private long lastPersistNanos;
+
+    public InvoiceChangeStreamListener(MongoTemplate mongoTemplate, InvoiceCache invoiceCache,
+                                       InvoicePartitions partitions, InvoiceCacheProperties properties,
+                                       MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.invoiceCache = invoiceCache;
+        this.partitions = partitions;
+        this.properties = properties.getChangeStream();
+        this.meterRegistry = meterRegistry;
+        this.nodeId = this.properties.getNodeId() != null ? this.properties.getNodeId() : hostName();
+        this.invalidationLag = Timer.builder("invoice.cache.invalidation.lag")
+                .description("Time from a write to the invoice collection to the eviction on this instance")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("invoice.cache.change.stream.active", this, listener -> listener.listening ? 1 : 0)
+                .description("Whether this instance is receiving invoice change events")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = Thread.ofPlatform().daemon().name("invoice-change-stream").start(this::listen);
+    }
+
+    /**
+     * Stops after the current poll returns, which takes at most the configured await time.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        Thread current = worker;
+        if (current != null) {
+            try {
+                current.join(properties.getMaxAwaitTime().plusSeconds(1));
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        resumeToken = loadResumeToken();
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> opened = openCursor()) {
+                listening = true;
+                log.info("Listening for invoice changes as {}", nodeId);
+                while (running) {
+                    ChangeStreamDocument<Document> change = opened.tryNext();
+                    if (change != null) {
+                        handle(change);
+                    }
+                    resumeToken = opened.getResumeToken();
+                    persistResumeToken(false);
+                }
+            } catch (MongoCommandException exception) {
+                if (exception.getErrorCode() == CHANGE_STREAM_NOT_SUPPORTED) {
+                    log.warn("Change streams need a replica set; cross-node cache invalidation is disabled");
+                    running = false;
+                } else {
+                    recover(exception);
+                }
+            } catch (RuntimeException exception) {
+                recover(exception);
+            } finally {
+                listening = false;
+            }
+        }
+        persistResumeToken(true);
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> openCursor() {
+        Bson notInsert = Filters.ne("operationType", OperationType.INSERT.getValue());
+        ChangeStreamIterable<Document> changeStream;
+        if (partitions.isEnabled()) {
+            // The partitions come and go, so watch the database for changes to any of them
+            changeStream = mongoTemplate.getDb().watch(List.of(Aggregates.match(Filters.and(notInsert,
+                    Filters.regex("ns.coll", partitions.collectionPattern())))));
+        } else {
+            MongoCollection<Document> invoices = mongoTemplate.getCollection(partitions.invoiceCollection());
+            changeStream = invoices.watch(List.of(Aggregates.match(notInsert)));
+        }
+        changeStream = changeStream
+                .maxAwaitTime(properties.getMaxAwaitTime().toMillis(), TimeUnit.MILLISECONDS);
+        if (resumeToken != null) {
+            changeStream = changeStream.startAfter(resumeToken);
+        }
+        return changeStream.cursor();
+    }
+
+    /**
+     * Evicts what a change event affects and records the invalidation lag.
+     */
+    void handle(ChangeStreamDocument<Document> change) {
+        OperationType operationType = change.getOperationType();
+        switch (operationType) {
+            case UPDATE, REPLACE, DELETE -> {
+                String id = documentId(change.getDocumentKey());
+                if (id != null) {
+                    invoiceCache.invalidate(id);
+                }
+            }
+            default -> invoiceCache.invalidateAll();
+        }
+        meterRegistry.counter("invoice.cache.invalidations", "operation", operationType.getValue()).increment();
+
+        long writtenAt = change.getWallTime() != null
+                ? change.getWallTime().getValue()
+                : change.getClusterTime() != null ? change.getClusterTime().getTime() * 1000L : -1;
+        if (writtenAt > 0) {
+            invalidationLag.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - writtenAt)));
+        }
+    }
+
+    private void recover(RuntimeException exception) {
+        if (!running) {
+            return;
+        }
+        int code = exception instanceof MongoException mongoException ? mongoException.getCode() : 0;
+        if (code == CHANGE_STREAM_HISTORY_LOST || code == INVALID_RESUME_TOKEN) {
+            log.warn("Invoice change stream cannot resume, clearing the invoice cache", exception);
+            resumeToken = null;
+            invoiceCache.invalidateAll();
+        } else {
+            log.warn("Invoice change stream failed, reopening in {}", properties.getRetryDelay(), exception);
+        }
+        pause();
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(properties.getRetryDelay());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private BsonDocument loadResumeToken() {
+        try {
+            BsonDocument stored = tokenCollection().withDocumentClass(BsonDocument.class)
+                    .find(Filters.eq("_id", nodeId)).first();
+            persistedToken = stored != null ? stored.getDocument("token", null) : null;
+            return persistedToken;
+        } catch (MongoException exception) {
+            log.warn("Could not load the invoice change stream resume token", exception);
+            return null;
+        }
+    }
+
+    private void persistResumeToken(boolean force) {
+        BsonDocument token = resumeToken;
+        if (token == null || token.equals(persistedToken)) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (!force && now - lastPersistNanos < properties.getTokenPersistInterval().toNanos()) {
+            return;
+        }
+        try {
+            tokenCollection().replaceOne(Filters.eq("_id", nodeId),
+                    new Document("_id", nodeId).append("token", token).append("updatedAt", new Date()),
+                    new ReplaceOptions().upsert(true));
+            persistedToken = token;
+            lastPersistNanos = now;
+        } catch (MongoException exception) {
+            log.warn("Could not persist the invoice change stream resume token", exception);
+        }
+    }
+
+    private MongoCollection<Document> tokenCollection() {
+        return mongoTemplate.getCollection(RESUME_TOKEN_COLLECTION);
+    }
+
+    private static String documentId(BsonDocument documentKey) {
+        if (documentKey == null) {
+            return null;
+        }
+        BsonValue id = documentKey.get("_id");
+        if (id == null) {
+            return null;
+        }
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.isString() ? id.asString().getValue() : null;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException exception) {
+            return "localhost";
+        }
+    }
+}
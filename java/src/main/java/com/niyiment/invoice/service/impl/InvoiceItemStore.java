@@ -0,0 +1,153 @@
+package com.niyiment.invoice.service.impl;
+
+import com.niyiment.invoice.config.ItemStorageProperties;
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.entity.InvoiceItem;
+import com.niyiment.invoice.domain.entity.InvoiceLineItem;
+import com.niyiment.invoice.domain.enums.ItemStorage;
+import com.niyiment.invoice.domain.repository.InvoiceLineItemRepository;
+import com.niyiment.invoice.domain.repository.InvoiceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+
+/**
+ * Decides where the items of an invoice are persisted and reads them back.
+ * <p>
+ * Invoices with more items than {@link ItemStorageProperties#getExternalThreshold()} keep only their
+ * header (with denormalised totals and item count) in the invoice document; the items are written to
+ * the invoice items collection keyed by invoice id and line number.
+ * <p>
+ * No transaction spans the header and its items: the header is saved first, flagged as
+ * {@link Invoice#isItemsPending() items pending}, then the items are written and the flag is cleared. The item
+ * write upserts each line and only then removes the lines past the new item count, as {@link Invoice#setItems}
+ * numbers lines from 1, so repeating it leaves the same items. If it fails part way, the header keeps the flag
+ * and its items are incomplete until they are saved again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InvoiceItemStore {
+    private final InvoiceLineItemRepository lineItemRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final ItemStorageProperties properties;
+
+    /**
+     * Items that are to be written after the invoice header has been saved.
+     *
+     * @param items the items to store externally, empty when the items stay embedded
+     * @param replaceExisting whether previously stored external items have to be removed
+     */
+    public record PendingItems(List<InvoiceItem> items, boolean replaceExisting) {
+    }
+
+    /**
+     * Prepares an invoice whose items were replaced for saving, detaching the items when the
+     * invoice is above the threshold.
+     *
+     * @param invoice the invoice about to be saved
+     * @return the items to pass to {@link #completeSave} once the header is saved
+     */
+    public PendingItems prepareForSave(Invoice invoice) {
+        boolean wasExternal = invoice.getId() != null && invoice.getItemStorage() == ItemStorage.EXTERNAL;
+        PendingItems pending;
+        if (invoice.getItems().size() > properties.getExternalThreshold()) {
+            pending = new PendingItems(invoice.detachItems(), wasExternal);
+        } else {
+            invoice.setItemStorage(ItemStorage.EMBEDDED);
+            pending = new PendingItems(List.of(), wasExternal);
+        }
+        invoice.setItemsPending(!pending.items().isEmpty() || pending.replaceExisting());
+        return pending;
+    }
+
+    /**
+     * Writes the detached items of a saved invoice, replacing any items stored before, then clears the header's
+     * pending flag.
+     *
+     * @param invoice the saved invoice header
+     * @param pending the result of {@link #prepareForSave}
+     */
+    public void completeSave(Invoice invoice, PendingItems pending) {
+        if (pending == null || !invoice.isItemsPending()) {
+            return;
+        }
+        List<InvoiceItem> items = pending.items();
+        int batchSize = properties.getWriteBatchSize();
+        List<InvoiceLineItem> batch = new ArrayList<>(Math.min(batchSize, items.size()));
+        for (InvoiceItem item : items) {
+            batch.add(InvoiceLineItem.of(invoice.getId(), item));
+            if (batch.size() == batchSize) {
+                lineItemRepository.upsertLines(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            lineItemRepository.upsertLines(batch);
+        }
+        if (pending.replaceExisting()) {
+            if (items.isEmpty()) {
+                lineItemRepository.deleteByInvoiceId(invoice.getId());
+            } else {
+                lineItemRepository.deleteByInvoiceIdAndLineNumberGreaterThan(invoice.getId(), items.size());
+            }
+        }
+        invoiceRepository.markItemsWritten(invoice.getId());
+        invoice.setItemsPending(false);
+        if (!items.isEmpty()) {
+            log.debug("Stored {} items of invoice {} externally", items.size(), invoice.getId());
+        }
+    }
+
+    /**
+     * Returns a page of the items of an invoice in line order.
+     */
+    public Page<InvoiceItem> findItems(Invoice invoice, Pageable pageable) {
+        Pageable byLine = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        if (invoice.getItemStorage() == ItemStorage.EXTERNAL) {
+            warnIfPending(invoice);
+            return lineItemRepository.findByInvoiceIdOrderByLineNumberAsc(invoice.getId(), byLine)
+                    .map(InvoiceLineItem::toItem);
+        }
+        List<InvoiceItem> items = invoice.getItems();
+        int from = (int) Math.min(byLine.getOffset(), items.size());
+        int to = Math.min(from + byLine.getPageSize(), items.size());
+        return new PageImpl<>(items.subList(from, to), byLine, items.size());
+    }
+
+    /**
+     * Streams the items of an invoice in line order. The stream must be closed by the caller.
+     */
+    public Stream<InvoiceItem> streamItems(Invoice invoice) {
+        if (invoice.getItemStorage() == ItemStorage.EXTERNAL) {
+            warnIfPending(invoice);
+            return lineItemRepository.streamByInvoiceIdOrderByLineNumberAsc(invoice.getId())
+                    .map(InvoiceLineItem::toItem);
+        }
+        return invoice.getItems().stream();
+    }
+
+    /**
+     * Removes the externally stored items of an invoice.
+     */
+    public void deleteItems(Invoice invoice) {
+        if (invoice.getItemStorage() == ItemStorage.EXTERNAL) {
+            lineItemRepository.deleteByInvoiceId(invoice.getId());
+        }
+    }
+
+    private static void warnIfPending(Invoice invoice) {
+        if (invoice.isItemsPending()) {
+            log.warn("Items of invoice {} are being written or their last write failed; they may be incomplete", invoice.getId());
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.niyiment.invoice.service.impl;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadPreference;
+import com.mongodb.TagSet;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.niyiment.invoice.config.ReportMongoProperties;
+import com.niyiment.invoice.domain.dto.InvoiceDto;
+import com.niyiment.invoice.domain.dto.InvoiceItemDto;
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.entity.InvoiceLineItem;
+import com.niyiment.invoice.domain.mapper.InvoiceMapper;
+import com.niyiment.invoice.domain.money.Money;
+import com.niyiment.invoice.domain.repository.DeadlineExceptionTranslator;
+import com.niyiment.invoice.domain.repository.DeadlineMongoTemplate;
+import com.niyiment.invoice.domain.repository.InvoiceArchiveRepository;
+import com.niyiment.invoice.domain.repository.InvoicePartitions;
+import com.niyiment.invoice.domain.repository.InvoiceSearchCriteria;
+import com.niyiment.invoice.domain.repository.SlowQueryProfiler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.mongo.MongoConnectionDetails;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+
+/**
+ * Invoice reads for reports and criteria exports.
+ * <p>
+ * Queries go through a MongoDB client of their own, with the read preference and connection pool of
+ * {@link ReportMongoProperties}. By default they are served by a secondary that is at most the configured
+ * staleness behind the primary, and by the primary only when no such secondary is available. Results may
+ * therefore lag recent writes slightly. Invoice CRUD keeps using the application's client, which reads from
+ * the primary. Each query is timed per serving member, see {@link ReportCommandMetrics}, and bounded by the
+ * caller's {@link com.niyiment.invoice.domain.repository.QueryDeadline}. Like the application's client, the
+ * report client also publishes {@code mongodb.driver.commands} by collection and command, and reports slow
+ * queries to the {@link SlowQueryProfiler}.
+ * <p>
+ * Searches also read the {@link InvoiceArchiveRepository archive} when their status and due date range can
+ * match archived invoices, and only the invoice collection otherwise. With invoices stored per year, searches
+ * read the {@link InvoicePartitions partitions} whose due dates overlap the criteria, in parallel.
+ */
+@Slf4j
+@Component
+public class InvoiceReportReader implements DisposableBean {
+    private final MongoClient mongoClient;
+    private final MongoTemplate mongoTemplate;
+    private final InvoiceMapper invoiceMapper;
+    private final InvoicePartitions partitions;
+
+    public InvoiceReportReader(ReportMongoProperties properties, MongoConnectionDetails connectionDetails,
+                               MongoTemplate primaryTemplate, DeadlineExceptionTranslator exceptionTranslator,
+                               InvoiceMapper invoiceMapper, MeterRegistry meterRegistry,
+                               ObjectProvider<MongoMetricsCommandListener> commandMetrics,
+                               SlowQueryProfiler slowQueryProfiler, InvoicePartitions partitions) {
+        ConnectionString connectionString = properties.getUri() != null
+                ? new ConnectionString(properties.getUri())
+                : connectionDetails.getConnectionString();
+        List<CommandListener> commandListeners = new ArrayList<>();
+        commandListeners.add(new ReportCommandMetrics(meterRegistry));
+        commandMetrics.ifAvailable(commandListeners::add);
+        commandListeners.add(slowQueryProfiler);
+        this.mongoClient = MongoClients.create(clientSettings(properties, connectionString,
+                commandListeners.toArray(CommandListener[]::new)));
+        SimpleMongoClientDatabaseFactory databaseFactory =
+                new SimpleMongoClientDatabaseFactory(mongoClient, primaryTemplate.getDb().getName());
+        databaseFactory.setExceptionTranslator(exceptionTranslator);
+        this.mongoTemplate = new DeadlineMongoTemplate(databaseFactory, primaryTemplate.getConverter());
+        this.invoiceMapper = invoiceMapper;
+        this.partitions = partitions;
+        log.info("Report queries read with {}", mongoTemplate.getMongoDatabaseFactory().getMongoDatabase().getReadPreference());
+    }
+
+    /**
+     * Finds the invoices matching the criteria in both tiers, timing the queries and the mapping to DTOs in the
+     * report's event. The archive is queried only if the criteria can match an archived invoice.
+     */
+    public List<InvoiceDto> search(InvoiceSearchCriteria criteria, ReportEvent event) {
+        List<Invoice> invoices = event.fetch(() -> {
+            Query query = new Query(criteria.toCriteria());
+            List<Invoice> found = partitions.fanOut(partitions.overlapping(criteria),
+                    partition -> mongoTemplate.find(query, Invoice.class, partition));
+            // Read after the invoice collection, so an invoice archived in between is below the latest due date
+            if (criteria.mayMatchArchive(latestArchivedDueDate())) {
+                found.addAll(mongoTemplate.find(query, Invoice.class, InvoiceArchiveRepository.COLLECTION));
+            }
+            // An invoice being archived or moved to another partition is briefly in both collections
+            Set<String> ids = new HashSet<>();
+            List<Invoice> merged = new ArrayList<>(found.size());
+            for (Invoice invoice : found) {
+                if (ids.add(invoice.getId())) {
+                    merged.add(invoice);
+                }
+            }
+            return merged;
+        });
+        return event.map(invoices, invoiceMapper::toDto);
+    }
+
+    /**
+     * Finds the invoices in the currency that are not in a final state, in due date order. The filter matches the
+     * partial index on open invoices, so the query reads only open invoices however much settled history there is.
+     */
+    public List<InvoiceDto> findOpen(Currency currency, ReportEvent event) {
+        Query query = new Query(new Criteria().andOperator(InvoiceSearchCriteria.open(),
+                Criteria.where("currency").is(currency.getCurrencyCode()))).with(Sort.by("dueDate"));
+        List<Invoice> invoices = event.fetch(() -> {
+            List<Invoice> open = partitions.fanOut(partitions.all(),
+                    partition -> mongoTemplate.find(query, Invoice.class, partition));
+            open.sort(Comparator.comparing(Invoice::getDueDate, Comparator.nullsFirst(Comparator.naturalOrder())));
+            return open;
+        });
+        return event.map(invoices, invoiceMapper::toDto);
+    }
+
+    /**
+     * Streams the items of an invoice whose items are stored outside the invoice document, in line order.
+     * The stream holds a cursor and must be closed.
+     */
+    public Stream<InvoiceItemDto> streamExternalItems(InvoiceDto invoice) {
+        Currency currency = Money.currencyOf(invoice.getCurrency());
+        Query query = new Query(Criteria.where("invoiceId").is(invoice.getId()))
+                .with(Sort.by("lineNumber"));
+        return mongoTemplate.stream(query, InvoiceLineItem.class)
+                .map(lineItem -> InvoiceItemDto.fromEntity(lineItem.toItem(), currency));
+    }
+
+    /**
+     * The due date of the most recently due archived invoice, or null while the archive is empty.
+     */
+    LocalDateTime latestArchivedDueDate() {
+        Query latest = new Query().with(Sort.by(Sort.Direction.DESC, "dueDate")).limit(1);
+        latest.fields().include("dueDate");
+        Invoice invoice = mongoTemplate.findOne(latest, Invoice.class, InvoiceArchiveRepository.COLLECTION);
+        return invoice != null ? invoice.getDueDate() : null;
+    }
+
+    @Override
+    public void destroy() {
+        mongoClient.close();
+    }
+
+    static MongoClientSettings clientSettings(ReportMongoProperties properties, ConnectionString connectionString,
+                                              CommandListener... commandListeners) {
+        ReportMongoProperties.Pool pool = properties.getPool();
+        return MongoClientSettings.builder()
+                .applyConnectionString(connectionString)
+                .readPreference(readPreference(properties))
+                .applyToConnectionPoolSettings(settings -> settings
+                        .maxSize(pool.getMaxSize())
+                        .minSize(pool.getMinSize())
+                        .maxWaitTime(pool.getMaxWaitTime().toMillis(), TimeUnit.MILLISECONDS)
+                        .maxConnectionIdleTime(pool.getMaxConnectionIdleTime().toMillis(), TimeUnit.MILLISECONDS))
+                .applicationName("invoice-reports")
+                .commandListenerList(List.of(commandListeners))
+                .build();
+    }
+
+    private static ReadPreference readPreference(ReportMongoProperties properties) {
+        ReadPreference mode = ReadPreference.valueOf(properties.getReadPreference());
+        if (mode.equals(ReadPreference.primary()) || properties.getMaxStaleness() == null) {
+            return mode;
+        }
+        return ReadPreference.valueOf(mode.getName(), List.<TagSet>of(),
+                properties.getMaxStaleness().toSeconds(), TimeUnit.SECONDS);
+    }
+}
@@ -1,13 +1,26 @@
 package com.niyiment.invoice.service.impl;
 
+import com.mongodb.client.result.UpdateResult;
+import com.niyiment.invoice.domain.dto.BulkRecalculationRequest;
+import com.niyiment.invoice.domain.dto.BulkRecalculationResult;
 import com.niyiment.invoice.domain.dto.InvoiceDto;
+import com.niyiment.invoice.domain.dto.InvoiceFilter;
+import com.niyiment.invoice.domain.dto.InvoiceItemDto;
+import com.niyiment.invoice.domain.dto.InvoiceJson;
 import com.niyiment.invoice.domain.entity.Invoice;
 import com.niyiment.invoice.domain.enums.InvoiceStatus;
 import com.niyiment.invoice.domain.mapper.InvoiceMapper;
+import com.niyiment.invoice.domain.money.Money;
+import com.niyiment.invoice.domain.repository.InvoiceArchiveRepository;
+import com.niyiment.invoice.domain.repository.InvoiceRecalculation;
 import com.niyiment.invoice.domain.repository.InvoiceRepository;
+import com.niyiment.invoice.domain.repository.InvoiceSearchCriteria;
+import com.niyiment.invoice.domain.repository.InvoiceVersion;
+import com.niyiment.invoice.domain.repository.RecalculationPreview;
 import com.niyiment.invoice.exception.InvoiceNotFoundException;
 import com.niyiment.invoice.service.InvoiceService;
 import com.niyiment.invoice.exception.BadRequestException;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -15,18 +28,25 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Currency;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 @Slf4j
 @Service
+@Timed("invoice.service")
 @RequiredArgsConstructor
 public class InvoiceServiceImpl implements InvoiceService {
     private final InvoiceRepository invoiceRepository;
     private final InvoiceMapper invoiceMapper;
+    private final InvoiceItemStore invoiceItemStore;
+    private final InvoiceCache invoiceCache;
+    private final InvoiceArchiveRepository invoiceArchiveRepository;
 
 
     @Override
@@ -34,12 +54,14 @@ public class InvoiceServiceImpl implements InvoiceService {
     public InvoiceDto createInvoice(InvoiceDto invoiceDto) {
         if (invoiceDto.getInvoiceNumber() == null || invoiceDto.getInvoiceNumber().isEmpty()) {
             invoiceDto.setInvoiceNumber(generateNextInvoiceNumber());
-        } else if (invoiceRepository.existsByInvoiceNumber(invoiceDto.getInvoiceNumber())) {
+        } else if (invoiceRepository.existsByInvoiceNumber(invoiceDto.getInvoiceNumber())
+                || invoiceArchiveRepository.existsByInvoiceNumber(invoiceDto.getInvoiceNumber())) {
             throw new BadRequestException("Invoice number already exists: " + invoiceDto.getInvoiceNumber());
         }
         Invoice invoice = invoiceMapper.toEntity(invoiceDto);
-        invoice.reCalculateAmount();
+        InvoiceItemStore.PendingItems pendingItems = invoiceItemStore.prepareForSave(invoice);
         Invoice savedInvoice = invoiceRepository.save(invoice);
+        invoiceItemStore.completeSave(savedInvoice, pendingItems);
 
         return invoiceMapper.toDto(savedInvoice);
     }
@@ -47,18 +69,39 @@ public class InvoiceServiceImpl implements InvoiceService {
     @Override
     @Transactional(readOnly = true)
     public InvoiceDto getInvoiceById(String id) {
-        Invoice invoice = findInvoiceById(id);
-
-        return invoiceMapper.toDto(invoice);
+        return invoiceCache.get(id, this::loadInvoiceById);
     }
 
     @Override
     @Transactional(readOnly = true)
     public InvoiceDto getInvoiceByNumber(String invoiceNumber) {
-        Invoice invoice = invoiceRepository.findByInvoiceNumber(invoiceNumber)
-                .orElseThrow(() -> new InvoiceNotFoundException("Invoice not found with number: " + invoiceNumber));
+        return invoiceCache.getByNumber(invoiceNumber, this::loadInvoiceByNumber, this::loadInvoiceById);
+    }
 
-        return invoiceMapper.toDto(invoice);
+    @Override
+    @Transactional(readOnly = true)
+    public long getInvoiceVersion(String id) {
+        InvoiceDto cached = invoiceCache.getIfPresent(id);
+        if (cached != null) {
+            return versionOf(cached.getVersion());
+        }
+        return invoiceRepository.findVersionById(id)
+                .map(invoiceVersion -> versionOf(invoiceVersion.getVersion()))
+                .or(() -> invoiceArchiveRepository.findById(id).map(invoice -> versionOf(invoice.getVersion())))
+                .orElseThrow(() -> new InvoiceNotFoundException("Invoice not found with id: " + id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public InvoiceVersion getInvoiceVersionByNumber(String invoiceNumber) {
+        InvoiceDto cached = invoiceCache.getIfPresentByNumber(invoiceNumber);
+        if (cached != null) {
+            return InvoiceVersion.of(cached.getId(), versionOf(cached.getVersion()));
+        }
+        return invoiceRepository.findVersionByInvoiceNumber(invoiceNumber)
+                .or(() -> invoiceArchiveRepository.findByInvoiceNumber(invoiceNumber)
+                        .map(invoice -> InvoiceVersion.of(invoice.getId(), invoice.getVersion())))
+                .orElseThrow(() -> new InvoiceNotFoundException("Invoice not found with number: " + invoiceNumber));
     }
 
     @Override
@@ -69,6 +112,26 @@ public class InvoiceServiceImpl implements InvoiceService {
         return invoices.map(invoiceMapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<InvoiceItemDto> getInvoiceItems(String id, Pageable pageable) {
+        Invoice invoice = findReadableInvoiceById(id);
+        Currency currency = Money.currencyOf(invoice.getCurrency());
+
+        return invoiceItemStore.findItems(invoice, pageable)
+                .map(item -> InvoiceItemDto.fromEntity(item, currency));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Stream<InvoiceItemDto> streamInvoiceItems(String id) {
+        Invoice invoice = findReadableInvoiceById(id);
+        Currency currency = Money.currencyOf(invoice.getCurrency());
+
+        return invoiceItemStore.streamItems(invoice)
+                .map(item -> InvoiceItemDto.fromEntity(item, currency));
+    }
+
     @Override
     @Transactional
     public InvoiceDto updateInvoice(String id, InvoiceDto invoiceDto) {
@@ -78,8 +141,10 @@ public class InvoiceServiceImpl implements InvoiceService {
         }
 
         invoiceMapper.updateEntityFromDto(existingInvoice, invoiceDto);
-        existingInvoice.reCalculateAmount();
+        InvoiceItemStore.PendingItems pendingItems = invoiceItemStore.prepareForSave(existingInvoice);
         Invoice savedInvoice = invoiceRepository.save(existingInvoice);
+        invoiceItemStore.completeSave(savedInvoice, pendingItems);
+        invoiceCache.invalidate(id);
 
         return invoiceMapper.toDto(savedInvoice);
     }
@@ -97,6 +162,7 @@ public class InvoiceServiceImpl implements InvoiceService {
             throw new BadRequestException("Cannot mark as OVERDUE because due date is in the future");
         }
         Invoice savedInvoice = invoiceRepository.save(existingInvoice);
+        invoiceCache.invalidate(id);
 
         return invoiceMapper.toDto(savedInvoice);
     }
@@ -109,6 +175,8 @@ public class InvoiceServiceImpl implements InvoiceService {
             throw new BadRequestException("Cannot delete invoice in: " + invoice.getStatus() + " state");
         }
         invoiceRepository.deleteById(id);
+        invoiceItemStore.deleteItems(invoice);
+        invoiceCache.invalidate(id, invoice.getInvoiceNumber());
     }
 
     @Override
@@ -137,16 +205,18 @@ public class InvoiceServiceImpl implements InvoiceService {
 
     @Override
     @Transactional(readOnly = true)
-    public Page<InvoiceDto> getInvoicesByTotalAmountGreaterThanEquals(double amount, Pageable pageable) {
-        Page<Invoice> invoices = invoiceRepository.findByTotalAmountGreaterThanEqual(amount, pageable);
+    public Page<InvoiceDto> getInvoicesByTotalAmountGreaterThanEquals(BigDecimal amount, Pageable pageable) {
+        Page<Invoice> invoices = invoiceRepository.findByCurrencyAndTotalAmountGreaterThanEqual(
+                Money.DEFAULT_CURRENCY.getCurrencyCode(), toMinorUnits(amount, Money.DEFAULT_CURRENCY), pageable);
 
         return invoices.map(invoiceMapper::toDto);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Page<InvoiceDto> getInvoicesByTotalAmountLessThanEquals(double amount, Pageable pageable) {
-        Page<Invoice> invoices = invoiceRepository.findByTotalAmountLessThanEqual(amount, pageable);
+    public Page<InvoiceDto> getInvoicesByTotalAmountLessThanEquals(BigDecimal amount, Pageable pageable) {
+        Page<Invoice> invoices = invoiceRepository.findByCurrencyAndTotalAmountLessThanEqual(
+                Money.DEFAULT_CURRENCY.getCurrencyCode(), toMinorUnits(amount, Money.DEFAULT_CURRENCY), pageable);
 
         return invoices.map(invoiceMapper::toDto);
     }
@@ -162,12 +232,73 @@ public class InvoiceServiceImpl implements InvoiceService {
     @Override
     @Transactional(readOnly = true)
     public List<InvoiceDto> advancedSearch(String customerName, InvoiceStatus invoiceStatus, LocalDateTime startDate,
-                                           LocalDateTime endDate, Double minAmount, Double maxAmount) {
-        List<Invoice> invoices = invoiceRepository.advanceSearch(customerName, invoiceStatus, startDate, endDate, minAmount, maxAmount);
+                                           LocalDateTime endDate, BigDecimal minAmount, BigDecimal maxAmount) {
+        boolean byAmount = minAmount != null || maxAmount != null;
+        List<Invoice> invoices = invoiceRepository.advanceSearch(customerName, invoiceStatus, startDate, endDate,
+                byAmount ? Money.DEFAULT_CURRENCY.getCurrencyCode() : null,
+                minAmount != null ? toMinorUnits(minAmount, Money.DEFAULT_CURRENCY) : null,
+                maxAmount != null ? toMinorUnits(maxAmount, Money.DEFAULT_CURRENCY) : null);
 
         return invoices.stream().map(invoiceMapper::toDto).toList();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<InvoiceJson> findInvoiceJson(InvoiceFilter filter, Pageable pageable) {
+        return invoiceRepository.findRaw(toCriteria(filter), pageable).map(InvoiceJson::new);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<InvoiceJson> findInvoiceJson(InvoiceFilter filter) {
+        return invoiceRepository.findRaw(toCriteria(filter)).stream().map(InvoiceJson::new).toList();
+    }
+
+    @Override
+    public BulkRecalculationResult bulkRecalculate(BulkRecalculationRequest request) {
+        if (request.getTaxRate() == null && request.getUnitPricePercentChange() == null) {
+            throw new BadRequestException("A tax rate or unit price change is required");
+        }
+        if (request.getStatus() != null && request.getStatus().isFinalState()) {
+            throw new BadRequestException("Cannot recalculate invoices in: " + request.getStatus() + " state");
+        }
+
+        InvoiceSearchCriteria criteria = toCriteria(request);
+        InvoiceRecalculation recalculation = new InvoiceRecalculation(request.getTaxRate(),
+                request.getUnitPricePercentChange() != null ? request.getUnitPricePercentChange().doubleValue() : null);
+
+        BulkRecalculationResult result = new BulkRecalculationResult();
+        result.setDryRun(request.isDryRun());
+        if (recalculation.changesPrices()) {
+            result.setSkippedCount(invoiceRepository.countExternalItemInvoices(criteria));
+        }
+
+        if (request.isDryRun()) {
+            for (RecalculationPreview preview : invoiceRepository.previewRecalculation(criteria, recalculation)) {
+                Currency currency = Money.currencyOf(preview.currency());
+                result.setMatchedCount(result.getMatchedCount() + preview.invoiceCount());
+                result.setModifiedCount(result.getModifiedCount() + preview.changedCount());
+                result.getDeltas().add(new BulkRecalculationResult.CurrencyDelta(currency.getCurrencyCode(),
+                        preview.invoiceCount(),
+                        Money.toDecimal(preview.subtotalDelta(), currency),
+                        Money.toDecimal(preview.taxAmountDelta(), currency),
+                        Money.toDecimal(preview.totalAmountDelta(), currency)));
+            }
+            return result;
+        }
+
+        UpdateResult updateResult = invoiceRepository.recalculate(criteria, recalculation);
+        result.setMatchedCount(updateResult.getMatchedCount());
+        result.setModifiedCount(updateResult.getModifiedCount());
+        if (updateResult.getModifiedCount() > 0) {
+            invoiceCache.invalidateAll();
+        }
+        log.info("Bulk recalculation updated {} of {} invoices", updateResult.getModifiedCount(),
+                updateResult.getMatchedCount());
+
+        return result;
+    }
+
     @Override
     public String generateNextInvoiceNumber() {
         String prefix = "INV-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM"));
@@ -194,6 +325,63 @@ public class InvoiceServiceImpl implements InvoiceService {
         return String.format("%s-%03d", prefix, maxNumber + 1);
     }
 
+    /**
+     * Amount filters are compared against stored minor units of their currency, and only match invoices in it.
+     */
+    private long toMinorUnits(BigDecimal amount, Currency currency) {
+        return Money.toMinorUnits(amount, currency);
+    }
+
+    private InvoiceSearchCriteria toCriteria(InvoiceFilter filter) {
+        Currency currency = null;
+        if (filter.getCurrency() != null || filter.getMinAmount() != null || filter.getMaxAmount() != null) {
+            currency = filterCurrency(filter.getCurrency());
+        }
+        return new InvoiceSearchCriteria(filter.getClientName(), filter.getCustomerEmail(), filter.getStatus(),
+                filter.getStartDate(), filter.getEndDate(),
+                currency != null ? currency.getCurrencyCode() : null,
+                filter.getMinAmount() != null ? toMinorUnits(filter.getMinAmount(), currency) : null,
+                filter.getMaxAmount() != null ? toMinorUnits(filter.getMaxAmount(), currency) : null,
+                filter.isOverdue() ? LocalDateTime.now() : null);
+    }
+
+    private static Currency filterCurrency(String currencyCode) {
+        try {
+            return Money.currencyOf(currencyCode);
+        } catch (IllegalArgumentException exception) {
+            throw new BadRequestException("Unsupported currency: " + currencyCode, exception);
+        }
+    }
+
+    /**
+     * Invoices not yet initialised by the version migration count as version zero.
+     */
+    private static long versionOf(Long version) {
+        return version != null ? version : 0L;
+    }
+
+    private InvoiceDto loadInvoiceById(String id) {
+        return invoiceMapper.toDto(findReadableInvoiceById(id));
+    }
+
+    private InvoiceDto loadInvoiceByNumber(String invoiceNumber) {
+        Invoice invoice = invoiceRepository.findByInvoiceNumber(invoiceNumber)
+                .or(() -> invoiceArchiveRepository.findByInvoiceNumber(invoiceNumber))
+                .orElseThrow(() -> new InvoiceNotFoundException("Invoice not found with number: " + invoiceNumber));
+
+        return invoiceMapper.toDto(invoice);
+    }
+
+    /**
+     * Finds an invoice for reading, falling back to the archive. Archived invoices are settled and read-only,
+     * so updates and deletes look only in the invoice collection.
+     */
+    private Invoice findReadableInvoiceById(String id) {
+        return invoiceRepository.findById(id)
+                .or(() -> invoiceArchiveRepository.findById(id))
+                .orElseThrow(() -> new InvoiceNotFoundException("Invoice not found with id: " + id));
+    }
+
     private Invoice findInvoiceById(String id) {
         return invoiceRepository.findById(id)
                 .orElseThrow(() -> new InvoiceNotFoundException("Invoice not found with id: " + id));
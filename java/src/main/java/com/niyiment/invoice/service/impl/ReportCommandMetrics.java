@@ -0,0 +1,46 @@
+package com.niyiment.invoice.service.impl;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Times the commands of the report client by the replica set member that served them, published as
+ * {@code invoice.reports.mongo.commands} with {@code command}, {@code server} and {@code status} tags.
+ */
+class ReportCommandMetrics implements CommandListener {
+    static final String METRIC_NAME = "invoice.reports.mongo.commands";
+
+    private final MeterRegistry meterRegistry;
+
+    ReportCommandMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        record(event.getCommandName(), event.getConnectionDescription().getServerAddress().toString(),
+                "success", event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        record(event.getCommandName(), event.getConnectionDescription().getServerAddress().toString(),
+                "failure", event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    private void record(String command, String server, String status, long nanos) {
+        Timer.builder(METRIC_NAME)
+                .description("Report and export queries by the replica set member that served them")
+                .tag("command", command)
+                .tag("server", server)
+                .tag("status", status)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,221 @@
+package com.niyiment.invoice.service.impl;
+
+import com.niyiment.invoice.domain.enums.ExportFormat;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+
+/**
+ * Flight Recorder event for one report or export of {@link ReportServiceImpl}, with the time spent in each
+ * phase: querying MongoDB, mapping documents to DTOs, rendering and writing to the client.
+ * <p>
+ * The event is enabled in the JDK's {@code default} and {@code profile} settings. Outside a recording it
+ * costs a few clock reads per phase, so it is always on. The event is committed when it is closed, also when
+ * the report fails; its phases then cover the work done until the failure.
+ */
+@Name("com.niyiment.invoice.Report")
+@Label("Report")
+@Category({"Invoice", "Reports"})
+@Description("A report or export, with the time spent in each phase")
+@StackTrace(false)
+public class ReportEvent extends Event implements AutoCloseable {
+
+    @Label("Operation")
+    @Description("The report service method")
+    String operation;
+
+    @Label("Format")
+    @Description("The export format, empty for JSON reports")
+    String format;
+
+    @Label("Rows")
+    @Description("Invoices read for a report, or data rows written by an export")
+    long rows;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytes;
+
+    @Label("Fetch Time")
+    @Description("Querying MongoDB, including reading invoice items while rendering")
+    @Timespan
+    long fetchTime;
+
+    @Label("Mapping Time")
+    @Description("Mapping invoice documents to DTOs")
+    @Timespan
+    long mappingTime;
+
+    @Label("Render Time")
+    @Description("Building the document on the rendering thread, less the fetch and write time within it")
+    @Timespan
+    long renderTime;
+
+    @Label("Write Time")
+    @Description("Writing the document to the client")
+    @Timespan
+    long writeTime;
+
+    /**
+     * Starts timing a report.
+     *
+     * @param operation the report service method
+     * @param format the export format, or {@code null} for a JSON report
+     */
+    public static ReportEvent start(String operation, ExportFormat format) {
+        ReportEvent event = new ReportEvent();
+        event.operation = operation;
+        event.format = format != null ? format.name() : null;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Runs a query, counting its time as fetch time.
+     */
+    public <T> T fetch(Supplier<T> query) {
+        long start = System.nanoTime();
+        try {
+            return query.get();
+        } finally {
+            fetchTime += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Maps query results, counting the time as mapping time.
+     */
+    public <T, R> List<R> map(List<T> results, Function<T, R> mapper) {
+        long start = System.nanoTime();
+        List<R> mapped = new ArrayList<>(results.size());
+        for (T result : results) {
+            mapped.add(mapper.apply(result));
+        }
+        mappingTime += System.nanoTime() - start;
+        return mapped;
+    }
+
+    /**
+     * Counts the time spent reading from a cursor as fetch time.
+     */
+    <T> Iterator<T> fetching(Iterator<T> cursor) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                long start = System.nanoTime();
+                try {
+                    return cursor.hasNext();
+                } finally {
+                    fetchTime += System.nanoTime() - start;
+                }
+            }
+
+            @Override
+            public T next() {
+                long start = System.nanoTime();
+                try {
+                    return cursor.next();
+                } finally {
+                    fetchTime += System.nanoTime() - start;
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps the response stream to count the bytes written and the time spent writing them.
+     */
+    OutputStream measure(OutputStream outputStream) {
+        return new FilterOutputStream(outputStream) {
+            @Override
+            public void write(int b) throws IOException {
+                long start = System.nanoTime();
+                out.write(b);
+                writeTime += System.nanoTime() - start;
+                bytes++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                long start = System.nanoTime();
+                out.write(b, off, len);
+                writeTime += System.nanoTime() - start;
+                bytes += len;
+            }
+
+            @Override
+            public void flush() throws IOException {
+                long start = System.nanoTime();
+                out.flush();
+                writeTime += System.nanoTime() - start;
+            }
+        };
+    }
+
+    /**
+     * Wraps a renderer to count the time it runs, less the time it spends fetching and writing, as render time.
+     * The time is taken on the thread that renders: a {@link ReportRenderer} thread renders while the calling
+     * thread writes to the client, so the calling thread's own time would overlap both.
+     */
+    ReportRenderer.Renderer rendering(ReportRenderer.Renderer renderer) {
+        return outputStream -> {
+            long fetchBefore = fetchTime;
+            long[] writing = new long[1];
+            long start = System.nanoTime();
+            try {
+                renderer.render(new FilterOutputStream(outputStream) {
+                    @Override
+                    public void write(int b) throws IOException {
+                        long writeStart = System.nanoTime();
+                        out.write(b);
+                        writing[0] += System.nanoTime() - writeStart;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        long writeStart = System.nanoTime();
+                        out.write(b, off, len);
+                        writing[0] += System.nanoTime() - writeStart;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        long writeStart = System.nanoTime();
+                        out.flush();
+                        writing[0] += System.nanoTime() - writeStart;
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        long writeStart = System.nanoTime();
+                        out.close();
+                        writing[0] += System.nanoTime() - writeStart;
+                    }
+                });
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                renderTime += Math.max(0, elapsed - (fetchTime - fetchBefore) - writing[0]);
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        commit();
+    }
+}
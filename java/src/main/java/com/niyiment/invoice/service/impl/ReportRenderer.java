@@ -0,0 +1,184 @@
+package com.niyiment.invoice.service.impl;
+
+import com.niyiment.invoice.config.ReportRenderingProperties;
+import com.niyiment.invoice.domain.repository.QueryDeadline;
+import com.niyiment.invoice.exception.ReportException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/**
+ * Moves iText and POI rendering off virtual threads.
+ * <p>
+ * Both libraries write to the output stream from inside {@code synchronized} methods. On a virtual
+ * thread a socket write that blocks there pins the carrier thread, and a handful of exports to slow
+ * clients can pin every carrier and stall all other requests. When called on a virtual thread,
+ * {@link #render} therefore runs the renderer on a bounded pool of platform threads. The bytes are
+ * handed back through a bounded queue of chunks, and the calling virtual thread writes them to the client.
+ * The rendering thread waits when the queue is full, so a slow client holds back its own export only.
+ * The rendering thread runs with the caller's query deadline. It is interrupted as soon as writing to the
+ * client fails or the calling thread is interrupted. It then fails at its next write, which closes any cursor
+ * it is reading.
+ * Callers already on a platform thread render in place.
+ */
+@Slf4j
+@Component
+public class ReportRenderer implements DisposableBean {
+    private static final byte[] END = new byte[0];
+
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final int bufferedChunks;
+
+    public ReportRenderer(ReportRenderingProperties properties) {
+        this.executor = Executors.newFixedThreadPool(Math.max(properties.getThreads(), 1),
+                Thread.ofPlatform().name("report-render-", 0).daemon(true).factory());
+        this.chunkSize = (int) properties.getChunkSize().toBytes();
+        this.bufferedChunks = properties.getBufferedChunks();
+    }
+
+    /**
+     * Renders a report to the output stream.
+     *
+     * @param outputStream the stream to write to, typically the response body
+     * @param renderer writes the report to the stream it is given and may close it
+     */
+    public void render(OutputStream outputStream, Renderer renderer) {
+        if (!Thread.currentThread().isVirtual()) {
+            renderer.render(outputStream);
+            return;
+        }
+
+        BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(bufferedChunks);
+        Future<?> rendering = executor.submit(QueryDeadline.propagate(() -> {
+            try (ChunkOutputStream chunkStream = new ChunkOutputStream(chunks, chunkSize)) {
+                renderer.render(chunkStream);
+            } catch (IOException exception) {
+                throw new ReportException("Error rendering report", exception);
+            } finally {
+                putQuietly(chunks, END);
+            }
+            return null;
+        }));
+
+        try {
+            for (byte[] chunk = chunks.take(); chunk != END; chunk = chunks.take()) {
+                outputStream.write(chunk);
+            }
+            rendering.get();
+        } catch (IOException exception) {
+            throw new ReportException("Error writing report", exception);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new ReportException("Interrupted while writing report", exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ReportException("Error rendering report", exception.getCause());
+        } catch (CancellationException exception) {
+            throw new ReportException("Report rendering was cancelled", exception);
+        } finally {
+            // Stops a renderer still waiting for queue space after the client went away
+            rendering.cancel(true);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static void putQuietly(BlockingQueue<byte[]> chunks, byte[] chunk) {
+        try {
+            chunks.put(chunk);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes a report to the stream it is given.
+     */
+    @FunctionalInterface
+    public interface Renderer {
+        void render(OutputStream outputStream);
+    }
+
+    /**
+     * Collects writes into fixed-size chunks and queues each full chunk, waiting for space.
+     */
+    private static final class ChunkOutputStream extends OutputStream {
+        private final BlockingQueue<byte[]> chunks;
+        private final byte[] buffer;
+        private int count;
+        private boolean closed;
+
+        private ChunkOutputStream(BlockingQueue<byte[]> chunks, int chunkSize) {
+            this.chunks = chunks;
+            this.buffer = new byte[chunkSize];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flush();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (count == buffer.length) {
+                    flush();
+                }
+                int copied = Math.min(length, buffer.length - count);
+                System.arraycopy(bytes, offset, buffer, count, copied);
+                count += copied;
+                offset += copied;
+                length -= copied;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (count == 0) {
+                return;
+            }
+            byte[] chunk = new byte[count];
+            System.arraycopy(buffer, 0, chunk, 0, count);
+            count = 0;
+            try {
+                chunks.put(chunk);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Report client went away");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Renderers close their stream themselves, before the try-with-resources does
+            if (!closed) {
+                flush();
+                closed = true;
+            }
+        }
+    }
+}
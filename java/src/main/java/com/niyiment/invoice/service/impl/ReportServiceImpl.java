@@ -4,10 +4,15 @@ import com.niyiment.invoice.domain.dto.InvoiceDto;
 import com.niyiment.invoice.domain.dto.InvoiceItemDto;
 import com.niyiment.invoice.domain.enums.ExportFormat;
 import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.money.Money;
+import com.niyiment.invoice.domain.repository.InvoiceSearchCriteria;
 import com.niyiment.invoice.exception.BadRequestException;
 import com.niyiment.invoice.exception.ReportException;
 import com.niyiment.invoice.service.InvoiceService;
 import com.niyiment.invoice.service.ReportService;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
@@ -22,21 +27,35 @@ import org.springframework.transaction.annotation.Transactional;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Reports and exports. Each method is timed as {@code invoice.service}, and the data rows of each completed
+ * export are recorded per format as {@code invoice.exports.rows}. Each call also emits a {@link ReportEvent} to
+ * Flight Recorder, which splits its time into fetching, mapping, rendering and writing.
+ */
 @Service
+@Timed("invoice.service")
 @RequiredArgsConstructor
 public class ReportServiceImpl implements ReportService {
     private final InvoiceService invoiceService;
+    private final ReportRenderer reportRenderer;
+    private final InvoiceReportReader invoiceReportReader;
+    private final MeterRegistry meterRegistry;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final String CURRENT_DAY = "Current";
     private static final String ONE_THIRTY_DAYS = "1-30 days";
@@ -48,167 +67,210 @@ public class ReportServiceImpl implements ReportService {
     private static final String REPORT_DATE = "Report Date: ";
     private static final String CATEGORY = "Category";
     private static final String VALUE = "Value";
+    /** Rows after which a partially built PDF table is written out and released. */
+    private static final int PDF_FLUSH_ROWS = 500;
 
     @Override
     public void exportInvoice(String invoiceId, ExportFormat format, OutputStream outputStream) {
-        InvoiceDto invoiceDto = invoiceService.getInvoiceById(invoiceId);
-        List<InvoiceDto> invoices = Collections.singletonList(invoiceDto);
-
-        switch(format) {
-            case CSV:
-                exportInvoicesToCSV(invoices, outputStream);
-                break;
-            case EXCEL:
-                exportInvoicesToExcel(invoices, outputStream);
-                break;
-            case PDF:
-                exportInvoicesToPDF(invoices, outputStream);
-                break;
-            default:
-                throw new BadRequestException("");
+        try (ReportEvent event = ReportEvent.start("exportInvoice", format)) {
+            InvoiceDto invoiceDto = event.fetch(() -> invoiceService.getInvoiceById(invoiceId));
+            List<InvoiceDto> invoices = Collections.singletonList(invoiceDto);
+            OutputStream output = event.measure(outputStream);
+
+            switch(format) {
+                case CSV:
+                    event.rendering(out -> exportInvoicesToCSV(invoices, out, event)).render(output);
+                    break;
+                case EXCEL:
+                    reportRenderer.render(output, event.rendering(out -> exportInvoicesToExcel(invoices, out, event)));
+                    break;
+                case PDF:
+                    reportRenderer.render(output, event.rendering(
+                            out -> exportInvoicesToPDF(invoices, this::invoiceItems, out, event)));
+                    break;
+                default:
+                    throw new BadRequestException("");
 
+            }
         }
     }
 
     @Override
     public void exportInvoices(List<String> invoiceIds, ExportFormat format, OutputStream outputStream) {
-        List<InvoiceDto> invoices = invoiceIds.stream()
-                .map(invoiceService::getInvoiceById)
-                .toList();
-
-        switch(format) {
-            case CSV:
-                exportInvoicesToCSV(invoices, outputStream);
-                break;
-            case EXCEL:
-                exportInvoicesToExcel(invoices, outputStream);
-                break;
-            case PDF:
-                exportInvoicesToPDF(invoices, outputStream);
-                break;
-            default:
-                throw new BadRequestException(INVALID_FORMAT + format);
+        try (ReportEvent event = ReportEvent.start("exportInvoices", format)) {
+            List<InvoiceDto> invoices = event.fetch(() -> invoiceIds.stream()
+                    .map(invoiceService::getInvoiceById)
+                    .toList());
+            OutputStream output = event.measure(outputStream);
+
+            switch(format) {
+                case CSV:
+                    event.rendering(out -> exportInvoicesToCSV(invoices, out, event)).render(output);
+                    break;
+                case EXCEL:
+                    reportRenderer.render(output, event.rendering(out -> exportInvoicesToExcel(invoices, out, event)));
+                    break;
+                case PDF:
+                    reportRenderer.render(output, event.rendering(
+                            out -> exportInvoicesToPDF(invoices, this::invoiceItems, out, event)));
+                    break;
+                default:
+                    throw new BadRequestException(INVALID_FORMAT + format);
+            }
         }
     }
 
     @Override
     public void exportInvoicesWithCriteria(String clientName, InvoiceStatus status, LocalDateTime startDate,
                                            LocalDateTime endDate, ExportFormat format, OutputStream outputStream) {
-        List<InvoiceDto> invoices = invoiceService.advancedSearch(clientName,status, startDate, endDate,
-                null, null);
-        switch(format) {
-            case CSV:
-                exportInvoicesToCSV(invoices, outputStream);
-                break;
-            case EXCEL:
-                exportInvoicesToExcel(invoices, outputStream);
-                break;
-            case PDF:
-                exportInvoicesToPDF(invoices, outputStream);
-                break;
-            default:
-                throw new BadRequestException(INVALID_FORMAT + format);
+        try (ReportEvent event = ReportEvent.start("exportInvoicesWithCriteria", format)) {
+            List<InvoiceDto> invoices =
+                    invoiceReportReader.search(criteria(clientName, status, startDate, endDate, null), event);
+            OutputStream output = event.measure(outputStream);
+
+            switch(format) {
+                case CSV:
+                    event.rendering(out -> exportInvoicesToCSV(invoices, out, event)).render(output);
+                    break;
+                case EXCEL:
+                    reportRenderer.render(output, event.rendering(out -> exportInvoicesToExcel(invoices, out, event)));
+                    break;
+                case PDF:
+                    reportRenderer.render(output, event.rendering(
+                            out -> exportInvoicesToPDF(invoices, this::reportItems, out, event)));
+                    break;
+                default:
+                    throw new BadRequestException(INVALID_FORMAT + format);
+            }
         }
     }
 
     @Override
-    public Map<String, Double> generateRevenueReportByCustomer(LocalDateTime startDate, LocalDateTime endDate) {
-        List<InvoiceDto> invoices = invoiceService.advancedSearch(null, InvoiceStatus.PAID, startDate,
-                endDate,null,null);
-
-        return invoices.stream()
-                .collect(Collectors.groupingBy(
-                        InvoiceDto::getCustomerName,
-                        Collectors.summingDouble(InvoiceDto::getTotalAmount)
-                ));
+    public Map<String, BigDecimal> generateRevenueReportByCustomer(LocalDateTime startDate, LocalDateTime endDate,
+                                                                   Currency currency) {
+        try (ReportEvent event = ReportEvent.start("generateRevenueReportByCustomer", null)) {
+            List<InvoiceDto> invoices = invoiceReportReader.search(
+                    criteria(null, InvoiceStatus.PAID, startDate, endDate, currency), event);
+            event.rows = invoices.size();
+
+            Map<String, long[]> revenueByCustomer = new HashMap<>();
+            for (InvoiceDto invoice : invoices) {
+                long[] total = revenueByCustomer.computeIfAbsent(invoice.getCustomerName(), key -> new long[1]);
+                total[0] = Math.addExact(total[0], Money.toMinorUnits(invoice.getTotalAmount(), currency));
+            }
+
+            Map<String, BigDecimal> report = new HashMap<>();
+            revenueByCustomer.forEach((customer, total) -> report.put(customer,
+                    Money.toDecimal(total[0], currency)));
+
+            return report;
+        }
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Map<String, Double> generateRevenueReportByMonth(int year) {
-        LocalDateTime startDate = LocalDateTime.of(year, 1,1,0,0);
-        LocalDateTime endDate = LocalDateTime.of(year, 12, 31, 23, 59, 59);
-        List<InvoiceDto> invoices = invoiceService.advancedSearch(null, InvoiceStatus.PAID,
-                startDate, endDate, null, null);
-
-        Map<String, Double> revenueByMonth = new LinkedHashMap<>();
-        for (Month month : Month.values()) {
-            revenueByMonth.put(month.toString(), 0.0);
-        }
-
-        invoices.forEach(invoice -> {
-            String month = invoice.getInvoiceDate().getMonth().toString();
-            revenueByMonth.put(month, revenueByMonth.get(month) + invoice.getTotalAmount());
-        });
+    public Map<String, BigDecimal> generateRevenueReportByMonth(int year, Currency currency) {
+        try (ReportEvent event = ReportEvent.start("generateRevenueReportByMonth", null)) {
+            LocalDateTime startDate = LocalDateTime.of(year, 1,1,0,0);
+            LocalDateTime endDate = LocalDateTime.of(year, 12, 31, 23, 59, 59);
+            List<InvoiceDto> invoices = invoiceReportReader.search(
+                    criteria(null, InvoiceStatus.PAID, startDate, endDate, currency), event);
+            event.rows = invoices.size();
+
+            long[] totals = new long[Month.values().length];
+            for (InvoiceDto invoice : invoices) {
+                int month = invoice.getInvoiceDate().getMonthValue() - 1;
+                totals[month] = Math.addExact(totals[month], Money.toMinorUnits(invoice.getTotalAmount(), currency));
+            }
 
+            Map<String, BigDecimal> revenueByMonth = new LinkedHashMap<>();
+            for (Month month : Month.values()) {
+                revenueByMonth.put(month.toString(), Money.toDecimal(totals[month.ordinal()], currency));
+            }
 
-        return revenueByMonth;
+            return revenueByMonth;
+        }
     }
 
     @Override
     public Map<InvoiceStatus, Long> generateInvoicesByStatusReport() {
-        List<InvoiceDto> allInvoices = invoiceService.advancedSearch(null,null,null,null,null,null);
+        try (ReportEvent event = ReportEvent.start("generateInvoicesByStatusReport", null)) {
+            List<InvoiceDto> allInvoices = invoiceReportReader.search(criteria(null, null, null, null, null), event);
+            event.rows = allInvoices.size();
 
-        return allInvoices.stream()
-                .collect(Collectors.groupingBy(InvoiceDto::getStatus, Collectors.counting()));
+            return allInvoices.stream()
+                    .collect(Collectors.groupingBy(InvoiceDto::getStatus, Collectors.counting()));
+        }
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Map<String, Double> generateAgingReport() {
-        LocalDateTime now = LocalDateTime.now();
-
-
-        List<InvoiceDto> invoices = invoiceService.advancedSearch(null,null,
-                        null,null, null, null).stream()
-                .filter(invoice -> invoice.getStatus() != InvoiceStatus.PAID && invoice.getStatus() != InvoiceStatus.CANCELLED)
-                .toList();
-
-        Map<String, Double> agingReport = new LinkedHashMap<>();
-        agingReport.put(CURRENT_DAY, 0.0);
-        agingReport.put(ONE_THIRTY_DAYS, 0.0);
-        agingReport.put(THIRTY_SIXTY_DAYS, 0.0);
-        agingReport.put(SIXTY_NINETY_DAYS, 0.0);
-        agingReport.put(ABOVE_NINETY_DAYS, 0.0);
-
-        invoices.forEach(invoice -> {
-            long daysPastDue = ChronoUnit.DAYS.between(invoice.getDueDate(), now);
-
-            if (daysPastDue <= 0) {
-                agingReport.put(CURRENT_DAY, agingReport.get(CURRENT_DAY) + invoice.getTotalAmount());
-            } else if (daysPastDue <= 30) {
-                agingReport.put(ONE_THIRTY_DAYS, agingReport.get(ONE_THIRTY_DAYS) + invoice.getTotalAmount());
-            } else if (daysPastDue <= 60) {
-                agingReport.put(THIRTY_SIXTY_DAYS, agingReport.get(THIRTY_SIXTY_DAYS) + invoice.getTotalAmount());
-            } else if (daysPastDue <= 90) {
-                agingReport.put(SIXTY_NINETY_DAYS, agingReport.get(SIXTY_NINETY_DAYS) + invoice.getTotalAmount());
-            } else {
-                agingReport.put(ABOVE_NINETY_DAYS, agingReport.get(ABOVE_NINETY_DAYS) + invoice.getTotalAmount());
+    public Map<String, BigDecimal> generateAgingReport(Currency currency) {
+        try (ReportEvent event = ReportEvent.start("generateAgingReport", null)) {
+            LocalDateTime now = LocalDateTime.now();
+
+            List<InvoiceDto> invoices = invoiceReportReader.findOpen(currency, event);
+            event.rows = invoices.size();
+
+            long current = 0;
+            long oneToThirty = 0;
+            long thirtyToSixty = 0;
+            long sixtyToNinety = 0;
+            long aboveNinety = 0;
+
+            for (InvoiceDto invoice : invoices) {
+                long daysPastDue = ChronoUnit.DAYS.between(invoice.getDueDate(), now);
+                long amount = Money.toMinorUnits(invoice.getTotalAmount(), currency);
+
+                if (daysPastDue <= 0) {
+                    current = Math.addExact(current, amount);
+                } else if (daysPastDue <= 30) {
+                    oneToThirty = Math.addExact(oneToThirty, amount);
+                } else if (daysPastDue <= 60) {
+                    thirtyToSixty = Math.addExact(thirtyToSixty, amount);
+                } else if (daysPastDue <= 90) {
+                    sixtyToNinety = Math.addExact(sixtyToNinety, amount);
+                } else {
+                    aboveNinety = Math.addExact(aboveNinety, amount);
+                }
             }
-        });
 
-        return agingReport;
+            Map<String, BigDecimal> agingReport = new LinkedHashMap<>();
+            agingReport.put(CURRENT_DAY, Money.toDecimal(current, currency));
+            agingReport.put(ONE_THIRTY_DAYS, Money.toDecimal(oneToThirty, currency));
+            agingReport.put(THIRTY_SIXTY_DAYS, Money.toDecimal(thirtyToSixty, currency));
+            agingReport.put(SIXTY_NINETY_DAYS, Money.toDecimal(sixtyToNinety, currency));
+            agingReport.put(ABOVE_NINETY_DAYS, Money.toDecimal(aboveNinety, currency));
+
+            return agingReport;
+        }
     }
 
     @Override
     public void exportReport(Map<?, ?> reportData, String reportTitle, ExportFormat format, OutputStream outputStream) {
-        switch(format) {
-            case CSV:
-                exportReportToCSV(reportData, reportTitle, outputStream);
-                break;
-            case EXCEL:
-                exportReportToExcel(reportData, reportTitle, outputStream);
-                break;
-            case PDF:
-                exportReportToPDF(reportData, reportTitle, outputStream);
-                break;
-            default:
-                throw new BadRequestException(INVALID_FORMAT + format);
+        try (ReportEvent event = ReportEvent.start("exportReport", format)) {
+            OutputStream output = event.measure(outputStream);
+
+            switch(format) {
+                case CSV:
+                    event.rendering(out -> exportReportToCSV(reportData, reportTitle, out, event)).render(output);
+                    break;
+                case EXCEL:
+                    reportRenderer.render(output, event.rendering(
+                            out -> exportReportToExcel(reportData, reportTitle, out, event)));
+                    break;
+                case PDF:
+                    reportRenderer.render(output, event.rendering(
+                            out -> exportReportToPDF(reportData, reportTitle, out, event)));
+                    break;
+                default:
+                    throw new BadRequestException(INVALID_FORMAT + format);
+            }
         }
     }
 
 
-    private void exportInvoicesToCSV(List<InvoiceDto> invoices, OutputStream outputStream) {
+    private void exportInvoicesToCSV(List<InvoiceDto> invoices, OutputStream outputStream, ReportEvent event) {
         try(OutputStreamWriter writer = new OutputStreamWriter(outputStream);
          CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT)) {
             csvPrinter.printRecord("Invoice Number", "Customer Name", "Status", "Invoice Date",
@@ -220,12 +282,13 @@ public class ReportServiceImpl implements ReportService {
                         invoice.getTaxRate(), invoice.getTaxAmount(), invoice.getTotalAmount());
             }
             csvPrinter.flush();
+            recordRows(ExportFormat.CSV, invoices.size(), event);
         } catch (IOException exception) {
             throw new ReportException("Error exporting invoices to CSV", exception);
         }
     }
 
-    private void exportInvoicesToExcel(List<InvoiceDto> invoices, OutputStream outputStream) {
+    private void exportInvoicesToExcel(List<InvoiceDto> invoices, OutputStream outputStream, ReportEvent event) {
         try(Workbook workbook = new XSSFWorkbook()) {
             Sheet sheet = workbook.createSheet("Invoices");
             Row headerRow = sheet.createRow(0);
@@ -252,21 +315,23 @@ public class ReportServiceImpl implements ReportService {
                 row.createCell(2).setCellValue(invoice.getStatus().name());
                 row.createCell(3).setCellValue(formatDate(invoice.getInvoiceDate()));
                 row.createCell(4).setCellValue(formatDate(invoice.getDueDate()));
-                row.createCell(5).setCellValue(invoice.getSubtotal());
+                row.createCell(5).setCellValue(invoice.getSubtotal().doubleValue());
                 row.createCell(6).setCellValue(invoice.getTaxRate());
-                row.createCell(7).setCellValue(invoice.getTaxAmount());
-                row.createCell(8).setCellValue(invoice.getTotalAmount());
+                row.createCell(7).setCellValue(invoice.getTaxAmount().doubleValue());
+                row.createCell(8).setCellValue(invoice.getTotalAmount().doubleValue());
             }
             for (int i = 0; i < headers.length; i++) {
                 sheet.autoSizeColumn(i);
             }
             workbook.write(outputStream);
+            recordRows(ExportFormat.EXCEL, invoices.size(), event);
         } catch (IOException e) {
             throw new ReportException("Error exporting invoices to Excel", e);
         }
     }
 
-    private void exportInvoicesToPDF(List<InvoiceDto> invoices, OutputStream outputStream) {
+    private void exportInvoicesToPDF(List<InvoiceDto> invoices, Function<InvoiceDto, Stream<InvoiceItemDto>> itemSource,
+                                     OutputStream outputStream, ReportEvent event) {
         try {
             Document document = new Document();
             PdfWriter.getInstance(document, outputStream);
@@ -277,6 +342,7 @@ public class ReportServiceImpl implements ReportService {
                     14, com.itextpdf.text.Font.BOLD);
             com.itextpdf.text.Font bodyFont = new com.itextpdf.text.Font(com.itextpdf.text.Font.FontFamily.HELVETICA,
                     12);
+            long exportedRows = 0;
 
             for (InvoiceDto invoice : invoices) {
                 Paragraph title = new Paragraph("Invoices: " + invoice.getInvoiceNumber(), titleFont);
@@ -293,6 +359,8 @@ public class ReportServiceImpl implements ReportService {
                 document.add(Chunk.NEWLINE);
 
                 PdfPTable table = new PdfPTable(4);
+                table.setComplete(false);
+                table.setHeaderRows(1);
                 table.setWidthPercentage(100);
                 table.setWidths(new float[] {4, 2, 2, 2});
 
@@ -305,13 +373,23 @@ public class ReportServiceImpl implements ReportService {
                             table.addCell(headerCell);
                         });
 
-                for(InvoiceItemDto item : invoice.getItems()) {
-                    table.addCell(new Phrase(item.getDescription(), bodyFont));
-                    table.addCell(new Phrase(String.valueOf(item.getQuantity()), bodyFont));
-                    table.addCell(new Phrase(String.format(NUMBER_FORMAT, item.getUnitPrice()), bodyFont));
-                    table.addCell(new Phrase(String.format(NUMBER_FORMAT, item.getAmount()), bodyFont));
+                try (Stream<InvoiceItemDto> items = event.fetch(() -> itemSource.apply(invoice))) {
+                    Iterator<InvoiceItemDto> iterator = event.fetching(items.iterator());
+                    int rows = 0;
+                    while (iterator.hasNext()) {
+                        InvoiceItemDto item = iterator.next();
+                        table.addCell(new Phrase(item.getDescription(), bodyFont));
+                        table.addCell(new Phrase(String.valueOf(item.getQuantity()), bodyFont));
+                        table.addCell(new Phrase(String.format(NUMBER_FORMAT, item.getUnitPrice()), bodyFont));
+                        table.addCell(new Phrase(String.format(NUMBER_FORMAT, item.getAmount()), bodyFont));
+                        if (++rows % PDF_FLUSH_ROWS == 0) {
+                            document.add(table);
+                        }
+                    }
+                    exportedRows += rows;
                 }
 
+                table.setComplete(true);
                 document.add(table);
                 document.add(Chunk.NEWLINE);
 
@@ -341,13 +419,46 @@ public class ReportServiceImpl implements ReportService {
             }
 
             document.close();
+            recordRows(ExportFormat.PDF, exportedRows, event);
 
         } catch (DocumentException exception) {
             throw new ReportException("Error exporting invoices to PDF", exception);
         }
     }
 
-    private void exportReportToCSV(Map<?, ?> reportData, String reportTitle, OutputStream outputStream) {
+    /**
+     * Items of invoices stored outside the invoice document are streamed from their collection,
+     * so a large invoice is never held in memory as a whole.
+     */
+    private Stream<InvoiceItemDto> invoiceItems(InvoiceDto invoice) {
+        if (invoice.getItemCount() > invoice.getItems().size()) {
+            return invoiceService.streamInvoiceItems(invoice.getId());
+        }
+        return invoice.getItems().stream();
+    }
+
+    /**
+     * Like {@link #invoiceItems}, for invoices read through the {@link InvoiceReportReader}, so that header
+     * and items come from the same member.
+     */
+    private Stream<InvoiceItemDto> reportItems(InvoiceDto invoice) {
+        if (invoice.getItemCount() > invoice.getItems().size()) {
+            return invoiceReportReader.streamExternalItems(invoice);
+        }
+        return invoice.getItems().stream();
+    }
+
+    /**
+     * Monetary reports read the invoices of one currency, so that totals never add amounts of different currencies.
+     */
+    private static InvoiceSearchCriteria criteria(String customerName, InvoiceStatus status, LocalDateTime startDate,
+                                                  LocalDateTime endDate, Currency currency) {
+        return new InvoiceSearchCriteria(customerName, null, status, startDate, endDate,
+                currency != null ? currency.getCurrencyCode() : null, null, null, null);
+    }
+
+    private void exportReportToCSV(Map<?, ?> reportData, String reportTitle, OutputStream outputStream,
+                                   ReportEvent event) {
         try (
                 OutputStreamWriter writer = new OutputStreamWriter(outputStream);
                 CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT)
@@ -361,12 +472,14 @@ public class ReportServiceImpl implements ReportService {
             }
 
             csvPrinter.flush();
+            recordRows(ExportFormat.CSV, reportData.size(), event);
         } catch (IOException e) {
             throw new ReportException("Error exporting report to CSV", e);
         }
     }
 
-    private void exportReportToExcel(Map<?, ?> reportData, String reportTitle, OutputStream outputStream) {
+    private void exportReportToExcel(Map<?, ?> reportData, String reportTitle, OutputStream outputStream,
+                                     ReportEvent event) {
         try (Workbook workbook = new XSSFWorkbook()) {
             Sheet sheet = workbook.createSheet("Report");
 
@@ -408,8 +521,8 @@ public class ReportServiceImpl implements ReportService {
                 row.createCell(0).setCellValue(entry.getKey().toString());
 
                 Cell valueCell = row.createCell(1);
-                if (entry.getValue() instanceof Double) {
-                    valueCell.setCellValue((Double) entry.getValue());
+                if (entry.getValue() instanceof BigDecimal amount) {
+                    valueCell.setCellValue(amount.doubleValue());
 
                     CellStyle currencyStyle = workbook.createCellStyle();
                     DataFormat format = workbook.createDataFormat();
@@ -427,12 +540,14 @@ public class ReportServiceImpl implements ReportService {
             }
 
             workbook.write(outputStream);
+            recordRows(ExportFormat.EXCEL, reportData.size(), event);
         } catch (IOException e) {
             throw new ReportException("Error exporting report to Excel", e);
         }
     }
 
-    private void exportReportToPDF(Map<?, ?> reportData, String reportTitle, OutputStream outputStream) {
+    private void exportReportToPDF(Map<?, ?> reportData, String reportTitle, OutputStream outputStream,
+                                   ReportEvent event) {
         try {
             Document document = new Document(PageSize.A4);
             PdfWriter.getInstance(document, outputStream);
@@ -473,7 +588,7 @@ public class ReportServiceImpl implements ReportService {
 
                 // Format value based on type
                 String formattedValue;
-                if (value instanceof Double) {
+                if (value instanceof BigDecimal) {
                     formattedValue = String.format(NUMBER_FORMAT, value);
                 } else if (value instanceof Number) {
                     formattedValue = value.toString();
@@ -486,11 +601,22 @@ public class ReportServiceImpl implements ReportService {
 
             document.add(table);
             document.close();
+            recordRows(ExportFormat.PDF, reportData.size(), event);
         } catch (DocumentException e) {
             throw new ReportException("Error exporting report to PDF", e);
         }
     }
 
+    private void recordRows(ExportFormat format, long rows, ReportEvent event) {
+        event.rows = rows;
+        DistributionSummary.builder("invoice.exports.rows")
+                .description("Data rows written by completed exports")
+                .baseUnit("rows")
+                .tag("format", format.name())
+                .register(meterRegistry)
+                .record(rows);
+    }
+
     private String formatDate(LocalDateTime dateTime) {
         return dateTime != null ? dateTime.format(DATE_FORMATTER) : "";
     }
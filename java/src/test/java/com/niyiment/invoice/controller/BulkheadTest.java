@@ -0,0 +1,105 @@
+package com.niyiment.invoice.controller;
+
+import com.niyiment.invoice.config.BulkheadProperties;
+import com.niyiment.invoice.exception.TooManyRequestsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldRejectWhenSlotsAndQueueAreFull() {
+        Bulkhead bulkhead = new Bulkhead("test", new BulkheadProperties.Limit(1, 0, Duration.ofSeconds(1)));
+
+        try (Bulkhead.Permit permit = bulkhead.acquire()) {
+            TooManyRequestsException exception = assertThrows(TooManyRequestsException.class, bulkhead::acquire);
+            assertTrue(exception.getRetryAfter().toSeconds() >= 1);
+            assertEquals(1, bulkhead.getActive());
+            assertEquals(1, bulkhead.getRejected());
+        }
+        assertEquals(0, bulkhead.getActive());
+    }
+
+    @Test
+    void shouldAdmitQueuedRequestOnceSlotIsReleased() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", new BulkheadProperties.Limit(1, 1, Duration.ofSeconds(5)));
+        Bulkhead.Permit held = bulkhead.acquire();
+        CountDownLatch waiting = new CountDownLatch(1);
+
+        Future<Bulkhead.Permit> queued = executor.submit(() -> {
+            waiting.countDown();
+            return bulkhead.acquire();
+        });
+        waiting.await();
+        while (bulkhead.getQueued() == 0) {
+            Thread.onSpinWait();
+        }
+        assertThrows(TooManyRequestsException.class, bulkhead::acquire, "Queue of one should already be full");
+
+        held.close();
+        queued.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0, bulkhead.getActive());
+        assertEquals(0, bulkhead.getQueued());
+    }
+
+    @Test
+    void shouldServeQueuedRequestBeforeLaterArrival() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", new BulkheadProperties.Limit(1, 2, Duration.ofSeconds(1)));
+        Bulkhead.Permit held = bulkhead.acquire();
+        CompletableFuture<Bulkhead.Permit> queued = new CompletableFuture<>();
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try {
+                queued.complete(bulkhead.acquire());
+            } catch (RuntimeException e) {
+                queued.completeExceptionally(e);
+            }
+        });
+        while (waiter.getState() != Thread.State.WAITING && waiter.getState() != Thread.State.TIMED_WAITING) {
+            Thread.onSpinWait();
+        }
+
+        held.close();
+        assertThrows(TooManyRequestsException.class, bulkhead::acquire,
+                "A later arrival should not take the slot released to the queued request");
+        queued.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0, bulkhead.getActive());
+    }
+
+    @Test
+    void shouldRejectQueuedRequestAfterMaxWait() {
+        Bulkhead bulkhead = new Bulkhead("test", new BulkheadProperties.Limit(1, 1, Duration.ofMillis(50)));
+
+        try (Bulkhead.Permit permit = bulkhead.acquire()) {
+            assertThrows(TooManyRequestsException.class, bulkhead::acquire);
+            assertEquals(0, bulkhead.getQueued());
+        }
+    }
+
+    @Test
+    void shouldEstimateRetryAfterFromHoldTimeAndQueue() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", new BulkheadProperties.Limit(1, 0, Duration.ofSeconds(1)));
+        Bulkhead.Permit permit = bulkhead.acquire();
+        Thread.sleep(1_200);
+        permit.close();
+        permit.close();
+
+        assertEquals(Duration.ofSeconds(2), bulkhead.retryAfter());
+        assertEquals(0, bulkhead.getActive(), "Closing a permit twice should release one slot");
+    }
+}
@@ -0,0 +1,80 @@
+package com.niyiment.invoice.controller;
+
+import com.niyiment.invoice.config.BulkheadProperties;
+import com.niyiment.invoice.config.DeadlineProperties;
+import com.niyiment.invoice.domain.enums.ExportFormat;
+import com.niyiment.invoice.domain.repository.QueryDeadline;
+import com.niyiment.invoice.exception.ReportException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportSupervisorTest {
+    private final DeadlineProperties properties = new DeadlineProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExportSupervisor exportSupervisor = new ExportSupervisor(properties, meterRegistry);
+    private final Bulkhead bulkhead = new Bulkhead("export-pdf", new BulkheadProperties.Limit(1, 0, Duration.ofSeconds(1)));
+
+    @Test
+    void shouldRunExportWithDeadlineAndReleaseSlot() throws Exception {
+        properties.setExport(Duration.ofSeconds(30));
+        AtomicLong remainingNanos = new AtomicLong();
+
+        exportSupervisor.supervise(ExportFormat.PDF, bulkhead.acquire(), out -> remainingNanos.set(QueryDeadline.remainingNanos()))
+                .writeTo(new ByteArrayOutputStream());
+
+        assertTrue(remainingNanos.get() > 0 && remainingNanos.get() <= Duration.ofSeconds(30).toNanos());
+        assertFalse(QueryDeadline.isSet(), "Deadline should end with the export");
+        assertEquals(0, bulkhead.getActive());
+    }
+
+    @Test
+    void shouldCountExportCancelledWhenClientGoesAway() {
+        StreamingResponseBody body = exportSupervisor.supervise(ExportFormat.PDF, bulkhead.acquire(), out -> {
+            throw new ReportException("Error writing report", new IOException("Broken pipe"));
+        });
+
+        assertThrows(ReportException.class, () -> body.writeTo(new ByteArrayOutputStream()));
+        assertEquals(1, exportSupervisor.getCancelled());
+        assertEquals(0, exportSupervisor.getTimedOut());
+        assertEquals(0, bulkhead.getActive());
+    }
+
+    @Test
+    void shouldCountExportStoppedAtDeadline() {
+        StreamingResponseBody body = exportSupervisor.supervise(ExportFormat.PDF, bulkhead.acquire(), out -> {
+            throw new QueryTimeoutException("Query exceeded its deadline");
+        });
+
+        assertThrows(QueryTimeoutException.class, () -> body.writeTo(new ByteArrayOutputStream()));
+        assertEquals(1, exportSupervisor.getTimedOut());
+        assertEquals(0, exportSupervisor.getCancelled());
+        assertEquals(1, meterRegistry.get("invoice.exports.duration").tag("outcome", "timed-out").timer().count());
+    }
+
+    @Test
+    void shouldRecordSizeAndDurationOfCompletedExports() throws Exception {
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+
+        exportSupervisor.supervise(ExportFormat.CSV, bulkhead.acquire(), out -> {
+            out.write(new byte[1000]);
+            out.write('\n');
+            out.close();
+        }).writeTo(response);
+
+        assertEquals(1001, response.size());
+        assertEquals(1001, meterRegistry.get("invoice.exports.bytes").tag("format", "CSV").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("invoice.exports.duration")
+                .tag("format", "CSV")
+                .tag("outcome", "success")
+                .timer().count());
+    }
+}
@@ -0,0 +1,65 @@
+package com.niyiment.invoice.controller;
+
+import com.niyiment.invoice.domain.dto.InvoiceDto;
+import com.niyiment.invoice.service.InvoiceService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that clients behind the load balancer are rate limited by their forwarded address rather than
+ * sharing the proxy's bucket. The test client connects from loopback, which Tomcat trusts as a proxy.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.data.mongodb.auto-index-creation=false",
+        "invoice.migration.money.enabled=false",
+        "invoice.migration.version.enabled=false",
+        "invoice.migration.indexes.enabled=false",
+        "invoice.archive.enabled=false",
+        "invoice.cache.change-stream.enabled=false",
+        "invoice.rate-limit.refill-per-second=1"
+})
+class ForwardedClientRateLimitTest {
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private InvoiceService invoiceService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void shouldGiveForwardedClientsSeparateBuckets() throws Exception {
+        InvoiceDto invoice = new InvoiceDto();
+        invoice.setId("1");
+        when(invoiceService.getInvoiceById("1")).thenReturn(invoice);
+
+        int firstClientRemaining = 0;
+        for (int i = 0; i < 10; i++) {
+            firstClientRemaining = Integer.parseInt(remaining("203.0.113.10"));
+        }
+        assertTrue(firstClientRemaining < 99, "The first client should have drawn down its bucket");
+        assertEquals("99", remaining("203.0.113.20"), "Another client should not share the first one's bucket");
+    }
+
+    private String remaining(String clientAddress) throws Exception {
+        HttpResponse<Void> response = client.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/invoices/1"))
+                        .header("X-Forwarded-For", clientAddress)
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        assertEquals(200, response.statusCode());
+        return response.headers().firstValue("RateLimit-Remaining").orElseThrow();
+    }
+}
@@ -1,35 +1,50 @@
 package com.niyiment.invoice.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.niyiment.invoice.config.WebConfig;
 import com.niyiment.invoice.domain.dto.InvoiceDto;
+import com.niyiment.invoice.domain.dto.InvoiceFilter;
 import com.niyiment.invoice.domain.dto.InvoiceItemDto;
+import com.niyiment.invoice.domain.dto.InvoiceJson;
 import com.niyiment.invoice.domain.dto.StatusUpdateDto;
 import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.repository.InvoiceVersion;
 import com.niyiment.invoice.exception.BadRequestException;
 import com.niyiment.invoice.exception.InvoiceNotFoundException;
 import com.niyiment.invoice.service.InvoiceService;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(InvoiceController.class)
+@Import({WebConfig.class, Bulkheads.class, RateLimiter.class})
 class InvoiceControllerTest {
 
     @Autowired
@@ -62,13 +77,13 @@ class InvoiceControllerTest {
         InvoiceItemDto itemDto = new InvoiceItemDto();
         itemDto.setDescription("Item 1");
         itemDto.setQuantity(2);
-        itemDto.setUnitPrice(10.0);
+        itemDto.setUnitPrice(new BigDecimal("10.00"));
         invoiceDto.setItems(Arrays.asList(itemDto));
 
         invoiceDto.setTaxRate(10.0);
-        invoiceDto.setSubtotal(20.0);
-        invoiceDto.setTaxAmount(2.0);
-        invoiceDto.setTotalAmount(22.0);
+        invoiceDto.setSubtotal(new BigDecimal("20.00"));
+        invoiceDto.setTaxAmount(new BigDecimal("2.00"));
+        invoiceDto.setTotalAmount(new BigDecimal("22.00"));
         invoiceDto.setStatus(InvoiceStatus.DRAFT);
     }
 
@@ -100,6 +115,103 @@ class InvoiceControllerTest {
         verify(invoiceService).getInvoiceById(invoiceId);
     }
 
+    @Test
+    void shouldReportRateLimitPerApiKey() throws Exception {
+        when(invoiceService.getInvoiceById(invoiceId)).thenReturn(invoiceDto);
+
+        mockMvc.perform(get("/api/invoices/{id}", invoiceId).header("X-API-Key", "rate-limit-test"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("RateLimit-Limit", "100"))
+                .andExpect(header().string("RateLimit-Remaining", "99"))
+                .andExpect(header().string("RateLimit-Reset", "1"));
+    }
+
+    @Test
+    void shouldTagInvoiceWithItsVersion() throws Exception {
+        invoiceDto.setVersion(3L);
+        when(invoiceService.getInvoiceById(invoiceId)).thenReturn(invoiceDto);
+
+        mockMvc.perform(get("/api/invoices/{id}", invoiceId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-v3\""))
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andExpect(header().string("Vary", "Accept"));
+    }
+
+    @Test
+    void shouldReturnNotModifiedWithoutLoadingInvoice() throws Exception {
+        when(invoiceService.getInvoiceVersion(invoiceId)).thenReturn(3L);
+
+        mockMvc.perform(get("/api/invoices/{id}", invoiceId).header("If-None-Match", "\"1-v3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"1-v3\""))
+                .andExpect(content().string(""));
+
+        verify(invoiceService, never()).getInvoiceById(any());
+    }
+
+    @Test
+    void shouldReturnInvoiceWhenVersionChanged() throws Exception {
+        invoiceDto.setVersion(4L);
+        when(invoiceService.getInvoiceVersion(invoiceId)).thenReturn(4L);
+        when(invoiceService.getInvoiceById(invoiceId)).thenReturn(invoiceDto);
+
+        mockMvc.perform(get("/api/invoices/{id}", invoiceId).header("If-None-Match", "\"1-v3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-v4\""));
+    }
+
+    @Test
+    void shouldNotMatchTagOfDeletedInvoiceWithSameNumber() throws Exception {
+        invoiceDto.setId("2");
+        invoiceDto.setVersion(0L);
+        when(invoiceService.getInvoiceVersionByNumber(invoiceNumber)).thenReturn(InvoiceVersion.of("2", 0L));
+        when(invoiceService.getInvoiceByNumber(invoiceNumber)).thenReturn(invoiceDto);
+
+        mockMvc.perform(get("/api/invoices/number/{invoiceNumber}", invoiceNumber)
+                        .header("If-None-Match", "\"1-v0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2-v0\""));
+    }
+
+    @Test
+    void shouldReturnNotModifiedForUnchangedInvoicePage() throws Exception {
+        when(invoiceService.findInvoiceJson(any(InvoiceFilter.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(invoiceJson())));
+
+        String entityTag = mockMvc.perform(get("/api/invoices"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/invoices").header("If-None-Match", entityTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void shouldNegotiateCborWithSameFields() throws Exception {
+        when(invoiceService.findInvoiceJson(any(InvoiceFilter.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(invoiceJson())));
+
+        byte[] body = mockMvc.perform(get("/api/invoices").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode invoice = new CBORMapper().readTree(body).get("content").get(0);
+        assertEquals(invoiceNumber, invoice.get("invoiceNumber").asText());
+        assertTrue(invoice.get("totalAmount").isBigDecimal(), "Amounts should stay decimal numbers");
+        assertEquals(0, new BigDecimal("22.00").compareTo(invoice.get("totalAmount").decimalValue()));
+    }
+
+    @Test
+    void shouldKeepJsonAsDefaultRepresentation() throws Exception {
+        when(invoiceService.getInvoiceById(invoiceId)).thenReturn(invoiceDto);
+
+        mockMvc.perform(get("/api/invoices/{id}", invoiceId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
     @Test
     void shouldReturnNotFoundWhenInvoiceDoesNotExist() throws Exception {
         when(invoiceService.getInvoiceById(invoiceId)).thenThrow(new InvoiceNotFoundException("Invoice not found"));
@@ -124,16 +236,17 @@ class InvoiceControllerTest {
 
     @Test
     void shouldGetAllInvoicesSuccessfully() throws Exception {
-        List<InvoiceDto> invoices = List.of(invoiceDto);
-        when(invoiceService.getAllInvoices(any(Pageable.class)))
-                .thenReturn(new PageImpl<>(invoices));
+        when(invoiceService.findInvoiceJson(any(InvoiceFilter.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(invoiceJson())));
 
         mockMvc.perform(get("/api/invoices"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content", hasSize(1)))
-                .andExpect(jsonPath("$.content[0].id", is(invoiceId)));
+                .andExpect(jsonPath("$.content[0].id", is(invoiceId)))
+                .andExpect(jsonPath("$.content[0].items[0].unitPrice", is(10.0)))
+                .andExpect(jsonPath("$.content[0].totalAmount", is(22.0)));
 
-        verify(invoiceService).getAllInvoices(any(Pageable.class));
+        verify(invoiceService).findInvoiceJson(eq(new InvoiceFilter()), any(Pageable.class));
     }
 
     @Test
@@ -198,16 +311,16 @@ class InvoiceControllerTest {
 
     @Test
     void shouldGetInvoicesByStatusSuccessfully() throws Exception {
-        List<InvoiceDto> invoices = Arrays.asList(invoiceDto);
-        when(invoiceService.getInvoicesByStatus(eq(InvoiceStatus.DRAFT), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(invoices));
+        when(invoiceService.findInvoiceJson(any(InvoiceFilter.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(invoiceJson())));
 
         mockMvc.perform(get("/api/invoices/status/{status}", "DRAFT"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content", hasSize(1)))
                 .andExpect(jsonPath("$.content[0].status", is("DRAFT")));
 
-        verify(invoiceService).getInvoicesByStatus(eq(InvoiceStatus.DRAFT), any(Pageable.class));
+        verify(invoiceService).findInvoiceJson(argThat(filter -> filter.getStatus() == InvoiceStatus.DRAFT),
+                any(Pageable.class));
     }
 
     @Test
@@ -221,4 +334,27 @@ class InvoiceControllerTest {
 
         verify(invoiceService).generateNextInvoiceNumber();
     }
-}
\ No newline at end of file
+
+    /**
+     * The invoice of {@link #invoiceDto} as the list endpoints read it from MongoDB.
+     */
+    private InvoiceJson invoiceJson() {
+        Document document = new Document("_id", invoiceId)
+                .append("invoiceNumber", invoiceNumber)
+                .append("customerName", "Test Customer")
+                .append("customerEmail", "customer@example.com")
+                .append("items", List.of(new Document("lineNumber", 1L)
+                        .append("description", "Item 1")
+                        .append("quantity", 2)
+                        .append("unitPrice", 1000L)
+                        .append("amount", 2000L)))
+                .append("currency", "USD")
+                .append("subtotal", 2000L)
+                .append("taxRate", 10.0)
+                .append("taxAmount", 200L)
+                .append("totalAmount", 2200L)
+                .append("status", "DRAFT")
+                .append("version", 0L);
+        return new InvoiceJson(new RawBsonDocument(document, new DocumentCodec()));
+    }
+}
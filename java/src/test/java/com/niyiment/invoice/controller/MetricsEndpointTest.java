@@ -0,0 +1,75 @@
+package com.niyiment.invoice.controller;
+
+import com.niyiment.invoice.domain.dto.InvoiceDto;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.service.impl.InvoiceReportReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Scrapes the Prometheus endpoint after a report and an export, with report queries mocked.
+ */
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.data.mongodb.auto-index-creation=false",
+        "invoice.migration.money.enabled=false",
+        "invoice.migration.version.enabled=false",
+        "invoice.migration.indexes.enabled=false",
+        "invoice.archive.enabled=false",
+        "invoice.cache.change-stream.enabled=false",
+        "invoice.rate-limit.enabled=false"
+})
+class MetricsEndpointTest {
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private InvoiceReportReader invoiceReportReader;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void shouldPublishServiceAndExportMetricsForPrometheus() throws Exception {
+        InvoiceDto invoice = new InvoiceDto();
+        invoice.setStatus(InvoiceStatus.SENT);
+        invoice.setTotalAmount(new BigDecimal("10.00"));
+        when(invoiceReportReader.search(any(), any())).thenReturn(List.of(invoice));
+
+        assertEquals(200, get("/api/reports/status").statusCode());
+        assertEquals(200, get("/api/reports/status/export?format=CSV").statusCode());
+
+        HttpResponse<String> scrape = get("/actuator/prometheus");
+        assertEquals(200, scrape.statusCode());
+        String metrics = scrape.body();
+        assertTrue(metrics.contains("invoice_service_seconds_bucket{class=\"com.niyiment.invoice.service.impl.ReportServiceImpl\""
+                        + ",exception=\"none\",method=\"generateInvoicesByStatusReport\""),
+                "Service methods should be timed with a histogram");
+        assertTrue(metrics.contains("invoice_exports_rows_sum{format=\"CSV\"} 1.0"),
+                "Export rows should be recorded by format");
+        assertTrue(metrics.contains("invoice_exports_bytes_count{format=\"CSV\"} 1"),
+                "Export size should be recorded by format");
+        assertTrue(metrics.contains("invoice_exports_duration_seconds_bucket{format=\"CSV\",outcome=\"success\""),
+                "Export duration should be recorded by format and outcome");
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,86 @@
+package com.niyiment.invoice.controller;
+
+import com.niyiment.invoice.config.RateLimitProperties;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setCapacity(10);
+        properties.setRefillPerSecond(5);
+        rateLimiter = new RateLimiter(properties, clock::get);
+    }
+
+    @Test
+    void shouldAllowBurstUpToCapacity() {
+        for (int i = 9; i >= 0; i--) {
+            RateLimiter.Decision decision = rateLimiter.tryAcquire("client", 1);
+            assertTrue(decision.allowed());
+            assertEquals(i, decision.remaining());
+        }
+
+        RateLimiter.Decision rejected = rateLimiter.tryAcquire("client", 1);
+        assertFalse(rejected.allowed());
+        assertEquals(0, rejected.remaining());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), rejected.retryAfterNanos());
+    }
+
+    @Test
+    void shouldRefillOverTime() {
+        assertTrue(rateLimiter.tryAcquire("client", 10).allowed());
+        assertFalse(rateLimiter.tryAcquire("client", 1).allowed());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(400));
+        assertTrue(rateLimiter.tryAcquire("client", 2).allowed());
+        assertFalse(rateLimiter.tryAcquire("client", 1).allowed());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(9, rateLimiter.tryAcquire("client", 1).remaining(), "Bucket should not fill beyond capacity");
+    }
+
+    @Test
+    void shouldChargeRequestWeight() {
+        RateLimiter.Decision decision = rateLimiter.tryAcquire("client", 4);
+
+        assertEquals(6, decision.remaining());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(800), decision.resetNanos());
+        assertFalse(rateLimiter.tryAcquire("client", 7).allowed(), "Rejected request should take no tokens");
+        assertTrue(rateLimiter.tryAcquire("client", 6).allowed());
+    }
+
+    @Test
+    void shouldKeepSeparateBucketsPerClient() {
+        assertTrue(rateLimiter.tryAcquire("first", 10).allowed());
+
+        assertFalse(rateLimiter.tryAcquire("first", 1).allowed());
+        assertTrue(rateLimiter.tryAcquire("second", 1).allowed());
+    }
+
+    @Test
+    void shouldChargeExportOnlyOnInitialDispatch() {
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(rateLimiter, new RateLimitProperties());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/reports/invoice/1/export");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(request, response, new Object()));
+        assertEquals("0", response.getHeader("RateLimit-Remaining"));
+
+        request.setDispatcherType(DispatcherType.ASYNC);
+        assertTrue(interceptor.preHandle(request, response, new Object()),
+                "Completing the streamed export should not be charged again");
+        assertEquals("0", response.getHeader("RateLimit-Remaining"));
+    }
+}
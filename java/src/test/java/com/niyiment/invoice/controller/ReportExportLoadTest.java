@@ -0,0 +1,153 @@
+package com.niyiment.invoice.controller;
+
+import com.niyiment.invoice.domain.dto.InvoiceDto;
+import com.niyiment.invoice.domain.dto.InvoiceItemDto;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.service.InvoiceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that a burst of slow exports does not hold up plain reads, with virtual-thread request
+ * handling on a real server. Invoice loading is mocked; each export waits on a simulated slow query
+ * before rendering a PDF. Exports beyond the PDF bulkhead's queue are turned away with a retry delay.
+ * Run it with {@code mvn -Pload-test test}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.data.mongodb.auto-index-creation=false",
+        "invoice.migration.money.enabled=false",
+        "invoice.migration.version.enabled=false",
+        "invoice.migration.indexes.enabled=false",
+        "invoice.archive.enabled=false",
+        "invoice.cache.change-stream.enabled=false",
+        "invoice.rate-limit.enabled=false",
+        "logging.level.com.niyiment.invoice=INFO",
+        "logging.level.org.springframework.data.mongodb=INFO"
+})
+class ReportExportLoadTest {
+    private static final int CONCURRENT_EXPORTS = 200;
+    private static final long SLOW_QUERY_MILLIS = 2_000;
+    private static final int SAMPLES = 40;
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private InvoiceService invoiceService;
+
+    private HttpClient client;
+    private InvoiceDto invoice;
+
+    @BeforeEach
+    void setUp() {
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        invoice = new InvoiceDto();
+        invoice.setId("1");
+        invoice.setInvoiceNumber("INV-2025-001");
+        invoice.setCustomerName("Load Test Customer");
+        invoice.setCustomerEmail("load@example.com");
+        invoice.setInvoiceDate(LocalDateTime.now());
+        invoice.setDueDate(LocalDateTime.now().plusDays(30));
+        invoice.setStatus(InvoiceStatus.SENT);
+        invoice.setVersion(1L);
+        List<InvoiceItemDto> items = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            InvoiceItemDto item = new InvoiceItemDto();
+            item.setLineNumber(i);
+            item.setDescription("Item " + i);
+            item.setQuantity(1);
+            item.setUnitPrice(new BigDecimal("10.00"));
+            item.setAmount(new BigDecimal("10.00"));
+            items.add(item);
+        }
+        invoice.setItems(items);
+
+        when(invoiceService.getInvoiceByNumber(anyString())).thenReturn(invoice);
+        when(invoiceService.getInvoiceById(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(SLOW_QUERY_MILLIS);
+            return invoice;
+        });
+    }
+
+    @Test
+    void shouldKeepReadLatencyFlatWhileExportsRun() throws Exception {
+        long[] idle = sampleReadLatencies();
+
+        List<CompletableFuture<HttpResponse<byte[]>>> exports = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_EXPORTS; i++) {
+            exports.add(client.sendAsync(request("/api/reports/invoice/" + i + "/export?format=PDF"),
+                    HttpResponse.BodyHandlers.ofByteArray()));
+        }
+        long[] loaded = sampleReadLatencies();
+
+        int completed = 0;
+        int rejected = 0;
+        for (CompletableFuture<HttpResponse<byte[]>> export : exports) {
+            HttpResponse<byte[]> response = export.join();
+            if (response.statusCode() == 429) {
+                rejected++;
+                assertTrue(response.headers().firstValueAsLong("Retry-After").orElse(0) >= 1,
+                        "Rejected export should say when to retry");
+            } else {
+                completed++;
+                assertEquals(200, response.statusCode());
+                assertTrue(response.body().length > 0, "Export should produce a document");
+            }
+        }
+        assertTrue(completed >= 4, "Exports within the bulkhead should complete, got " + completed);
+        assertTrue(rejected > 0, "Exports beyond the bulkhead's queue should be rejected");
+
+        long idleP95 = percentile(idle, 95);
+        long loadedP95 = percentile(loaded, 95);
+        assertTrue(loadedP95 <= Math.max(idleP95 * 5, 250),
+                "p95 read latency rose from " + idleP95 + " ms to " + loadedP95 + " ms while exports ran");
+    }
+
+    private long[] sampleReadLatencies() throws Exception {
+        long[] latencies = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            HttpResponse<Void> response = client.send(request("/api/invoices/number/INV-2025-001"),
+                    HttpResponse.BodyHandlers.discarding());
+            latencies[i] = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            assertEquals(200, response.statusCode());
+        }
+        return latencies;
+    }
+
+    private HttpRequest request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    private static long percentile(long[] values, int percentile) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+}
@@ -8,32 +8,32 @@ class InvoiceItemTest {
 
     @Test
     void shouldCalculateAmountCorrectly() {
-        InvoiceItem item = new InvoiceItem("Test Item", 5, 10.0);
+        InvoiceItem item = new InvoiceItem("Test Item", 5, 1000);
 
-        assertEquals(50.0, item.getAmount(), "Amount should be quantity * unitPrice");
+        assertEquals(5000, item.getAmount(), "Amount should be quantity * unitPrice");
     }
 
     @Test
     void shouldReCalculateAmountWhenQuantityyChanges() {
-        InvoiceItem item = new InvoiceItem("Test Item", 5, 10.0);
+        InvoiceItem item = new InvoiceItem("Test Item", 5, 1000);
         item.setQuantity(10);
 
-        assertEquals(100.0, item.getAmount(), "Amount should be new quantity * unitPrice");
+        assertEquals(10000, item.getAmount(), "Amount should be new quantity * unitPrice");
     }
 
     @Test
     void shouldRecalculateAmountWhenUnitPriceChanges() {
-        InvoiceItem item = new InvoiceItem("Test Item", 5, 10.0);
-        item.setUnitPrice(20.0);
+        InvoiceItem item = new InvoiceItem("Test Item", 5, 1000);
+        item.setUnitPrice(2000);
 
-        assertEquals(100.0, item.getAmount(), "Amount should be new quantity * new unitPrice");
+        assertEquals(10000, item.getAmount(), "Amount should be new quantity * new unitPrice");
     }
 
     @Test
     void shouldEqualTwoItemsWithSameValues() {
-        InvoiceItem item1 = new InvoiceItem("Test Item", 5, 10.0);
-        InvoiceItem item2 = new InvoiceItem("Test Item", 5, 10.0);
-        InvoiceItem item3 = new InvoiceItem("Different Test Item", 5, 10.0);
+        InvoiceItem item1 = new InvoiceItem("Test Item", 5, 1000);
+        InvoiceItem item2 = new InvoiceItem("Test Item", 5, 1000);
+        InvoiceItem item3 = new InvoiceItem("Different Test Item", 5, 1000);
 
         assertEquals(item1, item2, "Two items should be considered equal when all fields match");
         assertNotEquals(item1, item3, "Two items should be considered different when description differs");
@@ -42,11 +42,11 @@ class InvoiceItemTest {
 
     @Test
     void toStringShouldContainRelevantInfo() {
-        InvoiceItem item = new InvoiceItem("Test Item", 5, 10.0);
+        InvoiceItem item = new InvoiceItem("Test Item", 5, 1000);
         String toString = item.toString();
 
-        assertEquals("InvoiceItem{description='Test Item', quantity=5, unitPrice=10.0, amount=50.0}", item.toString(), "toString should return the item description, quantity, unit price, and amount");
-        assertTrue(toString.contains("10.0"), "toString should contain the unit price");
+        assertEquals("InvoiceItem{description='Test Item', quantity=5, unitPrice=1000, amount=5000}", item.toString(), "toString should return the item description, quantity, unit price, and amount");
+        assertTrue(toString.contains("1000"), "toString should contain the unit price");
     }
 
 }
\ No newline at end of file
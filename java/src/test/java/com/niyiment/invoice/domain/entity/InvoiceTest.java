@@ -1,10 +1,13 @@
 package com.niyiment.invoice.domain.entity;
 
 import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.enums.ItemStorage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,8 +21,8 @@ class InvoiceTest {
     @BeforeEach
     void setup() {
         invoice = new Invoice("INV-2025-001");
-        invoiceItem1 = new InvoiceItem("Item 1", 2, 10.0);
-        invoiceItem2 = new InvoiceItem("Item 2", 3, 15.0);
+        invoiceItem1 = new InvoiceItem("Item 1", 2, 1000);
+        invoiceItem2 = new InvoiceItem("Item 2", 3, 1500);
     }
 
     @Test
@@ -35,9 +38,9 @@ class InvoiceTest {
     void shouldcalculateSubtotalCorrectly() {
         invoice.addItem(invoiceItem1);
         invoice.addItem(invoiceItem2);
-        double subTotal = invoice.getSubtotal();
-        assertEquals(65.0, subTotal, "Subtotal should be calculated correctly");
-        assertEquals(65.0, invoice.getSubtotal(), "Subtotal should be updated");
+        long subTotal = invoice.getSubtotal();
+        assertEquals(6500, subTotal, "Subtotal should be calculated correctly");
+        assertEquals(6500, invoice.getSubtotal(), "Subtotal should be updated");
     }
 
     @Test
@@ -45,10 +48,10 @@ class InvoiceTest {
         invoice.addItem(invoiceItem1);
         invoice.addItem(invoiceItem2);
         invoice.setTaxRate(10.0);
-        double taxAmount = invoice.calculateTaxAmount();
+        long taxAmount = invoice.calculateTaxAmount();
 
-        assertEquals(6.5, taxAmount, "Tax amount should be calculated correctly");
-        assertEquals(6.5, invoice.getTaxAmount(), "Tax amount should be updated");
+        assertEquals(650, taxAmount, "Tax amount should be calculated correctly");
+        assertEquals(650, invoice.getTaxAmount(), "Tax amount should be updated");
     }
 
     @Test
@@ -58,10 +61,10 @@ class InvoiceTest {
         invoice.setTaxRate(10.0);
         invoice.calculateSubtotal();
         invoice.calculateTaxAmount();
-        double total = invoice.calculateTotal();
+        long total = invoice.calculateTotal();
 
-        assertEquals(71.5, total, "Total should be subtotal + tax amount");
-        assertEquals(71.5, invoice.getTotalAmount(), "Total amount should be updated");
+        assertEquals(7150, total, "Total should be subtotal + tax amount");
+        assertEquals(7150, invoice.getTotalAmount(), "Total amount should be updated");
     }
 
     @Test
@@ -71,16 +74,16 @@ class InvoiceTest {
         invoice.setTaxRate(10.0);
         invoice.reCalculateAmount();
 
-        assertEquals(65.0, invoice.getSubtotal(), "Subtotal should be calculated");
-        assertEquals(6.5, invoice.getTaxAmount(), "Tax amount should be calculated");
-        assertEquals(71.5, invoice.getTotalAmount(), "Total amount should be calculated");
+        assertEquals(6500, invoice.getSubtotal(), "Subtotal should be calculated");
+        assertEquals(650, invoice.getTaxAmount(), "Tax amount should be calculated");
+        assertEquals(7150, invoice.getTotalAmount(), "Total amount should be calculated");
     }
 
     @Test
     void shouldAddItemAndRecalculate() {
         invoice.addItem(invoiceItem1);
         assertEquals(1, invoice.getItems().size(), "Item should be added");
-        assertEquals(20.0, invoice.getSubtotal(), "Subtotal should be recalculated");
+        assertEquals(2000, invoice.getSubtotal(), "Subtotal should be recalculated");
         assertTrue(invoice.getItems().contains(invoiceItem1), "Items list should contain added item");
     }
 
@@ -92,7 +95,7 @@ class InvoiceTest {
         invoice.reCalculateAmount();
 
         assertEquals(1, invoice.getItems().size(), "Item should be removed");
-        assertEquals(45.0, invoice.getSubtotal(), "Subtotal should be recalculated");
+        assertEquals(4500, invoice.getSubtotal(), "Subtotal should be recalculated");
         assertFalse(invoice.getItems().contains(invoiceItem1), "Items list should not contain removed item");
         assertTrue(invoice.getItems().contains(invoiceItem2), "Items list should contain remaining item");
     }
@@ -103,7 +106,7 @@ class InvoiceTest {
         invoice.reCalculateAmount();
 
         assertEquals(2, invoice.getItems().size(), "Items should be set");
-        assertEquals(65.0, invoice.getSubtotal(), "Subtotal should be recalculated");
+        assertEquals(6500, invoice.getSubtotal(), "Subtotal should be recalculated");
     }
 
     @Test
@@ -111,13 +114,13 @@ class InvoiceTest {
         invoice.addItem(invoiceItem1);
         invoice.addItem(invoiceItem2);
         invoice.setTaxRate(10.0);
-        double taxAmount = invoice.calculateTaxAmount();
+        long taxAmount = invoice.calculateTaxAmount();
         invoice.setTaxAmount(taxAmount);
         invoice.reCalculateAmount();
 
-        assertEquals(65.0, invoice.getSubtotal(), "Subtotal should not change");
-        assertEquals(6.5, invoice.getTaxAmount(), "Tax amount should be recalculated");
-        assertEquals(71.5, invoice.getTotalAmount(), "Total amount should be recalculated");
+        assertEquals(6500, invoice.getSubtotal(), "Subtotal should not change");
+        assertEquals(650, invoice.getTaxAmount(), "Tax amount should be recalculated");
+        assertEquals(7150, invoice.getTotalAmount(), "Total amount should be recalculated");
     }
 
     @Test
@@ -148,6 +151,96 @@ class InvoiceTest {
         assertTrue(toString.contains("INV-2025-001"), "toString should contain the invoice number");
         assertTrue(toString.contains("Test Client"), "toString should contain the client name");
         assertTrue(toString.contains("DRAFT"), "toString should contain the status");
-        assertTrue(toString.contains("22.0"), "toString should contain the total amount");
+        assertTrue(toString.contains("2200"), "toString should contain the total amount");
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldNumberItemsInInsertionOrder() {
+        invoice.addItem(invoiceItem1);
+        invoice.addItem(invoiceItem2);
+
+        assertEquals(1, invoiceItem1.getLineNumber(), "First item should be line 1");
+        assertEquals(2, invoiceItem2.getLineNumber(), "Second item should be line 2");
+    }
+
+    @Test
+    void shouldKeepRunningTotalsConsistentWithFullRecalculation() {
+        invoice.setTaxRate(7.5);
+        for (int i = 1; i <= 200; i++) {
+            invoice.addItem(new InvoiceItem("Item " + i, i % 7 + 1, 1234L * i));
+        }
+        for (long lineNumber = 2; lineNumber <= 200; lineNumber += 3) {
+            invoice.removeItem(lineNumber);
+        }
+        invoice.updateItem(1, 3, 999);
+
+        assertTrue(invoice.verifyTotals(), "Running totals should match a full recalculation");
+        long subtotal = invoice.getSubtotal();
+        invoice.reCalculateAmount();
+        assertEquals(subtotal, invoice.getSubtotal(), "Full recalculation should not change the subtotal");
+    }
+
+    @Test
+    void shouldRemoveItemByLineNumber() {
+        invoice.addItem(invoiceItem1);
+        invoice.addItem(invoiceItem2);
+
+        InvoiceItem removed = invoice.removeItem(2L);
+
+        assertSame(invoiceItem2, removed, "Removed item should be returned");
+        assertEquals(2000, invoice.getSubtotal(), "Subtotal should be reduced by the removed amount");
+        assertNull(invoice.removeItem(5L), "Unknown line numbers should be ignored");
+    }
+
+    @Test
+    void shouldUpdateItemAndAdjustTotals() {
+        invoice.addItem(invoiceItem1);
+        invoice.setTaxRate(10.0);
+
+        invoice.updateItem(1, 4, 1000);
+
+        assertEquals(4000, invoice.getSubtotal(), "Subtotal should reflect the updated line");
+        assertEquals(400, invoice.getTaxAmount(), "Tax should follow the subtotal");
+        assertEquals(4400, invoice.getTotalAmount(), "Total should follow the subtotal");
+    }
+
+    @Test
+    void shouldRemoveItemsLoadedWithoutLineNumbers() {
+        List<InvoiceItem> legacyItems = new ArrayList<>(List.of(invoiceItem1, invoiceItem2));
+        Invoice legacy = new Invoice();
+        legacy.getItems().addAll(legacyItems);
+        legacy.reCalculateAmount();
+
+        legacy.removeItem(2L);
+
+        assertEquals(1, legacy.getItems().size(), "Legacy items should be numbered on first access");
+        assertEquals(2000, legacy.getSubtotal(), "Subtotal should be reduced by the removed amount");
+    }
+
+    @Test
+    void shouldDetectTotalsOutOfSyncWithItems() {
+        invoice.addItem(invoiceItem1);
+        invoiceItem1.setQuantity(10);
+
+        assertFalse(invoice.verifyTotals(), "Direct item mutation should be detected");
+        invoice.reCalculateAmount();
+        assertTrue(invoice.verifyTotals(), "Full recalculation should restore consistency");
+    }
+
+    @Test
+    void shouldKeepHeaderTotalsWhenItemsAreDetached() {
+        invoice.setItems(List.of(invoiceItem1, invoiceItem2));
+        invoice.setTaxRate(10.0);
+
+        List<InvoiceItem> detached = invoice.detachItems();
+        invoice.reCalculateAmount();
+        invoice.setTaxRate(20.0);
+
+        assertEquals(2, detached.size(), "Detached items should be returned");
+        assertEquals(ItemStorage.EXTERNAL, invoice.getItemStorage(), "Storage should switch to external");
+        assertEquals(2, invoice.getItemCount(), "Item count should be kept on the header");
+        assertEquals(6500, invoice.getSubtotal(), "Subtotal should be kept on the header");
+        assertEquals(7800, invoice.getTotalAmount(), "Total should follow the new tax rate");
+        assertTrue(invoice.verifyTotals(), "Header totals should be consistent");
+    }
+}
@@ -0,0 +1,145 @@
+package com.niyiment.invoice.domain.mapper;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.JsonNodeFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.niyiment.invoice.domain.dto.InvoiceJson;
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.entity.InvoiceItem;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InvoiceJsonWriterTest {
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .build();
+    private final ObjectMapper canonicalMapper = JsonMapper.builder()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+            .enable(JsonNodeFeature.WRITE_PROPERTIES_SORTED)
+            .build();
+    private final InvoiceMapper invoiceMapper = new InvoiceMapper();
+
+    private MappingMongoConverter converter;
+    private Invoice invoice;
+
+    @BeforeEach
+    void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        invoice = new Invoice("INV-2025-001");
+        invoice.setId(new ObjectId().toHexString());
+        invoice.setCustomerName("Test Customer");
+        invoice.setCustomerEmail("customer@example.com");
+        invoice.setInvoiceDate(LocalDateTime.of(2025, 3, 1, 9, 30, 0, 123_000_000));
+        invoice.setDueDate(LocalDateTime.of(2025, 3, 31, 0, 0));
+        invoice.setTaxRate(7.5);
+        for (int i = 1; i <= 100; i++) {
+            invoice.addItem(new InvoiceItem("Item " + i, i % 5 + 1, 95L * i));
+        }
+        invoice.setStatus(InvoiceStatus.SENT);
+        invoice.setVersion(3L);
+    }
+
+    @Test
+    void shouldWriteSameJsonAsMappedDto() throws Exception {
+        assertEquals(expectedJson(invoice), writtenJson(invoice));
+    }
+
+    @Test
+    void shouldWriteAmountsWithCurrencyScale() throws Exception {
+        invoice.setCurrency("JPY");
+        invoice.reCalculateAmount();
+        invoice.setNotes("Paid by transfer");
+
+        assertEquals(expectedJson(invoice), writtenJson(invoice));
+    }
+
+    @Test
+    void shouldWriteDecimalAmountsToBinaryFormats() throws Exception {
+        ObjectMapper cborMapper = CBORMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .build();
+        Document stored = stored(invoice);
+
+        byte[] expected = cborMapper.writeValueAsBytes(invoiceMapper.toDto(converter.read(Invoice.class, stored)));
+        byte[] written = cborMapper.writeValueAsBytes(new InvoiceJson(raw(stored)));
+
+        assertEquals(canonical(cborMapper.readTree(expected).toString()), canonical(cborMapper.readTree(written).toString()));
+    }
+
+    @Test
+    void shouldApplyEntityDefaultsToSparseDocuments() throws Exception {
+        Document document = new Document("_id", "legacy-1").append("invoiceNumber", "INV-LEGACY");
+        Invoice loaded = converter.read(Invoice.class, document);
+
+        assertEquals(canonical(objectMapper.writeValueAsString(invoiceMapper.toDto(loaded))),
+                canonical(objectMapper.writeValueAsString(new InvoiceJson(raw(document)))));
+    }
+
+    @Test
+    void shouldFormatAmountsLikeBigDecimal() {
+        char[] buffer = new char[24];
+        long[] amounts = {0L, 5L, -5L, 99L, 100L, -12_345L, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (int scale = 0; scale <= 3; scale++) {
+            for (long amount : amounts) {
+                int length = InvoiceJsonWriter.formatAmount(amount, scale, buffer);
+                assertEquals(BigDecimal.valueOf(amount, scale).toString(),
+                        new String(buffer, buffer.length - length, length));
+            }
+        }
+    }
+
+    private String expectedJson(Invoice invoice) throws Exception {
+        // Go through the stored form so the dates carry the millisecond precision MongoDB keeps
+        Invoice loaded = converter.read(Invoice.class, stored(invoice));
+        return canonical(objectMapper.writeValueAsString(invoiceMapper.toDto(loaded)));
+    }
+
+    private String writtenJson(Invoice invoice) throws Exception {
+        return canonical(objectMapper.writeValueAsString(new InvoiceJson(raw(stored(invoice)))));
+    }
+
+    private Document stored(Invoice invoice) {
+        Document document = new Document();
+        converter.write(invoice, document);
+        return document;
+    }
+
+    private static RawBsonDocument raw(Document document) {
+        return new RawBsonDocument(document, new DocumentCodec());
+    }
+
+    private String canonical(String json) throws Exception {
+        return canonicalMapper.writeValueAsString(canonicalMapper.readTree(json));
+    }
+}
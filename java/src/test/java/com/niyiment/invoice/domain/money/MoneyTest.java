@@ -0,0 +1,66 @@
+package com.niyiment.invoice.domain.money;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency JPY = Currency.getInstance("JPY");
+
+    @Test
+    void shouldConvertBetweenDecimalAndMinorUnits() {
+        assertEquals(1999, Money.toMinorUnits(new BigDecimal("19.99"), USD));
+        assertEquals(new BigDecimal("19.99"), Money.toDecimal(1999, USD));
+        assertEquals(1999, Money.toMinorUnits(new BigDecimal("1999"), JPY), "JPY has no minor units");
+        assertEquals(0, Money.toMinorUnits(null, USD), "Null amount should be treated as zero");
+    }
+
+    @Test
+    void shouldRoundHalfEvenWhenConvertingToMinorUnits() {
+        assertEquals(1000, Money.toMinorUnits(new BigDecimal("10.005"), USD));
+        assertEquals(1002, Money.toMinorUnits(new BigDecimal("10.015"), USD));
+    }
+
+    @Test
+    void shouldApplyPercentageWithHalfEvenRounding() {
+        assertEquals(650, Money.percentage(6500, 10.0));
+        assertEquals(488, Money.percentage(6500, 7.5), "487.5 should round to the even neighbour");
+        assertEquals(2, Money.percentage(25, 10.0), "2.5 should round down to 2");
+        assertEquals(4, Money.percentage(35, 10.0), "3.5 should round up to 4");
+        assertEquals(-4, Money.percentage(-35, 10.0));
+        assertEquals(0, Money.percentage(6500, 0.0));
+    }
+
+    @Test
+    void shouldScaleRatesWithHalfEvenRounding() {
+        assertEquals(75_000, Money.scaledRate(7.5));
+        assertEquals(71_234, Money.scaledRate(7.12345), "71234.5 should round down to the even neighbour");
+        assertEquals(71_236, Money.scaledRate(7.12355), "71235.5 should round up to the even neighbour");
+        assertEquals(-71_234, Money.scaledRate(-7.12345));
+    }
+
+    @Test
+    void shouldFallBackToExactArithmeticWhenProductOverflows() {
+        long large = Long.MAX_VALUE / 10;
+        BigDecimal expected = BigDecimal.valueOf(large).multiply(new BigDecimal("0.5"));
+
+        assertEquals(expected.setScale(0, java.math.RoundingMode.HALF_EVEN).longValueExact(),
+                Money.percentage(large, 50.0));
+    }
+
+    @Test
+    void shouldFailOnOverflowInsteadOfWrapping() {
+        assertThrows(ArithmeticException.class, () -> Money.multiply(Long.MAX_VALUE, 2));
+    }
+
+    @Test
+    void shouldResolveCurrencyCodes() {
+        assertEquals(Money.DEFAULT_CURRENCY, Money.currencyOf(null));
+        assertEquals(Currency.getInstance("EUR"), Money.currencyOf("eur"));
+        assertThrows(IllegalArgumentException.class, () -> Money.currencyOf("XYZ1"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.niyiment.invoice.domain.repository;
+
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.client.MongoDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DeadlineMongoTemplateTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DeadlineExceptionTranslator exceptionTranslator = new DeadlineExceptionTranslator(meterRegistry);
+    private MongoDatabase database;
+    private MongoDatabase boundedDatabase;
+    private DeadlineMongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = mock(MongoDatabase.class);
+        boundedDatabase = mock(MongoDatabase.class);
+        when(database.withTimeout(anyLong(), eq(TimeUnit.MILLISECONDS))).thenReturn(boundedDatabase);
+
+        MongoDatabaseFactory databaseFactory = mock(MongoDatabaseFactory.class);
+        when(databaseFactory.getExceptionTranslator()).thenReturn(exceptionTranslator);
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.afterPropertiesSet();
+        mongoTemplate = new DeadlineMongoTemplate(databaseFactory,
+                new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+    }
+
+    @Test
+    void shouldLeaveOperationsUnboundedWithoutDeadline() {
+        assertSame(database, mongoTemplate.prepareDatabase(database));
+        verify(database, never()).withTimeout(anyLong(), any());
+    }
+
+    @Test
+    void shouldBoundOperationsByRemainingTime() {
+        try (QueryDeadline.Scope deadline = QueryDeadline.start(Duration.ofSeconds(5))) {
+            assertSame(boundedDatabase, mongoTemplate.prepareDatabase(database));
+        }
+        verify(database).withTimeout(longThat(millis -> millis > 4_000 && millis <= 5_000), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void shouldKeepEarlierDeadlineOfOuterScope() {
+        try (QueryDeadline.Scope outer = QueryDeadline.start(Duration.ofSeconds(1));
+             QueryDeadline.Scope inner = QueryDeadline.start(Duration.ofMinutes(1))) {
+            mongoTemplate.prepareDatabase(database);
+        }
+        verify(database).withTimeout(longThat(millis -> millis <= 1_000), eq(TimeUnit.MILLISECONDS));
+        assertFalse(QueryDeadline.isSet(), "Closing the scopes should clear the deadline");
+    }
+
+    @Test
+    void shouldFailFastOncePastDeadline() {
+        try (QueryDeadline.Scope deadline = QueryDeadline.start(Duration.ofMillis(-1))) {
+            assertThrows(QueryTimeoutException.class, () -> mongoTemplate.prepareDatabase(database));
+        }
+        assertEquals(1, meterRegistry.get("invoice.queries.timed-out").counter().count());
+    }
+
+    @Test
+    void shouldTranslateServerTimeouts() {
+        assertInstanceOf(QueryTimeoutException.class, exceptionTranslator.translateExceptionIfPossible(
+                new MongoExecutionTimeoutException(50, "operation exceeded time limit")));
+    }
+}
@@ -0,0 +1,111 @@
+package com.niyiment.invoice.domain.repository;
+
+import com.niyiment.invoice.config.PartitionProperties;
+import com.niyiment.invoice.domain.entity.Invoice;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InvoicePartitionsTest {
+    private static final List<String> PARTITIONS = List.of("invoice_2024", "invoice_2025");
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private InvoicePartitions partitions;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.getCollectionName(Invoice.class)).thenReturn("invoice");
+    }
+
+    @AfterEach
+    void tearDown() {
+        partitions.destroy();
+    }
+
+    @Test
+    void shouldRouteEverythingToInvoiceCollectionWhenDisabled() {
+        partitions = new InvoicePartitions(mongoTemplate, new PartitionProperties());
+
+        assertEquals("invoice", partitions.locate("65f1c0ffee0000000000abcd"));
+        assertEquals("invoice", partitions.locateByNumber("INV-001"));
+        assertEquals("invoice", partitions.partitionFor(2024));
+        assertEquals(List.of("invoice"), partitions.overlapping(LocalDateTime.of(2024, 1, 1, 0, 0), null));
+        verify(mongoTemplate, never()).getCollection(anyString());
+    }
+
+    @Test
+    void shouldMergePageOfSeveralPartitionsInSortOrder() {
+        PartitionProperties properties = new PartitionProperties();
+        properties.setEnabled(true);
+        partitions = new InvoicePartitions(mongoTemplate, properties);
+        Map<String, List<Invoice>> stored = Map.of(
+                "invoice_2024", List.of(invoice(100), invoice(300), invoice(500)),
+                "invoice_2025", List.of(invoice(200), invoice(400)));
+        when(mongoTemplate.count(any(Query.class), eq(Invoice.class), eq("invoice_2024"))).thenReturn(3L);
+        when(mongoTemplate.count(any(Query.class), eq(Invoice.class), eq("invoice_2025"))).thenReturn(2L);
+        Map<String, Query> queries = new ConcurrentHashMap<>();
+
+        Page<Invoice> page = partitions.findPage(PARTITIONS, new Query(),
+                PageRequest.of(1, 2, Sort.by("totalAmount")),
+                (query, partition) -> {
+                    queries.put(partition, query);
+                    return stored.get(partition).stream().limit(query.getLimit()).toList();
+                },
+                PartitionOrder::ofEntities, Invoice::getId);
+
+        assertEquals(List.of(300L, 400L), page.getContent().stream().map(Invoice::getTotalAmount).toList());
+        assertEquals(5, page.getTotalElements());
+        assertEquals(4, queries.get("invoice_2024").getLimit());
+        assertEquals(0, queries.get("invoice_2025").getSkip());
+    }
+
+    @Test
+    void shouldKeepOneCopyOfInvoiceBeingMoved() {
+        PartitionProperties properties = new PartitionProperties();
+        properties.setEnabled(true);
+        partitions = new InvoicePartitions(mongoTemplate, properties);
+        Map<String, List<Invoice>> stored = Map.of(
+                "invoice_2024", List.of(invoice(100), invoice(200)),
+                "invoice_2025", List.of(invoice(200), invoice(300)));
+        when(mongoTemplate.count(any(Query.class), eq(Invoice.class), anyString())).thenReturn(2L);
+
+        Page<Invoice> page = partitions.findPage(PARTITIONS, new Query(),
+                PageRequest.of(0, 3, Sort.by("totalAmount")),
+                (query, partition) -> stored.get(partition).stream().limit(query.getLimit()).toList(),
+                PartitionOrder::ofEntities, Invoice::getId);
+
+        assertEquals(List.of(100L, 200L, 300L), page.getContent().stream().map(Invoice::getTotalAmount).toList());
+        assertEquals(3, page.getTotalElements());
+    }
+
+    private static Invoice invoice(long totalAmount) {
+        Invoice invoice = new Invoice("INV-" + totalAmount);
+        invoice.setId("id-" + totalAmount);
+        invoice.setTotalAmount(totalAmount);
+        return invoice;
+    }
+}
@@ -0,0 +1,74 @@
+package com.niyiment.invoice.domain.repository;
+
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.migration.InvoiceIndexes;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvoiceRepositoryCustomImplTest {
+
+    @Test
+    void shouldLeaveItemsUntouchedForTaxRateChange() {
+        List<Document> stages = InvoiceRepositoryCustomImpl.recalculationStages(new InvoiceRecalculation(12.5, null));
+
+        assertEquals(3, stages.size(), "Subtotal, tax and total stages expected");
+        Document taxStage = stages.get(1).get("$set", Document.class);
+        assertEquals(12.5, taxStage.get("taxRate"));
+        assertFalse(stages.get(0).get("$set", Document.class).containsKey("items"));
+    }
+
+    @Test
+    void shouldAdjustUnitPricesBeforeSubtotal() {
+        List<Document> stages = InvoiceRepositoryCustomImpl.recalculationStages(new InvoiceRecalculation(null, -10.0));
+
+        assertEquals(4, stages.size());
+        assertTrue(stages.get(0).get("$set", Document.class).containsKey("items"));
+        assertTrue(stages.get(0).toJson().contains("900000"), "90% should be applied as a scaled rate");
+    }
+
+    @Test
+    void shouldBuildCriteriaFromPresentFiltersOnly() {
+        Document filter = new InvoiceSearchCriteria("acme", null, InvoiceStatus.SENT, null, null, "USD", 1000L, null,
+                null).toCriteria().getCriteriaObject();
+
+        List<?> conditions = filter.getList("$and", Object.class);
+        assertEquals(4, conditions.size());
+    }
+
+    @Test
+    void shouldFilterOverdueInvoicesLikeOpenInvoiceIndex() {
+        Document filter = new InvoiceSearchCriteria(null, null, null, null, null, null, null, null, LocalDateTime.now())
+                .toCriteria().getCriteriaObject();
+        Document openInvoiceIndexFilter = InvoiceIndexes.INDEXES.stream()
+                .filter(index -> index.name().equals("open_dueDate"))
+                .findFirst().orElseThrow()
+                .partialFilter();
+
+        Document statusCondition = filter.getList("$and", Document.class).get(1);
+        assertEquals(List.of(InvoiceStatus.DRAFT, InvoiceStatus.SENT, InvoiceStatus.OVERDUE),
+                statusCondition.get("status", Document.class).get("$in"));
+        assertEquals(List.of("DRAFT", "SENT", "OVERDUE"),
+                openInvoiceIndexFilter.get("status", Document.class).get("$in"));
+    }
+
+    @Test
+    void shouldMatchArchiveOnlyForSettledInvoicesWithinArchivedRange() {
+        LocalDateTime archivedUntil = LocalDateTime.of(2023, 6, 30, 0, 0);
+        InvoiceSearchCriteria paidIn2023 = new InvoiceSearchCriteria(null, null, InvoiceStatus.PAID,
+                LocalDateTime.of(2023, 1, 1, 0, 0), LocalDateTime.of(2023, 12, 31, 0, 0), null, null, null, null);
+        InvoiceSearchCriteria paidIn2024 = new InvoiceSearchCriteria(null, null, InvoiceStatus.PAID,
+                LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 12, 31, 0, 0), null, null, null, null);
+        InvoiceSearchCriteria sent = new InvoiceSearchCriteria(null, null, InvoiceStatus.SENT, null, null, null,
+                null, null, null);
+
+        assertTrue(paidIn2023.mayMatchArchive(archivedUntil));
+        assertFalse(paidIn2024.mayMatchArchive(archivedUntil));
+        assertFalse(sent.mayMatchArchive(archivedUntil));
+        assertFalse(paidIn2023.mayMatchArchive(null), "An empty archive never matches");
+    }
+}
@@ -0,0 +1,48 @@
+package com.niyiment.invoice.domain.repository;
+
+import com.niyiment.invoice.domain.entity.Invoice;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PartitionOrderTest {
+
+    @Test
+    void shouldOrderDocumentsLikeMongoDb() {
+        List<BsonDocument> documents = new ArrayList<>(List.of(
+                BsonDocument.parse("{'_id': 1, 'totalAmount': {'$numberLong': '2500'}}"),
+                BsonDocument.parse("{'_id': 2}"),
+                BsonDocument.parse("{'_id': 3, 'totalAmount': 1000.5}"),
+                BsonDocument.parse("{'_id': 4, 'totalAmount': 2500}")));
+
+        documents.sort(PartitionOrder.ofDocuments(new Document("totalAmount", 1).append("_id", -1)));
+
+        assertEquals(List.of(2, 3, 4, 1),
+                documents.stream().map(document -> document.getInt32("_id").getValue()).toList());
+    }
+
+    @Test
+    void shouldOrderEntitiesBySortProperties() {
+        Invoice early = invoice("INV-1", LocalDateTime.of(2024, 1, 1, 0, 0));
+        Invoice late = invoice("INV-2", LocalDateTime.of(2025, 1, 1, 0, 0));
+        Invoice undated = invoice("INV-3", null);
+        List<Invoice> invoices = new ArrayList<>(List.of(early, undated, late));
+
+        invoices.sort(PartitionOrder.ofEntities(Sort.by(Sort.Direction.DESC, "dueDate")));
+
+        assertEquals(List.of(late, early, undated), invoices);
+    }
+
+    private static Invoice invoice(String number, LocalDateTime dueDate) {
+        Invoice invoice = new Invoice(number);
+        invoice.setDueDate(dueDate);
+        return invoice;
+    }
+}
@@ -0,0 +1,179 @@
+package com.niyiment.invoice.domain.repository;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.niyiment.invoice.config.SlowQueryProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowQueryProfilerTest {
+    private static final String FIND_BY_EMAIL = """
+            {"find": "invoices", "filter": {"customerEmail": "jane@example.com"}, "sort": {"dueDate": 1},
+             "limit": 20, "$db": "invoice_db", "lsid": {"id": 1}, "$readPreference": {"mode": "primary"}}""";
+    private static final String COLLSCAN_WITH_SORT = """
+            {"queryPlanner": {
+               "winningPlan": {"stage": "SORT", "inputStage": {"stage": "COLLSCAN"}},
+               "rejectedPlans": [{"stage": "FETCH", "inputStage": {"stage": "IXSCAN", "indexName": "status"}}]},
+             "command": {"find": "invoices", "sort": {"dueDate": 1}}}""";
+    private static final String INDEX_SCAN = """
+            {"queryPlanner": {
+               "winningPlan": {"stage": "LIMIT", "inputStage": {"stage": "FETCH",
+                 "inputStage": {"stage": "IXSCAN", "indexName": "customerEmail_1_dueDate_1"}}},
+               "rejectedPlans": []}}""";
+
+    private final SlowQueryProperties properties = new SlowQueryProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConnectionDescription connection =
+            new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress("localhost", 27017)));
+    private final AtomicReference<BsonDocument> explained = new AtomicReference<>();
+    private ExecutorService executor;
+    private BsonDocument plan;
+    private SlowQueryProfiler profiler;
+
+    @BeforeEach
+    void setUp() {
+        properties.setThreshold(Duration.ofMillis(100));
+        properties.setExplainSampleRate(1.0);
+        executor = Executors.newSingleThreadExecutor();
+        plan = BsonDocument.parse(INDEX_SCAN);
+        profiler = new SlowQueryProfiler(properties, (database, command) -> {
+            explained.set(command);
+            return plan;
+        }, executor, meterRegistry);
+    }
+
+    @Test
+    void shouldIgnoreQueriesUnderThreshold() throws Exception {
+        run(1, FIND_BY_EMAIL, Duration.ofMillis(99));
+
+        assertTrue(slowQueries().isEmpty());
+        assertNull(explained.get());
+    }
+
+    @Test
+    void shouldRecordSlowQueryWithIndexesOfItsPlan() throws Exception {
+        run(1, FIND_BY_EMAIL, Duration.ofMillis(250));
+
+        SlowQuery slowQuery = slowQueries().get(0);
+        assertEquals("invoices", slowQuery.collection());
+        assertEquals("find", slowQuery.command());
+        assertEquals(250, slowQuery.durationMillis());
+        assertTrue(slowQuery.explained());
+        assertEquals(List.of("LIMIT", "FETCH", "IXSCAN"), slowQuery.planStages());
+        assertEquals(List.of("customerEmail_1_dueDate_1"), slowQuery.indexes());
+        assertFalse(slowQuery.collectionScan());
+        assertFalse(slowQuery.inMemorySort());
+        assertEquals(1, meterRegistry.get("invoice.queries.slow").tag("collection", "invoices").counter().count());
+    }
+
+    @Test
+    void shouldFlagCollectionScansAndInMemorySorts() throws Exception {
+        plan = BsonDocument.parse(COLLSCAN_WITH_SORT);
+
+        run(1, FIND_BY_EMAIL, Duration.ofSeconds(2));
+
+        SlowQuery slowQuery = slowQueries().get(0);
+        assertEquals(List.of("SORT", "COLLSCAN"), slowQuery.planStages(), "Rejected plans should be ignored");
+        assertTrue(slowQuery.collectionScan());
+        assertTrue(slowQuery.inMemorySort());
+    }
+
+    @Test
+    void shouldFlagBlockingSortStageOfAggregation() {
+        BsonDocument aggregation = BsonDocument.parse("""
+                {"stages": [
+                   {"$cursor": {"queryPlanner": {"winningPlan": {"stage": "IXSCAN", "indexName": "status"}}}},
+                   {"$sort": {"sortKey": {"totalAmount": -1}}}]}""");
+        List<String> stages = new ArrayList<>();
+
+        SlowQueryProfiler.collectPlan(aggregation, stages, new ArrayList<>());
+
+        assertEquals(List.of("IXSCAN", "SORT"), stages);
+    }
+
+    @Test
+    void shouldRedactValuesAndExplainCommandWithoutSessionFields() throws Exception {
+        run(1, FIND_BY_EMAIL, Duration.ofMillis(150));
+
+        SlowQuery slowQuery = slowQueries().get(0);
+        assertFalse(slowQuery.shape().contains("jane@example.com"), "Filter values should not be kept");
+        assertTrue(slowQuery.shape().contains("\"customerEmail\": \"?\""));
+        assertTrue(slowQuery.shape().contains("\"dueDate\": 1"), "Sort should be kept");
+        assertEquals(BsonDocument.parse("""
+                {"find": "invoices", "filter": {"customerEmail": "jane@example.com"}, "sort": {"dueDate": 1},
+                 "limit": 20}"""), explained.get());
+    }
+
+    @Test
+    void shouldKeepOnlyNameAndCollectionOfCommandsAboveSizeCap() throws Exception {
+        properties.setMaxCommandSize(DataSize.ofBytes(64));
+
+        run(1, FIND_BY_EMAIL, Duration.ofMillis(150));
+
+        SlowQuery slowQuery = slowQueries().get(0);
+        assertEquals("invoices", slowQuery.collection());
+        assertNull(slowQuery.shape());
+        assertFalse(slowQuery.explained());
+        assertNull(explained.get(), "A command that was not kept cannot be explained");
+    }
+
+    @Test
+    void shouldKeepFirstStatementOfBulkWrite() {
+        BsonDocument update = BsonDocument.parse("""
+                {"update": "invoice_items", "ordered": false, "lsid": {"id": 1}, "updates": [
+                   {"q": {"invoiceId": "1", "lineNumber": 1}, "u": {"$set": {"amount": 100}}, "upsert": true},
+                   {"q": {"invoiceId": "1", "lineNumber": 2}, "u": {"$set": {"amount": 200}}, "upsert": true}]}""");
+
+        assertEquals(BsonDocument.parse("""
+                {"update": "invoice_items", "ordered": false, "updates": [
+                   {"q": {"invoiceId": "1", "lineNumber": 1}, "u": {"$set": {"amount": 100}}, "upsert": true}]}"""),
+                SlowQueryProfiler.retained(update));
+    }
+
+    @Test
+    void shouldKeepOnlyMostRecentSlowQueries() throws Exception {
+        properties.setCapacity(2);
+        properties.setExplainSampleRate(0);
+
+        for (int requestId = 1; requestId <= 3; requestId++) {
+            run(requestId, FIND_BY_EMAIL, Duration.ofMillis(100 + requestId));
+        }
+
+        List<SlowQuery> slowQueries = slowQueries();
+        assertEquals(List.of(103L, 102L), slowQueries.stream().map(SlowQuery::durationMillis).toList());
+        assertFalse(slowQueries.get(0).explained());
+        assertNull(explained.get(), "Unsampled queries should not be explained");
+    }
+
+    private void run(int requestId, String command, Duration elapsed) {
+        BsonDocument document = BsonDocument.parse(command);
+        profiler.commandStarted(new CommandStartedEvent(null, requestId, requestId, connection, "invoice_db",
+                "find", document));
+        profiler.commandSucceeded(new CommandSucceededEvent(null, requestId, requestId, connection, "invoice_db",
+                "find", new BsonDocument(), elapsed.toNanos()));
+    }
+
+    private List<SlowQuery> slowQueries() throws InterruptedException {
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        return profiler.getSlowQueries();
+    }
+}
@@ -0,0 +1,68 @@
+package com.niyiment.invoice.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latencies of one endpoint during a load test, in nanoseconds.
+ * <p>
+ * {@link #latency()} runs from the time a request was scheduled to start until its response arrived, and is
+ * what the budgets apply to. {@link #serviceTime()} runs from the time it was actually sent. When the two
+ * differ, requests waited for a connection or for the generator itself, which a closed-loop test would have
+ * hidden.
+ */
+final class EndpointLatency {
+    private final String endpoint;
+    private final Histogram latency = new ConcurrentHistogram(3);
+    private final Histogram serviceTime = new ConcurrentHistogram(3);
+    private final LongAdder errors = new LongAdder();
+    private volatile String lastError;
+
+    EndpointLatency(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void recordSuccess(long latencyNanos, long serviceTimeNanos) {
+        latency.recordValue(latencyNanos);
+        serviceTime.recordValue(serviceTimeNanos);
+    }
+
+    /**
+     * Records a request that failed or was answered with an error status. Its latency still counts.
+     */
+    void recordError(long latencyNanos, long serviceTimeNanos, String error) {
+        recordSuccess(latencyNanos, serviceTimeNanos);
+        errors.increment();
+        lastError = error;
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+
+    Histogram latency() {
+        return latency;
+    }
+
+    Histogram serviceTime() {
+        return serviceTime;
+    }
+
+    long requests() {
+        return latency.getTotalCount();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    double errorRate() {
+        return requests() == 0 ? 0 : (double) errors() / requests();
+    }
+
+    String lastError() {
+        return lastError;
+    }
+}
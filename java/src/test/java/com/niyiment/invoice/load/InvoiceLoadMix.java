@@ -0,0 +1,162 @@
+package com.niyiment.invoice.load;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.niyiment.invoice.domain.dto.InvoiceDto;
+import com.niyiment.invoice.domain.dto.InvoiceItemDto;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.load.OpenLoopLoadGenerator.LoadRequest;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Builds the requests of a load test against the invoice and report endpoints, picking each operation by its
+ * weight in the mix.
+ * <p>
+ * Created invoices are remembered, and reads and status updates pick one of them at random. Searches and
+ * exports filter on one of a small set of customers, so their result sizes grow with the number of invoices
+ * created, as they would in production. Status updates move an invoice to {@code SENT}, which is allowed
+ * from both states these invoices can be in, so they never fail on the transition rules.
+ */
+final class InvoiceLoadMix implements Supplier<LoadRequest> {
+    private static final int CUSTOMERS = 20;
+    private static final int MAX_ITEMS = 20;
+
+    private final URI baseUri;
+    private final ObjectMapper objectMapper;
+    private final LoadOperation[] operations;
+    private final int[] cumulativeWeights;
+    private final SplittableRandom random;
+    private final List<String> invoiceIds = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong invoiceNumbers = new AtomicLong();
+    private final long seed;
+
+    InvoiceLoadMix(URI baseUri, ObjectMapper objectMapper, Map<LoadOperation, Integer> weights, long seed) {
+        this.baseUri = baseUri;
+        this.objectMapper = objectMapper;
+        this.operations = weights.keySet().toArray(LoadOperation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += weights.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("The load mix has no operations: " + weights);
+        }
+        this.random = new SplittableRandom(seed);
+        this.seed = seed;
+    }
+
+    /**
+     * The next request, for the generator thread only.
+     */
+    @Override
+    public LoadRequest get() {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int index = 0;
+        while (cumulativeWeights[index] <= draw) {
+            index++;
+        }
+        LoadOperation operation = operations[index];
+        if (invoiceIds.isEmpty() && (operation == LoadOperation.GET || operation == LoadOperation.UPDATE_STATUS)) {
+            operation = LoadOperation.CREATE;
+        }
+        return switch (operation) {
+            case CREATE -> create();
+            case GET -> new LoadRequest(operation.endpoint(), request("/api/invoices/" + anyInvoiceId()).GET());
+            case SEARCH -> new LoadRequest(operation.endpoint(), request("/api/invoices/search?" + searchQuery()).GET());
+            case UPDATE_STATUS -> new LoadRequest(operation.endpoint(),
+                    request("/api/invoices/" + anyInvoiceId() + "/status")
+                            .header("Content-Type", "application/json")
+                            .method("PATCH", HttpRequest.BodyPublishers.ofString(
+                                    "{\"status\":\"" + InvoiceStatus.SENT + "\"}")));
+            case EXPORT -> new LoadRequest(operation.endpoint(), request("/api/reports/invoices/export-by-criteria"
+                    + "?format=CSV&customerName=" + encode(anyCustomer())).GET());
+        };
+    }
+
+    /**
+     * A request creating a new invoice, which is remembered once created.
+     */
+    LoadRequest create() {
+        long number = invoiceNumbers.incrementAndGet();
+        String customer = anyCustomer();
+        InvoiceDto invoice = new InvoiceDto();
+        invoice.setInvoiceNumber("LOAD-" + seed + "-" + number);
+        invoice.setCustomerName(customer);
+        invoice.setCustomerEmail(customer.replace(' ', '.').toLowerCase() + "@example.com");
+        invoice.setCustomerAddress(number + " Load Street");
+        invoice.setInvoiceDate(LocalDateTime.now());
+        invoice.setDueDate(LocalDateTime.now().plusDays(random.nextInt(-30, 60)));
+        invoice.setTaxRate(7.5);
+        int items = random.nextInt(1, MAX_ITEMS + 1);
+        for (int line = 1; line <= items; line++) {
+            InvoiceItemDto item = new InvoiceItemDto();
+            item.setDescription("Load item " + line);
+            item.setQuantity(random.nextInt(1, 10));
+            item.setUnitPrice(BigDecimal.valueOf(random.nextInt(100, 100_000), 2));
+            invoice.getItems().add(item);
+        }
+        try {
+            HttpRequest.Builder request = request("/api/invoices")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(invoice)));
+            return new LoadRequest(LoadOperation.CREATE.endpoint(), request, this::remember);
+        } catch (JsonProcessingException exception) {
+            throw new IllegalStateException("Could not write invoice " + invoice.getInvoiceNumber(), exception);
+        }
+    }
+
+    int invoiceCount() {
+        return invoiceIds.size();
+    }
+
+    private void remember(String createdInvoice) {
+        try {
+            invoiceIds.add(objectMapper.readTree(createdInvoice).get("id").asText());
+        } catch (JsonProcessingException exception) {
+            throw new IllegalStateException("Could not read created invoice", exception);
+        }
+    }
+
+    private String anyInvoiceId() {
+        synchronized (invoiceIds) {
+            return invoiceIds.get(random.nextInt(invoiceIds.size()));
+        }
+    }
+
+    private String anyCustomer() {
+        return "Load Customer " + random.nextInt(CUSTOMERS);
+    }
+
+    private String searchQuery() {
+        String query = "clientName=" + encode(anyCustomer());
+        if (random.nextBoolean()) {
+            LocalDate today = LocalDate.now();
+            query += "&startDate=" + today.minusDays(1).atStartOfDay() + "&endDate=" + today.plusDays(1).atStartOfDay();
+        }
+        return random.nextBoolean() ? query + "&status=" + InvoiceStatus.SENT : query;
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
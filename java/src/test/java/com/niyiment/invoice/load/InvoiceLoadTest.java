@@ -0,0 +1,84 @@
+package com.niyiment.invoice.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.niyiment.invoice.load.OpenLoopLoadGenerator.LoadRequest;
+import com.niyiment.invoice.load.OpenLoopLoadGenerator.LoadResult;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load test of the invoice and report endpoints, on a real server backed by MongoDB in Docker.
+ * <p>
+ * The run creates {@link LoadProfile#invoices()} invoices, warms up, then sends the configured mix at a
+ * fixed rate with an {@link OpenLoopLoadGenerator} and writes the latencies per endpoint to
+ * {@code target/load-test/load-report.{json,html}}. It fails when an endpoint exceeds its p99 budget or
+ * error rate. Run it with {@code mvn -Pload-test test}; see {@link LoadProfile} for the settings.
+ */
+@Tag("load")
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "invoice.rate-limit.enabled=false",
+        "logging.level.com.niyiment.invoice=INFO",
+        "logging.level.org.springframework.data.mongodb=INFO"
+})
+class InvoiceLoadTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldServeMixWithinLatencyBudgets() throws Exception {
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        InvoiceLoadMix mix = new InvoiceLoadMix(URI.create("http://localhost:" + port), objectMapper,
+                profile.mix(), profile.seed());
+
+        for (int i = 0; i < profile.invoices(); i++) {
+            LoadRequest create = mix.create();
+            HttpResponse<String> response = client.send(create.request().build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(201, response.statusCode(), "Could not create invoice: " + response.body());
+            create.onResponse().accept(response.body());
+        }
+
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(client, profile.timeout());
+        generator.run(profile.rate(), profile.warmup(), profile.seed(), mix);
+        LoadResult result = generator.run(profile.rate(), profile.duration(), profile.seed() + 1, mix);
+
+        Map<String, Duration> budgets = new LinkedHashMap<>();
+        profile.budgets().forEach((operation, budget) -> budgets.put(operation.endpoint(), budget));
+        LoadReport report = new LoadReport(String.format("Invoice load test: %.0f requests/s, mix %s",
+                profile.rate(), profile.mix()), result, budgets, profile.maxErrorRate());
+        Path html = report.write(profile.reportDirectory());
+
+        List<String> violations = report.violations();
+        assertTrue(violations.isEmpty(), "Latency budgets exceeded, see " + html.toAbsolutePath() + ":\n"
+                + String.join("\n", violations));
+    }
+}
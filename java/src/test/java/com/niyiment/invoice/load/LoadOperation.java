@@ -0,0 +1,49 @@
+package com.niyiment.invoice.load;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * The operations of the load mix. Each one calls a single endpoint, so its latencies are recorded per endpoint.
+ * The weights and p99 budgets are defaults for {@link LoadProfile}.
+ */
+enum LoadOperation {
+    CREATE("POST /api/invoices", 10, Duration.ofMillis(250)),
+    GET("GET /api/invoices/{id}", 40, Duration.ofMillis(100)),
+    SEARCH("GET /api/invoices/search", 25, Duration.ofMillis(500)),
+    UPDATE_STATUS("PATCH /api/invoices/{id}/status", 15, Duration.ofMillis(250)),
+    EXPORT("GET /api/reports/invoices/export-by-criteria", 10, Duration.ofSeconds(2));
+
+    private final String endpoint;
+    private final int defaultWeight;
+    private final Duration defaultBudget;
+
+    LoadOperation(String endpoint, int defaultWeight, Duration defaultBudget) {
+        this.endpoint = endpoint;
+        this.defaultWeight = defaultWeight;
+        this.defaultBudget = defaultBudget;
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+
+    int defaultWeight() {
+        return defaultWeight;
+    }
+
+    Duration defaultBudget() {
+        return defaultBudget;
+    }
+
+    /**
+     * The name used in the mix and budget properties, such as {@code update-status}.
+     */
+    String key() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    static LoadOperation fromKey(String key) {
+        return valueOf(key.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
@@ -0,0 +1,88 @@
+package com.niyiment.invoice.load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * What a load test run does: the arrival rate, how long to warm up and measure, the mix of operations and the
+ * p99 budget of each one.
+ * <p>
+ * Every setting can be overridden with a {@code load.*} system property, for example
+ * {@code -Dload.rate=200 -Dload.duration=5m -Dload.mix=get=60,search=20,export=20 -Dload.budgets=export=3s}.
+ * Durations are written like Spring Boot properties, such as {@code 250ms} or {@code 2m}. Operations left out
+ * of {@code load.mix} are not run.
+ *
+ * @param rate          requests started per second, over all operations
+ * @param warmup        how long to run before measuring
+ * @param duration      how long to measure
+ * @param mix           the relative weight of each operation
+ * @param budgets       the p99 latency each operation must stay within
+ * @param maxErrorRate  the share of failed requests each operation may have
+ * @param invoices      how many invoices to create before the run
+ * @param seed          seed of the arrivals and request parameters
+ * @param timeout       how long a single request may take
+ * @param reportDirectory where the JSON and HTML reports are written
+ */
+record LoadProfile(double rate, Duration warmup, Duration duration, Map<LoadOperation, Integer> mix,
+                   Map<LoadOperation, Duration> budgets, double maxErrorRate, int invoices, long seed,
+                   Duration timeout, Path reportDirectory) {
+
+    static LoadProfile fromSystemProperties() {
+        return from(System.getProperties());
+    }
+
+    static LoadProfile from(Properties properties) {
+        Map<LoadOperation, Integer> mix = new EnumMap<>(LoadOperation.class);
+        Map<LoadOperation, Duration> budgets = new EnumMap<>(LoadOperation.class);
+        for (LoadOperation operation : LoadOperation.values()) {
+            mix.put(operation, operation.defaultWeight());
+            budgets.put(operation, operation.defaultBudget());
+        }
+        String mixProperty = properties.getProperty("load.mix");
+        if (mixProperty != null) {
+            mix.clear();
+            parse(mixProperty).forEach((operation, weight) -> mix.put(operation, Integer.parseInt(weight)));
+        }
+        parse(properties.getProperty("load.budgets", ""))
+                .forEach((operation, budget) -> budgets.put(operation, DurationStyle.detectAndParse(budget)));
+
+        return new LoadProfile(
+                Double.parseDouble(properties.getProperty("load.rate", "50")),
+                duration(properties, "load.warmup", "10s"),
+                duration(properties, "load.duration", "30s"),
+                mix,
+                budgets,
+                Double.parseDouble(properties.getProperty("load.max-error-rate", "0.01")),
+                Integer.parseInt(properties.getProperty("load.invoices", "500")),
+                Long.parseLong(properties.getProperty("load.seed", "42")),
+                duration(properties, "load.timeout", "30s"),
+                Path.of(properties.getProperty("load.report-directory", "target/load-test")));
+    }
+
+    private static Duration duration(Properties properties, String name, String defaultValue) {
+        return DurationStyle.detectAndParse(properties.getProperty(name, defaultValue));
+    }
+
+    /**
+     * Parses {@code key=value} pairs separated by commas.
+     */
+    private static Map<LoadOperation, String> parse(String pairs) {
+        Map<LoadOperation, String> values = new EnumMap<>(LoadOperation.class);
+        for (String pair : pairs.split(",")) {
+            if (pair.isBlank()) {
+                continue;
+            }
+            String[] keyAndValue = pair.split("=", 2);
+            if (keyAndValue.length != 2) {
+                throw new IllegalArgumentException("Expected operation=value but got " + pair);
+            }
+            values.put(LoadOperation.fromKey(keyAndValue[0]), keyAndValue[1].trim());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,39 @@
+package com.niyiment.invoice.load;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LoadProfileTest {
+
+    @Test
+    void shouldUseDefaultMixAndBudgets() {
+        LoadProfile profile = LoadProfile.from(new Properties());
+
+        assertEquals(50, profile.rate());
+        assertEquals(LoadOperation.values().length, profile.mix().size());
+        assertEquals(Duration.ofSeconds(2), profile.budgets().get(LoadOperation.EXPORT));
+    }
+
+    @Test
+    void shouldOverrideMixAndBudgetsFromProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("load.rate", "200");
+        properties.setProperty("load.duration", "5m");
+        properties.setProperty("load.mix", "get=60, update-status=40");
+        properties.setProperty("load.budgets", "get=20ms,export=3s");
+
+        LoadProfile profile = LoadProfile.from(properties);
+
+        assertEquals(200, profile.rate());
+        assertEquals(Duration.ofMinutes(5), profile.duration());
+        assertEquals(Map.of(LoadOperation.GET, 60, LoadOperation.UPDATE_STATUS, 40), profile.mix());
+        assertEquals(Duration.ofMillis(20), profile.budgets().get(LoadOperation.GET));
+        assertEquals(Duration.ofSeconds(3), profile.budgets().get(LoadOperation.EXPORT));
+        assertEquals(LoadOperation.SEARCH.defaultBudget(), profile.budgets().get(LoadOperation.SEARCH));
+    }
+}
@@ -0,0 +1,205 @@
+package com.niyiment.invoice.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.niyiment.invoice.load.OpenLoopLoadGenerator.LoadResult;
+import org.HdrHistogram.Histogram;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summarises a load test run per endpoint, checks it against the p99 budgets and writes it as
+ * {@code load-report.json} and {@code load-report.html}.
+ * <p>
+ * The JSON report also holds each latency histogram in HdrHistogram's compressed Base64 form, so runs can be
+ * compared or plotted with the HdrHistogram tools.
+ */
+final class LoadReport {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final String title;
+    private final LoadResult result;
+    private final Map<String, Duration> budgets;
+    private final double maxErrorRate;
+
+    /**
+     * @param budgets      the p99 budget by endpoint; endpoints without one only have their errors checked
+     * @param maxErrorRate the share of failed requests an endpoint may have
+     */
+    LoadReport(String title, LoadResult result, Map<String, Duration> budgets, double maxErrorRate) {
+        this.title = title;
+        this.result = result;
+        this.budgets = budgets;
+        this.maxErrorRate = maxErrorRate;
+    }
+
+    /**
+     * The endpoints that went over their p99 budget or failed too often, described for a test failure.
+     */
+    List<String> violations() {
+        List<String> violations = new ArrayList<>();
+        for (EndpointLatency endpoint : endpoints()) {
+            Duration budget = budgets.get(endpoint.endpoint());
+            long p99 = endpoint.latency().getValueAtPercentile(99);
+            if (budget != null && p99 > budget.toNanos()) {
+                violations.add(String.format("%s: p99 %.1f ms exceeds budget of %d ms",
+                        endpoint.endpoint(), p99 / NANOS_PER_MILLI, budget.toMillis()));
+            }
+            if (endpoint.errorRate() > maxErrorRate) {
+                violations.add(String.format("%s: %d of %d requests failed, last with %s",
+                        endpoint.endpoint(), endpoint.errors(), endpoint.requests(), endpoint.lastError()));
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Writes the JSON and HTML reports to the directory.
+     *
+     * @return the HTML report
+     */
+    Path write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(directory.resolve("load-report.json").toFile(), toJson());
+        Path html = directory.resolve("load-report.html");
+        Files.writeString(html, toHtml());
+        return html;
+    }
+
+    private List<EndpointLatency> endpoints() {
+        return result.endpoints().values().stream()
+                .sorted(Comparator.comparing(EndpointLatency::endpoint))
+                .toList();
+    }
+
+    private Map<String, Object> toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("title", title);
+        json.put("generatedAt", Instant.now().toString());
+        json.put("durationSeconds", result.duration().toMillis() / 1000.0);
+        json.put("maxSendLagMs", result.maxSendLag().toNanos() / NANOS_PER_MILLI);
+        json.put("maxErrorRate", maxErrorRate);
+        json.put("violations", violations());
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        for (EndpointLatency endpoint : endpoints()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("endpoint", endpoint.endpoint());
+            entry.put("requests", endpoint.requests());
+            entry.put("errors", endpoint.errors());
+            entry.put("throughputPerSecond", endpoint.requests() / (result.duration().toMillis() / 1000.0));
+            Duration budget = budgets.get(endpoint.endpoint());
+            entry.put("p99BudgetMs", budget != null ? budget.toMillis() : null);
+            entry.put("latencyMs", percentiles(endpoint.latency()));
+            entry.put("serviceTimeMs", percentiles(endpoint.serviceTime()));
+            entry.put("latencyHistogram", encode(endpoint.latency()));
+            endpoints.add(entry);
+        }
+        json.put("endpoints", endpoints);
+        return json;
+    }
+
+    private static Map<String, Double> percentiles(Histogram histogram) {
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            percentiles.put("p" + format(percentile), histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI);
+        }
+        percentiles.put("max", histogram.getMaxValue() / NANOS_PER_MILLI);
+        percentiles.put("mean", histogram.getMean() / NANOS_PER_MILLI);
+        return percentiles;
+    }
+
+    private static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    private String toHtml() {
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>")
+                .append(escape(title)).append("</title>\n<style>")
+                .append("body{font-family:sans-serif;margin:2em}table{border-collapse:collapse}")
+                .append("th,td{border:1px solid #ccc;padding:4px 8px;text-align:right}th:first-child,td:first-child")
+                .append("{text-align:left}.fail{background:#fdd}.pass{background:#dfd}pre{font-size:12px}")
+                .append("</style></head><body>\n<h1>").append(escape(title)).append("</h1>\n<p>")
+                .append(String.format("Measured for %d s. Latency runs from each request's scheduled start; ",
+                        result.duration().toSeconds()))
+                .append(String.format("service time from when it was sent. Longest send lag: %.1f ms.",
+                        result.maxSendLag().toNanos() / NANOS_PER_MILLI))
+                .append("</p>\n<table>\n<tr><th>Endpoint</th><th>Requests</th><th>Errors</th>");
+        for (double percentile : PERCENTILES) {
+            html.append("<th>p").append(format(percentile)).append(" ms</th>");
+        }
+        html.append("<th>Max ms</th><th>p99 service ms</th><th>p99 budget ms</th></tr>\n");
+
+        for (EndpointLatency endpoint : endpoints()) {
+            Duration budget = budgets.get(endpoint.endpoint());
+            boolean pass = (budget == null || endpoint.latency().getValueAtPercentile(99) <= budget.toNanos())
+                    && endpoint.errorRate() <= maxErrorRate;
+            html.append("<tr class=\"").append(pass ? "pass" : "fail").append("\"><td>")
+                    .append(escape(endpoint.endpoint())).append("</td><td>").append(endpoint.requests())
+                    .append("</td><td>").append(endpoint.errors()).append("</td>");
+            for (double percentile : PERCENTILES) {
+                html.append(cell(endpoint.latency().getValueAtPercentile(percentile)));
+            }
+            html.append(cell(endpoint.latency().getMaxValue()))
+                    .append(cell(endpoint.serviceTime().getValueAtPercentile(99)))
+                    .append("<td>").append(budget != null ? budget.toMillis() : "").append("</td></tr>\n");
+        }
+        html.append("</table>\n");
+
+        List<String> violations = violations();
+        html.append("<h2>").append(violations.isEmpty() ? "All budgets met" : "Budget violations").append("</h2>\n");
+        if (!violations.isEmpty()) {
+            html.append("<ul>");
+            violations.forEach(violation -> html.append("<li>").append(escape(violation)).append("</li>"));
+            html.append("</ul>\n");
+        }
+        for (EndpointLatency endpoint : endpoints()) {
+            html.append("<h3>").append(escape(endpoint.endpoint())).append("</h3>\n<pre>")
+                    .append(escape(distribution(endpoint.latency()))).append("</pre>\n");
+        }
+        return html.append("</body></html>\n").toString();
+    }
+
+    /**
+     * HdrHistogram's percentile distribution, in milliseconds.
+     */
+    private static String distribution(Histogram histogram) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (PrintStream printStream = new PrintStream(output, true, StandardCharsets.UTF_8)) {
+            histogram.outputPercentileDistribution(printStream, 5, NANOS_PER_MILLI);
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String cell(long nanos) {
+        return String.format("<td>%.1f</td>", nanos / NANOS_PER_MILLI);
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+
+    private static String escape(String text) {
+        return HtmlUtils.htmlEscape(text);
+    }
+}
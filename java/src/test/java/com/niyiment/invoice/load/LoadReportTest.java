@@ -0,0 +1,79 @@
+package com.niyiment.invoice.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.niyiment.invoice.load.OpenLoopLoadGenerator.LoadResult;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadReportTest {
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void shouldReportEndpointsOverBudgetOrFailingTooOften() {
+        LoadReport report = new LoadReport("test", result(), Map.of(
+                "fast", Duration.ofMillis(50),
+                "slow", Duration.ofMillis(100)), 0.01);
+
+        List<String> violations = report.violations();
+
+        assertEquals(2, violations.size(), violations.toString());
+        assertTrue(violations.get(0).startsWith("failing: 1 of 10 requests failed, last with 500"));
+        assertTrue(violations.get(1).startsWith("slow: p99 500.") && violations.get(1).endsWith("budget of 100 ms"));
+    }
+
+    @Test
+    void shouldWriteJsonAndHtmlReports() throws Exception {
+        LoadReport report = new LoadReport("Invoice <load>", result(), Map.of("slow", Duration.ofMillis(100)), 0.5);
+
+        Path html = report.write(directory);
+
+        JsonNode json = new ObjectMapper().readTree(directory.resolve("load-report.json").toFile());
+        assertEquals(3, json.get("endpoints").size());
+        JsonNode slow = json.get("endpoints").get(2);
+        assertEquals("slow", slow.get("endpoint").asText());
+        assertEquals(100, slow.get("p99BudgetMs").asLong());
+        assertEquals(500, slow.get("latencyMs").get("p99").asDouble(), 1);
+        Histogram decoded = Histogram.decodeFromCompressedByteBuffer(
+                ByteBuffer.wrap(Base64.getDecoder().decode(slow.get("latencyHistogram").asText())), 0);
+        assertEquals(10, decoded.getTotalCount());
+        assertEquals(1, json.get("violations").size());
+
+        String page = Files.readString(html);
+        assertTrue(page.contains("<title>Invoice &lt;load&gt;</title>"));
+        assertTrue(page.contains("<tr class=\"fail\"><td>slow</td>"));
+        assertTrue(page.contains("<tr class=\"pass\"><td>fast</td>"));
+    }
+
+    private static LoadResult result() {
+        EndpointLatency fast = new EndpointLatency("fast");
+        EndpointLatency slow = new EndpointLatency("slow");
+        EndpointLatency failing = new EndpointLatency("failing");
+        for (int i = 1; i <= 10; i++) {
+            fast.recordSuccess(i * NANOS_PER_MILLI, i * NANOS_PER_MILLI);
+            slow.recordSuccess(i * 50 * NANOS_PER_MILLI, 10 * NANOS_PER_MILLI);
+            if (i == 10) {
+                failing.recordError(NANOS_PER_MILLI, NANOS_PER_MILLI, "500 Internal Server Error");
+            } else {
+                failing.recordSuccess(NANOS_PER_MILLI, NANOS_PER_MILLI);
+            }
+        }
+        return new LoadResult(Map.of("fast", fast, "slow", slow, "failing", failing), Duration.ofSeconds(1),
+                Duration.ZERO);
+    }
+}
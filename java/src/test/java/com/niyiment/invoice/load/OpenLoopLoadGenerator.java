@@ -0,0 +1,128 @@
+package com.niyiment.invoice.load;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Sends requests at a target rate, whether or not earlier requests have been answered.
+ * <p>
+ * Arrivals follow a Poisson process, like independent clients, and each request is sent asynchronously at
+ * its scheduled time. Latency is measured from that scheduled time rather than from when the request was
+ * sent, so when the server stalls, every request that should have started during the stall is charged for
+ * it. A closed-loop test, where each client waits for its previous response, would send fewer requests
+ * during the stall and report too low a percentile (coordinated omission).
+ */
+final class OpenLoopLoadGenerator {
+
+    /**
+     * A request of the mix.
+     *
+     * @param endpoint   the endpoint the latency is recorded for
+     * @param request    the request; the generator sets its timeout
+     * @param onResponse called with the body of a successful response
+     */
+    record LoadRequest(String endpoint, HttpRequest.Builder request, Consumer<String> onResponse) {
+
+        LoadRequest(String endpoint, HttpRequest.Builder request) {
+            this(endpoint, request, body -> { });
+        }
+    }
+
+    /**
+     * The latencies of a run per endpoint.
+     *
+     * @param endpoints   the latencies by endpoint
+     * @param duration    how long requests were started for
+     * @param maxSendLag  the longest a request was sent after its scheduled time; when this is large, the
+     *                    generator could not keep up with the rate
+     */
+    record LoadResult(Map<String, EndpointLatency> endpoints, Duration duration, Duration maxSendLag) {
+    }
+
+    private final HttpClient client;
+    private final Duration timeout;
+
+    OpenLoopLoadGenerator(HttpClient client, Duration timeout) {
+        this.client = client;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Starts requests at the given average rate for the given duration, then waits for the last responses.
+     *
+     * @param requests supplies the next request of the mix; called from a single thread
+     */
+    LoadResult run(double rate, Duration duration, long seed, Supplier<LoadRequest> requests) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Rate must be positive but was " + rate);
+        }
+        Map<String, EndpointLatency> endpoints = new ConcurrentHashMap<>();
+        AtomicInteger inFlight = new AtomicInteger();
+        SplittableRandom random = new SplittableRandom(seed);
+        double meanGapNanos = 1e9 / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long maxSendLag = 0;
+
+        long scheduled = start;
+        while (true) {
+            scheduled += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+            if (scheduled >= end) {
+                break;
+            }
+            for (long wait = scheduled - System.nanoTime(); wait > 0; wait = scheduled - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+            }
+            LoadRequest request = requests.get();
+            EndpointLatency latency = endpoints.computeIfAbsent(request.endpoint(), EndpointLatency::new);
+            long sent = System.nanoTime();
+            maxSendLag = Math.max(maxSendLag, sent - scheduled);
+            inFlight.incrementAndGet();
+            send(request, latency, scheduled, sent).whenComplete((ignored, failure) -> inFlight.decrementAndGet());
+        }
+
+        awaitResponses(inFlight);
+        return new LoadResult(Map.copyOf(endpoints), duration, Duration.ofNanos(maxSendLag));
+    }
+
+    private CompletableFuture<Void> send(LoadRequest request, EndpointLatency latency, long scheduled, long sent) {
+        return client.sendAsync(request.request().timeout(timeout).build(), HttpResponse.BodyHandlers.ofString())
+                .handle((response, failure) -> {
+                    long received = System.nanoTime();
+                    if (failure != null) {
+                        latency.recordError(received - scheduled, received - sent, failure.toString());
+                    } else if (response.statusCode() >= 400) {
+                        latency.recordError(received - scheduled, received - sent,
+                                response.statusCode() + " " + abbreviate(response.body()));
+                    } else {
+                        latency.recordSuccess(received - scheduled, received - sent);
+                        request.onResponse().accept(response.body());
+                    }
+                    return null;
+                });
+    }
+
+    private void awaitResponses(AtomicInteger inFlight) {
+        long deadline = System.nanoTime() + timeout.plusSeconds(5).toNanos();
+        while (inFlight.get() > 0) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException(inFlight.get() + " requests were not answered within " + timeout);
+            }
+            LockSupport.parkNanos(Duration.ofMillis(10).toNanos());
+        }
+    }
+
+    private static String abbreviate(String body) {
+        return body == null || body.length() <= 200 ? body : body.substring(0, 200) + "...";
+    }
+}
@@ -0,0 +1,103 @@
+package com.niyiment.invoice.load;
+
+import com.niyiment.invoice.load.OpenLoopLoadGenerator.LoadRequest;
+import com.niyiment.invoice.load.OpenLoopLoadGenerator.LoadResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the generator against a local server that answers one request at a time.
+ */
+class OpenLoopLoadGeneratorTest {
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    private HttpServer server;
+    private URI uri;
+    private final AtomicBoolean stall = new AtomicBoolean();
+    private OpenLoopLoadGenerator generator;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newSingleThreadExecutor());
+        server.createContext("/ok", exchange -> {
+            if (stall.getAndSet(false)) {
+                sleep(Duration.ofSeconds(1));
+            }
+            respond(exchange, 200);
+        });
+        server.createContext("/missing", exchange -> respond(exchange, 404));
+        server.start();
+        uri = URI.create("http://localhost:" + server.getAddress().getPort());
+        generator = new OpenLoopLoadGenerator(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build(),
+                Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldChargeServerStallToEveryRequestScheduledDuringIt() {
+        long start = System.nanoTime();
+        AtomicBoolean armed = new AtomicBoolean(true);
+        LoadResult result = generator.run(200, Duration.ofSeconds(2), 7, () -> {
+            if (System.nanoTime() - start > 500 * NANOS_PER_MILLI && armed.getAndSet(false)) {
+                stall.set(true);
+            }
+            return new LoadRequest("ok", HttpRequest.newBuilder(uri.resolve("/ok")));
+        });
+
+        EndpointLatency latency = result.endpoints().get("ok");
+        long requests = latency.requests();
+        assertTrue(requests > 300 && requests < 500, "Expected about 400 requests but sent " + requests);
+        assertEquals(0, latency.errors());
+        // A closed-loop client would have seen one slow request; here all those queued behind it are slow
+        long slow = latency.latency().getCountBetweenValues(200 * NANOS_PER_MILLI, Long.MAX_VALUE);
+        assertTrue(slow > requests / 10, "Only " + slow + " of " + requests + " requests were charged for the stall");
+        assertTrue(latency.latency().getValueAtPercentile(99) > 800 * NANOS_PER_MILLI,
+                "p99 should include the stall");
+    }
+
+    @Test
+    void shouldCountErrorResponsesPerEndpoint() {
+        int[] sent = {0};
+        LoadResult result = generator.run(100, Duration.ofMillis(500), 7, () -> sent[0]++ % 2 == 0
+                ? new LoadRequest("ok", HttpRequest.newBuilder(uri.resolve("/ok")))
+                : new LoadRequest("missing", HttpRequest.newBuilder(uri.resolve("/missing"))));
+
+        assertEquals(0, result.endpoints().get("ok").errors());
+        EndpointLatency missing = result.endpoints().get("missing");
+        assertEquals(missing.requests(), missing.errors());
+        assertTrue(missing.lastError().startsWith("404"));
+    }
+
+    private static void respond(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
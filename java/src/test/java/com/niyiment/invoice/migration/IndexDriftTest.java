@@ -0,0 +1,62 @@
+package com.niyiment.invoice.migration;
+
+import com.niyiment.invoice.domain.entity.Invoice;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexDriftTest {
+    private static final IndexDefinition STATUS_DUE_DATE =
+            IndexDefinition.of(Invoice.class, "status_dueDate", new Document("status", 1).append("dueDate", 1));
+    private static final IndexDefinition NUMBER =
+            IndexDefinition.of(Invoice.class, "invoiceNumber", new Document("invoiceNumber", 1)).asUnique();
+    private static final IndexDefinition OPEN_DUE_DATE = IndexDefinition.of(Invoice.class, "open_dueDate",
+            new Document("dueDate", 1)).withPartialFilter(new Document("status", new Document("$in", List.of("SENT"))));
+
+    @Test
+    void shouldMatchLiveIndexesReturnedByServer() {
+        List<Document> live = List.of(
+                index("_id_", new Document("_id", 1)),
+                index("status_dueDate", new Document("status", 1.0).append("dueDate", 1.0)),
+                index("invoiceNumber", new Document("invoiceNumber", 1)).append("unique", true),
+                index("open_dueDate", new Document("dueDate", 1))
+                        .append("partialFilterExpression", new Document("status", new Document("$in", List.of("SENT")))));
+
+        IndexDrift drift = IndexDrift.compare(Map.of("invoice", List.of(STATUS_DUE_DATE, NUMBER, OPEN_DUE_DATE)),
+                Map.of("invoice", live));
+
+        assertTrue(drift.isEmpty(), drift.toString());
+    }
+
+    @Test
+    void shouldReportMissingChangedAndUndeclaredIndexes() {
+        List<Document> live = List.of(
+                index("_id_", new Document("_id", 1)),
+                index("status_dueDate", new Document("dueDate", 1).append("status", 1)),
+                index("invoiceNumber", new Document("invoiceNumber", 1)),
+                index("notes_1", new Document("notes", 1)));
+
+        IndexDrift drift = IndexDrift.compare(Map.of("invoice", List.of(STATUS_DUE_DATE, NUMBER, OPEN_DUE_DATE)),
+                Map.of("invoice", live));
+
+        assertEquals(List.of("invoice.open_dueDate"), drift.missing());
+        assertEquals(List.of("invoice.status_dueDate", "invoice.invoiceNumber"), drift.mismatched());
+        assertEquals(List.of("invoice.notes_1"), drift.unexpected());
+    }
+
+    @Test
+    void shouldReportAllIndexesOfMissingCollectionAsMissing() {
+        IndexDrift drift = IndexDrift.compare(Map.of("invoice", List.of(NUMBER)), Map.of());
+
+        assertEquals(List.of("invoice.invoiceNumber"), drift.missing());
+    }
+
+    private static Document index(String name, Document keys) {
+        return new Document("v", 2).append("key", keys).append("name", name);
+    }
+}
@@ -0,0 +1,99 @@
+package com.niyiment.invoice.migration;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+import com.niyiment.invoice.domain.entity.Invoice;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Migrates indexes of a live collection. The migration at startup is disabled so each test controls the
+ * declared indexes and version.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = "invoice.migration.indexes.enabled=false")
+class IndexMigrationIntegrationTest {
+    private static final IndexDefinition NUMBER =
+            IndexDefinition.of(Invoice.class, "invoiceNumber", new Document("invoiceNumber", 1)).asUnique();
+    private static final IndexDefinition STATUS_DUE_DATE =
+            IndexDefinition.of(Invoice.class, "status_dueDate", new Document("status", 1).append("dueDate", 1));
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private MongoCollection<Document> invoices;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(Invoice.class);
+        mongoTemplate.dropCollection(IndexMigration.MIGRATION_COLLECTION);
+        invoices = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Invoice.class));
+    }
+
+    @Test
+    void shouldBuildMissingIndexesAndRecordVersion() {
+        IndexMigration migration = new IndexMigration(mongoTemplate, 1, List.of(NUMBER, STATUS_DUE_DATE), Set.of());
+
+        IndexDrift drift = migration.migrate();
+
+        assertTrue(drift.isEmpty(), drift.toString());
+        assertEquals(1, migration.appliedVersion());
+        assertEquals(IndexMigration.State.COMPLETED, migration.getState());
+        assertEquals(Status.UP, new InvoiceIndexHealthIndicator(migration).health().getStatus());
+    }
+
+    @Test
+    void shouldRebuildChangedIndexAndDropRetiredOneOnlyWhenVersionIsRaised() {
+        new IndexMigration(mongoTemplate, 1, List.of(NUMBER, STATUS_DUE_DATE), Set.of()).migrate();
+        invoices.createIndex(new Document("notes", 1), new IndexOptions().name("notes"));
+        IndexDefinition statusOnly = IndexDefinition.of(Invoice.class, "status_dueDate", new Document("status", 1));
+
+        IndexMigration sameVersion = new IndexMigration(mongoTemplate, 1, List.of(NUMBER, statusOnly), Set.of("notes"));
+        IndexDrift unchanged = sameVersion.migrate();
+
+        assertEquals(List.of("invoice.status_dueDate"), unchanged.mismatched());
+        assertEquals(List.of("invoice.notes"), unchanged.unexpected());
+        Health health = new InvoiceIndexHealthIndicator(sameVersion).health();
+        assertEquals(InvoiceIndexHealthIndicator.DRIFT, health.getStatus());
+        assertEquals(List.of("invoice.notes"), health.getDetails().get("unexpected"));
+
+        IndexMigration nextVersion = new IndexMigration(mongoTemplate, 2, List.of(NUMBER, statusOnly), Set.of("notes"));
+        IndexDrift migrated = nextVersion.migrate();
+
+        assertTrue(migrated.isEmpty(), migrated.toString());
+        assertEquals(2, nextVersion.appliedVersion());
+    }
+
+    @Test
+    void shouldReportIndexThatCannotBeBuilt() {
+        invoices.insertMany(List.of(new Document("invoiceNumber", "INV-1"), new Document("invoiceNumber", "INV-1")));
+        IndexMigration migration = new IndexMigration(mongoTemplate, 1, List.of(NUMBER, STATUS_DUE_DATE), Set.of());
+
+        IndexDrift drift = migration.migrate();
+
+        assertEquals(List.of("invoice.invoiceNumber"), drift.missing());
+        assertEquals(IndexMigration.State.FAILED, migration.getState());
+        assertEquals(0, migration.appliedVersion());
+        assertEquals(InvoiceIndexHealthIndicator.DRIFT, new InvoiceIndexHealthIndicator(migration).health().getStatus());
+    }
+}
@@ -0,0 +1,54 @@
+package com.niyiment.invoice.migration;
+
+import com.mongodb.MongoTimeoutException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InvoiceIndexHealthIndicatorTest {
+    private static final IndexDrift MISSING_STATUS_INDEX =
+            new IndexDrift(List.of("invoice.status_dueDate"), List.of(), List.of());
+
+    @Mock
+    private IndexMigration indexMigration;
+
+    @InjectMocks
+    private InvoiceIndexHealthIndicator healthIndicator;
+
+    @Test
+    void shouldStayUpWhileIndexesAreBuilding() {
+        when(indexMigration.getState()).thenReturn(IndexMigration.State.BUILDING);
+        when(indexMigration.verify()).thenReturn(MISSING_STATUS_INDEX);
+
+        Health health = healthIndicator.health();
+
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(List.of("invoice.status_dueDate"), health.getDetails().get("missing"));
+    }
+
+    @Test
+    void shouldReportDriftOnceMigrationHasRun() {
+        when(indexMigration.getState()).thenReturn(IndexMigration.State.COMPLETED);
+        when(indexMigration.verify()).thenReturn(MISSING_STATUS_INDEX);
+
+        assertEquals(InvoiceIndexHealthIndicator.DRIFT, healthIndicator.health().getStatus());
+    }
+
+    @Test
+    void shouldBeDownWhenIndexesCannotBeListed() {
+        when(indexMigration.getState()).thenReturn(IndexMigration.State.COMPLETED);
+        when(indexMigration.verify()).thenThrow(new MongoTimeoutException("No server"));
+
+        assertEquals(Status.DOWN, healthIndicator.health().getStatus());
+    }
+}
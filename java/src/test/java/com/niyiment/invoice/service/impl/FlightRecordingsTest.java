@@ -0,0 +1,73 @@
+package com.niyiment.invoice.service.impl;
+
+import com.niyiment.invoice.config.RecordingProperties;
+import com.niyiment.invoice.exception.BadRequestException;
+import com.niyiment.invoice.exception.TooManyRequestsException;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecordingsTest {
+    @TempDir
+    private Path directory;
+
+    private final RecordingProperties properties = new RecordingProperties();
+    private FlightRecordings flightRecordings;
+
+    @BeforeEach
+    void setUp() {
+        properties.setDirectory(directory.resolve("recordings"));
+        flightRecordings = new FlightRecordings(properties);
+    }
+
+    @Test
+    void shouldWriteRecordingToDiskWhenItsDurationHasPassed() throws Exception {
+        FlightRecording started = flightRecordings.start(Duration.ofSeconds(1));
+        assertEquals("RUNNING", started.state());
+        Path file = Path.of(started.file());
+        assertEquals(properties.getDirectory(), file.getParent());
+
+        ReportEvent.start("exportInvoice", null).close();
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!"CLOSED".equals(flightRecordings.getRecordings().get(0).state()) && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+
+        assertTrue(Files.size(file) > 0);
+        assertTrue(RecordingFile.readAllEvents(file).stream()
+                .anyMatch(event -> event.getEventType().getName().equals("com.niyiment.invoice.Report")));
+    }
+
+    @Test
+    void shouldRejectSecondRecordingWhileOneIsRunning() {
+        FlightRecording started = flightRecordings.start(Duration.ofMinutes(1));
+        try {
+            TooManyRequestsException exception =
+                    assertThrows(TooManyRequestsException.class, () -> flightRecordings.start(Duration.ofMinutes(1)));
+            assertTrue(exception.getRetryAfter().compareTo(Duration.ofMinutes(1)) <= 0);
+            assertEquals(List.of(started.name()),
+                    flightRecordings.getRecordings().stream().map(FlightRecording::name).toList());
+        } finally {
+            FlightRecorder.getFlightRecorder().getRecordings().stream()
+                    .filter(recording -> recording.getName().equals(started.name()))
+                    .forEach(Recording::close);
+        }
+    }
+
+    @Test
+    void shouldRejectDurationsOutOfRange() {
+        assertThrows(BadRequestException.class, () -> flightRecordings.start(Duration.ofMillis(500)));
+        assertThrows(BadRequestException.class, () -> flightRecordings.start(Duration.ofMinutes(11)));
+        assertTrue(flightRecordings.getRecordings().isEmpty());
+    }
+}
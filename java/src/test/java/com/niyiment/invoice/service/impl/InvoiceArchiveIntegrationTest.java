@@ -0,0 +1,126 @@
+package com.niyiment.invoice.service.impl;
+
+import com.niyiment.invoice.config.ArchiveProperties;
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.entity.InvoiceItem;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.money.Money;
+import com.niyiment.invoice.domain.repository.InvoiceArchiveRepository;
+import com.niyiment.invoice.domain.repository.InvoiceRepository;
+import com.niyiment.invoice.service.InvoiceService;
+import com.niyiment.invoice.service.ReportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Archives invoices of a live database and reads them back through the service and the reports. The
+ * scheduled job is disabled; the tests start a run themselves.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {"invoice.archive.enabled=false", "invoice.reports.mongo.read-preference=primary"})
+class InvoiceArchiveIntegrationTest {
+    private static final LocalDateTime LONG_AGO = LocalDateTime.of(2020, 3, 15, 0, 0);
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private InvoiceArchiveRepository archiveRepository;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(Invoice.class);
+        mongoTemplate.dropCollection(InvoiceArchiveRepository.COLLECTION);
+    }
+
+    @Test
+    void shouldMoveOnlyOldSettledInvoicesInBatches() {
+        for (int i = 0; i < 5; i++) {
+            invoiceRepository.save(invoice("INV-OLD-" + i, InvoiceStatus.PAID, LONG_AGO));
+        }
+        invoiceRepository.save(invoice("INV-OLD-OPEN", InvoiceStatus.OVERDUE, LONG_AGO));
+        invoiceRepository.save(invoice("INV-RECENT", InvoiceStatus.PAID, LocalDateTime.now()));
+
+        InvoiceArchiver archiver = new InvoiceArchiver(archiveRepository, archiveProperties(2),
+                new SimpleMeterRegistry());
+        long archived = archiver.archive(LocalDateTime.now().minusYears(2));
+
+        assertEquals(5, archived);
+        assertEquals(2, invoiceRepository.count());
+        assertEquals(5, mongoTemplate.getCollection(InvoiceArchiveRepository.COLLECTION).countDocuments());
+        assertTrue(archiveRepository.findByInvoiceNumber("INV-OLD-0").isPresent());
+    }
+
+    @Test
+    void shouldReadArchivedInvoiceThroughService() {
+        Invoice saved = invoiceRepository.save(invoice("INV-ARCHIVED", InvoiceStatus.PAID, LONG_AGO));
+        archiveRepository.archiveBatch(LocalDateTime.now(), 10);
+
+        assertFalse(invoiceRepository.existsById(saved.getId()));
+        assertEquals("INV-ARCHIVED", invoiceService.getInvoiceById(saved.getId()).getInvoiceNumber());
+        assertEquals(saved.getId(), invoiceService.getInvoiceByNumber("INV-ARCHIVED").getId());
+        assertEquals(1, invoiceService.getInvoiceItems(saved.getId(),
+                PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void shouldIncludeArchiveInReportsOfArchivedYears() {
+        invoiceRepository.save(invoice("INV-2020", InvoiceStatus.PAID, LONG_AGO));
+        archiveRepository.archiveBatch(LocalDateTime.now().minusYears(2), 10);
+        int thisYear = LocalDateTime.now().getYear();
+        Invoice current = invoice("INV-NOW", InvoiceStatus.PAID, LocalDateTime.of(thisYear, 1, 10, 0, 0));
+        invoiceRepository.save(current);
+
+        assertEquals(new BigDecimal("10.00"), reportService.generateRevenueReportByMonth(2020, Money.DEFAULT_CURRENCY).get("MARCH"));
+        assertEquals(new BigDecimal("10.00"),
+                reportService.generateRevenueReportByMonth(thisYear, Money.DEFAULT_CURRENCY).get("JANUARY"));
+        assertEquals(2L, reportService.generateInvoicesByStatusReport().get(InvoiceStatus.PAID));
+    }
+
+    private static Invoice invoice(String number, InvoiceStatus status, LocalDateTime date) {
+        Invoice invoice = new Invoice(number);
+        invoice.setCustomerName("Archive Customer");
+        invoice.setItems(List.of(new InvoiceItem("Item 1", 1, 1000)));
+        invoice.reCalculateAmount();
+        invoice.setStatus(status);
+        invoice.setInvoiceDate(date);
+        invoice.setDueDate(date);
+        return invoice;
+    }
+
+    private static ArchiveProperties archiveProperties(int batchSize) {
+        ArchiveProperties properties = new ArchiveProperties();
+        properties.setBatchSize(batchSize);
+        return properties;
+    }
+}
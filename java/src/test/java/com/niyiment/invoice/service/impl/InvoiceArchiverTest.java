@@ -0,0 +1,57 @@
+package com.niyiment.invoice.service.impl;
+
+import com.niyiment.invoice.config.ArchiveProperties;
+import com.niyiment.invoice.domain.repository.ArchiveBatch;
+import com.niyiment.invoice.domain.repository.InvoiceArchiveRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InvoiceArchiverTest {
+    private static final LocalDateTime DUE_BEFORE = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    @Mock
+    private InvoiceArchiveRepository archiveRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private InvoiceArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        ArchiveProperties properties = new ArchiveProperties();
+        properties.setBatchSize(100);
+        archiver = new InvoiceArchiver(archiveRepository, properties, meterRegistry);
+    }
+
+    @Test
+    void shouldArchiveBatchesUntilLastPartialBatch() {
+        when(archiveRepository.archiveBatch(DUE_BEFORE, 100)).thenReturn(
+                new ArchiveBatch(100, 100, 100),
+                new ArchiveBatch(100, 100, 99),
+                new ArchiveBatch(40, 40, 40));
+
+        assertEquals(239, archiver.archive(DUE_BEFORE));
+        assertEquals(239, meterRegistry.get("invoice.archive.invoices").counter().count());
+    }
+
+    @Test
+    void shouldStopWhenBatchDeletesNothing() {
+        when(archiveRepository.archiveBatch(any(), anyInt())).thenReturn(new ArchiveBatch(100, 100, 0));
+
+        assertEquals(0, archiver.archive(DUE_BEFORE));
+        verify(archiveRepository, times(1)).archiveBatch(DUE_BEFORE, 100);
+    }
+}
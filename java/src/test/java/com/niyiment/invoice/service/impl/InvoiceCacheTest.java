@@ -0,0 +1,134 @@
+package com.niyiment.invoice.service.impl;
+
+import com.niyiment.invoice.config.InvoiceCacheProperties;
+import com.niyiment.invoice.domain.dto.InvoiceDto;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.exception.InvoiceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvoiceCacheTest {
+    private final AtomicLong nanos = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private InvoiceCache invoiceCache;
+
+    @BeforeEach
+    void setUp() {
+        InvoiceCacheProperties properties = new InvoiceCacheProperties();
+        properties.setMutableTtl(Duration.ofMinutes(5));
+        properties.setFinalStateTtl(Duration.ofHours(1));
+        meterRegistry = new SimpleMeterRegistry();
+        invoiceCache = new InvoiceCache(properties, meterRegistry, nanos::get);
+    }
+
+    @Test
+    void shouldKeepFinalStateInvoicesLongerThanMutableOnes() {
+        AtomicInteger loads = new AtomicInteger();
+        invoiceCache.get("1", id -> { loads.incrementAndGet(); return invoice(id, InvoiceStatus.SENT); });
+        invoiceCache.get("2", id -> { loads.incrementAndGet(); return invoice(id, InvoiceStatus.PAID); });
+
+        nanos.addAndGet(Duration.ofMinutes(10).toNanos());
+        invoiceCache.get("1", id -> { loads.incrementAndGet(); return invoice(id, InvoiceStatus.SENT); });
+        invoiceCache.get("2", id -> { loads.incrementAndGet(); return invoice(id, InvoiceStatus.PAID); });
+
+        assertEquals(3, loads.get(), "Only the mutable invoice should have expired");
+    }
+
+    @Test
+    void shouldLoadOnceForConcurrentMisses() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                start.await();
+                return invoiceCache.get("1", id -> {
+                    loads.incrementAndGet();
+                    sleep();
+                    return invoice(id, InvoiceStatus.SENT);
+                });
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void shouldNotCacheFailedLoadsAndExposeMetrics() {
+        assertThrows(InvoiceNotFoundException.class, () -> invoiceCache.get("404", id -> {
+            throw new InvoiceNotFoundException("Invoice not found with id: " + id);
+        }));
+        invoiceCache.get("1", id -> invoice(id, InvoiceStatus.DRAFT));
+        invoiceCache.get("1", id -> invoice(id, InvoiceStatus.DRAFT));
+
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "invoices").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "invoices").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void shouldResolveNumberThroughIndexAfterInvalidation() {
+        AtomicInteger numberLoads = new AtomicInteger();
+        AtomicInteger idLoads = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            invoiceCache.getByNumber("INV-1",
+                    number -> { numberLoads.incrementAndGet(); return invoice("1", InvoiceStatus.SENT); },
+                    id -> { idLoads.incrementAndGet(); return invoice(id, InvoiceStatus.SENT); });
+            invoiceCache.invalidate("1");
+        }
+
+        assertEquals(1, numberLoads.get(), "The number index should survive invalidation of the invoice");
+        assertEquals(1, idLoads.get());
+    }
+
+    @Test
+    void shouldLookUpNumberAgainWhenIndexedInvoiceWasDeleted() {
+        invoiceCache.getByNumber("INV-1", number -> invoice("1", InvoiceStatus.SENT),
+                id -> invoice(id, InvoiceStatus.SENT));
+        invoiceCache.invalidate("1");
+
+        Function<String, InvoiceDto> deleted = id -> {
+            throw new InvoiceNotFoundException("Invoice not found with id: " + id);
+        };
+        assertThrows(InvoiceNotFoundException.class, () -> invoiceCache.getByNumber("INV-1", number -> {
+            throw new InvoiceNotFoundException("Invoice not found with number: " + number);
+        }, deleted));
+
+        InvoiceDto recreated = invoice("2", InvoiceStatus.DRAFT);
+        recreated.setInvoiceNumber("INV-1");
+        assertSame(recreated, invoiceCache.getByNumber("INV-1", number -> recreated, deleted));
+    }
+
+    private static InvoiceDto invoice(String id, InvoiceStatus status) {
+        InvoiceDto invoice = new InvoiceDto();
+        invoice.setId(id);
+        invoice.setInvoiceNumber("INV-" + id);
+        invoice.setStatus(status);
+        return invoice;
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.niyiment.invoice.service.impl;
+
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.entity.InvoiceItem;
+import com.niyiment.invoice.domain.repository.InvoiceRepository;
+import com.niyiment.invoice.service.InvoiceService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs against a single-node replica set, as change streams require one.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = "invoice.cache.change-stream.max-await-time=200ms")
+class InvoiceChangeStreamIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Test
+    void shouldEvictInvoiceChangedByAnotherInstance() {
+        Invoice invoice = new Invoice("INV-2025-CS1");
+        invoice.setCustomerName("Before");
+        invoice.setItems(List.of(new InvoiceItem("Item 1", 1, 1000)));
+        Invoice saved = invoiceRepository.save(invoice);
+        assertEquals("Before", invoiceService.getInvoiceById(saved.getId()).getCustomerName());
+
+        // Written directly, as another instance would, so only the change stream can evict the entry
+        saved.setCustomerName("After");
+        invoiceRepository.save(saved);
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertEquals("After", invoiceService.getInvoiceById(saved.getId()).getCustomerName()));
+    }
+}
@@ -0,0 +1,79 @@
+package com.niyiment.invoice.service.impl;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.niyiment.invoice.config.InvoiceCacheProperties;
+import com.niyiment.invoice.domain.repository.InvoicePartitions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InvoiceChangeStreamListenerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private InvoiceCache invoiceCache;
+
+    @Mock
+    private InvoicePartitions partitions;
+
+    private SimpleMeterRegistry meterRegistry;
+    private InvoiceChangeStreamListener listener;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        listener = new InvoiceChangeStreamListener(mongoTemplate, invoiceCache, partitions,
+                new InvoiceCacheProperties(), meterRegistry);
+    }
+
+    @Test
+    void shouldEvictUpdatedInvoiceAndRecordLag() {
+        long wallTime = System.currentTimeMillis() - 250;
+
+        listener.handle(change("update", "{'_id': {'$oid': '65f1c0ffee0000000000abcd'}}", wallTime));
+
+        verify(invoiceCache).invalidate("65f1c0ffee0000000000abcd");
+        assertEquals(1, meterRegistry.get("invoice.cache.invalidation.lag").timer().count());
+        assertTrue(meterRegistry.get("invoice.cache.invalidation.lag").timer().max(TimeUnit.MILLISECONDS) >= 250);
+        assertEquals(1.0, meterRegistry.get("invoice.cache.invalidations").tag("operation", "update")
+                .counter().count());
+    }
+
+    @Test
+    void shouldClearCacheWhenCollectionIsDropped() {
+        listener.handle(change("drop", null, System.currentTimeMillis()));
+
+        verify(invoiceCache).invalidateAll();
+        verify(invoiceCache, never()).invalidate(anyString());
+    }
+
+    private static ChangeStreamDocument<Document> change(String operationType, String documentKey, long wallTime) {
+        BsonDocument event = new BsonDocument()
+                .append("_id", BsonDocument.parse("{'_data': '8265F1'}"))
+                .append("operationType", new org.bson.BsonString(operationType))
+                .append("ns", BsonDocument.parse("{'db': 'invoice_db', 'coll': 'invoice'}"))
+                .append("wallTime", new org.bson.BsonDateTime(wallTime));
+        if (documentKey != null) {
+            event.append("documentKey", BsonDocument.parse(documentKey));
+        }
+        return ChangeStreamDocument.createCodec(Document.class, MongoClientSettings.getDefaultCodecRegistry())
+                .decode(new BsonDocumentReader(event), DecoderContext.builder().build());
+    }
+}
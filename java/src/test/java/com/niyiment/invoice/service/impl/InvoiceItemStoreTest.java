@@ -0,0 +1,137 @@
+package com.niyiment.invoice.service.impl;
+
+import com.niyiment.invoice.config.ItemStorageProperties;
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.entity.InvoiceItem;
+import com.niyiment.invoice.domain.entity.InvoiceLineItem;
+import com.niyiment.invoice.domain.enums.ItemStorage;
+import com.niyiment.invoice.domain.repository.InvoiceLineItemRepository;
+import com.niyiment.invoice.domain.repository.InvoiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InvoiceItemStoreTest {
+
+    @Mock
+    private InvoiceLineItemRepository lineItemRepository;
+
+    @Mock
+    private InvoiceRepository invoiceRepository;
+
+    private InvoiceItemStore invoiceItemStore;
+    private Invoice invoice;
+
+    @BeforeEach
+    void setUp() {
+        ItemStorageProperties properties = new ItemStorageProperties();
+        properties.setExternalThreshold(3);
+        properties.setWriteBatchSize(2);
+        invoiceItemStore = new InvoiceItemStore(lineItemRepository, invoiceRepository, properties);
+
+        invoice = new Invoice("INV-2025-001");
+        invoice.setId("1");
+    }
+
+    @Test
+    void shouldKeepItemsEmbeddedUpToThreshold() {
+        invoice.setItems(items(3));
+
+        InvoiceItemStore.PendingItems pending = invoiceItemStore.prepareForSave(invoice);
+        invoiceItemStore.completeSave(invoice, pending);
+
+        assertEquals(ItemStorage.EMBEDDED, invoice.getItemStorage());
+        assertEquals(3, invoice.getItems().size());
+        assertFalse(invoice.isItemsPending());
+        verifyNoInteractions(lineItemRepository, invoiceRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldStoreItemsExternallyAboveThresholdInBatches() {
+        invoice.setItems(items(5));
+        long subtotal = invoice.getSubtotal();
+
+        InvoiceItemStore.PendingItems pending = invoiceItemStore.prepareForSave(invoice);
+        assertTrue(invoice.isItemsPending(), "Header should be saved with its items pending");
+        invoiceItemStore.completeSave(invoice, pending);
+
+        assertEquals(ItemStorage.EXTERNAL, invoice.getItemStorage());
+        assertTrue(invoice.getItems().isEmpty(), "Header should not embed items");
+        assertEquals(5, invoice.getItemCount());
+        assertEquals(subtotal, invoice.getSubtotal());
+
+        ArgumentCaptor<List<InvoiceLineItem>> batches = ArgumentCaptor.forClass(List.class);
+        verify(lineItemRepository, times(3)).upsertLines(batches.capture());
+        verify(lineItemRepository, never()).deleteByInvoiceId(any());
+        InvoiceLineItem last = batches.getAllValues().get(2).get(0);
+        assertEquals("1", last.getInvoiceId());
+        assertEquals(5, last.getLineNumber());
+        verify(invoiceRepository).markItemsWritten("1");
+        assertFalse(invoice.isItemsPending());
+    }
+
+    @Test
+    void shouldReplaceExternalItemsWithoutRemovingThemFirst() {
+        invoice.setItems(items(5));
+        invoice.detachItems();
+        invoice.setItems(items(4));
+
+        InvoiceItemStore.PendingItems pending = invoiceItemStore.prepareForSave(invoice);
+        invoiceItemStore.completeSave(invoice, pending);
+
+        InOrder inOrder = inOrder(lineItemRepository, invoiceRepository);
+        inOrder.verify(lineItemRepository, times(2)).upsertLines(anyList());
+        inOrder.verify(lineItemRepository).deleteByInvoiceIdAndLineNumberGreaterThan("1", 4L);
+        inOrder.verify(invoiceRepository).markItemsWritten("1");
+        verify(lineItemRepository, never()).deleteByInvoiceId(any());
+    }
+
+    @Test
+    void shouldRemoveExternalItemsWhenInvoiceShrinksBelowThreshold() {
+        invoice.setItems(items(5));
+        invoice.detachItems();
+        invoice.setItems(items(2));
+
+        InvoiceItemStore.PendingItems pending = invoiceItemStore.prepareForSave(invoice);
+        invoiceItemStore.completeSave(invoice, pending);
+
+        assertEquals(ItemStorage.EMBEDDED, invoice.getItemStorage());
+        verify(lineItemRepository).deleteByInvoiceId("1");
+        verify(lineItemRepository, never()).upsertLines(anyList());
+        verify(invoiceRepository).markItemsWritten("1");
+    }
+
+    @Test
+    void shouldPageEmbeddedItems() {
+        invoice.setItems(items(3));
+
+        Page<InvoiceItem> page = invoiceItemStore.findItems(invoice, PageRequest.of(1, 2));
+
+        assertEquals(3, page.getTotalElements());
+        assertEquals(1, page.getContent().size());
+        assertEquals(3, page.getContent().get(0).getLineNumber());
+    }
+
+    private static List<InvoiceItem> items(int count) {
+        List<InvoiceItem> items = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            items.add(new InvoiceItem("Item " + i, i, 100L * i));
+        }
+        return items;
+    }
+}
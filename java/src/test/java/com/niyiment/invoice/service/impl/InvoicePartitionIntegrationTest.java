@@ -0,0 +1,131 @@
+package com.niyiment.invoice.service.impl;
+
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.entity.InvoiceItem;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.money.Money;
+import com.niyiment.invoice.domain.repository.InvoicePartitions;
+import com.niyiment.invoice.domain.repository.InvoiceRepository;
+import com.niyiment.invoice.migration.PartitionMigration;
+import com.niyiment.invoice.service.ReportService;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stores invoices per invoice date year in a live database and reads them back through the repository and
+ * the reports. Collections are emptied rather than dropped between tests, so the partition indexes stay.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {"invoice.partitioning.enabled=true", "invoice.archive.enabled=false",
+        "invoice.reports.mongo.read-preference=primary"})
+class InvoicePartitionIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private InvoicePartitions partitions;
+
+    @Autowired
+    private PartitionMigration partitionMigration;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        for (String collectionName : mongoTemplate.getCollectionNames()) {
+            mongoTemplate.getCollection(collectionName).deleteMany(new Document());
+        }
+    }
+
+    @Test
+    void shouldStoreInvoicesPerYearAndFindThemByIdAndNumber() {
+        Invoice older = invoiceRepository.save(invoice("INV-2024", LocalDateTime.of(2024, 6, 1, 0, 0)));
+        Invoice newer = invoiceRepository.save(invoice("INV-2025", LocalDateTime.of(2025, 6, 1, 0, 0)));
+
+        assertEquals(1, mongoTemplate.getCollection("invoice_2024").countDocuments());
+        assertEquals(1, mongoTemplate.getCollection("invoice_2025").countDocuments());
+        assertEquals("INV-2024", invoiceRepository.findById(older.getId()).orElseThrow().getInvoiceNumber());
+        assertEquals(newer.getId(), invoiceRepository.findByInvoiceNumber("INV-2025").orElseThrow().getId());
+        assertEquals(2, invoiceRepository.count());
+        assertThrows(DuplicateKeyException.class, () ->
+                invoiceRepository.save(invoice("INV-2024", LocalDateTime.of(2025, 7, 1, 0, 0))));
+    }
+
+    @Test
+    void shouldQueryOnlyPartitionsOverlappingDueDates() {
+        invoiceRepository.save(invoice("INV-2024", LocalDateTime.of(2024, 3, 10, 0, 0)));
+        invoiceRepository.save(invoice("INV-2025-A", LocalDateTime.of(2025, 3, 10, 0, 0)));
+        invoiceRepository.save(invoice("INV-2025-B", LocalDateTime.of(2025, 4, 10, 0, 0)));
+
+        LocalDateTime from = LocalDateTime.of(2025, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 12, 31, 0, 0);
+        assertEquals(List.of("invoice_2025"), partitions.overlapping(from, to));
+        assertEquals(List.of("invoice_2024", "invoice_2025"), partitions.all());
+
+        Page<Invoice> page = invoiceRepository.findByDueDateBetween(LocalDateTime.of(2024, 1, 1, 0, 0), to,
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "dueDate")));
+        assertEquals(List.of("INV-2025-B", "INV-2025-A"),
+                page.getContent().stream().map(Invoice::getInvoiceNumber).toList());
+        assertEquals(3, page.getTotalElements());
+        assertEquals(new BigDecimal("10.00"), reportService.generateRevenueReportByMonth(2025, Money.DEFAULT_CURRENCY).get("APRIL"));
+    }
+
+    @Test
+    void shouldMoveInvoicesIntoPartitionOfTheirYear() {
+        Invoice legacy = invoice("INV-LEGACY", LocalDateTime.of(2023, 5, 1, 0, 0));
+        legacy.setVersion(0L);
+        mongoTemplate.insert(legacy, partitions.invoiceCollection());
+
+        assertEquals(1, partitionMigration.migrate());
+        assertEquals(0, mongoTemplate.getCollection(partitions.invoiceCollection()).countDocuments());
+        Invoice migrated = invoiceRepository.findByInvoiceNumber("INV-LEGACY").orElseThrow();
+        assertEquals("invoice_2023", partitions.locate(migrated.getId()));
+
+        migrated.setInvoiceDate(LocalDateTime.of(2024, 1, 15, 0, 0));
+        invoiceRepository.save(migrated);
+
+        assertEquals("invoice_2024", partitions.locate(migrated.getId()));
+        assertEquals(0, mongoTemplate.getCollection("invoice_2023").countDocuments());
+        assertTrue(invoiceRepository.existsById(migrated.getId()));
+    }
+
+    private static Invoice invoice(String number, LocalDateTime date) {
+        Invoice invoice = new Invoice(number);
+        invoice.setCustomerName("Partition Customer");
+        invoice.setItems(List.of(new InvoiceItem("Item 1", 1, 1000)));
+        invoice.reCalculateAmount();
+        invoice.setStatus(InvoiceStatus.PAID);
+        invoice.setInvoiceDate(date);
+        invoice.setDueDate(date);
+        return invoice;
+    }
+}
@@ -0,0 +1,67 @@
+package com.niyiment.invoice.service.impl;
+
+import com.niyiment.invoice.domain.entity.Invoice;
+import com.niyiment.invoice.domain.entity.InvoiceItem;
+import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.repository.InvoiceRepository;
+import com.niyiment.invoice.service.ReportService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Report queries on a single-node replica set: with no secondary available, secondary-preferred reads
+ * fall back to the primary, and the serving member shows up in the metrics.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest
+class InvoiceReportReaderIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void shouldServeReportsAndRecordServingMember() {
+        Invoice invoice = new Invoice("INV-2025-RR1");
+        invoice.setCustomerName("Replica Customer");
+        invoice.setItems(List.of(new InvoiceItem("Item 1", 1, 1000)));
+        invoice.setStatus(InvoiceStatus.SENT);
+        invoiceRepository.save(invoice);
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            Map<InvoiceStatus, Long> report = reportService.generateInvoicesByStatusReport();
+            assertEquals(1L, report.get(InvoiceStatus.SENT));
+        });
+
+        List<Timer> finds = meterRegistry.find(ReportCommandMetrics.METRIC_NAME).tag("command", "find").timers()
+                .stream().toList();
+        assertFalse(finds.isEmpty(), "Report queries should be timed");
+        assertTrue(finds.get(0).getId().getTag("server").endsWith(":" + mongo.getFirstMappedPort()),
+                "Timer should be tagged with the member that served the query");
+    }
+}
@@ -0,0 +1,80 @@
+package com.niyiment.invoice.service.impl;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadPreference;
+import com.mongodb.TaggableReadPreference;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.ServerAddress;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import com.niyiment.invoice.config.ReportMongoProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvoiceReportReaderTest {
+    private final ConnectionString connectionString =
+            new ConnectionString("mongodb://localhost:27017,localhost:27018/invoice_db?replicaSet=rs0");
+    private final CommandListener listener = new CommandListener() {
+    };
+
+    @Test
+    void shouldReadFromSecondariesWithinMaxStaleness() {
+        ReportMongoProperties properties = new ReportMongoProperties();
+        properties.setMaxStaleness(Duration.ofMinutes(2));
+
+        MongoClientSettings settings = InvoiceReportReader.clientSettings(properties, connectionString, listener);
+
+        TaggableReadPreference readPreference = (TaggableReadPreference) settings.getReadPreference();
+        assertEquals("secondaryPreferred", readPreference.getName());
+        assertEquals(120, readPreference.getMaxStaleness(TimeUnit.SECONDS));
+        assertEquals("rs0", settings.getClusterSettings().getRequiredReplicaSetName());
+        assertTrue(settings.getCommandListeners().contains(listener));
+    }
+
+    @Test
+    void shouldApplyReportPoolSettings() {
+        ReportMongoProperties properties = new ReportMongoProperties();
+        properties.getPool().setMaxSize(7);
+        properties.getPool().setMaxWaitTime(Duration.ofMillis(1500));
+
+        MongoClientSettings settings = InvoiceReportReader.clientSettings(properties, connectionString, listener);
+
+        assertEquals(7, settings.getConnectionPoolSettings().getMaxSize());
+        assertEquals(1500, settings.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void shouldIgnoreMaxStalenessForPrimary() {
+        ReportMongoProperties properties = new ReportMongoProperties();
+        properties.setReadPreference("primary");
+
+        MongoClientSettings settings = InvoiceReportReader.clientSettings(properties, connectionString, listener);
+
+        assertEquals(ReadPreference.primary(), settings.getReadPreference());
+    }
+
+    @Test
+    void shouldTimeCommandsByServingMember() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReportCommandMetrics metrics = new ReportCommandMetrics(meterRegistry);
+        ServerId serverId = new ServerId(new ClusterId(), new ServerAddress("localhost", 27018));
+        ConnectionDescription connection = new ConnectionDescription(serverId);
+
+        metrics.commandSucceeded(new CommandSucceededEvent(null, 1, 1, connection, "invoice_db", "find",
+                new BsonDocument(), TimeUnit.MILLISECONDS.toNanos(3)));
+
+        assertEquals(1, meterRegistry.get(ReportCommandMetrics.METRIC_NAME)
+                .tag("server", "localhost:27018")
+                .tag("command", "find")
+                .timer().count());
+    }
+}
@@ -2,31 +2,48 @@ package com.niyiment.invoice.service.impl;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.mongodb.client.result.UpdateResult;
+import com.niyiment.invoice.domain.dto.BulkRecalculationRequest;
+import com.niyiment.invoice.domain.dto.BulkRecalculationResult;
+import com.niyiment.invoice.domain.dto.InvoiceFilter;
+import com.niyiment.invoice.config.InvoiceCacheProperties;
 import com.niyiment.invoice.domain.dto.InvoiceDto;
 import com.niyiment.invoice.domain.dto.InvoiceItemDto;
 import com.niyiment.invoice.domain.entity.Invoice;
 import com.niyiment.invoice.domain.entity.InvoiceItem;
 import com.niyiment.invoice.domain.enums.InvoiceStatus;
 import com.niyiment.invoice.domain.mapper.InvoiceMapper;
+import com.niyiment.invoice.domain.repository.InvoiceArchiveRepository;
+import com.niyiment.invoice.domain.repository.InvoiceRecalculation;
 import com.niyiment.invoice.domain.repository.InvoiceRepository;
+import com.niyiment.invoice.domain.repository.InvoiceSearchCriteria;
+import com.niyiment.invoice.domain.repository.InvoiceVersion;
+import com.niyiment.invoice.domain.repository.RecalculationPreview;
 import com.niyiment.invoice.exception.InvoiceNotFoundException;
 import com.niyiment.invoice.exception.BadRequestException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,6 +55,15 @@ class InvoiceServiceImplTest {
     @Mock
     private InvoiceMapper invoiceMapper;
 
+    @Mock
+    private InvoiceItemStore invoiceItemStore;
+
+    @Mock
+    private InvoiceArchiveRepository invoiceArchiveRepository;
+
+    @Spy
+    private InvoiceCache invoiceCache = new InvoiceCache(new InvoiceCacheProperties(), new SimpleMeterRegistry());
+
     @InjectMocks
     private InvoiceServiceImpl invoiceService;
 
@@ -54,7 +80,7 @@ class InvoiceServiceImplTest {
         invoice.setId(invoiceId);
         invoice.setCustomerName("Test Customer");
         invoice.setCustomerEmail("customer@example.com");
-        invoice.setItems(List.of(new InvoiceItem("Item 1", 2, 10.0)));
+        invoice.setItems(List.of(new InvoiceItem("Item 1", 2, 1000)));
         invoice.setTaxRate(10.0);
         invoice.reCalculateAmount();
 
@@ -67,13 +93,13 @@ class InvoiceServiceImplTest {
         InvoiceItemDto itemDto = new InvoiceItemDto();
         itemDto.setDescription("Item 1");
         itemDto.setQuantity(2);
-        itemDto.setUnitPrice(10.0);
+        itemDto.setUnitPrice(new BigDecimal("10.00"));
         invoiceDto.setItems(List.of(itemDto));
 
         invoiceDto.setTaxRate(10.0);
-        invoiceDto.setSubtotal(20.0);
-        invoiceDto.setTaxAmount(2.0);
-        invoiceDto.setTotalAmount(22.0);
+        invoiceDto.setSubtotal(new BigDecimal("20.00"));
+        invoiceDto.setTaxAmount(new BigDecimal("2.00"));
+        invoiceDto.setTotalAmount(new BigDecimal("22.00"));
     }
 
     @Test
@@ -146,6 +172,44 @@ class InvoiceServiceImplTest {
         verify(invoiceMapper, never()).toDto(any());
     }
 
+    @Test
+    void shouldReadArchivedInvoiceWhenNotFoundById() {
+        invoice.setStatus(InvoiceStatus.PAID);
+        when(invoiceRepository.findById(invoiceId)).thenReturn(Optional.empty());
+        when(invoiceArchiveRepository.findById(invoiceId)).thenReturn(Optional.of(invoice));
+        when(invoiceMapper.toDto(invoice)).thenReturn(invoiceDto);
+
+        assertEquals(invoiceDto, invoiceService.getInvoiceById(invoiceId));
+    }
+
+    @Test
+    void shouldReadArchivedInvoiceWhenNotFoundByNumber() {
+        invoice.setStatus(InvoiceStatus.PAID);
+        when(invoiceRepository.findByInvoiceNumber(invoiceNumber)).thenReturn(Optional.empty());
+        when(invoiceArchiveRepository.findByInvoiceNumber(invoiceNumber)).thenReturn(Optional.of(invoice));
+        when(invoiceMapper.toDto(invoice)).thenReturn(invoiceDto);
+
+        assertEquals(invoiceDto, invoiceService.getInvoiceByNumber(invoiceNumber));
+    }
+
+    @Test
+    void shouldNotUpdateArchivedInvoice() {
+        when(invoiceRepository.findById(invoiceId)).thenReturn(Optional.empty());
+
+        assertThrows(InvoiceNotFoundException.class,
+                () -> invoiceService.updateInvoiceStatus(invoiceId, InvoiceStatus.PAID));
+        verify(invoiceArchiveRepository, never()).findById(any());
+    }
+
+    @Test
+    void shouldRejectInvoiceNumberOfArchivedInvoice() {
+        when(invoiceRepository.existsByInvoiceNumber(invoiceNumber)).thenReturn(false);
+        when(invoiceArchiveRepository.existsByInvoiceNumber(invoiceNumber)).thenReturn(true);
+
+        assertThrows(BadRequestException.class, () -> invoiceService.createInvoice(invoiceDto));
+        verify(invoiceRepository, never()).save(any());
+    }
+
     @Test
     void shouldGetInvoiceByNumberSuccessfully() {
         when(invoiceRepository.findByInvoiceNumber(invoiceNumber)).thenReturn(Optional.of(invoice));
@@ -159,6 +223,54 @@ class InvoiceServiceImplTest {
         verify(invoiceMapper).toDto(invoice);
     }
 
+    @Test
+    void shouldServeRepeatedReadsFromCache() {
+        when(invoiceRepository.findById(invoiceId)).thenReturn(Optional.of(invoice));
+        when(invoiceMapper.toDto(invoice)).thenReturn(invoiceDto);
+
+        invoiceService.getInvoiceById(invoiceId);
+        InvoiceDto result = invoiceService.getInvoiceByNumber(invoiceNumber);
+
+        assertEquals(invoiceDto, result);
+        verify(invoiceRepository, times(1)).findById(invoiceId);
+        verify(invoiceRepository, never()).findByInvoiceNumber(invoiceNumber);
+    }
+
+    @Test
+    void shouldReloadInvoiceAfterStatusUpdate() {
+        when(invoiceRepository.findById(invoiceId)).thenReturn(Optional.of(invoice));
+        when(invoiceRepository.save(invoice)).thenReturn(invoice);
+        when(invoiceMapper.toDto(invoice)).thenReturn(invoiceDto);
+
+        invoiceService.getInvoiceById(invoiceId);
+        invoiceService.updateInvoiceStatus(invoiceId, InvoiceStatus.SENT);
+        invoiceService.getInvoiceById(invoiceId);
+
+        verify(invoiceCache).invalidate(invoiceId);
+        verify(invoiceRepository, times(3)).findById(invoiceId);
+    }
+
+    @Test
+    void shouldReadVersionFromProjectionWhenNotCached() {
+        InvoiceVersion invoiceVersion = mock(InvoiceVersion.class);
+        when(invoiceVersion.getVersion()).thenReturn(7L);
+        when(invoiceRepository.findVersionById(invoiceId)).thenReturn(Optional.of(invoiceVersion));
+
+        assertEquals(7L, invoiceService.getInvoiceVersion(invoiceId));
+        verify(invoiceRepository, never()).findById(any());
+    }
+
+    @Test
+    void shouldReadVersionFromCache() {
+        invoiceDto.setVersion(2L);
+        when(invoiceRepository.findById(invoiceId)).thenReturn(Optional.of(invoice));
+        when(invoiceMapper.toDto(invoice)).thenReturn(invoiceDto);
+        invoiceService.getInvoiceById(invoiceId);
+
+        assertEquals(2L, invoiceService.getInvoiceVersion(invoiceId));
+        verify(invoiceRepository, never()).findVersionById(any());
+    }
+
     @Test
     void shouldGetAllInvoicesSuccessfully() {
         
@@ -258,6 +370,38 @@ class InvoiceServiceImplTest {
         
         verify(invoiceRepository).findById(invoiceId);
         verify(invoiceRepository).deleteById(invoiceId);
+        verify(invoiceItemStore).deleteItems(invoice);
+    }
+
+    @Test
+    void shouldWriteItemsAfterSavingInvoiceHeader() {
+        InvoiceItemStore.PendingItems pendingItems = new InvoiceItemStore.PendingItems(invoice.getItems(), false);
+        when(invoiceRepository.existsByInvoiceNumber(invoiceNumber)).thenReturn(false);
+        when(invoiceMapper.toEntity(invoiceDto)).thenReturn(invoice);
+        when(invoiceItemStore.prepareForSave(invoice)).thenReturn(pendingItems);
+        when(invoiceRepository.save(invoice)).thenReturn(invoice);
+        when(invoiceMapper.toDto(invoice)).thenReturn(invoiceDto);
+
+        invoiceService.createInvoice(invoiceDto);
+
+        InOrder inOrder = inOrder(invoiceItemStore, invoiceRepository);
+        inOrder.verify(invoiceItemStore).prepareForSave(invoice);
+        inOrder.verify(invoiceRepository).save(invoice);
+        inOrder.verify(invoiceItemStore).completeSave(invoice, pendingItems);
+    }
+
+    @Test
+    void shouldGetInvoiceItemsPage() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(invoiceRepository.findById(invoiceId)).thenReturn(Optional.of(invoice));
+        when(invoiceItemStore.findItems(invoice, pageable))
+                .thenReturn(new PageImpl<>(invoice.getItems(), pageable, 1));
+
+        Page<InvoiceItemDto> result = invoiceService.getInvoiceItems(invoiceId, pageable);
+
+        assertEquals(1, result.getTotalElements());
+        assertEquals(1, result.getContent().get(0).getLineNumber());
+        assertEquals(new BigDecimal("20.00"), result.getContent().get(0).getAmount());
     }
 
     @Test
@@ -275,6 +419,50 @@ class InvoiceServiceImplTest {
         verify(invoiceRepository, never()).deleteById(any());
     }
 
+    @Test
+    void shouldReportDeltasWithoutWritingOnDryRun() {
+        BulkRecalculationRequest request = new BulkRecalculationRequest();
+        request.setTaxRate(12.5);
+        request.setDryRun(true);
+        when(invoiceRepository.previewRecalculation(any(), any())).thenReturn(List.of(
+                new RecalculationPreview("USD", 3, 2, 0, 150, 150)));
+
+        BulkRecalculationResult result = invoiceService.bulkRecalculate(request);
+
+        assertTrue(result.isDryRun());
+        assertEquals(3, result.getMatchedCount());
+        assertEquals(2, result.getModifiedCount());
+        assertEquals(new BigDecimal("1.50"), result.getDeltas().get(0).getTotalAmountDelta());
+        verify(invoiceRepository, never()).recalculate(any(), any());
+    }
+
+    @Test
+    void shouldRecalculateInDatabase() {
+        BulkRecalculationRequest request = new BulkRecalculationRequest();
+        request.setUnitPricePercentChange(new BigDecimal("-10"));
+        request.setMinAmount(new BigDecimal("100.00"));
+        when(invoiceRepository.countExternalItemInvoices(any())).thenReturn(1L);
+        when(invoiceRepository.recalculate(any(), any())).thenReturn(UpdateResult.acknowledged(4, 4L, null));
+
+        BulkRecalculationResult result = invoiceService.bulkRecalculate(request);
+
+        ArgumentCaptor<InvoiceSearchCriteria> criteria = ArgumentCaptor.forClass(InvoiceSearchCriteria.class);
+        verify(invoiceRepository).recalculate(criteria.capture(), eq(new InvoiceRecalculation(null, -10.0)));
+        assertEquals(10000L, criteria.getValue().minAmount());
+        assertEquals(4, result.getModifiedCount());
+        assertEquals(1, result.getSkippedCount());
+    }
+
+    @Test
+    void shouldRejectBulkRecalculationOfFinalStateInvoices() {
+        BulkRecalculationRequest request = new BulkRecalculationRequest();
+        request.setTaxRate(10.0);
+        request.setStatus(InvoiceStatus.PAID);
+
+        assertThrows(BadRequestException.class, () -> invoiceService.bulkRecalculate(request));
+        verifyNoInteractions(invoiceRepository);
+    }
+
     @Test
     void shouldGetInvoicesByStatusSuccessfully() {
         
@@ -295,6 +483,45 @@ class InvoiceServiceImplTest {
         verify(invoiceMapper).toDto(invoice);
     }
 
+    @Test
+    void shouldFilterAmountsWithinTheDefaultCurrency() {
+        InvoiceFilter filter = new InvoiceFilter();
+        filter.setMinAmount(new BigDecimal("10.00"));
+        Pageable pageable = PageRequest.of(0, 10);
+        when(invoiceRepository.findRaw(any(InvoiceSearchCriteria.class), eq(pageable))).thenReturn(Page.empty());
+
+        invoiceService.findInvoiceJson(filter, pageable);
+
+        ArgumentCaptor<InvoiceSearchCriteria> criteria = ArgumentCaptor.forClass(InvoiceSearchCriteria.class);
+        verify(invoiceRepository).findRaw(criteria.capture(), eq(pageable));
+        assertEquals("USD", criteria.getValue().currency());
+        assertEquals(1000L, criteria.getValue().minAmount());
+    }
+
+    @Test
+    void shouldScaleAmountFiltersToTheFilterCurrency() {
+        InvoiceFilter filter = new InvoiceFilter();
+        filter.setCurrency("jpy");
+        filter.setMaxAmount(new BigDecimal("1500"));
+        when(invoiceRepository.findRaw(any(InvoiceSearchCriteria.class))).thenReturn(List.of());
+
+        invoiceService.findInvoiceJson(filter);
+
+        ArgumentCaptor<InvoiceSearchCriteria> criteria = ArgumentCaptor.forClass(InvoiceSearchCriteria.class);
+        verify(invoiceRepository).findRaw(criteria.capture());
+        assertEquals("JPY", criteria.getValue().currency());
+        assertEquals(1500L, criteria.getValue().maxAmount());
+    }
+
+    @Test
+    void shouldRejectAnUnsupportedFilterCurrency() {
+        InvoiceFilter filter = new InvoiceFilter();
+        filter.setCurrency("XYZ1");
+
+        assertThrows(BadRequestException.class, () -> invoiceService.findInvoiceJson(filter));
+        verifyNoInteractions(invoiceRepository);
+    }
+
     @Test
     void shouldGenerateNextInvoiceNumberCorrectly() {
         
@@ -0,0 +1,169 @@
+package com.niyiment.invoice.service.impl;
+
+import com.niyiment.invoice.config.ReportRenderingProperties;
+import com.niyiment.invoice.domain.repository.QueryDeadline;
+import com.niyiment.invoice.exception.ReportException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportRendererTest {
+    private ReportRenderer reportRenderer;
+    private ExecutorService virtualThreads;
+
+    @BeforeEach
+    void setUp() {
+        ReportRenderingProperties properties = new ReportRenderingProperties();
+        properties.setThreads(2);
+        properties.setChunkSize(DataSize.ofBytes(1024));
+        properties.setBufferedChunks(2);
+        reportRenderer = new ReportRenderer(properties);
+        virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        virtualThreads.shutdownNow();
+        reportRenderer.destroy();
+    }
+
+    @Test
+    void shouldRenderOnPlatformThreadWhenCalledFromVirtualThread() throws Exception {
+        byte[] report = new byte[100_000];
+        Arrays.fill(report, (byte) 'x');
+        AtomicReference<Thread> renderingThread = new AtomicReference<>();
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+
+        virtualThreads.submit(() -> reportRenderer.render(response, out -> {
+            renderingThread.set(Thread.currentThread());
+            try (out) {
+                out.write(report);
+            } catch (IOException exception) {
+                throw new ReportException("write failed", exception);
+            }
+        })).get(5, TimeUnit.SECONDS);
+
+        assertFalse(renderingThread.get().isVirtual(), "Rendering should run on a platform thread");
+        assertArrayEquals(report, response.toByteArray(), "All rendered bytes should reach the response");
+    }
+
+    @Test
+    void shouldRenderInPlaceOnPlatformThreads() {
+        AtomicReference<Thread> renderingThread = new AtomicReference<>();
+
+        reportRenderer.render(new ByteArrayOutputStream(), out -> renderingThread.set(Thread.currentThread()));
+
+        assertSame(Thread.currentThread(), renderingThread.get());
+    }
+
+    @Test
+    void shouldPropagateRenderingFailure() {
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> virtualThreads.submit(() ->
+                reportRenderer.render(new ByteArrayOutputStream(), out -> {
+                    throw new ReportException("Error exporting invoices to PDF");
+                })).get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(ReportException.class, exception.getCause());
+        assertEquals("Error exporting invoices to PDF", exception.getCause().getMessage());
+    }
+
+    @Test
+    void shouldStopRenderingWhenClientGoesAway() throws Exception {
+        CountDownLatch renderingStopped = new CountDownLatch(1);
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> virtualThreads.submit(() ->
+                reportRenderer.render(disconnected, out -> {
+                    try {
+                        while (true) {
+                            out.write(new byte[512]);
+                        }
+                    } catch (IOException writeFailure) {
+                        throw new ReportException("Error exporting invoices to PDF", writeFailure);
+                    } finally {
+                        renderingStopped.countDown();
+                    }
+                })).get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(ReportException.class, exception.getCause());
+        assertTrue(renderingStopped.await(5, TimeUnit.SECONDS), "Rendering should stop once the client is gone");
+    }
+
+    @Test
+    void shouldRenderWithCallersDeadline() throws Exception {
+        AtomicLong remainingNanos = new AtomicLong();
+
+        virtualThreads.submit(() -> {
+            try (QueryDeadline.Scope deadline = QueryDeadline.start(Duration.ofSeconds(30))) {
+                reportRenderer.render(new ByteArrayOutputStream(), out -> {
+                    assertFalse(Thread.currentThread().isVirtual());
+                    remainingNanos.set(QueryDeadline.remainingNanos());
+                });
+            }
+        }).get(5, TimeUnit.SECONDS);
+
+        assertTrue(remainingNanos.get() > 0 && remainingNanos.get() <= Duration.ofSeconds(30).toNanos(),
+                "Rendering thread should see the caller's deadline");
+    }
+
+    @Test
+    void shouldTimeRenderingOnRenderingThreadWhileSlowClientIsWritten() throws Exception {
+        OutputStream slowClient = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                sleep(10);
+            }
+        };
+        byte[] chunk = new byte[1024];
+
+        try (ReportEvent event = ReportEvent.start("test", null)) {
+            virtualThreads.submit(() -> reportRenderer.render(event.measure(slowClient), event.rendering(out -> {
+                try (out) {
+                    for (int i = 0; i < 10; i++) {
+                        sleep(3);
+                        out.write(chunk);
+                    }
+                } catch (IOException exception) {
+                    throw new ReportException("write failed", exception);
+                }
+            }))).get(5, TimeUnit.SECONDS);
+
+            assertTrue(event.writeTime >= TimeUnit.MILLISECONDS.toNanos(100));
+            assertTrue(event.renderTime >= TimeUnit.MILLISECONDS.toNanos(30),
+                    "Render time should not shrink by the writes overlapping it, was " + event.renderTime);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
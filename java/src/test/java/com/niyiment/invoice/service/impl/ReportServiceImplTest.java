@@ -1,25 +1,38 @@
 package com.niyiment.invoice.service.impl;
 
+import com.niyiment.invoice.config.ReportRenderingProperties;
 import com.niyiment.invoice.domain.dto.InvoiceDto;
 import com.niyiment.invoice.domain.enums.ExportFormat;
 import com.niyiment.invoice.domain.enums.InvoiceStatus;
+import com.niyiment.invoice.domain.money.Money;
 import com.niyiment.invoice.domain.repository.InvoiceRepository;
+import com.niyiment.invoice.domain.repository.InvoiceSearchCriteria;
 import com.niyiment.invoice.service.InvoiceService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.OutputStream;
+import java.nio.file.Path;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 
@@ -32,6 +45,15 @@ class ReportServiceImplTest {
     @Mock
     private InvoiceService invoiceService;
 
+    @Mock
+    private InvoiceReportReader invoiceReportReader;
+
+    @Spy
+    private ReportRenderer reportRenderer = new ReportRenderer(new ReportRenderingProperties());
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private ReportServiceImpl reportService;
 
@@ -47,7 +69,7 @@ class ReportServiceImplTest {
         mockInvoice1.setInvoiceDate(LocalDateTime.now().minusDays(30));
         mockInvoice1.setDueDate(LocalDateTime.now().plusDays(30));
         mockInvoice1.setStatus(InvoiceStatus.PAID);
-        mockInvoice1.setTotalAmount(100.0);
+        mockInvoice1.setTotalAmount(new BigDecimal("100.00"));
 
         mockInvoice2 = new InvoiceDto();
         mockInvoice2.setId("2");
@@ -55,7 +77,7 @@ class ReportServiceImplTest {
         mockInvoice2.setInvoiceDate(LocalDateTime.now().minusDays(30));
         mockInvoice2.setDueDate(LocalDateTime.now().plusDays(20));
         mockInvoice2.setStatus(InvoiceStatus.PAID);
-        mockInvoice2.setTotalAmount(150.0);
+        mockInvoice2.setTotalAmount(new BigDecimal("150.00"));
     }
 
     @Test
@@ -66,59 +88,59 @@ class ReportServiceImplTest {
 
         mockInvoices = List.of(mockInvoice1, mockInvoice2);
 
-        when(invoiceService.advancedSearch(null, InvoiceStatus.PAID, startDate, endDate, null, null))
+        when(invoiceReportReader.search(eq(new InvoiceSearchCriteria(null, null, InvoiceStatus.PAID, startDate, endDate,
+                "USD", null, null, null)), any()))
                 .thenReturn(mockInvoices);
 
         // When
-        Map<String, Double> report = reportService.generateRevenueReportByCustomer(startDate, endDate);
+        Map<String, BigDecimal> report = reportService.generateRevenueReportByCustomer(startDate, endDate,
+                Money.DEFAULT_CURRENCY);
 
         // Then
         assertEquals(2, report.size());
-        assertEquals(100.0, report.get("Customer 1"));
-        assertEquals(150.0, report.get("Customer 2"));
+        assertEquals(new BigDecimal("100.00"), report.get("Customer 1"));
+        assertEquals(new BigDecimal("150.00"), report.get("Customer 2"));
     }
 
     @Test
     void shouldGenerateAgingReport() {
-        InvoiceDto currentInvoice = new InvoiceDto("1", "Customer A", InvoiceStatus.SENT, 100.0,
+        InvoiceDto currentInvoice = new InvoiceDto("1", "Customer A", InvoiceStatus.SENT, new BigDecimal("100.00"),
                 LocalDateTime.now(), LocalDateTime.now().plusDays(10));
-        InvoiceDto overdueInvoice1 = new InvoiceDto("2", "Customer B", InvoiceStatus.OVERDUE, 300.0,
+        InvoiceDto overdueInvoice1 = new InvoiceDto("2", "Customer B", InvoiceStatus.OVERDUE, new BigDecimal("300.00"),
                 LocalDateTime.now().minusDays(40), LocalDateTime.now().minusDays(30));
-        InvoiceDto overdueInvoice2 =  new InvoiceDto("3", "Customer C", InvoiceStatus.OVERDUE, 500.0,
+        InvoiceDto overdueInvoice2 =  new InvoiceDto("3", "Customer C", InvoiceStatus.OVERDUE, new BigDecimal("500.00"),
                 LocalDateTime.now().minusDays(20), LocalDateTime.now().minusDays(60));
-        InvoiceDto overdueInvoice3 =  new InvoiceDto("4", "Customer D", InvoiceStatus.OVERDUE, 400.0,
+        InvoiceDto overdueInvoice3 =  new InvoiceDto("4", "Customer D", InvoiceStatus.OVERDUE, new BigDecimal("400.00"),
                 LocalDateTime.now().minusDays(20), LocalDateTime.now().minusDays(100));
-        InvoiceDto paidInvoice =  new InvoiceDto("5", "Customer E", InvoiceStatus.PAID, 200.0,
-                LocalDateTime.now().minusDays(30), LocalDateTime.now().plusDays(5));
 
-        mockInvoices = List.of(currentInvoice, overdueInvoice1, overdueInvoice2, overdueInvoice3, paidInvoice);
-        when(invoiceService.advancedSearch(any(), any(), any(), any(), any(), any())).thenReturn(mockInvoices);
+        mockInvoices = List.of(currentInvoice, overdueInvoice1, overdueInvoice2, overdueInvoice3);
+        when(invoiceReportReader.findOpen(eq(Money.DEFAULT_CURRENCY), any())).thenReturn(mockInvoices);
 
-        Map<String, Double> report = reportService.generateAgingReport();
+        Map<String, BigDecimal> report = reportService.generateAgingReport(Money.DEFAULT_CURRENCY);
 
         assertEquals(5, report.size());
-        assertEquals(100.0, report.get("Current"));
-        assertEquals(300.0, report.get("1-30 days"));
-        assertEquals(500.0, report.get("31-60 days"));
-        assertEquals(0.0, report.get("61-90 days"));
-        assertEquals(400.0, report.get("90+ days"));
+        assertEquals(new BigDecimal("100.00"), report.get("Current"));
+        assertEquals(new BigDecimal("300.00"), report.get("1-30 days"));
+        assertEquals(new BigDecimal("500.00"), report.get("31-60 days"));
+        assertEquals(new BigDecimal("0.00"), report.get("61-90 days"));
+        assertEquals(new BigDecimal("400.00"), report.get("90+ days"));
 
     }
 
     @Test
     void shouldGenerateInvoiceByStatusReport() {
-        InvoiceDto currentInvoice = new InvoiceDto("1", "Customer A", InvoiceStatus.SENT, 100.0,
+        InvoiceDto currentInvoice = new InvoiceDto("1", "Customer A", InvoiceStatus.SENT, new BigDecimal("100.00"),
                 LocalDateTime.now(), LocalDateTime.now().plusDays(10));
-        InvoiceDto currentInvoice1 = new InvoiceDto("2", "Customer B", InvoiceStatus.SENT, 300.0,
+        InvoiceDto currentInvoice1 = new InvoiceDto("2", "Customer B", InvoiceStatus.SENT, new BigDecimal("300.00"),
                 LocalDateTime.now(), LocalDateTime.now().plusDays(30));
-        InvoiceDto overdueInvoice2 =  new InvoiceDto("3", "Customer C", InvoiceStatus.OVERDUE, 500.0,
+        InvoiceDto overdueInvoice2 =  new InvoiceDto("3", "Customer C", InvoiceStatus.OVERDUE, new BigDecimal("500.00"),
                 LocalDateTime.now().minusDays(20), LocalDateTime.now().minusDays(100));
-        InvoiceDto paidInvoice3 =  new InvoiceDto("4", "Customer E", InvoiceStatus.PAID, 200.0,
+        InvoiceDto paidInvoice3 =  new InvoiceDto("4", "Customer E", InvoiceStatus.PAID, new BigDecimal("200.00"),
                 LocalDateTime.now().minusDays(30), LocalDateTime.now().plusDays(5));
 
         mockInvoices = List.of(currentInvoice, currentInvoice1, overdueInvoice2, paidInvoice3);
 
-        when(invoiceService.advancedSearch(any(), any(), any(), any(), any(), any())).thenReturn(mockInvoices);
+        when(invoiceReportReader.search(any(), any())).thenReturn(mockInvoices);
         Map<InvoiceStatus, Long> allInvoices = reportService.generateInvoicesByStatusReport();
 
         assertEquals(3, allInvoices.size());
@@ -130,10 +152,10 @@ class ReportServiceImplTest {
 
     @Test
     void shouldExportReport(){
-        Map<String, Double> reportData = Map.of(
-             "Category1", 200.0,
-                 "Category2", 500.0,
-                 "Category3", 300.0
+        Map<String, BigDecimal> reportData = Map.of(
+             "Category1", new BigDecimal("200.00"),
+                 "Category2", new BigDecimal("500.00"),
+                 "Category3", new BigDecimal("300.00")
         );
         String reportTitle = "Test Report";
 
@@ -142,6 +164,8 @@ class ReportServiceImplTest {
             reportService.exportReport(reportData, reportTitle, format, outputStream);
             assertFalse(outputStream.toString().isEmpty(), "Export to " +
                     format + " should produce output");
+            assertEquals(3, meterRegistry.get("invoice.exports.rows").tag("format", format.name())
+                    .summary().totalAmount(), "Export to " + format + " should record its rows");
         }
 
     }
@@ -159,4 +183,31 @@ class ReportServiceImplTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldRecordPhasesOfExportInFlightRecorder(@TempDir Path directory) throws Exception {
+        when(invoiceService.getInvoiceById("1")).thenReturn(mockInvoice1);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        Path file = directory.resolve("report.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(ReportEvent.class);
+            recording.start();
+            reportService.exportInvoice("1", ExportFormat.PDF, stream);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("com.niyiment.invoice.Report"))
+                .toList();
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals("exportInvoice", event.getString("operation"));
+        assertEquals("PDF", event.getString("format"));
+        assertEquals(stream.size(), event.getLong("bytes"));
+        assertTrue(event.getDuration("renderTime").toNanos() > 0);
+        assertTrue(event.getDuration("writeTime").toNanos() > 0);
+        assertTrue(event.getDuration().compareTo(event.getDuration("fetchTime").plus(event.getDuration("renderTime"))
+                .plus(event.getDuration("writeTime"))) >= 0, "Phases should not exceed the event's duration");
+    }
+}